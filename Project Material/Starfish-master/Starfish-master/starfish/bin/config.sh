@@ -66,16 +66,67 @@ EXCLUDE_PARAMETERS=""
 # Overwritten by the Hadoop parameter starfish.job.optimizer.output
 OUTPUT_LOCATION=stdout
 
+# The number of threads to use for asking what-if questions in parallel
+# The default is 1, which means that the questions are asked serially
+# Overwritten by the Hadoop parameter starfish.job.optimizer.num.threads
+NUM_WHATIF_THREADS=1
+
+# The max time (in ms) to spend searching for the best configuration before
+# the job is submitted with the best configuration found so far
+# The default is 0, which means that the search time is not bounded
+# Overwritten by the Hadoop parameter starfish.job.optimizer.time.budget.ms
+TIME_BUDGET_MS=0
+
+# Whether to screen the parameters before the search and prune the ones
+# with (almost) no effect on the predicted running time of the job
+# The options are: true, false (false is default)
+# Overwritten by the Hadoop parameter starfish.job.optimizer.screening
+SCREEN_PARAMETERS=false
+
+# The local directory of the recommendation store. When set, the optimizer
+# looks up the recommended settings of a job in the store before optimizing
+# it, and stores the settings it finds. Use 'bin/optimize populate' to
+# optimize all the profiled jobs offline. Empty (the default) disables it
+# Overwritten by the Hadoop parameter starfish.job.optimizer.store.dir
+RECOMMENDATION_STORE_DIR=
+
+# The max age (in ms) of a stored recommendation before it is ignored
+# The default is 0, which means that the recommendations never expire
+# Overwritten by the Hadoop parameter starfish.job.optimizer.store.max.age.ms
+RECOMMENDATION_MAX_AGE_MS=0
+
+# The local file for checkpointing the progress of long optimizations. When
+# set, a restarted optimization of the same job resumes from the saved
+# progress, and the costs evaluated before warm-start later optimizations of
+# the same job. Empty (the default) disables checkpointing
+# Overwritten by the Hadoop parameter starfish.job.optimizer.checkpoint.file
+CHECKPOINT_FILE=
+
+# The min time (in ms) between two saves of the checkpoint file
+# The default is 10000
+# Overwritten by the Hadoop parameter starfish.job.optimizer.checkpoint.interval.ms
+CHECKPOINT_INTERVAL_MS=10000
+
 
 ###################################################################
 # EXPERIMENTAL PARAMETERS - DON'T WORRY ABOUT THEM!!
 ###################################################################
 
 # The job optimizer to use.
-# The options are: full, smart_full, rrs, smart_rrs (smart_rrs is default)
+# The options are: full, smart_full, rrs, smart_rrs, bo, smart_bo, cmaes,
+# smart_cmaes, pareto
+# (smart_rrs is default)
 # Overwritten by the Hadoop parameter starfish.job.optimizer.type
 JOB_OPTIMIZER_TYPE=smart_rrs
 
+# The pareto optimizer finds the trade-offs between the running time and
+# the slot-seconds of the job, and picks the fastest configuration whose
+# slot-seconds are within this fraction of the minimum slot-seconds
+# The default is 0.1, i.e., within 10% of the minimum slot-seconds
+# Overwritten by the Hadoop parameter
+# starfish.job.optimizer.pareto.slot.tolerance
+PARETO_SLOT_TOLERANCE=0.1
+
 # The task scheduler to use by the optimizer
 # The options are: basic, advanced (advanced is default)
 # Overwritten by the Hadoop parameter starfish.whatif.task.scheduler
@@ -0,0 +1,55 @@
+package edu.duke.starfish.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The driver for running the Starfish benchmarks. It accepts all the standard
+ * JMH command line options and always enables the GC profiler, so that the
+ * allocation rate per operation is reported next to the throughput.
+ * 
+ * @author hero
+ */
+public class BenchmarkDriver {
+
+	/**
+	 * Main method for running the benchmarks
+	 * 
+	 * @param args
+	 *            the JMH command line options
+	 */
+	public static void main(String[] args) {
+
+		Options options;
+		try {
+			CommandLineOptions cmdOptions = new CommandLineOptions(args);
+			if (cmdOptions.shouldHelp()) {
+				cmdOptions.showHelp();
+				return;
+			}
+
+			options = new OptionsBuilder().parent(cmdOptions).addProfiler(
+					GCProfiler.class).jvmArgsAppend(
+					"-D" + BenchmarkJob.SAMPLES_DIR + "="
+							+ System.getProperty(BenchmarkJob.SAMPLES_DIR,
+									"samples/whatif")).build();
+		} catch (CommandLineOptionException e) {
+			System.err.println("ERROR: " + e.getMessage());
+			System.exit(-1);
+			return;
+		}
+
+		try {
+			new Runner(options).run();
+		} catch (RunnerException e) {
+			System.err.println("ERROR: " + e.getMessage());
+			System.exit(-1);
+		}
+	}
+
+}
@@ -0,0 +1,189 @@
+package edu.duke.starfish.benchmark;
+
+import java.io.File;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.profile.utils.XMLClusterParser;
+import edu.duke.starfish.profile.utils.XMLProfileParser;
+import edu.duke.starfish.whatif.data.DataSetModel;
+import edu.duke.starfish.whatif.data.FixedInputSpecsDataSetModel;
+import edu.duke.starfish.whatif.data.XMLInputSpecsParser;
+import edu.duke.starfish.whatif.junit.SampleDataSetModel;
+import edu.duke.starfish.whatif.junit.SampleProfiles;
+
+/**
+ * The inputs of a benchmark job: the job profile, the job configuration, the
+ * data set model, and the cluster the job was profiled on.
+ * 
+ * The jobs are either the sample profiles used by the What-if JUnit tests or
+ * the XML profiles found in the samples/whatif directory. The location of the
+ * latter is given by the system property {@link #SAMPLES_DIR}.
+ * 
+ * @author hero
+ */
+public class BenchmarkJob {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private MRJobProfile profile; // The job profile
+	private Configuration conf; // The job configuration
+	private DataSetModel model; // The data set model
+	private ClusterConfiguration cluster; // The profiled cluster
+
+	// Constants
+	public static final String SAMPLES_DIR = "starfish.samples.dir";
+	private static final String DEF_SAMPLES_DIR = "samples/whatif";
+
+	public static final String SAMPLE_TERASORT = "sample-terasort";
+	public static final String SAMPLE_WORDCOUNT = "sample-wordcount";
+
+	// The default task memory of the synthetic clusters (200MB)
+	private static final long SYNTHETIC_TASK_MEMORY = 200l << 20;
+	private static final int SYNTHETIC_HOSTS_PER_RACK = 20;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param profile
+	 *            the job profile
+	 * @param conf
+	 *            the job configuration
+	 * @param model
+	 *            the data set model
+	 * @param cluster
+	 *            the profiled cluster
+	 */
+	public BenchmarkJob(MRJobProfile profile, Configuration conf,
+			DataSetModel model, ClusterConfiguration cluster) {
+		this.profile = profile;
+		this.conf = conf;
+		this.model = model;
+		this.cluster = cluster;
+	}
+
+	/* ***************************************************************
+	 * GETTERS & SETTERS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @return the job profile
+	 */
+	public MRJobProfile getProfile() {
+		return profile;
+	}
+
+	/**
+	 * @return the job configuration
+	 */
+	public Configuration getConf() {
+		return conf;
+	}
+
+	/**
+	 * @return the data set model
+	 */
+	public DataSetModel getModel() {
+		return model;
+	}
+
+	/**
+	 * @return the profiled cluster
+	 */
+	public ClusterConfiguration getCluster() {
+		return cluster;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC STATIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Load a benchmark job. The name is either one of the sample jobs (i.e.,
+	 * {@link #SAMPLE_TERASORT} or {@link #SAMPLE_WORDCOUNT}) or the name of a
+	 * directory under samples/whatif (e.g., terasort, wordcount, cooccurrence)
+	 * containing the files profile.xml, conf.xml, input.xml, and cluster.xml.
+	 * 
+	 * @param name
+	 *            the job name
+	 * @return the benchmark job
+	 */
+	public static BenchmarkJob loadJob(String name) {
+
+		if (name.equals(SAMPLE_TERASORT)) {
+			Configuration conf = SampleProfiles.getTeraSortConfiguration();
+			conf.setInt(SampleDataSetModel.NUM_MAPPERS, 200);
+			conf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+			conf.setBoolean(SampleDataSetModel.USE_AVG_PROFILE, false);
+			conf.setInt(Constants.MR_RED_TASKS, 30);
+			return new BenchmarkJob(SampleProfiles.getTeraSortJobProfile(),
+					conf, new SampleDataSetModel(), SampleProfiles
+							.getClusterConfiguration());
+
+		} else if (name.equals(SAMPLE_WORDCOUNT)) {
+			Configuration conf = SampleProfiles.getWordCountConfiguration();
+			conf.setInt(SampleDataSetModel.NUM_MAPPERS, 43);
+			conf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+			conf.setBoolean(SampleDataSetModel.USE_AVG_PROFILE, false);
+			conf.setInt(Constants.MR_RED_TASKS, 7);
+			return new BenchmarkJob(SampleProfiles.getWordCountJobProfile(),
+					conf, new SampleDataSetModel(), SampleProfiles
+							.getClusterConfiguration());
+		}
+
+		// Load the job from the samples directory
+		File dir = getSampleDir(name);
+		Configuration conf = new Configuration(false);
+		conf.addResource(new Path(new File(dir, "conf.xml").getAbsolutePath()));
+
+		return new BenchmarkJob(XMLProfileParser.importJobProfile(new File(
+				dir, "profile.xml")), conf, new FixedInputSpecsDataSetModel(
+				XMLInputSpecsParser.importMapInputSpecs(new File(dir,
+						"input.xml"))), XMLClusterParser
+				.importCluster(new File(dir, "cluster.xml")));
+	}
+
+	/**
+	 * Find the directory of a sample job under samples/whatif (or the
+	 * directory specified by {@link #SAMPLES_DIR})
+	 * 
+	 * @param name
+	 *            the job name (e.g., terasort, wordcount, cooccurrence)
+	 * @return the directory of the job
+	 */
+	public static File getSampleDir(String name) {
+		File dir = new File(System.getProperty(SAMPLES_DIR, DEF_SAMPLES_DIR),
+				name);
+		if (!dir.isDirectory())
+			throw new RuntimeException("ERROR: Unable to find the job "
+					+ name + " in " + dir.getAbsolutePath());
+		return dir;
+	}
+
+	/**
+	 * Create a synthetic cluster with the given number of nodes, organized in
+	 * racks of (at most) 20 nodes. Each node has 2 map and 2 reduce slots.
+	 * 
+	 * @param numNodes
+	 *            the number of nodes
+	 * @return the cluster
+	 */
+	public static ClusterConfiguration createCluster(int numNodes) {
+		int hostsPerRack = Math.min(numNodes, SYNTHETIC_HOSTS_PER_RACK);
+		int numRacks = (numNodes + hostsPerRack - 1) / hostsPerRack;
+
+		return ClusterConfiguration.createClusterConfiguration("synthetic-"
+				+ numNodes, numRacks, hostsPerRack, 2, 2,
+				SYNTHETIC_TASK_MEMORY);
+	}
+
+}
@@ -0,0 +1,113 @@
+package edu.duke.starfish.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.duke.starfish.profile.junit.JUnitUtils;
+import edu.duke.starfish.profile.profiler.MRJobLogsManager;
+
+/**
+ * Benchmarks for opening a large history directory, i.e., listing and pairing
+ * the history files and parsing the job summaries of all the jobs, as done by
+ * the analyze tool and the visualizer. The synthetic history directory is
+ * created once per trial in a temporary results directory, along with the
+ * job summary catalog of all the jobs. Hence, getAllMRJobInfosFromCatalog
+ * measures reopening the results directory when there are no new jobs.
+ * 
+ * @author hero
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryIngestionBenchmark {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	@Param( { "50000" })
+	public int numJobs;
+
+	@Param( { "1", "2", "4", "8" })
+	public int numThreads;
+
+	private File resultsDir; // The results directory
+	private File historyDir; // The synthetic history directory
+
+	// The launch time of the first job
+	private static final long LAUNCH_TIME = 1289100000000l;
+
+	/**
+	 * Create the synthetic history directory and the job summary catalog
+	 * 
+	 * @throws IOException
+	 */
+	@Setup
+	public void setup() throws IOException {
+		resultsDir = File.createTempFile("starfish-results", "");
+		resultsDir.delete();
+		historyDir = new File(resultsDir, "history");
+		if (!historyDir.mkdirs())
+			throw new IOException("Unable to create " + historyDir);
+
+		for (int i = 1; i <= numJobs; ++i)
+			JUnitUtils.writeJobHistory(historyDir, i, LAUNCH_TIME + i * 60000l);
+
+		MRJobLogsManager manager = new MRJobLogsManager();
+		manager.setResultsDir(resultsDir.getAbsolutePath());
+		manager.getAllMRJobInfos();
+	}
+
+	/**
+	 * Delete the results directory
+	 */
+	@TearDown
+	public void tearDown() {
+		for (File file : historyDir.listFiles())
+			file.delete();
+		historyDir.delete();
+		for (File file : resultsDir.listFiles())
+			file.delete();
+		resultsDir.delete();
+	}
+
+	/* ***************************************************************
+	 * BENCHMARKS
+	 * ***************************************************************
+	 */
+
+	@Benchmark
+	public int getAllMRJobInfos() {
+		MRJobLogsManager manager = new MRJobLogsManager();
+		manager.setNumThreads(numThreads);
+		manager.setHistoryDir(historyDir.getAbsolutePath());
+		return manager.getAllMRJobInfos().size();
+	}
+
+	@Benchmark
+	public int getAllMRJobInfosFromCatalog() {
+		MRJobLogsManager manager = new MRJobLogsManager();
+		manager.setNumThreads(numThreads);
+		manager.setResultsDir(resultsDir.getAbsolutePath());
+		return manager.getAllMRJobInfos().size();
+	}
+
+}
@@ -0,0 +1,80 @@
+package edu.duke.starfish.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.duke.starfish.whatif.oracle.MergeSimulator;
+
+/**
+ * Benchmarks for the merge simulation performed by the map and reduce oracles
+ * for every what-if question, with and without a combiner.
+ * 
+ * @author hero
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeSimulatorBenchmark {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	@Param( { "10", "100", "1000", "10000" })
+	public int numSpills;
+
+	@Param( { "10", "100" })
+	public int sortFactor;
+
+	// Segment sizes typical of a 100MB sort buffer
+	private static final long SEGMENT_SIZE = 80l << 20;
+	private static final long SEGMENT_RECORDS = 800000l;
+
+	/* ***************************************************************
+	 * BENCHMARKS
+	 * ***************************************************************
+	 */
+
+	@Benchmark
+	public long simulateMerge() {
+		MergeSimulator merger = new MergeSimulator();
+		merger.addSegments(numSpills, SEGMENT_SIZE, SEGMENT_RECORDS);
+		merger.simulateMerge(sortFactor);
+		return merger.getBytesWritten();
+	}
+
+	@Benchmark
+	public long simulateMergeWithCombiner() {
+		MergeSimulator merger = new MergeSimulator();
+		merger.addSegments(numSpills, SEGMENT_SIZE, SEGMENT_RECORDS);
+		merger.enableCombiner(3, 0.5d, 0.5d);
+		merger.simulateMerge(sortFactor);
+		return merger.getBytesWritten();
+	}
+
+	@Benchmark
+	public long simulateReduceMerge() {
+		MergeSimulator merger = new MergeSimulator();
+		merger.addMemSegments(numSpills / 2, SEGMENT_SIZE / 4,
+				SEGMENT_RECORDS / 4);
+		merger.addSegments(numSpills - numSpills / 2, SEGMENT_SIZE,
+				SEGMENT_RECORDS);
+		merger.simulateMerge(sortFactor, true);
+		return merger.getBytesWritten();
+	}
+
+}
@@ -0,0 +1,90 @@
+package edu.duke.starfish.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.SmartRRSJobOptimizer;
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+
+/**
+ * Benchmarks for a full run of the Smart RRS job optimizer, i.e., the latency
+ * of a job optimization request on synthetic clusters of different sizes.
+ * 
+ * The random seed is fixed so that all runs ask the same what-if questions.
+ * 
+ * @author hero
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OptimizerBenchmark {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	@Param( { BenchmarkJob.SAMPLE_TERASORT, BenchmarkJob.SAMPLE_WORDCOUNT,
+			"terasort", "wordcount", "cooccurrence" })
+	public String job;
+
+	@Param( { "10", "100", "1000" })
+	public int numNodes;
+
+	@Param( { "1", "4" })
+	public int numThreads;
+
+	private BenchmarkJob benchJob;
+	private ClusterConfiguration cluster;
+
+	// Fixed seed for the random parameter values
+	private static final long RANDOM_SEED = 23l;
+
+	/**
+	 * Load the job and create the cluster
+	 */
+	@Setup
+	public void setup() {
+		benchJob = BenchmarkJob.loadJob(job);
+		cluster = BenchmarkJob.createCluster(numNodes);
+	}
+
+	/* ***************************************************************
+	 * BENCHMARKS
+	 * ***************************************************************
+	 */
+
+	@Benchmark
+	public double smartRRSOptimize() {
+		Configuration conf = new Configuration(benchJob.getConf());
+		conf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, numThreads);
+
+		ParameterDescriptor.setRandomSeed(RANDOM_SEED);
+		SmartRRSJobOptimizer optimizer = new SmartRRSJobOptimizer(
+				new JobProfileOracle(benchJob.getProfile()), benchJob
+						.getModel(), new BasicFIFOScheduler(cluster), cluster,
+				conf);
+		optimizer.optimize();
+		return optimizer.getBestRunningTime();
+	}
+
+}
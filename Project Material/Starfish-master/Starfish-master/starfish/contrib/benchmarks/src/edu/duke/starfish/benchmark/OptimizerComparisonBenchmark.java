@@ -0,0 +1,109 @@
+package edu.duke.starfish.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+
+/**
+ * Compares the search strategies of the job optimizer on the same jobs. The
+ * benchmark measures the latency of an optimization request, while the best
+ * running time found and the number of what-if calls made (both fixed for a
+ * given random seed) are printed at the end of each trial, since the point of
+ * Bayesian optimization and CMA-ES is to reach the same quality with fewer
+ * what-if calls than recursive random search.
+ * 
+ * @author hero
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OptimizerComparisonBenchmark {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	@Param( { BenchmarkJob.SAMPLE_TERASORT, BenchmarkJob.SAMPLE_WORDCOUNT })
+	public String job;
+
+	@Param( { "smart_rrs", "smart_bo", "smart_cmaes", "rrs", "bo", "cmaes" })
+	public String optimizerType;
+
+	@Param( { "10" })
+	public int numNodes;
+
+	private BenchmarkJob benchJob;
+	private ClusterConfiguration cluster;
+
+	// The results of the last optimization
+	private double bestRunningTime;
+	private int numWhatIfCalls;
+
+	// Fixed seed for the random parameter values
+	private static final long RANDOM_SEED = 23l;
+
+	/**
+	 * Load the job and create the cluster
+	 */
+	@Setup
+	public void setup() {
+		benchJob = BenchmarkJob.loadJob(job);
+		cluster = BenchmarkJob.createCluster(numNodes);
+	}
+
+	/**
+	 * Print the quality of the optimization and its what-if calls
+	 */
+	@TearDown(Level.Trial)
+	public void report() {
+		System.out.println();
+		System.out.println("Optimizer: " + optimizerType + " Job: " + job
+				+ " Best running time (ms): " + bestRunningTime
+				+ " What-if calls: " + numWhatIfCalls);
+	}
+
+	/* ***************************************************************
+	 * BENCHMARKS
+	 * ***************************************************************
+	 */
+
+	@Benchmark
+	public double optimize() {
+		Configuration conf = new Configuration(benchJob.getConf());
+
+		ParameterDescriptor.setRandomSeed(RANDOM_SEED);
+		JobOptimizer optimizer = JobOptimizer.getJobOptimizer(optimizerType,
+				new JobProfileOracle(benchJob.getProfile()), benchJob
+						.getModel(), cluster, conf, new BasicFIFOScheduler(
+						cluster));
+		optimizer.optimize();
+
+		bestRunningTime = optimizer.getBestRunningTime();
+		numWhatIfCalls = optimizer.getNumWhatIfCalls();
+		return bestRunningTime;
+	}
+
+}
@@ -0,0 +1,84 @@
+package edu.duke.starfish.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.utils.BinaryProfileParser;
+import edu.duke.starfish.profile.utils.XMLProfileParser;
+
+/**
+ * Benchmarks for importing a job profile from the XML and the binary formats.
+ * The files are read in memory during setup, so only the parsing is measured.
+ * 
+ * @author hero
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileImportBenchmark {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	@Param( { "terasort", "wordcount", "cooccurrence" })
+	public String job;
+
+	private byte[] xmlProfile;
+	private byte[] binProfile;
+
+	/**
+	 * Load the XML profile of the job and convert it to the binary format
+	 */
+	@Setup
+	public void setup() {
+		File profFile = new File(BenchmarkJob.getSampleDir(job), "profile.xml");
+		MRJobProfile profile = XMLProfileParser.importJobProfile(profFile);
+
+		ByteArrayOutputStream xml = new ByteArrayOutputStream();
+		XMLProfileParser.exportJobProfile(profile, new PrintStream(xml));
+		xmlProfile = xml.toByteArray();
+
+		ByteArrayOutputStream bin = new ByteArrayOutputStream();
+		BinaryProfileParser.exportJobProfile(profile, bin);
+		binProfile = bin.toByteArray();
+	}
+
+	/* ***************************************************************
+	 * BENCHMARKS
+	 * ***************************************************************
+	 */
+
+	@Benchmark
+	public MRJobProfile importXML() {
+		return XMLProfileParser.importJobProfile(new ByteArrayInputStream(
+				xmlProfile));
+	}
+
+	@Benchmark
+	public MRJobProfile importBinary() {
+		return BinaryProfileParser.importJobProfile(new ByteArrayInputStream(
+				binProfile));
+	}
+
+}
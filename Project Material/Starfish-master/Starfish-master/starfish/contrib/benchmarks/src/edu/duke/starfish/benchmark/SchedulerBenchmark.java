@@ -0,0 +1,94 @@
+package edu.duke.starfish.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.whatif.JobSettings;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+
+/**
+ * Benchmarks for scheduling a virtual job profile on synthetic clusters of
+ * different sizes, using both the full and the time-only simulations.
+ * 
+ * The scheduler is reset before every call, like the optimizers do.
+ * 
+ * @author hero
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerBenchmark {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	@Param( { BenchmarkJob.SAMPLE_TERASORT, BenchmarkJob.SAMPLE_WORDCOUNT,
+			"terasort", "wordcount", "cooccurrence" })
+	public String job;
+
+	@Param( { "10", "100", "1000" })
+	public int numNodes;
+
+	private BasicFIFOScheduler scheduler;
+	private MRJobProfile virtualProf;
+	private Configuration conf;
+	private JobSettings settings;
+	private Date submissionTime;
+
+	/**
+	 * Generate the virtual job profile to schedule
+	 */
+	@Setup
+	public void setup() {
+		BenchmarkJob benchJob = BenchmarkJob.loadJob(job);
+		conf = benchJob.getConf();
+		settings = new JobSettings(conf);
+		virtualProf = new JobProfileOracle(benchJob.getProfile()).whatif(
+				settings, benchJob.getModel());
+
+		scheduler = new BasicFIFOScheduler(BenchmarkJob
+				.createCluster(numNodes));
+		submissionTime = new Date();
+	}
+
+	/* ***************************************************************
+	 * BENCHMARKS
+	 * ***************************************************************
+	 */
+
+	@Benchmark
+	public MRJobInfo scheduleJobGetJobInfo() {
+		scheduler.reset();
+		return scheduler.scheduleJobGetJobInfo(submissionTime, virtualProf,
+				conf);
+	}
+
+	@Benchmark
+	public double scheduleJobGetTime() {
+		scheduler.reset();
+		return scheduler.scheduleJobGetTime(submissionTime, virtualProf,
+				settings);
+	}
+
+}
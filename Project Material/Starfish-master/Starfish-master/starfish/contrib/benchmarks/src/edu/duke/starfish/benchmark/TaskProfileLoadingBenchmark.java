@@ -0,0 +1,105 @@
+package edu.duke.starfish.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.duke.starfish.profile.junit.JUnitUtils;
+import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
+import edu.duke.starfish.profile.profiler.loaders.MRTaskProfilesLoader;
+import edu.duke.starfish.profile.utils.Constants;
+
+/**
+ * Benchmarks for generating the profile of a completed job from the BTrace
+ * profiles of its tasks, i.e., parsing the profile files, calculating the
+ * task profiles, and averaging them into the job profile. The synthetic task
+ * profiles of a map-only job are created once per trial in a temporary
+ * directory.
+ * 
+ * @author hero
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskProfileLoadingBenchmark {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	@Param( { "20000" })
+	public int numMaps;
+
+	@Param( { "1", "2", "4", "8" })
+	public int numThreads;
+
+	private File profilesDir; // The synthetic task profiles directory
+	private Configuration conf; // The job configuration
+
+	private static final String JOB_ID = "job_201011062135_0001";
+
+	/**
+	 * Create the synthetic task profiles
+	 * 
+	 * @throws IOException
+	 */
+	@Setup
+	public void setup() throws IOException {
+		profilesDir = File.createTempFile("starfish-task-profiles", "");
+		profilesDir.delete();
+		if (!profilesDir.mkdirs())
+			throw new IOException("Unable to create " + profilesDir);
+
+		for (int i = 0; i < numMaps; ++i)
+			JUnitUtils.writeMapProfile(profilesDir, JOB_ID, i);
+
+		conf = new Configuration(false);
+		conf.setInt(Constants.MR_RED_TASKS, 0);
+		conf.set(Constants.MR_INPUT_DIR, "/input");
+	}
+
+	/**
+	 * Delete the task profiles directory
+	 */
+	@TearDown
+	public void tearDown() {
+		for (File file : profilesDir.listFiles())
+			file.delete();
+		profilesDir.delete();
+	}
+
+	/* ***************************************************************
+	 * BENCHMARKS
+	 * ***************************************************************
+	 */
+
+	@Benchmark
+	public MRJobInfo loadExecutionProfile() {
+		MRJobInfo job = JUnitUtils.getMapOnlyJob(JOB_ID, numMaps);
+		MRTaskProfilesLoader loader = new MRTaskProfilesLoader(job, conf,
+				profilesDir.getAbsolutePath());
+		loader.setNumThreads(numThreads);
+		if (!loader.loadExecutionProfile(job))
+			throw new RuntimeException("ERROR: Unable to load the profile");
+		return job;
+	}
+
+}
@@ -0,0 +1,110 @@
+package edu.duke.starfish.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRMapProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRReduceProfile;
+import edu.duke.starfish.whatif.JobSettings;
+import edu.duke.starfish.whatif.data.DataSetModel;
+import edu.duke.starfish.whatif.data.MapInputSpecs;
+import edu.duke.starfish.whatif.data.ReduceShuffleSpecs;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.oracle.MapProfileOracle;
+import edu.duke.starfish.whatif.oracle.ReduceProfileOracle;
+
+/**
+ * Benchmarks for the profile oracles, i.e., the cost of generating a virtual
+ * map, reduce, or job profile for one what-if question.
+ * 
+ * The oracles keep per-call state, so each benchmark thread gets its own.
+ * 
+ * @author hero
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WhatIfOracleBenchmark {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	@Param( { BenchmarkJob.SAMPLE_TERASORT, BenchmarkJob.SAMPLE_WORDCOUNT,
+			"terasort", "wordcount", "cooccurrence" })
+	public String job;
+
+	private DataSetModel model;
+	private JobSettings settings;
+
+	private MapProfileOracle mapOracle;
+	private ReduceProfileOracle redOracle;
+	private JobProfileOracle jobOracle;
+
+	private MapInputSpecs mapSpecs;
+	private ReduceShuffleSpecs shuffleSpecs;
+
+	/**
+	 * Load the job and prepare the inputs of the oracles
+	 */
+	@Setup
+	public void setup() {
+		BenchmarkJob benchJob = BenchmarkJob.loadJob(job);
+		MRJobProfile sourceProf = benchJob.getProfile();
+		model = benchJob.getModel();
+		settings = new JobSettings(benchJob.getConf());
+
+		mapOracle = new MapProfileOracle(sourceProf.getAvgMapProfiles().get(0));
+		jobOracle = new JobProfileOracle(sourceProf);
+		mapSpecs = model.generateMapInputSpecs(settings.getConfiguration())
+				.get(0);
+
+		MRReduceProfile redProf = sourceProf.getAvgReduceProfile();
+		if (redProf != null) {
+			redOracle = new ReduceProfileOracle(redProf);
+			List<MRMapProfile> virtualMaps = jobOracle.whatif(settings, model)
+					.getAvgMapProfiles();
+			shuffleSpecs = model.generateReduceShuffleSpecs(settings,
+					virtualMaps).get(0);
+		}
+	}
+
+	/* ***************************************************************
+	 * BENCHMARKS
+	 * ***************************************************************
+	 */
+
+	@Benchmark
+	public MRMapProfile mapWhatIf() {
+		return mapOracle.whatif(settings, mapSpecs);
+	}
+
+	@Benchmark
+	public MRReduceProfile reduceWhatIf() {
+		return redOracle == null ? null : redOracle.whatif(settings,
+				shuffleSpecs);
+	}
+
+	@Benchmark
+	public MRJobProfile jobWhatIf() {
+		return jobOracle.whatif(settings, model);
+	}
+
+}
@@ -24,7 +24,9 @@ public class BTraceJobOptimizer {
 
 	/**
 	 * Probe for performing the job optimization right before the job is
-	 * submitted to the cluster.
+	 * submitted to the cluster. The submission is blocked until the
+	 * optimization completes, so the optimization time can be bounded using
+	 * "starfish.job.optimizer.time.budget.ms".
 	 */
 	@OnMethod(clazz = "org.apache.hadoop.mapreduce.Job", 
 			method = "submit", 
@@ -5,6 +5,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.List;
+import java.util.Properties;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -19,10 +20,15 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 
 import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.ParetoJobOptimizer;
+import edu.duke.starfish.jobopt.store.BatchRecommender;
+import edu.duke.starfish.jobopt.store.Recommendation;
+import edu.duke.starfish.jobopt.store.RecommendationStore;
 import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.profiler.MRJobLogsManager;
+import edu.duke.starfish.profile.utils.ProfileUtils;
 import edu.duke.starfish.profile.utils.XMLClusterParser;
-import edu.duke.starfish.profile.utils.XMLProfileParser;
 import edu.duke.starfish.whatif.data.DataSetModel;
 import edu.duke.starfish.whatif.data.FixedInputSpecsDataSetModel;
 import edu.duke.starfish.whatif.data.MapInputSpecs;
@@ -43,13 +49,20 @@ import edu.duke.starfish.whatif.scheduler.IWhatIfScheduler;
  *  The optimizer's parameters must be one of:
  *  
  *   -profile &lt;file&gt; -conf &lt;file&gt;
- *      [-mode {full|smart_full|rrs|smart_rrs}]
+ *      [-mode {full|smart_full|rrs|smart_rrs|bo|smart_bo|cmaes|smart_cmaes|
+ *             pareto}]
  *      [-scheduler {basic|advanced} -output &lt;file&gt;]
  *   
  *   -profile &lt;file&gt; -input &lt;file&gt; -cluster &lt;file&gt;
- *      [-mode {full|smart_full|rrs|smart_rrs}]
+ *      [-mode {full|smart_full|rrs|smart_rrs|bo|smart_bo|cmaes|smart_cmaes|
+ *             pareto}]
  *      [-conf &lt;file&gt; -scheduler {basic|advanced} -output &lt;file&gt;]
  *   
+ *   -results &lt;dir&gt; -store &lt;dir&gt;
+ *      [-mode {full|smart_full|rrs|smart_rrs|bo|smart_bo|cmaes|smart_cmaes|
+ *             pareto}]
+ *      [-cluster &lt;file&gt; -conf &lt;file&gt;]
+ *   
  *   -help
  * 
  * Description of optimization modes:
@@ -57,20 +70,42 @@ import edu.duke.starfish.whatif.scheduler.IWhatIfScheduler;
  *   smart_full  The optimizer uses domain knowledge and the full space
  *   rrs         The optimizer uses Recursive Random Search (RRS)
  *   smart_rrs   The optimizer uses domain knowledge and the RRS
+ *   bo          The optimizer uses Bayesian Optimization (BO)
+ *   smart_bo    The optimizer uses domain knowledge and the BO
+ *   cmaes       The optimizer uses the CMA Evolution Strategy (CMA-ES)
+ *   smart_cmaes The optimizer uses domain knowledge and the CMA-ES
+ *   pareto      The optimizer finds the Pareto front of running time vs.
+ *               slot-seconds and picks a point from it
  * 
  * Description of parameter flags:
- *   -profile &lt;file&gt;  The job profile (XML file)
+ *   -profile &lt;file&gt;  The job profile (XML or binary file)
  *   -conf &lt;file&gt;     The job configuration file (XML file)
  *   -input &lt;file&gt;    The input specifications file (XML file)
  *   -cluster &lt;file&gt;  The cluster specifications file (XML file)
  *   -mode &lt;option&gt;   The optimization mode
  *   -scheduler       The task scheduler to use (basic, advanced)
  *   -output &lt;file&gt;   An optional file to write the output to
+ *   -results &lt;dir&gt;   The profiling results directory. Every profiled job
+ *                    is optimized and its recommendation is stored
+ *   -store &lt;dir&gt;     The recommendation store directory
  *   -help            Display detailed instructions
  * 
  * Configuration options for all modes:
  * <ul>
  * <li>starfish.job.optimizer.exclude.parameters ()</li>
+ * <li>starfish.job.optimizer.time.budget.ms (0, i.e., unbounded)</li>
+ * <li>starfish.job.optimizer.screening (false)</li>
+ * <li>starfish.job.optimizer.screening.trajectories (10)</li>
+ * <li>starfish.job.optimizer.screening.levels (4)</li>
+ * <li>starfish.job.optimizer.screening.threshold (0.01)</li>
+ * <li>starfish.job.optimizer.checkpoint.file (none, i.e., no checkpoints)</li>
+ * <li>starfish.job.optimizer.checkpoint.interval.ms (10000)</li>
+ * </ul>
+ * 
+ * Configuration options for populating the recommendation store:
+ * <ul>
+ * <li>starfish.job.optimizer.num.threads (1)</li>
+ * <li>starfish.job.optimizer.store.max.age.ms (0, i.e., never expire)</li>
  * </ul>
  * 
  * Configuration options for mode 'full' and 'smart_full':
@@ -87,6 +122,33 @@ import edu.duke.starfish.whatif.scheduler.IWhatIfScheduler;
  *   <li>starfish.job.optimizer.exploit.expected.value (0.8)</li>
  *   <li>starfish.job.optimizer.exploit.reduction.ratio (0.5)</li>
  *   <li>starfish.job.optimizer.exploit.termination.size (0.001)</li>
+ *   <li>starfish.job.optimizer.rrs.num.starts (1)</li>
+ *   <li>starfish.job.optimizer.rrs.prune.ratio (0.1)</li>
+ *   <li>starfish.job.optimizer.random.seed ()</li>
+ * </ul>
+ * 
+ * Configuration options for mode 'bo' and 'smart_bo':
+ * <ul>
+ *   <li>starfish.job.optimizer.bo.init.samples (2 * #params + 2)</li>
+ *   <li>starfish.job.optimizer.bo.max.evals (#init.samples + 40 * #params^0.8)</li>
+ *   <li>starfish.job.optimizer.bo.max.no.improve (15 * #params^0.8)</li>
+ *   <li>starfish.job.optimizer.bo.batch.size (4)</li>
+ *   <li>starfish.job.optimizer.bo.num.candidates (500)</li>
+ * </ul>
+ * 
+ * Configuration options for mode 'cmaes' and 'smart_cmaes':
+ * <ul>
+ *   <li>starfish.job.optimizer.cmaes.population.size (8 + 6 * ln(#params))</li>
+ *   <li>starfish.job.optimizer.cmaes.initial.sigma (0.5)</li>
+ *   <li>starfish.job.optimizer.cmaes.max.evals (50 * #params^1.2)</li>
+ *   <li>starfish.job.optimizer.cmaes.max.no.improve (15 * #params^1.2)</li>
+ *   <li>starfish.job.optimizer.random.seed ()</li>
+ * </ul>
+ * 
+ * Configuration options for mode 'pareto' (plus the ones of 'cmaes'):
+ * <ul>
+ *   <li>starfish.job.optimizer.pareto.num.weights (5)</li>
+ *   <li>starfish.job.optimizer.pareto.slot.tolerance (0.1)</li>
  * </ul>
  * 
  * 
@@ -109,6 +171,8 @@ public class JobOptimizerDriver {
 	private static String MODE = "mode";
 	private static String SCHEDULER = "scheduler";
 	private static String OUTPUT = "output";
+	private static String RESULTS = "results";
+	private static String STORE = "store";
 	private static String HELP = "help";
 
 	// Mode options
@@ -116,11 +180,18 @@ public class JobOptimizerDriver {
 	private static final String OPT_SMART_FULL = "smart_full";
 	private static final String OPT_RRS = "rrs";
 	private static final String OPT_SMART_RRS = "smart_rrs";
+	private static final String OPT_BO = "bo";
+	private static final String OPT_SMART_BO = "smart_bo";
+	private static final String OPT_CMAES = "cmaes";
+	private static final String OPT_SMART_CMAES = "smart_cmaes";
+	private static final String OPT_PARETO = "pareto";
 
 	// Scheduler options
 	private static final String SCH_BASIC = "basic";
 	private static final String SCH_ADVANCED = "advanced";
 
+	private static final String STARFISH_PREFIX = "starfish.";
+
 	private static final Log LOG = LogFactory.getLog(JobOptimizerDriver.class);
 
 	/* ***************************************************************
@@ -144,6 +215,12 @@ public class JobOptimizerDriver {
 			System.exit(0);
 		}
 
+		// Populate the recommendation store, if asked for
+		if (line.hasOption(STORE)) {
+			populateStore(line);
+			System.exit(0);
+		}
+
 		// Create an output stream if needed
 		PrintStream out = null;
 		if (line.hasOption(OUTPUT)) {
@@ -201,8 +278,8 @@ public class JobOptimizerDriver {
 		}
 
 		// Get the job profile
-		MRJobProfile sourceProf = XMLProfileParser.importJobProfile(new File(
-				line.getOptionValue(PROFILE)));
+		MRJobProfile sourceProf = ProfileUtils.importJobProfile(new File(line
+				.getOptionValue(PROFILE)));
 
 		// Get the job profile oracle
 		JobProfileOracle jobOracle = new JobProfileOracle(sourceProf);
@@ -220,9 +297,18 @@ public class JobOptimizerDriver {
 		optimizer.optimize();
 		long end = System.currentTimeMillis();
 		LOG.info("Job optimization time (ms): " + (end - start));
+		LOG.info("Job optimization what-if calls: "
+				+ optimizer.getNumWhatIfCalls());
+		if (optimizer.isTimeBudgetExhausted())
+			LOG.info("Job optimization time budget exhausted");
+		if (!optimizer.getPrunedParameters().isEmpty())
+			LOG.info("Job optimization pruned parameters: "
+					+ optimizer.getPrunedParameters());
 		try {
 			optimizer.getBestConfiguration(false).writeXml(out);
 			out.println();
+			if (optimizer instanceof ParetoJobOptimizer)
+				((ParetoJobOptimizer) optimizer).printParetoFront(out);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -234,6 +320,56 @@ public class JobOptimizerDriver {
 	 * ***************************************************************
 	 */
 
+	/**
+	 * Optimize every profiled job in the results directory and store the
+	 * recommendations in the recommendation store. The optimizer settings
+	 * are taken from the configuration and the "starfish.*" system
+	 * properties (set in the bin/config.sh script).
+	 * 
+	 * @param line
+	 *            the parsed command line
+	 */
+	private static void populateStore(CommandLine line) {
+
+		// Load the optimizer settings
+		Configuration conf = new Configuration(true);
+		if (line.hasOption(CONF))
+			conf.addResource(new Path(line.getOptionValue(CONF)));
+		Properties props = System.getProperties();
+		for (String name : props.stringPropertyNames()) {
+			if (name.startsWith(STARFISH_PREFIX) && conf.get(name) == null)
+				conf.set(name, props.getProperty(name));
+		}
+		if (line.hasOption(MODE))
+			conf.set(JobOptimizer.JOB_OPT_TYPE, line.getOptionValue(MODE));
+		conf.set(RecommendationStore.STORE_DIR, line.getOptionValue(STORE));
+
+		// Get the cluster information
+		ClusterConfiguration cluster = null;
+		if (line.hasOption(CLUSTER)) {
+			cluster = XMLClusterParser.importCluster(new File(line
+					.getOptionValue(CLUSTER)));
+		} else {
+			cluster = new ClusterConfiguration(conf);
+		}
+
+		// Find all the profiled jobs
+		MRJobLogsManager manager = new MRJobLogsManager();
+		manager.setResultsDir(line.getOptionValue(RESULTS));
+		BatchRecommender recommender = new BatchRecommender(
+				RecommendationStore.getStore(conf), cluster, conf);
+		recommender.addJobs(manager);
+
+		// Optimize the jobs
+		long start = System.currentTimeMillis();
+		List<Recommendation> recs = recommender.recommend();
+		long end = System.currentTimeMillis();
+		LOG.info("Job optimization time (ms): " + (end - start));
+		System.out.println("Stored " + recs.size() + " out of "
+				+ recommender.getNumJobs() + " recommendations in "
+				+ line.getOptionValue(STORE));
+	}
+
 	/**
 	 * Specify properties of each optimizer option
 	 * 
@@ -259,6 +395,12 @@ public class JobOptimizerDriver {
 
 		Option outputOption = OptionBuilder.withArgName("filepath").hasArg()
 				.withDescription("An output file to print to").create(OUTPUT);
+		Option resultsOption = OptionBuilder.withArgName(RESULTS).hasArg()
+				.withDescription("The profiling results directory").create(
+						RESULTS);
+		Option storeOption = OptionBuilder.withArgName(STORE).hasArg()
+				.withDescription("The recommendation store directory").create(
+						STORE);
 		Option helpOption = OptionBuilder.withArgName("help").create(HELP);
 
 		// Declare the options
@@ -270,6 +412,8 @@ public class JobOptimizerDriver {
 		opts.addOption(inputOption);
 		opts.addOption(clusterOption);
 		opts.addOption(outputOption);
+		opts.addOption(resultsOption);
+		opts.addOption(storeOption);
 		opts.addOption(helpOption);
 
 		return opts;
@@ -336,6 +480,28 @@ public class JobOptimizerDriver {
 		// -profile <file> -conf <file>
 		// OR
 		// -profile <file> -input <file> -cluster <file> [-conf <file>]
+		// OR
+		// -results <dir> -store <dir> [-cluster <file> -conf <file>]
+
+		// The results and store options go together
+		if (line.hasOption(RESULTS) && line.hasOption(STORE)) {
+			if (!new File(line.getOptionValue(RESULTS)).isDirectory()) {
+				System.err.println("The directory does not exist: "
+						+ line.getOptionValue(RESULTS));
+				System.exit(-1);
+			}
+			if (line.hasOption(CLUSTER))
+				ensureFileExists(line.getOptionValue(CLUSTER));
+			if (line.hasOption(CONF))
+				ensureFileExists(line.getOptionValue(CONF));
+			validateMode(line);
+			return line;
+		} else if (line.hasOption(RESULTS) || line.hasOption(STORE)) {
+			System.err.println("The options 'results' and 'store' "
+					+ "must appear together");
+			printUsage(System.err);
+			System.exit(-1);
+		}
 
 		// The profile option is required
 		if (!line.hasOption(PROFILE)) {
@@ -366,18 +532,8 @@ public class JobOptimizerDriver {
 			System.exit(-1);
 		}
 
-		// The mode is optional. Available options:
-		// {full|smart_full|rrs|smart_rrs}
-		if (line.hasOption(MODE)) {
-			String mode = line.getOptionValue(MODE);
-			if (!mode.equals(OPT_FULL) && !mode.equals(OPT_SMART_FULL)
-					&& !mode.equals(OPT_RRS) && !mode.equals(OPT_SMART_RRS)) {
-				System.err.println("The mode option is not supported: " + mode);
-				printUsage(System.err);
-				System.exit(-1);
-			}
-
-		}
+		// The mode is optional
+		validateMode(line);
 
 		// The scheduler is optional. Available options: {basic|advanced}
 		if (line.hasOption(SCHEDULER)) {
@@ -393,6 +549,30 @@ public class JobOptimizerDriver {
 		return line;
 	}
 
+	/**
+	 * Validate the optional mode. Available options:
+	 * {full|smart_full|rrs|smart_rrs|bo|smart_bo|cmaes|smart_cmaes|pareto}
+	 * 
+	 * @param line
+	 *            the parsed command line
+	 */
+	private static void validateMode(CommandLine line) {
+		if (line.hasOption(MODE)) {
+			String mode = line.getOptionValue(MODE);
+			if (!mode.equals(OPT_FULL) && !mode.equals(OPT_SMART_FULL)
+					&& !mode.equals(OPT_RRS) && !mode.equals(OPT_SMART_RRS)
+					&& !mode.equals(OPT_BO) && !mode.equals(OPT_SMART_BO)
+					&& !mode.equals(OPT_CMAES)
+					&& !mode.equals(OPT_SMART_CMAES)
+					&& !mode.equals(OPT_PARETO)) {
+				System.err.println("The mode option is not supported: " + mode);
+				printUsage(System.err);
+				System.exit(-1);
+			}
+
+		}
+	}
+
 	/**
 	 * Print the usage message.
 	 * 
@@ -419,14 +599,21 @@ public class JobOptimizerDriver {
 		out.println("");
 		out.println(" The optimizer's parameters must be one of:");
 		out.println("   -profile <file> -conf <file>");
-		out.println("       [-mode {full|smart_full|rrs|smart_rrs}]");
+		out.println("       [-mode {full|smart_full|rrs|smart_rrs|bo|smart_bo|"
+				+ "cmaes|smart_cmaes|pareto}]");
 		out.println("       [-scheduler {basic|advanced} -output <file>]");
 		out.println("");
 		out.println("   -profile <file> -input <file> -cluster <file>");
-		out.println("       [-mode {full|smart_full|rrs|smart_rrs}]");
+		out.println("       [-mode {full|smart_full|rrs|smart_rrs|bo|smart_bo|"
+				+ "cmaes|smart_cmaes|pareto}]");
 		out.println("       [-conf <file> "
 				+ "-scheduler {basic|advanced} -output <file>]");
 		out.println("");
+		out.println("   -results <dir> -store <dir>");
+		out.println("       [-mode {full|smart_full|rrs|smart_rrs|bo|smart_bo|"
+				+ "cmaes|smart_cmaes|pareto}]");
+		out.println("       [-cluster <file> -conf <file>]");
+		out.println("");
 		out.println("  -help");
 		out.println("");
 		out.println("Description of optimization modes:");
@@ -438,9 +625,22 @@ public class JobOptimizerDriver {
 				+ "The optimizer uses Recursive Random Search (RRS)");
 		out.println("  smart_rrs   "
 				+ "The optimizer uses domain knowledge and the RRS");
+		out.println("  bo          "
+				+ "The optimizer uses Bayesian Optimization (BO)");
+		out.println("  smart_bo    "
+				+ "The optimizer uses domain knowledge and the BO");
+		out.println("  cmaes       "
+				+ "The optimizer uses the CMA Evolution Strategy (CMA-ES)");
+		out.println("  smart_cmaes "
+				+ "The optimizer uses domain knowledge and the CMA-ES");
+		out.println("  pareto      "
+				+ "The optimizer finds the Pareto front of running time vs.");
+		out.println("              "
+				+ "slot-seconds and picks a point from it");
 		out.println("");
 		out.println("Description of parameter flags:");
-		out.println("  -profile <file>  " + "The job profile (XML file)");
+		out.println("  -profile <file>  "
+				+ "The job profile (XML or binary file)");
 		out.println("  -conf <file>     "
 				+ "The job configuration file (XML file)");
 		out.println("  -input <file>    "
@@ -452,12 +652,34 @@ public class JobOptimizerDriver {
 				+ "The task scheduler to use (basic, advanced)");
 		out.println("  -output <file>   "
 				+ "An optional file to write the output to");
+		out.println("  -results <dir>   "
+				+ "The profiling results directory. Every profiled job");
+		out.println("                   "
+				+ "is optimized and its recommendation is stored");
+		out.println("  -store <dir>     "
+				+ "The recommendation store directory");
 		out.println("  -help            " + "Display detailed instructions");
 		out.println();
 
 		if (details) {
 			out.println("Configuration options for all modes");
 			out.println("  starfish.job.optimizer.exclude.parameters ()");
+			out.println("  starfish.job.optimizer.time.budget.ms "
+					+ "(0, i.e., unbounded)");
+			out.println("  starfish.job.optimizer.screening (false)");
+			out.println("  starfish.job.optimizer.screening.trajectories (10)");
+			out.println("  starfish.job.optimizer.screening.levels (4)");
+			out.println("  starfish.job.optimizer.screening.threshold (0.01)");
+			out.println("  starfish.job.optimizer.checkpoint.file "
+					+ "(none, i.e., no checkpoints)");
+			out.println("  starfish.job.optimizer.checkpoint.interval.ms "
+					+ "(10000)");
+			out.println("");
+			out.println("Configuration options for populating the "
+					+ "recommendation store:");
+			out.println("  starfish.job.optimizer.num.threads (1)");
+			out.println("  starfish.job.optimizer.store.max.age.ms "
+					+ "(0, i.e., never expire)");
 			out.println("");
 			out.println("Configuration options for mode 'rrs' and 'smart_rrs':");
 			out.println("  starfish.job.optimizer.num.values.per.param (2)");
@@ -471,6 +693,34 @@ public class JobOptimizerDriver {
 			out.println("  starfish.job.optimizer.exploit.expected.value (0.8)");
 			out.println("  starfish.job.optimizer.exploit.reduction.ratio (0.5)");
 			out.println("  starfish.job.optimizer.exploit.termination.size (0.001)");
+			out.println("  starfish.job.optimizer.rrs.num.starts (1)");
+			out.println("  starfish.job.optimizer.rrs.prune.ratio (0.1)");
+			out.println("  starfish.job.optimizer.random.seed ()");
+			out.println("");
+			out.println("Configuration options for mode 'bo' and 'smart_bo':");
+			out.println("  starfish.job.optimizer.bo.init.samples (2 * #params + 2)");
+			out.println("  starfish.job.optimizer.bo.max.evals "
+					+ "(#init.samples + 40 * #params^0.8)");
+			out.println("  starfish.job.optimizer.bo.max.no.improve "
+					+ "(15 * #params^0.8)");
+			out.println("  starfish.job.optimizer.bo.batch.size (4)");
+			out.println("  starfish.job.optimizer.bo.num.candidates (500)");
+			out.println("");
+			out.println("Configuration options for mode 'cmaes' and "
+					+ "'smart_cmaes':");
+			out.println("  starfish.job.optimizer.cmaes.population.size "
+					+ "(8 + 6 * ln(#params))");
+			out.println("  starfish.job.optimizer.cmaes.initial.sigma (0.5)");
+			out.println("  starfish.job.optimizer.cmaes.max.evals "
+					+ "(50 * #params^1.2)");
+			out.println("  starfish.job.optimizer.cmaes.max.no.improve "
+					+ "(15 * #params^1.2)");
+			out.println("  starfish.job.optimizer.random.seed ()");
+			out.println("");
+			out.println("Configuration options for mode 'pareto' "
+					+ "(plus the ones of 'cmaes'):");
+			out.println("  starfish.job.optimizer.pareto.num.weights (5)");
+			out.println("  starfish.job.optimizer.pareto.slot.tolerance (0.1)");
 			out.println("");
 		}
 	}
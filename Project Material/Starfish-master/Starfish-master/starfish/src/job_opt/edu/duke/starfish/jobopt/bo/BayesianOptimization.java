@@ -0,0 +1,409 @@
+package edu.duke.starfish.jobopt.bo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.rrs.IRRSCostEngine;
+
+/**
+ * Bayesian optimization is a global optimization algorithm for expensive
+ * black-box functions. It fits a cheap surrogate model over the points costed
+ * so far (here, a {@link GaussianProcess} over the logarithm of the costs) and
+ * uses the model to choose the next points to cost, namely the points with
+ * the highest expected improvement over the best cost found so far. Hence, it
+ * needs a lot fewer cost evaluations than recursive random search.
+ * 
+ * Reference: Efficient Global Optimization of Expensive Black-Box Functions,
+ * Donald R. Jones, Matthias Schonlau, and William J. Welch, Journal of Global
+ * Optimization, 13(4), 1998
+ * 
+ * Parameters:
+ * <ul>
+ * <li>starfish.job.optimizer.bo.init.samples (2 * #dims + 2, at least 2)</li>
+ * <li>starfish.job.optimizer.bo.max.evals (#init.samples + 40 * #dims^0.8)</li>
+ * <li>starfish.job.optimizer.bo.max.no.improve (15 * #dims^0.8)</li>
+ * <li>starfish.job.optimizer.bo.batch.size (4)</li>
+ * <li>starfish.job.optimizer.bo.num.candidates (500)</li>
+ * </ul>
+ * 
+ * Pseudocode:
+ * 
+ * <pre>
+ * Take n0 random samples xi from the space D and cost them;
+ * while #evals < max.evals and #evals since last improvement < max.no.improve
+ *     Fit the GP to the (normalized xi, standardized log f(xi));
+ *     Generate candidates: random points from D and random points from
+ *         shrinking neighborhoods of the best points;
+ *     for b = 1 ... batch.size do
+ *         x' <- arg max EI(x) over the candidates not costed yet;
+ *         Add (x', predicted mean at x') to the GP (kriging believer);
+ *     endfor
+ *     Cost the batch of points and add them to the observations;
+ * endw
+ * return arg min f(xi)
+ * </pre>
+ * 
+ * @author hero
+ */
+public class BayesianOptimization<P> {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+	private static final Log LOG = LogFactory.getLog(BayesianOptimization.class);
+
+	// Constants
+	public static final String BO_INIT_SAMPLES = "starfish.job.optimizer.bo.init.samples";
+	public static final String BO_MAX_EVALS = "starfish.job.optimizer.bo.max.evals";
+	public static final String BO_MAX_NO_IMPROVE = "starfish.job.optimizer.bo.max.no.improve";
+	public static final String BO_BATCH_SIZE = "starfish.job.optimizer.bo.batch.size";
+	public static final String BO_NUM_CANDIDATES = "starfish.job.optimizer.bo.num.candidates";
+
+	// Default values
+	public static final int BO_DEF_BATCH_SIZE = 4;
+	public static final int BO_DEF_NUM_CANDIDATES = 500;
+
+	// The neighborhood widths (per dimension) for the local candidates
+	private static final double[] LOCAL_WIDTHS = { 0.25, 0.1, 0.02 };
+
+	// The number of best points to generate local candidates around
+	private static final int NUM_LOCAL_CENTERS = 3;
+
+	// The growth of the observations that triggers a new selection of the
+	// hyper parameters of the model
+	private static final double HYPER_PARAMS_GROWTH = 1.25d;
+
+	private Configuration conf; // The configuration with the parameters
+	private int numEvals; // The number of evaluations of the last search
+	private long deadline; // The time to stop searching (in ms)
+
+	/**
+	 * Constructor
+	 * 
+	 * @param conf
+	 *            settings with (optional) BO parameters
+	 */
+	public BayesianOptimization(Configuration conf) {
+		this.conf = conf;
+		this.numEvals = 0;
+		this.deadline = Long.MAX_VALUE;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Performs Bayesian optimization to find the best point in the provided
+	 * space
+	 * 
+	 * @param space
+	 *            the parameter space
+	 * @param costEngine
+	 *            the cost engine
+	 * @return the best parameter point
+	 */
+	public P findBestSpacePoint(IBOSearchSpace<P> space,
+			IRRSCostEngine<P> costEngine) {
+
+		numEvals = 0;
+		int numDims = space.getNumDimensions();
+
+		// Check for empty space or no time left
+		if (numDims == 0 || System.currentTimeMillis() >= deadline)
+			return space.getEmptySpacePoint();
+
+		// Get the parameters
+		double dimFactor = Math.pow(numDims, 0.8);
+		int initSamples = Math.max(2, conf.getInt(BO_INIT_SAMPLES,
+				2 * numDims + 2));
+		int maxEvals = conf.getInt(BO_MAX_EVALS, initSamples
+				+ (int) Math.ceil(40 * dimFactor));
+		int maxNoImprove = conf.getInt(BO_MAX_NO_IMPROVE, (int) Math
+				.ceil(15 * dimFactor));
+		int batchSize = Math.max(1, conf.getInt(BO_BATCH_SIZE,
+				BO_DEF_BATCH_SIZE));
+		int numCandidates = Math.max(1, conf.getInt(BO_NUM_CANDIDATES,
+				BO_DEF_NUM_CANDIDATES));
+
+		// Special case for very small spaces
+		if (space.getNumUniqueSpacePoints() <= maxEvals) {
+			// Enumerate the full space
+			List<P> points = space.getSpacePointGrid(false, maxEvals);
+			double[] costs = costEngine.costSpacePoints(points);
+			numEvals = points.size();
+			return points.get(findMinIndex(costs, costs.length));
+		}
+
+		// Take the initial random samples and cost them as a single batch
+		List<P> points = new ArrayList<P>(maxEvals);
+		HashSet<P> costed = new HashSet<P>(2 * maxEvals);
+		for (int i = 0; i < 10 * initSamples && points.size() < initSamples;
+				++i) {
+			P point = space.getRandomSpacePoint();
+			if (costed.add(point))
+				points.add(point);
+		}
+		double[] costs = costEngine.costSpacePoints(points);
+		costs = Arrays.copyOf(costs, Math.max(costs.length, maxEvals));
+		numEvals = points.size();
+
+		// The model is refitted after each batch, but the hyper parameters
+		// are selected again only after the observations grow enough
+		GaussianProcess gp = new GaussianProcess(numDims);
+		for (P point : points)
+			gp.addObservation(space.getNormalizedCoordinates(point), 0d);
+		int lastSelectEvals = 0;
+
+		int bestIndex = findMinIndex(costs, numEvals);
+		int lastImprove = numEvals;
+		double[] logCosts = new double[costs.length];
+
+		while (numEvals < maxEvals && numEvals - lastImprove < maxNoImprove
+				&& System.currentTimeMillis() < deadline) {
+
+			// Fit the model to the standardized log costs
+			double mean = 0d;
+			for (int i = 0; i < numEvals; ++i) {
+				logCosts[i] = Math.log(Math.max(costs[i], 1d));
+				mean += logCosts[i];
+			}
+			mean /= numEvals;
+			double std = 0d;
+			for (int i = 0; i < numEvals; ++i)
+				std += (logCosts[i] - mean) * (logCosts[i] - mean);
+			std = Math.sqrt(std / numEvals);
+			if (std == 0d)
+				std = 1d;
+
+			for (int i = 0; i < numEvals; ++i)
+				gp.setObservationValue(i, (logCosts[i] - mean) / std);
+			boolean select = numEvals >= HYPER_PARAMS_GROWTH
+					* lastSelectEvals;
+			gp.fit(select);
+			if (select)
+				lastSelectEvals = numEvals;
+			double bestValue = (logCosts[bestIndex] - mean) / std;
+
+			// Generate and predict the candidates
+			List<P> candidates = generateCandidates(space, points, costs,
+					numCandidates, costed);
+			if (candidates.isEmpty())
+				break;
+			int numCands = candidates.size();
+			List<double[]> candCoords = new ArrayList<double[]>(numCands);
+			for (P candidate : candidates)
+				candCoords.add(space.getNormalizedCoordinates(candidate));
+
+			double[] means = new double[numCands];
+			double[] stds = new double[numCands];
+			double[][] work = gp.predict(candCoords, means, stds);
+
+			// Select the batch using the predicted means as observations
+			int currBatchSize = Math.min(Math.min(batchSize, maxEvals
+					- numEvals), numCands);
+			List<P> batch = new ArrayList<P>(currBatchSize);
+			boolean[] selected = new boolean[numCands];
+			for (int b = 0; b < currBatchSize; ++b) {
+				int bestCand = -1;
+				double bestEI = -1d;
+				for (int c = 0; c < numCands; ++c) {
+					if (selected[c])
+						continue;
+					double ei = expectedImprovement(bestValue, means[c],
+							stds[c]);
+					if (ei > bestEI) {
+						bestEI = ei;
+						bestCand = c;
+					}
+				}
+
+				selected[bestCand] = true;
+				batch.add(candidates.get(bestCand));
+				if (b < currBatchSize - 1)
+					gp.addPseudoObservation(bestCand, candCoords, work, stds);
+			}
+
+			// Cost the batch
+			double[] batchCosts = costEngine.costSpacePoints(batch);
+			for (int b = 0; b < batch.size(); ++b) {
+				P point = batch.get(b);
+				costed.add(point);
+				points.add(point);
+				gp.addObservation(space.getNormalizedCoordinates(point), 0d);
+				costs[numEvals] = batchCosts[b];
+				if (batchCosts[b] < costs[bestIndex]) {
+					bestIndex = numEvals;
+					lastImprove = numEvals + 1;
+				}
+				++numEvals;
+			}
+		}
+
+		LOG.debug("Bayesian optimization costed " + numEvals
+				+ " points. Best cost: " + costs[bestIndex]);
+		return points.get(bestIndex);
+	}
+
+	/**
+	 * @return the number of points costed by the last search
+	 */
+	public int getNumEvaluations() {
+		return numEvals;
+	}
+
+	/**
+	 * Set the time when the search must stop and return the best point found
+	 * so far. If the time has passed before the search starts, the empty
+	 * space point is returned.
+	 * 
+	 * @param deadline
+	 *            the deadline (in ms since the epoch)
+	 */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC STATIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * The expected improvement of a point over the best value, when the value
+	 * of the point is normally distributed (for minimization)
+	 * 
+	 * @param bestValue
+	 *            the best value found so far
+	 * @param mean
+	 *            the predicted mean at the point
+	 * @param std
+	 *            the predicted standard deviation at the point
+	 * @return the expected improvement
+	 */
+	public static double expectedImprovement(double bestValue, double mean,
+			double std) {
+		double diff = bestValue - mean;
+		if (std <= 0d)
+			return Math.max(diff, 0d);
+
+		double z = diff / std;
+		double pdf = Math.exp(-0.5d * z * z) / Math.sqrt(2 * Math.PI);
+		return diff * normalCdf(z) + std * pdf;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Generate the candidate points for the next batch. Half of the
+	 * candidates are random points from the space and the rest are random
+	 * points from neighborhoods of different sizes around the best points.
+	 * Points that were already costed are excluded.
+	 * 
+	 * @param space
+	 *            the parameter space
+	 * @param points
+	 *            the costed points
+	 * @param costs
+	 *            the costs of the points
+	 * @param numCandidates
+	 *            the number of candidates
+	 * @param costed
+	 *            the set of costed points
+	 * @return the candidate points
+	 */
+	private List<P> generateCandidates(IBOSearchSpace<P> space,
+			List<P> points, double[] costs, int numCandidates,
+			HashSet<P> costed) {
+
+		// Find the best points
+		int numCenters = Math.min(NUM_LOCAL_CENTERS, points.size());
+		List<P> centers = new ArrayList<P>(numCenters);
+		boolean[] used = new boolean[points.size()];
+		for (int c = 0; c < numCenters; ++c) {
+			int minIndex = -1;
+			for (int i = 0; i < points.size(); ++i) {
+				if (!used[i] && (minIndex < 0 || costs[i] < costs[minIndex]))
+					minIndex = i;
+			}
+			used[minIndex] = true;
+			centers.add(points.get(minIndex));
+		}
+
+		// Generate the candidates
+		HashSet<P> unique = new HashSet<P>(2 * numCandidates);
+		List<P> candidates = new ArrayList<P>(numCandidates);
+		int numLocal = numCandidates / 2;
+		int numDims = space.getNumDimensions();
+		for (int i = 0; i < 2 * numCandidates
+				&& candidates.size() < numCandidates; ++i) {
+			P candidate;
+			if (candidates.size() < numLocal) {
+				double width = LOCAL_WIDTHS[(i / numCenters)
+						% LOCAL_WIDTHS.length];
+				candidate = space.getRandomSpacePoint(centers.get(i
+						% numCenters), Math.pow(width, numDims));
+			} else {
+				candidate = space.getRandomSpacePoint();
+			}
+
+			if (!costed.contains(candidate) && unique.add(candidate))
+				candidates.add(candidate);
+		}
+
+		return candidates;
+	}
+
+	/**
+	 * Find the index of the smallest value among the first values of the
+	 * array
+	 * 
+	 * @param values
+	 *            the array of values
+	 * @param length
+	 *            the number of values to consider
+	 * @return the index of the smallest value
+	 */
+	private int findMinIndex(double[] values, int length) {
+		int minIndex = 0;
+		for (int i = 1; i < length; ++i) {
+			if (values[i] < values[minIndex])
+				minIndex = i;
+		}
+
+		return minIndex;
+	}
+
+	/**
+	 * The cumulative distribution function of the standard normal
+	 * distribution, using the approximation of the error function from
+	 * Abramowitz and Stegun (7.1.26), with a maximum error of 1.5e-7.
+	 * 
+	 * @param z
+	 *            the value
+	 * @return the probability that a standard normal variable is at most z
+	 */
+	private static double normalCdf(double z) {
+		double x = Math.abs(z) / Math.sqrt(2d);
+		double t = 1d / (1d + 0.3275911d * x);
+		double erf = 1d - t
+				* (0.254829592d + t
+						* (-0.284496736d + t
+								* (1.421413741d + t
+										* (-1.453152027d + t * 1.061405429d))))
+				* Math.exp(-x * x);
+		return (z >= 0) ? 0.5d * (1d + erf) : 0.5d * (1d - erf);
+	}
+
+}
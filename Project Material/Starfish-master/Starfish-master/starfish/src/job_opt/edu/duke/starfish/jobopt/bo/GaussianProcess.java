@@ -0,0 +1,458 @@
+package edu.duke.starfish.jobopt.bo;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A Gaussian process regression model over points in the unit hypercube,
+ * used as the surrogate of the cost function by Bayesian optimization.
+ * 
+ * The model uses a Matern 5/2 kernel with one length scale per dimension and
+ * a unit signal variance, so the observed values should be standardized by
+ * the caller. The length scales and the noise variance are chosen from small
+ * grids by maximizing the log marginal likelihood of the observations: first
+ * a common length scale along with the noise variance, and then the length
+ * scale of each dimension in turn.
+ * 
+ * The Cholesky factor of the kernel matrix depends only on the observed
+ * points, so it is extended incrementally as new points are observed, while
+ * the observed values can change freely between fits. The model also supports
+ * pseudo observations at the predicted mean (the "kriging believer"), which
+ * reduce the predicted variance around a point without changing the predicted
+ * means. They are used for selecting a batch of points at once.
+ * 
+ * Reference: Gaussian Processes for Machine Learning, Carl E. Rasmussen and
+ * Christopher K. I. Williams, MIT Press, 2006 (Algorithm 2.1)
+ * 
+ * @author hero
+ */
+public class GaussianProcess {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	// Candidate length scales, relative to the diagonal of the hypercube
+	private static final double[] LENGTH_SCALES = { 0.05, 0.1, 0.2, 0.4, 0.8 };
+
+	// Candidate factors for the length scale of each dimension
+	private static final double[] DIM_SCALE_FACTORS = { 0.25, 4d };
+
+	// Candidate noise variances (the costs are deterministic but not smooth)
+	private static final double[] NOISE_VARIANCES = { 1e-6, 1e-3, 1e-1 };
+
+	private static final double SQRT_5 = Math.sqrt(5d);
+
+	private int numDims; // The number of dimensions
+	private double[] invScales; // The inverse length scale per dimension
+	private double noiseVar; // The noise variance
+
+	private int numPoints; // The number of observations
+	private int numPseudo; // The number of pseudo observations
+	private double[][] x; // The observed points (including pseudo points)
+	private double[] y; // The observed values
+	private double[][] chol; // Lower Cholesky factor of the kernel matrix
+	private int numFactorized; // The number of rows in the Cholesky factor
+	private double[] alpha; // The weights of the observations
+
+	/**
+	 * Constructor
+	 * 
+	 * @param numDims
+	 *            the number of dimensions of the points
+	 */
+	public GaussianProcess(int numDims) {
+		this.numDims = numDims;
+		this.invScales = new double[numDims];
+		Arrays.fill(invScales, 1d / (0.2 * Math.sqrt(Math.max(numDims, 1))));
+		this.noiseVar = NOISE_VARIANCES[0];
+
+		this.numPoints = 0;
+		this.numPseudo = 0;
+		this.x = new double[16][];
+		this.y = new double[16];
+		this.chol = new double[16][];
+		this.numFactorized = 0;
+		this.alpha = null;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Add an observation into the model. Any pseudo observations are removed
+	 * and the model is not refitted until {@link #fit(boolean)} is called.
+	 * 
+	 * @param point
+	 *            the point in the unit hypercube
+	 * @param value
+	 *            the observed value
+	 */
+	public void addObservation(double[] point, double value) {
+		if (point.length != numDims)
+			throw new RuntimeException("ERROR: Expected a point with "
+					+ numDims + " dimensions, not " + point.length);
+
+		removePseudoObservations();
+		ensureCapacity(numPoints + 1);
+		x[numPoints] = point;
+		y[numPoints] = value;
+		++numPoints;
+	}
+
+	/**
+	 * Change the value of an observation, e.g., after standardizing the
+	 * values again. The model is not refitted until {@link #fit(boolean)} is
+	 * called.
+	 * 
+	 * @param index
+	 *            the index of the observation
+	 * @param value
+	 *            the new value
+	 */
+	public void setObservationValue(int index, double value) {
+		y[index] = value;
+	}
+
+	/**
+	 * Fit the model to the observations. Any pseudo observations are removed.
+	 * 
+	 * @param selectHyperParams
+	 *            whether to select the length scale and the noise variance
+	 *            again, or keep the ones selected during the last fit (if
+	 *            they still work for the new observations)
+	 */
+	public void fit(boolean selectHyperParams) {
+		if (numPoints == 0)
+			throw new RuntimeException("ERROR: No observations to fit");
+
+		removePseudoObservations();
+		if (selectHyperParams) {
+			// Select the best common length scale and noise variance
+			double diag = Math.sqrt(Math.max(numDims, 1));
+			double bestLml = Double.NEGATIVE_INFINITY;
+			double bestInvScale = invScales[0];
+			double bestNoiseVar = noiseVar;
+
+			for (double relScale : LENGTH_SCALES) {
+				for (double noise : NOISE_VARIANCES) {
+					Arrays.fill(invScales, 1d / (relScale * diag));
+					noiseVar = noise;
+					double lml = computeLogMarginalLikelihood();
+					if (lml > bestLml) {
+						bestLml = lml;
+						bestInvScale = invScales[0];
+						bestNoiseVar = noiseVar;
+					}
+				}
+			}
+
+			// Stretch or shrink the length scale of each dimension, so that
+			// dimensions with different effects on the cost can be told apart
+			Arrays.fill(invScales, bestInvScale);
+			noiseVar = bestNoiseVar;
+			for (int d = 0; d < numDims; ++d) {
+				double bestDimInvScale = invScales[d];
+				for (double factor : DIM_SCALE_FACTORS) {
+					invScales[d] = bestInvScale / factor;
+					double lml = computeLogMarginalLikelihood();
+					if (lml > bestLml) {
+						bestLml = lml;
+						bestDimInvScale = invScales[d];
+					}
+				}
+				invScales[d] = bestDimInvScale;
+			}
+
+			numFactorized = 0;
+		}
+
+		if (!factorize()) {
+			// The new points are too close to the old ones for the current
+			// hyper parameters, so select them again
+			if (!selectHyperParams) {
+				fit(true);
+				return;
+			}
+
+			throw new RuntimeException("ERROR: Unable to fit the Gaussian "
+					+ "process to " + numPoints + " observations");
+		}
+		solve();
+	}
+
+	/**
+	 * Predict the value at the provided point
+	 * 
+	 * @param point
+	 *            the point in the unit hypercube
+	 * @param result
+	 *            an array to store the predicted mean (at index 0) and the
+	 *            predicted standard deviation (at index 1)
+	 */
+	public void predict(double[] point, double[] result) {
+		double[] v = new double[numFactorized];
+		result[0] = computeMean(point, v);
+		result[1] = Math.sqrt(Math.max(1d - solveLower(v), 0d));
+	}
+
+	/**
+	 * Predict the values at many points. The returned work vectors can be
+	 * used for updating the predictions after adding pseudo observations
+	 * using {@link #addPseudoObservation(int, List, double[][], double[])}.
+	 * 
+	 * @param points
+	 *            the points in the unit hypercube
+	 * @param means
+	 *            an array to store the predicted means
+	 * @param stds
+	 *            an array to store the predicted standard deviations
+	 * @return the work vectors, one per point
+	 */
+	public double[][] predict(List<double[]> points, double[] means,
+			double[] stds) {
+		int numCands = points.size();
+		double[][] work = new double[numCands][];
+		for (int c = 0; c < numCands; ++c) {
+			double[] v = new double[numFactorized];
+			means[c] = computeMean(points.get(c), v);
+			stds[c] = Math.sqrt(Math.max(1d - solveLower(v), 0d));
+			work[c] = v;
+		}
+		return work;
+	}
+
+	/**
+	 * Add a pseudo observation at one of the points whose values were
+	 * predicted by {@link #predict(List, double[], double[])}, with the
+	 * value equal to the predicted mean. The predicted means of all points
+	 * remain the same, while the standard deviations are updated in place.
+	 * 
+	 * @param index
+	 *            the index of the point to add
+	 * @param points
+	 *            the predicted points
+	 * @param work
+	 *            the work vectors returned by the prediction
+	 * @param stds
+	 *            the predicted standard deviations
+	 */
+	public void addPseudoObservation(int index, List<double[]> points,
+			double[][] work, double[] stds) {
+
+		// The new row of the Cholesky factor is the work vector of the point
+		double[] row = Arrays.copyOf(work[index], numFactorized + 1);
+		double diag = 1d + noiseVar;
+		for (int k = 0; k < numFactorized; ++k)
+			diag -= row[k] * row[k];
+		if (diag <= 0d)
+			diag = noiseVar;
+		row[numFactorized] = Math.sqrt(diag);
+
+		double[] newPoint = points.get(index);
+		ensureCapacity(numFactorized + 1);
+		x[numFactorized] = newPoint;
+		chol[numFactorized] = row;
+
+		// Extend the work vectors and reduce the standard deviations
+		for (int c = 0; c < work.length; ++c) {
+			double[] v = Arrays.copyOf(work[c], numFactorized + 1);
+			double sum = kernel(points.get(c), newPoint);
+			for (int k = 0; k < numFactorized; ++k)
+				sum -= row[k] * v[k];
+			v[numFactorized] = sum / row[numFactorized];
+			work[c] = v;
+
+			double var = stds[c] * stds[c] - v[numFactorized]
+					* v[numFactorized];
+			stds[c] = Math.sqrt(Math.max(var, 0d));
+		}
+
+		++numFactorized;
+		++numPseudo;
+	}
+
+	/**
+	 * @return the number of observations (excluding pseudo observations)
+	 */
+	public int getNumObservations() {
+		return numPoints;
+	}
+
+	/**
+	 * @param dim
+	 *            the dimension
+	 * @return the selected length scale of the dimension
+	 */
+	public double getLengthScale(int dim) {
+		return 1d / invScales[dim];
+	}
+
+	/**
+	 * @return the selected noise variance
+	 */
+	public double getNoiseVariance() {
+		return noiseVar;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Extend the Cholesky decomposition K + noise * I = L L' to cover all the
+	 * observations, using the current hyper parameters.
+	 * 
+	 * @return false if the kernel matrix is not positive definite
+	 */
+	private boolean factorize() {
+		for (int i = numFactorized; i < numPoints; ++i) {
+			double[] row = new double[i + 1];
+			for (int j = 0; j < i; ++j)
+				row[j] = kernel(x[i], x[j]);
+
+			// Solve for the new row using the first i rows
+			double diag = 1d + noiseVar - solveLower(row);
+			if (diag <= 0d)
+				return false;
+			row[i] = Math.sqrt(diag);
+			chol[i] = row;
+			numFactorized = i + 1;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Solve L L' alpha = y for the weights of the observations
+	 */
+	private void solve() {
+		alpha = Arrays.copyOf(y, numPoints);
+		solveLower(alpha);
+
+		for (int i = numPoints - 1; i >= 0; --i) {
+			double sum = alpha[i];
+			for (int k = i + 1; k < numPoints; ++k)
+				sum -= chol[k][i] * alpha[k];
+			alpha[i] = sum / chol[i][i];
+		}
+	}
+
+	/**
+	 * Factorize the kernel matrix from scratch using the current hyper
+	 * parameters and compute the log marginal likelihood of the observations
+	 * 
+	 * @return the log marginal likelihood (minus infinity if the kernel matrix
+	 *         is not positive definite)
+	 */
+	private double computeLogMarginalLikelihood() {
+		numFactorized = 0;
+		if (!factorize())
+			return Double.NEGATIVE_INFINITY;
+		solve();
+
+		double fit = 0d;
+		double logDet = 0d;
+		for (int i = 0; i < numPoints; ++i) {
+			fit += y[i] * alpha[i];
+			logDet += Math.log(chol[i][i]);
+		}
+
+		return -0.5d * fit - logDet - 0.5d * numPoints
+				* Math.log(2 * Math.PI);
+	}
+
+	/**
+	 * Solve L v = b in place using forward substitution, where L consists of
+	 * the first rows of the Cholesky factor (up to the length of v).
+	 * 
+	 * @param v
+	 *            the vector b, replaced by the solution v
+	 * @return the squared norm of the solution
+	 */
+	private double solveLower(double[] v) {
+		int n = Math.min(v.length, numFactorized);
+		double norm = 0d;
+		for (int i = 0; i < n; ++i) {
+			double sum = v[i];
+			double[] row = chol[i];
+			for (int k = 0; k < i; ++k)
+				sum -= row[k] * v[k];
+			v[i] = sum / row[i];
+			norm += v[i] * v[i];
+		}
+
+		return norm;
+	}
+
+	/**
+	 * Compute the predicted mean at a point and store the covariances
+	 * between the point and all the observed points (including the pseudo
+	 * points) in the provided vector
+	 * 
+	 * @param point
+	 *            the point
+	 * @param k
+	 *            the vector to store the covariances in
+	 * @return the predicted mean
+	 */
+	private double computeMean(double[] point, double[] k) {
+		double mean = 0d;
+		for (int i = 0; i < k.length; ++i) {
+			k[i] = kernel(point, x[i]);
+			if (i < numPoints)
+				mean += k[i] * alpha[i];
+		}
+		return mean;
+	}
+
+	/**
+	 * Remove the pseudo observations from the model
+	 */
+	private void removePseudoObservations() {
+		if (numPseudo > 0) {
+			numFactorized -= numPseudo;
+			numPseudo = 0;
+		}
+	}
+
+	/**
+	 * Make sure the arrays can hold the provided number of points
+	 * 
+	 * @param capacity
+	 *            the number of points
+	 */
+	private void ensureCapacity(int capacity) {
+		if (capacity > x.length) {
+			int newCapacity = Math.max(capacity, 2 * x.length);
+			x = Arrays.copyOf(x, newCapacity);
+			y = Arrays.copyOf(y, newCapacity);
+			chol = Arrays.copyOf(chol, newCapacity);
+		}
+	}
+
+	/**
+	 * The Matern 5/2 kernel with unit variance
+	 * 
+	 * @param p1
+	 *            the first point
+	 * @param p2
+	 *            the second point
+	 * @return the covariance between the two points
+	 */
+	private double kernel(double[] p1, double[] p2) {
+		double dist = 0d;
+		for (int i = 0; i < numDims; ++i) {
+			double d = (p1[i] - p2[i]) * invScales[i];
+			dist += d * d;
+		}
+
+		double r = SQRT_5 * Math.sqrt(dist);
+		return (1d + r + r * r / 3d) * Math.exp(-r);
+	}
+
+}
@@ -0,0 +1,26 @@
+package edu.duke.starfish.jobopt.bo;
+
+import edu.duke.starfish.jobopt.rrs.IRRSSearchSpace;
+
+/**
+ * Interface representing the search space used by Bayesian optimization. On
+ * top of the random sampling offered to recursive random search, the space
+ * must be able to map each of its points into the unit hypercube, so that a
+ * model can be built over the points.
+ * 
+ * @author hero
+ */
+public interface IBOSearchSpace<P> extends IRRSSearchSpace<P> {
+
+	/**
+	 * Get the coordinates of a space point in the unit hypercube [0, 1]^k,
+	 * where k is the number of dimensions in the space. The order of the
+	 * coordinates must be the same for all points.
+	 * 
+	 * @param point
+	 *            the space point
+	 * @return the coordinates of the point
+	 */
+	public double[] getNormalizedCoordinates(P point);
+
+}
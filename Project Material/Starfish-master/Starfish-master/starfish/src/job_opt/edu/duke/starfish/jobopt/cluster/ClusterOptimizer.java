@@ -0,0 +1,503 @@
+package edu.duke.starfish.jobopt.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.utils.ProfileUtils;
+import edu.duke.starfish.profile.utils.ThreadPoolUtils;
+import edu.duke.starfish.whatif.WhatIfEngine;
+import edu.duke.starfish.whatif.data.DataSetModel;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+
+/**
+ * A cluster provisioning optimizer. Given a workload of one or more profiled
+ * MapReduce jobs, it searches the shape of the cluster to run the workload on
+ * along with the configuration parameters of the jobs, and returns the
+ * cheapest cluster shape that completes the workload within a deadline.
+ * 
+ * The search space consists of:
+ * <ul>
+ * <li>the node type of the slave hosts, which determines the hourly cost and
+ * the number of task slots per host (see {@link NodeType})</li>
+ * <li>the number of slave hosts, between "starfish.cluster.optimizer.min.hosts"
+ * and "starfish.cluster.optimizer.max.hosts"</li>
+ * <li>the split of the task slots of each host into map and reduce slots</li>
+ * </ul>
+ * 
+ * Every cluster shape is evaluated with the What-if Engine: the jobs are
+ * submitted together, in the order they were added, to a FIFO scheduler over
+ * a virtual cluster with that shape. Unless the job optimizer type is "none",
+ * each job is first optimized for that cluster shape using the job optimizer
+ * set in "starfish.cluster.optimizer.job.optimizer", since the best job
+ * configuration (e.g., the number of reducers) depends on the cluster. The
+ * makespan of the workload is the time from the start of the first job to
+ * the end of the last job. The cost of a shape is the hourly cost of its
+ * slave hosts multiplied by the makespan, optionally rounded up to the
+ * billing unit.
+ * 
+ * The cluster shapes are evaluated in parallel using
+ * "starfish.job.optimizer.num.threads" threads. In that case, each job
+ * optimizer uses a single thread. The results are deterministic as long as
+ * the job optimizers are (see "starfish.job.optimizer.random.seed").
+ * 
+ * @author hero
+ */
+public class ClusterOptimizer {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+	private static final Log LOG = LogFactory.getLog(ClusterOptimizer.class);
+
+	private DataSetModel dataModel; // The data model
+	private Configuration conf; // The optimizer configuration
+	private List<WorkloadJob> jobs; // The jobs in the order they were added
+
+	// Populated AFTER the optimization process
+	private List<ShapeEvaluation> evaluations; // All evaluated shapes
+	private ShapeEvaluation best; // The best evaluated shape
+	private boolean deadlineMet; // Whether the best shape meets the deadline
+
+	/* ***************************************************************
+	 * STATIC DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	public static final String CLUSTER_OPT_NODE_TYPES = "starfish.cluster.optimizer.node.types";
+	public static final String CLUSTER_OPT_MIN_HOSTS = "starfish.cluster.optimizer.min.hosts";
+	public static final String CLUSTER_OPT_MAX_HOSTS = "starfish.cluster.optimizer.max.hosts";
+	public static final String CLUSTER_OPT_DEADLINE = "starfish.cluster.optimizer.deadline.ms";
+	public static final String CLUSTER_OPT_BILLING_UNIT = "starfish.cluster.optimizer.billing.unit.ms";
+	public static final String CLUSTER_OPT_JOB_OPTIMIZER = "starfish.cluster.optimizer.job.optimizer";
+
+	// Default values
+	public static final String DEF_NODE_TYPES = "small:0.10:2,medium:0.20:4,large:0.40:8";
+	public static final int DEF_MIN_HOSTS = 1;
+	public static final int DEF_MAX_HOSTS = 20;
+	public static final String DEF_JOB_OPTIMIZER = "smart_rrs";
+
+	// Job optimizer type for costing the given job configurations as is
+	public static final String NO_JOB_OPTIMIZER = "none";
+
+	private static final double MS_PER_HOUR = 3600000d;
+
+	// Orders the evaluations by increasing cost, then by increasing makespan
+	private static final Comparator<ShapeEvaluation> COST_COMPARATOR =
+		new Comparator<ShapeEvaluation>() {
+			@Override
+			public int compare(ShapeEvaluation e1, ShapeEvaluation e2) {
+				int comp = Double.compare(e1.shape.getCost(), e2.shape
+						.getCost());
+				if (comp != 0)
+					return comp;
+				comp = Double.compare(e1.shape.getMakespan(), e2.shape
+						.getMakespan());
+				return (comp != 0) ? comp : e1.index - e2.index;
+			}
+		};
+
+	/**
+	 * Constructor
+	 * 
+	 * @param dataModel
+	 *            the data set model
+	 * @param conf
+	 *            the optimizer configuration (e.g., the node types)
+	 */
+	public ClusterOptimizer(DataSetModel dataModel, Configuration conf) {
+		this.dataModel = dataModel;
+		this.conf = conf;
+		this.jobs = new ArrayList<WorkloadJob>();
+
+		this.evaluations = null;
+		this.best = null;
+		this.deadlineMet = false;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Add a job in the workload. The job configuration is also used as the
+	 * configuration of the job optimizer for this job (e.g., for setting the
+	 * time budget or the parameters to exclude).
+	 * 
+	 * @param profile
+	 *            the source job profile
+	 * @param jobConf
+	 *            the job configuration
+	 * @return the id of the job in the workload
+	 */
+	public int addJob(MRJobProfile profile, Configuration jobConf) {
+		jobs.add(new WorkloadJob(profile, new Configuration(jobConf)));
+		return jobs.size() - 1;
+	}
+
+	/**
+	 * @return the number of jobs in the workload
+	 */
+	public int getNumJobs() {
+		return jobs.size();
+	}
+
+	/**
+	 * Generate the cluster shapes to search based on the node types, the
+	 * range of the number of hosts, and all the splits of the task slots into
+	 * map and reduce slots.
+	 * 
+	 * @return the (unevaluated) cluster shapes
+	 */
+	public List<ClusterShape> getCandidateShapes() {
+		List<NodeType> types = NodeType.parseNodeTypes(conf.get(
+				CLUSTER_OPT_NODE_TYPES, DEF_NODE_TYPES));
+		int minHosts = Math.max(1, conf.getInt(CLUSTER_OPT_MIN_HOSTS,
+				DEF_MIN_HOSTS));
+		int maxHosts = conf.getInt(CLUSTER_OPT_MAX_HOSTS, DEF_MAX_HOSTS);
+
+		List<ClusterShape> shapes = new ArrayList<ClusterShape>();
+		for (NodeType type : types) {
+			for (int maps = 1; maps < type.getNumSlots(); ++maps) {
+				for (int hosts = minHosts; hosts <= maxHosts; ++hosts) {
+					shapes.add(new ClusterShape(type, hosts, maps,
+							type.getNumSlots() - maps));
+				}
+			}
+		}
+
+		return shapes;
+	}
+
+	/**
+	 * Optimize the cluster for the workload assuming it is submitted now
+	 */
+	public void optimize() {
+		optimize(new Date());
+	}
+
+	/**
+	 * Optimize the cluster for the workload. All candidate shapes are
+	 * evaluated and the cheapest one meeting the deadline is selected. If no
+	 * deadline is set, the cheapest shape overall is selected, while if no
+	 * shape meets the deadline, the fastest shape is selected. After using
+	 * this method, you can use any of the getBestX() methods.
+	 * 
+	 * @param submissionTime
+	 *            the workload submission time
+	 */
+	public void optimize(Date submissionTime) {
+		if (jobs.isEmpty())
+			throw new RuntimeException("ERROR: No jobs in the workload");
+
+		List<ClusterShape> shapes = getCandidateShapes();
+		if (shapes.isEmpty())
+			throw new RuntimeException("ERROR: No cluster shapes to search");
+
+		evaluations = evaluateShapes(shapes, submissionTime);
+
+		// Select the cheapest shape that meets the deadline
+		long deadline = conf.getLong(CLUSTER_OPT_DEADLINE, 0l);
+		best = null;
+		ShapeEvaluation fastest = null;
+		for (ShapeEvaluation eval : evaluations) {
+			double makespan = eval.shape.getMakespan();
+			boolean meetsDeadline = deadline <= 0 || makespan <= deadline;
+			if (meetsDeadline && (best == null
+					|| COST_COMPARATOR.compare(eval, best) < 0))
+				best = eval;
+			if (fastest == null || makespan < fastest.shape.getMakespan())
+				fastest = eval;
+		}
+
+		deadlineMet = best != null;
+		if (!deadlineMet) {
+			LOG.warn("No cluster shape meets the deadline of " + deadline
+					+ " ms. Selecting the fastest shape: " + fastest.shape);
+			best = fastest;
+		}
+
+		LOG.debug("Evaluated cluster shapes: " + evaluations.size());
+		LOG.debug("Best cluster shape: " + best.shape + " with makespan (ms): "
+				+ best.shape.getMakespan() + " and cost: "
+				+ best.shape.getCost());
+	}
+
+	/**
+	 * @return the best cluster shape (null before the optimization)
+	 */
+	public ClusterShape getBestShape() {
+		return (best == null) ? null : best.shape;
+	}
+
+	/**
+	 * @return the virtual cluster with the best shape
+	 */
+	public ClusterConfiguration getBestClusterConfiguration() {
+		checkOptimized();
+		return new ClusterConfiguration(best.cluster);
+	}
+
+	/**
+	 * Get the best configuration of a job for the best cluster shape
+	 * 
+	 * @param jobId
+	 *            the job id
+	 * @return the (full) best job configuration
+	 */
+	public Configuration getBestConfiguration(int jobId) {
+		checkOptimized();
+		return new Configuration(best.jobConfs.get(jobId));
+	}
+
+	/**
+	 * @return the predicted workload makespan (in ms) on the best shape
+	 */
+	public double getBestMakespan() {
+		checkOptimized();
+		return best.shape.getMakespan();
+	}
+
+	/**
+	 * @return the cost of running the workload on the best shape
+	 */
+	public double getBestCost() {
+		checkOptimized();
+		return best.shape.getCost();
+	}
+
+	/**
+	 * @return true if the best shape meets the deadline
+	 */
+	public boolean isDeadlineMet() {
+		checkOptimized();
+		return deadlineMet;
+	}
+
+	/**
+	 * @return all the evaluated shapes, sorted by increasing cost
+	 */
+	public List<ClusterShape> getEvaluatedShapes() {
+		checkOptimized();
+		List<ShapeEvaluation> sorted =
+			new ArrayList<ShapeEvaluation>(evaluations);
+		Collections.sort(sorted, COST_COMPARATOR);
+
+		List<ClusterShape> shapes = new ArrayList<ClusterShape>(sorted
+				.size());
+		for (ShapeEvaluation eval : sorted)
+			shapes.add(eval.shape);
+		return shapes;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Ensure that the optimize method has been called
+	 */
+	private void checkOptimized() {
+		if (best == null)
+			throw new RuntimeException("ERROR: The cluster optimizer has not "
+					+ "been run");
+	}
+
+	/**
+	 * Evaluate the cluster shapes, in parallel if more than one thread is
+	 * configured. The evaluations are returned in the order of the shapes.
+	 * 
+	 * @param shapes
+	 *            the cluster shapes
+	 * @param submissionTime
+	 *            the workload submission time
+	 * @return the evaluations
+	 */
+	private List<ShapeEvaluation> evaluateShapes(List<ClusterShape> shapes,
+			final Date submissionTime) {
+
+		int numThreads = Math.min(shapes.size(), Math.max(1, conf.getInt(
+				JobOptimizer.JOB_OPT_NUM_THREADS, 1)));
+		final boolean parallel = numThreads > 1;
+		List<ShapeEvaluation> evals = new ArrayList<ShapeEvaluation>(shapes
+				.size());
+
+		if (!parallel) {
+			for (int i = 0; i < shapes.size(); ++i)
+				evals.add(evaluateShape(i, shapes.get(i), submissionTime,
+						false));
+			return evals;
+		}
+
+		ExecutorService executor = ThreadPoolUtils.newThreadPool(
+				"cluster-worker", numThreads);
+
+		try {
+			List<Future<ShapeEvaluation>> futures =
+				new ArrayList<Future<ShapeEvaluation>>(shapes.size());
+			for (int i = 0; i < shapes.size(); ++i) {
+				final int index = i;
+				final ClusterShape shape = shapes.get(i);
+				futures.add(executor.submit(new Callable<ShapeEvaluation>() {
+					@Override
+					public ShapeEvaluation call() {
+						return evaluateShape(index, shape, submissionTime,
+								true);
+					}
+				}));
+			}
+
+			evals.addAll(ThreadPoolUtils.getResults(futures));
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return evals;
+	}
+
+	/**
+	 * Evaluate one cluster shape by optimizing and scheduling all the jobs of
+	 * the workload on a virtual cluster with that shape. Only thread-local
+	 * what-if components are used, so shapes can be evaluated concurrently.
+	 * 
+	 * @param index
+	 *            the index of the shape
+	 * @param shape
+	 *            the cluster shape
+	 * @param submissionTime
+	 *            the workload submission time
+	 * @param singleThreaded
+	 *            whether the job optimizers must use a single thread
+	 * @return the evaluation
+	 */
+	private ShapeEvaluation evaluateShape(int index, ClusterShape shape,
+			Date submissionTime, boolean singleThreaded) {
+
+		String optType = conf.get(CLUSTER_OPT_JOB_OPTIMIZER,
+				DEF_JOB_OPTIMIZER);
+		ClusterConfiguration shapeCluster = shape
+				.createClusterConfiguration(ProfileUtils.getTaskMemory(conf));
+		BasicFIFOScheduler scheduler = new BasicFIFOScheduler(shapeCluster);
+
+		List<Configuration> jobConfs = new ArrayList<Configuration>(jobs
+				.size());
+		long startTime = Long.MAX_VALUE;
+		long endTime = Long.MIN_VALUE;
+		for (WorkloadJob job : jobs) {
+			JobProfileOracle oracle = new JobProfileOracle(job.profile);
+			Configuration jobConf = new Configuration(job.conf);
+
+			if (!optType.equals(NO_JOB_OPTIMIZER)) {
+				// Optimize the job for this shape, after the previous jobs
+				if (singleThreaded)
+					jobConf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, 1);
+				JobOptimizer optimizer = JobOptimizer.getJobOptimizer(optType,
+						oracle, dataModel, shapeCluster, jobConf, scheduler);
+				if (optimizer == null)
+					throw new RuntimeException("ERROR: Unsupported job "
+							+ "optimizer type: " + optType);
+				optimizer.optimize(submissionTime);
+				jobConf = optimizer.getBestConfiguration(true);
+
+				// Roll back to the schedule before this job
+				scheduler.reset();
+			}
+
+			// Schedule the job after the previous jobs
+			WhatIfEngine whatifEngine = new WhatIfEngine(oracle, dataModel,
+					scheduler);
+			MRJobInfo mrJob = whatifEngine.whatIfJobConfGetJobInfo(
+					submissionTime, jobConf);
+			startTime = Math.min(startTime, mrJob.getStartTime().getTime());
+			endTime = Math.max(endTime, mrJob.getEndTime().getTime());
+			jobConfs.add(jobConf);
+		}
+
+		// Compute the makespan and the (billed) cost of the workload
+		double makespan = endTime - startTime;
+		double billedTime = makespan;
+		long billingUnit = conf.getLong(CLUSTER_OPT_BILLING_UNIT, 0l);
+		if (billingUnit > 0)
+			billedTime = Math.ceil(makespan / billingUnit) * billingUnit;
+		shape.setEvaluation(makespan, shape.getHourlyCost() * billedTime
+				/ MS_PER_HOUR);
+
+		return new ShapeEvaluation(index, shape, shapeCluster, jobConfs);
+	}
+
+	/* ***************************************************************
+	 * PRIVATE CLASSES
+	 * ***************************************************************
+	 */
+
+	/**
+	 * A job of the workload
+	 */
+	private static class WorkloadJob {
+
+		private MRJobProfile profile; // The source job profile
+		private Configuration conf; // The job configuration
+
+		/**
+		 * Constructor
+		 * 
+		 * @param profile
+		 *            the source job profile
+		 * @param conf
+		 *            the job configuration
+		 */
+		public WorkloadJob(MRJobProfile profile, Configuration conf) {
+			this.profile = profile;
+			this.conf = conf;
+		}
+	}
+
+	/**
+	 * The evaluation of a cluster shape
+	 */
+	private static class ShapeEvaluation {
+
+		private int index; // The index of the shape in the search order
+		private ClusterShape shape; // The evaluated shape
+		private ClusterConfiguration cluster; // The virtual cluster
+		private List<Configuration> jobConfs; // The best job configurations
+
+		/**
+		 * Constructor
+		 * 
+		 * @param index
+		 *            the index of the shape in the search order
+		 * @param shape
+		 *            the evaluated shape
+		 * @param cluster
+		 *            the virtual cluster
+		 * @param jobConfs
+		 *            the best job configurations
+		 */
+		public ShapeEvaluation(int index, ClusterShape shape,
+				ClusterConfiguration cluster, List<Configuration> jobConfs) {
+			this.index = index;
+			this.shape = shape;
+			this.cluster = cluster;
+			this.jobConfs = jobConfs;
+		}
+	}
+
+}
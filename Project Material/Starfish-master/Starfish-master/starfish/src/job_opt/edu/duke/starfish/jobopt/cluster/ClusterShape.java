@@ -0,0 +1,157 @@
+package edu.duke.starfish.jobopt.cluster;
+
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+
+/**
+ * A candidate shape for a cluster: the number of slave hosts, their node type,
+ * and the split of the task slots of each node into map and reduce slots.
+ * After the shape is evaluated by the {@link ClusterOptimizer}, it also holds
+ * the predicted makespan of the workload and the cost of running it.
+ * 
+ * @author hero
+ */
+public class ClusterShape {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private NodeType nodeType; // The type of the slave hosts
+	private int numHosts; // The number of slave hosts
+	private int numMapSlots; // The map slots per task tracker
+	private int numReduceSlots; // The reduce slots per task tracker
+
+	// Populated AFTER the shape is evaluated
+	private double makespan; // The workload makespan (in ms)
+	private double cost; // The cost of running the workload
+
+	/**
+	 * Constructor
+	 * 
+	 * @param nodeType
+	 *            the type of the slave hosts
+	 * @param numHosts
+	 *            the number of slave hosts
+	 * @param numMapSlots
+	 *            the map slots per task tracker
+	 * @param numReduceSlots
+	 *            the reduce slots per task tracker
+	 */
+	public ClusterShape(NodeType nodeType, int numHosts, int numMapSlots,
+			int numReduceSlots) {
+		this.nodeType = nodeType;
+		this.numHosts = numHosts;
+		this.numMapSlots = numMapSlots;
+		this.numReduceSlots = numReduceSlots;
+
+		this.makespan = -1d;
+		this.cost = -1d;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @return the type of the slave hosts
+	 */
+	public NodeType getNodeType() {
+		return nodeType;
+	}
+
+	/**
+	 * @return the number of slave hosts
+	 */
+	public int getNumHosts() {
+		return numHosts;
+	}
+
+	/**
+	 * @return the map slots per task tracker
+	 */
+	public int getNumMapSlots() {
+		return numMapSlots;
+	}
+
+	/**
+	 * @return the reduce slots per task tracker
+	 */
+	public int getNumReduceSlots() {
+		return numReduceSlots;
+	}
+
+	/**
+	 * @return the cost of the slave hosts per hour
+	 */
+	public double getHourlyCost() {
+		return numHosts * nodeType.getHourlyCost();
+	}
+
+	/**
+	 * @return the predicted workload makespan in ms (-1 if not evaluated)
+	 */
+	public double getMakespan() {
+		return makespan;
+	}
+
+	/**
+	 * @return the cost of running the workload (-1 if not evaluated)
+	 */
+	public double getCost() {
+		return cost;
+	}
+
+	/**
+	 * @return true if the shape has been evaluated
+	 */
+	public boolean isEvaluated() {
+		return makespan >= 0;
+	}
+
+	/**
+	 * Create the virtual cluster with this shape. All slave hosts are placed
+	 * in a single rack.
+	 * 
+	 * @param defaultTaskMemory
+	 *            the max memory per task in bytes, if the node type does not
+	 *            specify one
+	 * @return the cluster configuration
+	 */
+	public ClusterConfiguration createClusterConfiguration(
+			long defaultTaskMemory) {
+		long taskMemory = (nodeType.getTaskMemory() > 0) ? nodeType
+				.getTaskMemory() : defaultTaskMemory;
+		return ClusterConfiguration.createClusterConfiguration(toString(), 1,
+				numHosts, numMapSlots, numReduceSlots, taskMemory);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return numHosts + "x" + nodeType.getName() + "(" + numMapSlots + "m,"
+				+ numReduceSlots + "r)";
+	}
+
+	/* ***************************************************************
+	 * PACKAGE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Set the evaluation results of this shape
+	 * 
+	 * @param makespan
+	 *            the workload makespan (in ms)
+	 * @param cost
+	 *            the cost of running the workload
+	 */
+	void setEvaluation(double makespan, double cost) {
+		this.makespan = makespan;
+		this.cost = cost;
+	}
+
+}
@@ -0,0 +1,142 @@
+package edu.duke.starfish.jobopt.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A type of slave node that a cluster can be provisioned with, e.g., an
+ * instance type of a cloud provider. A node type has a name, an hourly cost,
+ * and a number of task slots that can be split between map and reduce slots.
+ * Optionally, it also specifies the max memory per task.
+ * 
+ * Node types are specified as a comma-separated list of
+ * "name:hourlyCost:numSlots[:taskMemoryMB]" entries, for example,
+ * "small:0.10:2,medium:0.20:4,large:0.40:8:1024".
+ * 
+ * @author hero
+ */
+public class NodeType {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private String name; // The node type name
+	private double hourlyCost; // The cost of one node per hour
+	private int numSlots; // The number of task slots per node
+	private long taskMemory; // The max memory per task in bytes (0 if unset)
+
+	/**
+	 * Constructor
+	 * 
+	 * @param name
+	 *            the node type name
+	 * @param hourlyCost
+	 *            the cost of one node per hour
+	 * @param numSlots
+	 *            the number of task slots per node
+	 * @param taskMemory
+	 *            the max memory per task in bytes (0 to use the default)
+	 */
+	public NodeType(String name, double hourlyCost, int numSlots,
+			long taskMemory) {
+		if (hourlyCost < 0)
+			throw new RuntimeException("ERROR: Negative hourly cost for the "
+					+ "node type " + name);
+		if (numSlots < 2)
+			throw new RuntimeException("ERROR: The node type " + name
+					+ " needs at least one map and one reduce slot");
+
+		this.name = name;
+		this.hourlyCost = hourlyCost;
+		this.numSlots = numSlots;
+		this.taskMemory = taskMemory;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @return the node type name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the cost of one node per hour
+	 */
+	public double getHourlyCost() {
+		return hourlyCost;
+	}
+
+	/**
+	 * @return the number of task slots per node
+	 */
+	public int getNumSlots() {
+		return numSlots;
+	}
+
+	/**
+	 * @return the max memory per task in bytes (0 if unset)
+	 */
+	public long getTaskMemory() {
+		return taskMemory;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return name + ":" + hourlyCost + ":" + numSlots
+				+ ((taskMemory > 0) ? ":" + (taskMemory >> 20) : "");
+	}
+
+	/* ***************************************************************
+	 * PUBLIC STATIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Parse a comma-separated list of node types, where each node type is
+	 * specified as "name:hourlyCost:numSlots[:taskMemoryMB]"
+	 * 
+	 * @param spec
+	 *            the node type specifications
+	 * @return the node types
+	 */
+	public static List<NodeType> parseNodeTypes(String spec) {
+		List<NodeType> types = new ArrayList<NodeType>();
+		if (spec == null)
+			return types;
+
+		for (String entry : spec.split(",")) {
+			entry = entry.trim();
+			if (entry.length() == 0)
+				continue;
+
+			String[] fields = entry.split(":");
+			if (fields.length < 3 || fields.length > 4)
+				throw new RuntimeException("ERROR: Invalid node type: "
+						+ entry);
+
+			try {
+				long taskMemory = (fields.length == 4) ? Long
+						.parseLong(fields[3].trim()) << 20 : 0l;
+				types.add(new NodeType(fields[0].trim(), Double
+						.parseDouble(fields[1].trim()), Integer
+						.parseInt(fields[2].trim()), taskMemory));
+			} catch (NumberFormatException e) {
+				throw new RuntimeException("ERROR: Invalid node type: "
+						+ entry, e);
+			}
+		}
+
+		return types;
+	}
+
+}
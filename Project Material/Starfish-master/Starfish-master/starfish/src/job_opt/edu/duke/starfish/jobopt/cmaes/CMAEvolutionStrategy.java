@@ -0,0 +1,473 @@
+package edu.duke.starfish.jobopt.cmaes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.jobopt.rrs.IRRSCostEngine;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
+
+/**
+ * The covariance matrix adaptation evolution strategy (CMA-ES) is a
+ * derivative-free optimization algorithm for non-separable problems. Each
+ * generation samples a population of points from a multivariate normal
+ * distribution, costs the whole population at once, and moves the mean of the
+ * distribution towards the best points. The covariance matrix of the
+ * distribution is adapted to the successful steps, so the search learns the
+ * correlations between the parameters (e.g., io.sort.mb and
+ * io.sort.record.percent) where recursive random search, which samples each
+ * parameter independently, tends to plateau.
+ * 
+ * The strategy works in the unit hypercube of the space. Sampled coordinates
+ * are clipped to the hypercube (with a penalty on the distance to it) and
+ * mapped to the closest space point, so integer, boolean, and list
+ * parameters are rounded. To keep the discrete parameters from freezing, the
+ * standard deviation of each discrete dimension is kept above a fraction of
+ * the distance between two adjacent values.
+ * 
+ * References: The CMA Evolution Strategy: A Tutorial, Nikolaus Hansen,
+ * arXiv:1604.00772, 2016; CMA-ES with Margin: Lower-Bounding Marginal
+ * Probability for Mixed-Integer Black-Box Optimization, Ryoki Hamano et al.,
+ * GECCO 2022
+ * 
+ * Parameters:
+ * <ul>
+ * <li>starfish.job.optimizer.cmaes.population.size (8 + 6 * ln(#dims))</li>
+ * <li>starfish.job.optimizer.cmaes.initial.sigma (0.5)</li>
+ * <li>starfish.job.optimizer.cmaes.max.evals (50 * #dims^1.2)</li>
+ * <li>starfish.job.optimizer.cmaes.max.no.improve (15 * #dims^1.2)</li>
+ * <li>starfish.job.optimizer.random.seed ()</li>
+ * </ul>
+ * 
+ * Pseudocode:
+ * 
+ * <pre>
+ * m <- center of the hypercube; C <- I; sigma <- initial sigma;
+ * do
+ *     for k = 1 ... lambda do
+ *         xk <- m + sigma * N(0, C);
+ *     endfor
+ *     Cost the closest space points to all xk as a single batch;
+ *     Sort the xk by cost and move m to the weighted mean of the mu best;
+ *     Update the evolution paths, C, and sigma;
+ *     Enlarge the variances of the discrete dimensions that are too small;
+ * while #evals < max.evals and #evals since last improvement < max.no.improve
+ * return the best point costed
+ * </pre>
+ * 
+ * @author hero
+ */
+public class CMAEvolutionStrategy<P> {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+	private static final Log LOG = LogFactory
+			.getLog(CMAEvolutionStrategy.class);
+
+	// Constants
+	public static final String CMA_POPULATION_SIZE = "starfish.job.optimizer.cmaes.population.size";
+	public static final String CMA_INITIAL_SIGMA = "starfish.job.optimizer.cmaes.initial.sigma";
+	public static final String CMA_MAX_EVALS = "starfish.job.optimizer.cmaes.max.evals";
+	public static final String CMA_MAX_NO_IMPROVE = "starfish.job.optimizer.cmaes.max.no.improve";
+
+	// Default values
+	public static final float CMA_DEF_INITIAL_SIGMA = 0.5f;
+
+	// The minimum standard deviation of a discrete dimension, as a fraction
+	// of the distance between two adjacent values
+	private static final double DISCRETE_MIN_STD = 0.25d;
+
+	// The search stops when all standard deviations drop below this value
+	// or the covariance matrix becomes ill-conditioned
+	private static final double TOL_STD = 1e-6d;
+	private static final double MAX_CONDITION = 1e14d;
+
+	private Configuration conf; // The configuration with the parameters
+	private Long seed; // The random seed (null if not set)
+	private int numEvals; // The number of evaluations of the last search
+	private long deadline; // The time to stop searching (in ms)
+
+	/**
+	 * Constructor
+	 * 
+	 * @param conf
+	 *            settings with (optional) CMA-ES parameters
+	 */
+	public CMAEvolutionStrategy(Configuration conf) {
+		this.conf = conf;
+		String strSeed = conf.get(RecursiveRandomSearch.RRS_RANDOM_SEED);
+		this.seed = (strSeed != null) ? Long.valueOf(strSeed.trim()) : null;
+		this.numEvals = 0;
+		this.deadline = Long.MAX_VALUE;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Performs the covariance matrix adaptation evolution strategy to find the
+	 * best point in the provided space
+	 * 
+	 * @param space
+	 *            the parameter space
+	 * @param costEngine
+	 *            the cost engine
+	 * @return the best parameter point
+	 */
+	public P findBestSpacePoint(ICMASearchSpace<P> space,
+			IRRSCostEngine<P> costEngine) {
+
+		numEvals = 0;
+		int n = space.getNumDimensions();
+
+		// Check for empty space or no time left
+		if (n == 0 || System.currentTimeMillis() >= deadline)
+			return space.getEmptySpacePoint();
+
+		// Get the parameters
+		double dimFactor = Math.pow(n, 1.2);
+		// Twice the usual population, as the cost surfaces of the jobs have
+		// several local minima and larger populations search more globally
+		int lambda = Math.max(2, conf.getInt(CMA_POPULATION_SIZE,
+				2 * (4 + (int) Math.floor(3 * Math.log(n)))));
+		double sigma = conf
+				.getFloat(CMA_INITIAL_SIGMA, CMA_DEF_INITIAL_SIGMA);
+		int maxEvals = conf.getInt(CMA_MAX_EVALS, (int) Math
+				.ceil(50 * dimFactor));
+		int maxNoImprove = conf.getInt(CMA_MAX_NO_IMPROVE, (int) Math
+				.ceil(15 * dimFactor));
+
+		// Special case for very small spaces
+		if (space.getNumUniqueSpacePoints() <= maxEvals) {
+			// Enumerate the full space
+			List<P> points = space.getSpacePointGrid(false, maxEvals);
+			double[] costs = costEngine.costSpacePoints(points);
+			numEvals = points.size();
+			int minIndex = 0;
+			for (int i = 1; i < costs.length; ++i) {
+				if (costs[i] < costs[minIndex])
+					minIndex = i;
+			}
+			return points.get(minIndex);
+		}
+
+		Random random = new Random((seed != null) ? seed
+				: ParameterDescriptor.nextRandomSeed());
+
+		// The recombination weights of the mu best points
+		int mu = lambda / 2;
+		double[] weights = new double[mu];
+		double sumWeights = 0d;
+		for (int i = 0; i < mu; ++i) {
+			weights[i] = Math.log(mu + 0.5d) - Math.log(i + 1);
+			sumWeights += weights[i];
+		}
+		double sumSqWeights = 0d;
+		for (int i = 0; i < mu; ++i) {
+			weights[i] /= sumWeights;
+			sumSqWeights += weights[i] * weights[i];
+		}
+		double mueff = 1d / sumSqWeights;
+
+		// The adaptation constants
+		double cc = (4 + mueff / n) / (n + 4 + 2 * mueff / n);
+		double cs = (mueff + 2) / (n + mueff + 5);
+		double c1 = 2 / ((n + 1.3d) * (n + 1.3d) + mueff);
+		double cmu = Math.min(1 - c1, 2 * (mueff - 2 + 1 / mueff)
+				/ ((n + 2) * (n + 2) + mueff));
+		double damps = 1 + 2
+				* Math.max(0, Math.sqrt((mueff - 1) / (n + 1)) - 1) + cs;
+		double chiN = Math.sqrt(n) * (1 - 1d / (4 * n) + 1d / (21 * n * n));
+		double eigenGap = lambda / (c1 + cmu) / n / 10;
+
+		// The minimum standard deviations of the discrete dimensions
+		double[] minStds = new double[n];
+		for (int i = 0; i < n; ++i) {
+			int numValues = space.getNumUniqueValues(i);
+			if (numValues > 1 && numValues < Integer.MAX_VALUE)
+				minStds[i] = DISCRETE_MIN_STD / (numValues - 1);
+		}
+
+		// The state of the search
+		double[] mean = new double[n];
+		Arrays.fill(mean, 0.5d);
+		double[][] c = new double[n][n];
+		double[][] b = new double[n][n];
+		double[] d = new double[n];
+		for (int i = 0; i < n; ++i) {
+			c[i][i] = 1d;
+			b[i][i] = 1d;
+			d[i] = 1d;
+		}
+		double[] pc = new double[n];
+		double[] ps = new double[n];
+		int eigenEvals = 0;
+		boolean updateEigen = false;
+
+		double[][] samples = new double[lambda][n];
+		double[] clipped = new double[n];
+		double[] z = new double[n];
+		double[] fitness = new double[lambda];
+		Integer[] order = new Integer[lambda];
+
+		P bestPoint = null;
+		double bestCost = Double.MAX_VALUE;
+		int lastImprove = 0;
+
+		// The first generation is always costed, so there is a best point
+		while (numEvals == 0
+				|| (numEvals < maxEvals
+						&& numEvals - lastImprove < maxNoImprove
+						&& System.currentTimeMillis() < deadline)) {
+
+			// Sample the population and map it to the space
+			List<P> population = new ArrayList<P>(lambda);
+			double[] penalties = new double[lambda];
+			for (int k = 0; k < lambda; ++k) {
+				for (int i = 0; i < n; ++i)
+					z[i] = d[i] * random.nextGaussian();
+				for (int i = 0; i < n; ++i) {
+					double y = 0d;
+					for (int j = 0; j < n; ++j)
+						y += b[i][j] * z[j];
+					samples[k][i] = mean[i] + sigma * y;
+					clipped[i] = Math.min(Math.max(samples[k][i], 0d), 1d);
+					penalties[k] += (samples[k][i] - clipped[i])
+							* (samples[k][i] - clipped[i]);
+				}
+				population.add(space.getSpacePoint(clipped));
+			}
+
+			// Cost the population
+			double[] costs = costEngine.costSpacePoints(population);
+			numEvals += lambda;
+			for (int k = 0; k < lambda; ++k) {
+				if (costs[k] < bestCost) {
+					bestCost = costs[k];
+					bestPoint = population.get(k);
+					lastImprove = numEvals;
+				}
+				fitness[k] = costs[k] * (1 + penalties[k]);
+				order[k] = k;
+			}
+			final double[] sortFitness = fitness;
+			Arrays.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer k1, Integer k2) {
+					return Double.compare(sortFitness[k1], sortFitness[k2]);
+				}
+			});
+
+			// Move the mean to the weighted mean of the best points
+			double[] oldMean = mean.clone();
+			double[] yw = new double[n];
+			for (int i = 0; i < n; ++i) {
+				mean[i] = 0d;
+				for (int k = 0; k < mu; ++k)
+					mean[i] += weights[k] * samples[order[k]][i];
+				yw[i] = (mean[i] - oldMean[i]) / sigma;
+			}
+
+			// Update the evolution path of the step size (using C^-1/2 * yw)
+			double[] tmp = new double[n];
+			for (int j = 0; j < n; ++j) {
+				for (int i = 0; i < n; ++i)
+					tmp[j] += b[i][j] * yw[i];
+				tmp[j] /= d[j];
+			}
+			double csFactor = Math.sqrt(cs * (2 - cs) * mueff);
+			double psNorm = 0d;
+			for (int i = 0; i < n; ++i) {
+				double invSqrtCyw = 0d;
+				for (int j = 0; j < n; ++j)
+					invSqrtCyw += b[i][j] * tmp[j];
+				ps[i] = (1 - cs) * ps[i] + csFactor * invSqrtCyw;
+				psNorm += ps[i] * ps[i];
+			}
+			psNorm = Math.sqrt(psNorm);
+
+			// Update the evolution path of the covariance matrix
+			double psLimit = (1.4d + 2d / (n + 1)) * chiN
+					* Math.sqrt(1 - Math.pow(1 - cs, 2d * numEvals / lambda));
+			boolean hsig = psNorm < psLimit;
+			double ccFactor = hsig ? Math.sqrt(cc * (2 - cc) * mueff) : 0d;
+			for (int i = 0; i < n; ++i)
+				pc[i] = (1 - cc) * pc[i] + ccFactor * yw[i];
+
+			// Update the covariance matrix with the rank-one and rank-mu
+			// updates
+			double oldWeight = 1 - c1 - cmu
+					+ (hsig ? 0d : c1 * cc * (2 - cc));
+			for (int i = 0; i < n; ++i) {
+				for (int j = 0; j <= i; ++j) {
+					double rankMu = 0d;
+					for (int k = 0; k < mu; ++k) {
+						double[] x = samples[order[k]];
+						rankMu += weights[k] * (x[i] - oldMean[i])
+								* (x[j] - oldMean[j]);
+					}
+					c[i][j] = oldWeight * c[i][j] + c1 * pc[i] * pc[j] + cmu
+							* rankMu / (sigma * sigma);
+					c[j][i] = c[i][j];
+				}
+			}
+
+			// Update the step size
+			sigma *= Math.exp((cs / damps) * (psNorm / chiN - 1));
+
+			// Keep the discrete dimensions from freezing
+			for (int i = 0; i < n; ++i) {
+				double std = sigma * Math.sqrt(c[i][i]);
+				if (std < minStds[i]) {
+					double factor = minStds[i]
+							/ Math.max(std, Double.MIN_VALUE);
+					for (int j = 0; j < n; ++j) {
+						c[i][j] *= factor;
+						c[j][i] *= factor;
+					}
+					updateEigen = true;
+				}
+			}
+
+			// Decompose C = B * D^2 * B' every few generations
+			if (updateEigen || numEvals - eigenEvals > eigenGap) {
+				eigenDecomposition(c, b, d);
+				eigenEvals = numEvals;
+				updateEigen = false;
+
+				double minEigen = Double.MAX_VALUE;
+				double maxEigen = 0d;
+				for (int i = 0; i < n; ++i) {
+					minEigen = Math.min(minEigen, d[i]);
+					maxEigen = Math.max(maxEigen, d[i]);
+				}
+				if (minEigen <= 0d || maxEigen > MAX_CONDITION * minEigen)
+					break;
+				for (int i = 0; i < n; ++i)
+					d[i] = Math.sqrt(d[i]);
+			}
+
+			// Stop when the distribution has converged
+			double maxStd = 0d;
+			for (int i = 0; i < n; ++i)
+				maxStd = Math.max(maxStd, sigma * Math.sqrt(c[i][i]));
+			if (maxStd < TOL_STD)
+				break;
+		}
+
+		LOG.debug("CMA-ES costed " + numEvals + " points. Best cost: "
+				+ bestCost);
+		return bestPoint;
+	}
+
+	/**
+	 * @return the number of points costed by the last search
+	 */
+	public int getNumEvaluations() {
+		return numEvals;
+	}
+
+	/**
+	 * Set the time when the search must stop and return the best point found
+	 * so far. If the time has passed before the search starts, the empty
+	 * space point is returned. Otherwise, the first generation is costed
+	 * even if the time passes in the meantime.
+	 * 
+	 * @param deadline
+	 *            the deadline (in ms since the epoch)
+	 */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Computes the eigen decomposition A = V * diag(e) * V' of a symmetric
+	 * matrix using cyclic Jacobi rotations, which are accurate and more than
+	 * fast enough for the few dimensions of a parameter space.
+	 * 
+	 * @param a
+	 *            the symmetric matrix (not modified)
+	 * @param v
+	 *            the matrix to store the eigenvectors in (as columns)
+	 * @param e
+	 *            the array to store the eigenvalues in
+	 */
+	private static void eigenDecomposition(double[][] a, double[][] v,
+			double[] e) {
+		int n = a.length;
+		double[][] m = new double[n][];
+		for (int i = 0; i < n; ++i) {
+			m[i] = a[i].clone();
+			Arrays.fill(v[i], 0d);
+			v[i][i] = 1d;
+		}
+
+		for (int sweep = 0; sweep < 100; ++sweep) {
+			// Check the size of the off-diagonal elements
+			double off = 0d;
+			double diag = 0d;
+			for (int p = 0; p < n; ++p) {
+				diag += m[p][p] * m[p][p];
+				for (int q = p + 1; q < n; ++q)
+					off += m[p][q] * m[p][q];
+			}
+			if (off <= 1e-30d * diag)
+				break;
+
+			for (int p = 0; p < n; ++p) {
+				for (int q = p + 1; q < n; ++q) {
+					if (m[p][q] == 0d)
+						continue;
+
+					// Rotate to annihilate m[p][q]
+					double theta = (m[q][q] - m[p][p]) / (2 * m[p][q]);
+					double t = Math.signum(theta)
+							/ (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+					if (theta == 0d)
+						t = 1d;
+					double cos = 1 / Math.sqrt(t * t + 1);
+					double sin = t * cos;
+
+					for (int k = 0; k < n; ++k) {
+						double mkp = m[k][p];
+						double mkq = m[k][q];
+						m[k][p] = cos * mkp - sin * mkq;
+						m[k][q] = sin * mkp + cos * mkq;
+					}
+					for (int k = 0; k < n; ++k) {
+						double mpk = m[p][k];
+						double mqk = m[q][k];
+						m[p][k] = cos * mpk - sin * mqk;
+						m[q][k] = sin * mpk + cos * mqk;
+					}
+					for (int k = 0; k < n; ++k) {
+						double vkp = v[k][p];
+						double vkq = v[k][q];
+						v[k][p] = cos * vkp - sin * vkq;
+						v[k][q] = sin * vkp + cos * vkq;
+					}
+				}
+			}
+		}
+
+		for (int i = 0; i < n; ++i)
+			e[i] = m[i][i];
+	}
+
+}
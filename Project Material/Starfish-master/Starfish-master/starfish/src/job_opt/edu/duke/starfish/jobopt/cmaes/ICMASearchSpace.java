@@ -0,0 +1,37 @@
+package edu.duke.starfish.jobopt.cmaes;
+
+import edu.duke.starfish.jobopt.bo.IBOSearchSpace;
+
+/**
+ * Interface representing the search space used by the covariance matrix
+ * adaptation evolution strategy. On top of mapping its points into the unit
+ * hypercube, the space must be able to map any point of the hypercube back to
+ * the closest space point, since the strategy samples its points in the
+ * hypercube.
+ * 
+ * @author hero
+ */
+public interface ICMASearchSpace<P> extends IBOSearchSpace<P> {
+
+	/**
+	 * Get the number of unique values along a dimension of the space. The
+	 * number equals Integer.MAX_VALUE for continuous dimensions.
+	 * 
+	 * @param dimension
+	 *            the dimension (in the order of the coordinates)
+	 * @return the number of unique values
+	 */
+	public int getNumUniqueValues(int dimension);
+
+	/**
+	 * Get the space point that is closest to the provided coordinates in the
+	 * unit hypercube [0, 1]^k. Coordinates outside [0, 1] are clipped. This is
+	 * the inverse of getNormalizedCoordinates.
+	 * 
+	 * @param coordinates
+	 *            the coordinates, one per dimension
+	 * @return the space point
+	 */
+	public P getSpacePoint(double[] coordinates);
+
+}
@@ -0,0 +1,71 @@
+package edu.duke.starfish.jobopt.junit;
+
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.optimizer.ParetoJobOptimizer;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.whatif.data.DataSetModel;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.IWhatIfScheduler;
+
+/**
+ * A Pareto optimizer whose searches ignore the time budget, but which
+ * returns only after the budget has run out. Hence, a full search always
+ * exhausts the budget, regardless of the speed of the machine. Only for
+ * testing purposes.
+ * 
+ * @author hero
+ */
+public class ExhaustedParetoJobOptimizer extends ParetoJobOptimizer {
+
+	/**
+	 * Constructor
+	 * 
+	 * @param jobOracle
+	 *            the job profile oracle
+	 * @param dataModel
+	 *            the data set model
+	 * @param scheduler
+	 *            the scheduler
+	 * @param cluster
+	 *            the cluster setup
+	 * @param conf
+	 *            the current configuration settings (with a time budget)
+	 */
+	public ExhaustedParetoJobOptimizer(JobProfileOracle jobOracle,
+			DataSetModel dataModel, IWhatIfScheduler scheduler,
+			ClusterConfiguration cluster, Configuration conf) {
+		super(jobOracle, dataModel, scheduler, cluster, conf);
+	}
+
+	@Override
+	protected ParameterSpacePoint optimizeInternal() {
+		ParameterSpacePoint point = super.optimizeInternal();
+
+		// Wait for the time budget to run out
+		long deadline = super.getDeadline();
+		long now;
+		while ((now = System.currentTimeMillis()) <= deadline) {
+			try {
+				Thread.sleep(deadline - now + 1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+
+		return point;
+	}
+
+	@Override
+	protected long getDeadline() {
+		return Long.MAX_VALUE;
+	}
+
+	@Override
+	protected long getStageDeadline(double fraction) {
+		return Long.MAX_VALUE;
+	}
+
+}
@@ -0,0 +1,66 @@
+package edu.duke.starfish.jobopt.junit;
+
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.whatif.data.DataSetModel;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.IWhatIfScheduler;
+
+/**
+ * A job optimizer whose search always returns a fixed point. If there is a
+ * time budget, the search returns only after the deadline has passed, so
+ * that the budget is always exhausted. Only for testing purposes.
+ * 
+ * @author hero
+ */
+public class FixedPointJobOptimizer extends JobOptimizer {
+
+	private ParameterSpacePoint point; // The point to return
+
+	/**
+	 * Constructor
+	 * 
+	 * @param jobOracle
+	 *            the job profile oracle
+	 * @param dataModel
+	 *            the data set model
+	 * @param scheduler
+	 *            the scheduler
+	 * @param cluster
+	 *            the cluster setup
+	 * @param conf
+	 *            the current configuration settings
+	 * @param point
+	 *            the point the search returns
+	 */
+	public FixedPointJobOptimizer(JobProfileOracle jobOracle,
+			DataSetModel dataModel, IWhatIfScheduler scheduler,
+			ClusterConfiguration cluster, Configuration conf,
+			ParameterSpacePoint point) {
+		super(jobOracle, dataModel, scheduler, cluster, conf);
+		this.point = point;
+	}
+
+	@Override
+	protected ParameterSpacePoint optimizeInternal() {
+		// Wait for the time budget to run out
+		long deadline = getDeadline();
+		if (deadline != Long.MAX_VALUE) {
+			long now;
+			while ((now = System.currentTimeMillis()) <= deadline) {
+				try {
+					Thread.sleep(deadline - now + 1);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+
+		return new ParameterSpacePoint(point);
+	}
+
+}
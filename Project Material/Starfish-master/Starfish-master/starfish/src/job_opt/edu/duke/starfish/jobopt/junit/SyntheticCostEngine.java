@@ -0,0 +1,61 @@
+package edu.duke.starfish.jobopt.junit;
+
+import java.util.List;
+
+import edu.duke.starfish.jobopt.rrs.IRRSCostEngine;
+import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+
+/**
+ * A cost engine with a smooth synthetic cost, which fails after a number of
+ * cost evaluations (like a crashing process). Only for testing purposes.
+ * 
+ * @author hero
+ */
+public class SyntheticCostEngine implements
+		IRRSCostEngine<ParameterSpacePoint> {
+
+	private ParameterSpace space; // The search space
+	private int maxCount; // The number of evaluations before failing
+	private int count; // The number of evaluations
+
+	/**
+	 * @param space
+	 *            the search space
+	 * @param maxCount
+	 *            the number of cost evaluations before failing
+	 */
+	public SyntheticCostEngine(ParameterSpace space, int maxCount) {
+		this.space = space;
+		this.maxCount = maxCount;
+		this.count = 0;
+	}
+
+	/**
+	 * @return the number of cost evaluations
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	@Override
+	public double costSpacePoint(ParameterSpacePoint point) {
+		if (count >= maxCount)
+			throw new RuntimeException("ERROR: Cost engine failure");
+		++count;
+
+		double cost = 0d;
+		for (double coord : space.getNormalizedCoordinates(point))
+			cost += (coord - 0.3d) * (coord - 0.3d);
+		return cost;
+	}
+
+	@Override
+	public double[] costSpacePoints(List<ParameterSpacePoint> points) {
+		double[] costs = new double[points.size()];
+		for (int i = 0; i < costs.length; ++i)
+			costs[i] = costSpacePoint(points.get(i));
+		return costs;
+	}
+
+}
@@ -0,0 +1,178 @@
+package edu.duke.starfish.jobopt.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import edu.duke.starfish.jobopt.bo.BayesianOptimization;
+import edu.duke.starfish.jobopt.bo.GaussianProcess;
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.SmartBOJobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.SmartRRSJobOptimizer;
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.whatif.junit.SampleDataSetModel;
+import edu.duke.starfish.whatif.junit.SampleProfiles;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+
+/**
+ * Test the BOJobOptimizer and the SmartBOJobOptimizer
+ * 
+ * @author hero
+ */
+public class TestBOJobOptimizer extends TestCase {
+
+	/**
+	 * Test that the SmartBOJobOptimizer finds configurations as good as the
+	 * ones found by the SmartRRSJobOptimizer with a lot fewer what-if calls
+	 */
+	@Test
+	public void testSmartBOAgainstSmartRRS() {
+		// Common elements
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+
+		// TeraSort ---------------------------------------------------
+		Configuration tsConf = SampleProfiles.getTeraSortConfiguration();
+		tsConf.setInt(SampleDataSetModel.NUM_MAPPERS, 5);
+		tsConf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+		tsConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		compareOptimizers(SampleProfiles.getTeraSortJobProfile(), model,
+				cluster, tsConf);
+
+		// WordCount ---------------------------------------------------
+		Configuration wcConf = SampleProfiles.getWordCountConfiguration();
+		wcConf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		wcConf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		wcConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		compareOptimizers(SampleProfiles.getWordCountJobProfile(), model,
+				cluster, wcConf);
+	}
+
+	/**
+	 * Test that the search takes at least two initial samples, even if fewer
+	 * are requested
+	 */
+	@Test
+	public void testTooFewInitSamples() {
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		Configuration conf = SampleProfiles.getWordCountConfiguration();
+		conf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		conf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		conf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+
+		for (int initSamples : new int[] { 0, -3 }) {
+			conf.setInt(BayesianOptimization.BO_INIT_SAMPLES, initSamples);
+			ParameterDescriptor.setRandomSeed(23);
+			JobOptimizer optimizer = new SmartBOJobOptimizer(
+					new JobProfileOracle(SampleProfiles
+							.getWordCountJobProfile()),
+					new SampleDataSetModel(), new BasicFIFOScheduler(cluster),
+					cluster, conf);
+			optimizer.optimize();
+
+			assertTrue(optimizer.getBestRunningTime() > 0);
+			assertTrue(optimizer.getBestRunningTime() < Double.MAX_VALUE);
+			assertNotNull(optimizer.getBestConfiguration(true).get(
+					Constants.MR_RED_TASKS));
+		}
+	}
+
+	/**
+	 * Test that the Gaussian process interpolates the observations and is
+	 * uncertain far from them
+	 */
+	@Test
+	public void testGaussianProcess() {
+		GaussianProcess gp = new GaussianProcess(2);
+		List<double[]> points = new ArrayList<double[]>();
+		for (int i = 0; i <= 4; ++i) {
+			for (int j = 0; j <= 4; ++j) {
+				double[] point = new double[] { i / 4d, j / 4d };
+				points.add(point);
+				gp.addObservation(point, Math.sin(3 * point[0]) + point[1]);
+			}
+		}
+		gp.fit(true);
+
+		// The predictions at the observed points
+		double[] result = new double[2];
+		for (double[] point : points) {
+			gp.predict(point, result);
+			assertEquals(Math.sin(3 * point[0]) + point[1], result[0], 0.05);
+			assertTrue(result[1] < 0.1);
+		}
+
+		// The batch predictions are identical to the single ones
+		List<double[]> cands = new ArrayList<double[]>();
+		cands.add(new double[] { 0.1, 0.1 });
+		cands.add(new double[] { 0.12, 0.1 });
+		cands.add(new double[] { 0.9, 0.6 });
+		double[] means = new double[3];
+		double[] stds = new double[3];
+		double[][] work = gp.predict(cands, means, stds);
+		for (int c = 0; c < 3; ++c) {
+			gp.predict(cands.get(c), result);
+			assertEquals(result[0], means[c], 1e-9);
+			assertEquals(result[1], stds[c], 1e-9);
+		}
+
+		// A pseudo observation keeps the means and reduces the uncertainty
+		// mostly around it
+		double[] prevStds = stds.clone();
+		gp.addPseudoObservation(0, cands, work, stds);
+		for (int c = 0; c < 3; ++c) {
+			gp.predict(cands.get(c), result);
+			assertEquals(means[c], result[0], 1e-6);
+			assertEquals(result[1], stds[c], 1e-6);
+			assertTrue(stds[c] <= prevStds[c]);
+		}
+		assertTrue(stds[0] < 0.01);
+		assertTrue(prevStds[1] - stds[1] > prevStds[2] - stds[2]);
+	}
+
+	/**
+	 * Optimize the job with both optimizers and compare the results
+	 * 
+	 * @param prof
+	 *            the job profile
+	 * @param model
+	 *            the data set model
+	 * @param cluster
+	 *            the cluster
+	 * @param conf
+	 *            the job configuration
+	 */
+	private void compareOptimizers(MRJobProfile prof, SampleDataSetModel model,
+			ClusterConfiguration cluster, Configuration conf) {
+
+		ParameterDescriptor.setRandomSeed(23);
+		JobOptimizer rrsOptimizer = new SmartRRSJobOptimizer(
+				new JobProfileOracle(prof), model, new BasicFIFOScheduler(
+						cluster), cluster, conf);
+		rrsOptimizer.optimize();
+
+		ParameterDescriptor.setRandomSeed(23);
+		JobOptimizer boOptimizer = new SmartBOJobOptimizer(
+				new JobProfileOracle(prof), model, new BasicFIFOScheduler(
+						cluster), cluster, conf);
+		boOptimizer.optimize();
+
+		Configuration bestConf = boOptimizer.getBestConfiguration(true);
+		assertNotNull(bestConf.get(Constants.MR_SORT_MB));
+		assertNotNull(bestConf.get(Constants.MR_RED_TASKS));
+
+		assertTrue(boOptimizer.getBestRunningTime() <= 1.01 * rrsOptimizer
+				.getBestRunningTime());
+		assertTrue(5 * boOptimizer.getNumWhatIfCalls() <= rrsOptimizer
+				.getNumWhatIfCalls());
+	}
+
+}
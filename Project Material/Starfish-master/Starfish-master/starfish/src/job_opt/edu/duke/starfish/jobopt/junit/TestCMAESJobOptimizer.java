@@ -0,0 +1,149 @@
+package edu.duke.starfish.jobopt.junit;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import edu.duke.starfish.jobopt.cmaes.CMAEvolutionStrategy;
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.SmartCMAESJobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.SmartRRSJobOptimizer;
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
+import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
+import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.whatif.junit.SampleDataSetModel;
+import edu.duke.starfish.whatif.junit.SampleProfiles;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+
+/**
+ * Test the CMAESJobOptimizer and the SmartCMAESJobOptimizer
+ * 
+ * @author hero
+ */
+public class TestCMAESJobOptimizer extends TestCase {
+
+	/**
+	 * Test that the SmartCMAESJobOptimizer finds configurations as good as
+	 * the ones found by the SmartRRSJobOptimizer with fewer what-if calls
+	 */
+	@Test
+	public void testSmartCMAESAgainstSmartRRS() {
+		// Common elements
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+
+		// TeraSort ---------------------------------------------------
+		Configuration tsConf = SampleProfiles.getTeraSortConfiguration();
+		tsConf.setInt(SampleDataSetModel.NUM_MAPPERS, 5);
+		tsConf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+		tsConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		compareOptimizers(SampleProfiles.getTeraSortJobProfile(), model,
+				cluster, tsConf);
+
+		// WordCount ---------------------------------------------------
+		Configuration wcConf = SampleProfiles.getWordCountConfiguration();
+		wcConf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		wcConf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		wcConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		compareOptimizers(SampleProfiles.getWordCountJobProfile(), model,
+				cluster, wcConf);
+	}
+
+	/**
+	 * Test that the search always costs its first generation, so that it
+	 * returns a point even if it must stop right after it started
+	 */
+	@Test
+	public void testFirstGeneration() {
+		Configuration conf = SampleProfiles.getWordCountConfiguration();
+		conf.setInt(CMAEvolutionStrategy.CMA_POPULATION_SIZE, 6);
+		conf.setInt(CMAEvolutionStrategy.CMA_MAX_EVALS, 0);
+		ParameterSpace space = ParamSpaceUtils.getFullParamSpace(conf);
+
+		CMAEvolutionStrategy<ParameterSpacePoint> cma =
+			new CMAEvolutionStrategy<ParameterSpacePoint>(conf);
+		ParameterSpacePoint point = cma.findBestSpacePoint(space,
+				new SyntheticCostEngine(space, 6));
+		assertNotNull(point);
+		assertEquals(space.getNumParameters(), point.getAllParameters().size());
+		assertEquals(6, cma.getNumEvaluations());
+	}
+
+	/**
+	 * Test that a seeded search gives the same result with any number of
+	 * threads evaluating the populations
+	 */
+	@Test
+	public void testSeededCMAES() {
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+		Configuration conf = SampleProfiles.getWordCountConfiguration();
+		conf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		conf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		conf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		conf.setLong(RecursiveRandomSearch.RRS_RANDOM_SEED, 23l);
+
+		conf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, 1);
+		JobOptimizer optimizer1 = new SmartCMAESJobOptimizer(
+				new JobProfileOracle(SampleProfiles.getWordCountJobProfile()),
+				model, new BasicFIFOScheduler(cluster), cluster, conf);
+		optimizer1.optimize();
+
+		conf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, 4);
+		JobOptimizer optimizer4 = new SmartCMAESJobOptimizer(
+				new JobProfileOracle(SampleProfiles.getWordCountJobProfile()),
+				model, new BasicFIFOScheduler(cluster), cluster, conf);
+		optimizer4.optimize();
+
+		assertEquals(optimizer1.getBestRunningTime(), optimizer4
+				.getBestRunningTime());
+		assertEquals(optimizer1.getBestConfiguration(true).get(
+				Constants.MR_SORT_MB), optimizer4.getBestConfiguration(true)
+				.get(Constants.MR_SORT_MB));
+	}
+
+	/**
+	 * Optimize the job with both optimizers and compare the results
+	 * 
+	 * @param prof
+	 *            the job profile
+	 * @param model
+	 *            the data set model
+	 * @param cluster
+	 *            the cluster
+	 * @param conf
+	 *            the job configuration
+	 */
+	private void compareOptimizers(MRJobProfile prof, SampleDataSetModel model,
+			ClusterConfiguration cluster, Configuration conf) {
+
+		ParameterDescriptor.setRandomSeed(23);
+		JobOptimizer rrsOptimizer = new SmartRRSJobOptimizer(
+				new JobProfileOracle(prof), model, new BasicFIFOScheduler(
+						cluster), cluster, conf);
+		rrsOptimizer.optimize();
+
+		ParameterDescriptor.setRandomSeed(23);
+		JobOptimizer cmaOptimizer = new SmartCMAESJobOptimizer(
+				new JobProfileOracle(prof), model, new BasicFIFOScheduler(
+						cluster), cluster, conf);
+		cmaOptimizer.optimize();
+
+		Configuration bestConf = cmaOptimizer.getBestConfiguration(true);
+		assertNotNull(bestConf.get(Constants.MR_SORT_MB));
+		assertNotNull(bestConf.get(Constants.MR_RED_TASKS));
+
+		assertTrue(cmaOptimizer.getBestRunningTime() <= 1.01 * rrsOptimizer
+				.getBestRunningTime());
+		assertTrue(2 * cmaOptimizer.getNumWhatIfCalls() <= rrsOptimizer
+				.getNumWhatIfCalls());
+	}
+
+}
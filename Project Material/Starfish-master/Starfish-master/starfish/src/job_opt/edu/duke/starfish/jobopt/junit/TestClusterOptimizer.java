@@ -0,0 +1,191 @@
+package edu.duke.starfish.jobopt.junit;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import edu.duke.starfish.jobopt.cluster.ClusterOptimizer;
+import edu.duke.starfish.jobopt.cluster.ClusterShape;
+import edu.duke.starfish.jobopt.cluster.NodeType;
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.whatif.junit.SampleDataSetModel;
+import edu.duke.starfish.whatif.junit.SampleProfiles;
+
+/**
+ * Test the ClusterOptimizer and the node type specifications
+ * 
+ * @author hero
+ */
+public class TestClusterOptimizer extends TestCase {
+
+	/**
+	 * Test parsing the node type specifications
+	 */
+	@Test
+	public void testNodeTypes() {
+		List<NodeType> types = NodeType
+				.parseNodeTypes("small:0.10:2, large:0.40:8:1024");
+		assertEquals(2, types.size());
+		assertEquals("small", types.get(0).getName());
+		assertEquals(0.1d, types.get(0).getHourlyCost(), 1e-9);
+		assertEquals(2, types.get(0).getNumSlots());
+		assertEquals(0l, types.get(0).getTaskMemory());
+		assertEquals(1024l << 20, types.get(1).getTaskMemory());
+
+		String[] invalid = { "small:0.1", "small:cheap:2", "small:0.1:1",
+				"small:-1:2", "small:0.1:2:1:1" };
+		for (String spec : invalid) {
+			try {
+				NodeType.parseNodeTypes(spec);
+				fail("Expected an error for " + spec);
+			} catch (RuntimeException e) {
+				assertTrue(e.getMessage().startsWith("ERROR"));
+			}
+		}
+	}
+
+	/**
+	 * Test that the optimizer selects the cheapest shape meeting the deadline,
+	 * or the fastest shape if none does, and that evaluating the shapes in
+	 * parallel gives the same results
+	 */
+	@Test
+	public void testShapeSelection() {
+		Configuration conf = getOptimizerConf("none");
+
+		// Without a deadline, the cheapest shape overall is selected
+		ClusterOptimizer optimizer = getClusterOptimizer(conf);
+		optimizer.optimize();
+		List<ClusterShape> shapes = optimizer.getEvaluatedShapes();
+		assertEquals(48, shapes.size());
+		for (int i = 1; i < shapes.size(); ++i)
+			assertTrue(shapes.get(i - 1).getCost() <= shapes.get(i).getCost());
+		assertSame(shapes.get(0), optimizer.getBestShape());
+		assertTrue(optimizer.isDeadlineMet());
+
+		// The cost is the hourly cost over the makespan
+		ClusterShape best = optimizer.getBestShape();
+		assertEquals(best.getHourlyCost() * best.getMakespan() / 3600000d,
+				best.getCost(), 1e-9);
+		ClusterConfiguration cluster = optimizer
+				.getBestClusterConfiguration();
+		assertEquals(best.getNumHosts(), cluster.getAllTaskTrackersInfos()
+				.size());
+		assertEquals(best.getNumHosts() * best.getNumMapSlots(), cluster
+				.getTotalMapSlots());
+		assertEquals(best.getNumHosts() * best.getNumReduceSlots(), cluster
+				.getTotalReduceSlots());
+
+		// With a deadline, the cheapest shape meeting it is selected
+		double fastest = Double.MAX_VALUE;
+		for (ClusterShape shape : shapes)
+			fastest = Math.min(fastest, shape.getMakespan());
+		long deadline = (long) (fastest + best.getMakespan()) / 2;
+		conf.setLong(ClusterOptimizer.CLUSTER_OPT_DEADLINE, deadline);
+		conf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, 3);
+		ClusterOptimizer parOptimizer = getClusterOptimizer(conf);
+		parOptimizer.optimize();
+		assertTrue(parOptimizer.isDeadlineMet());
+		assertTrue(parOptimizer.getBestMakespan() <= deadline);
+		assertTrue(parOptimizer.getBestCost() > optimizer.getBestCost());
+
+		List<ClusterShape> parShapes = parOptimizer.getEvaluatedShapes();
+		assertEquals(shapes.size(), parShapes.size());
+		for (int i = 0; i < shapes.size(); ++i) {
+			assertEquals(shapes.get(i).toString(), parShapes.get(i)
+					.toString());
+			assertEquals(shapes.get(i).getMakespan(), parShapes.get(i)
+					.getMakespan());
+			if (parShapes.get(i).getMakespan() <= deadline)
+				assertTrue(parShapes.get(i).getCost() >= parOptimizer
+						.getBestCost());
+		}
+
+		// With an impossible deadline, the fastest shape is selected
+		conf.setLong(ClusterOptimizer.CLUSTER_OPT_DEADLINE, 1l);
+		ClusterOptimizer lateOptimizer = getClusterOptimizer(conf);
+		lateOptimizer.optimize();
+		assertFalse(lateOptimizer.isDeadlineMet());
+		assertEquals(fastest, lateOptimizer.getBestMakespan());
+	}
+
+	/**
+	 * Test that optimizing the jobs for each cluster shape reduces the cost
+	 * of the workload
+	 */
+	@Test
+	public void testJobTuning() {
+		Configuration conf = getOptimizerConf("none");
+		conf.set(ClusterOptimizer.CLUSTER_OPT_NODE_TYPES, "large:0.40:8");
+		conf.setInt(ClusterOptimizer.CLUSTER_OPT_MIN_HOSTS, 3);
+		conf.setInt(ClusterOptimizer.CLUSTER_OPT_MAX_HOSTS, 4);
+		ClusterOptimizer baseOptimizer = getClusterOptimizer(conf);
+		baseOptimizer.optimize();
+
+		conf.set(ClusterOptimizer.CLUSTER_OPT_JOB_OPTIMIZER, "smart_cmaes");
+		ClusterOptimizer tunedOptimizer = getClusterOptimizer(conf);
+		tunedOptimizer.optimize();
+		assertEquals(14, tunedOptimizer.getEvaluatedShapes().size());
+		assertTrue(tunedOptimizer.getBestCost() < baseOptimizer
+				.getBestCost());
+		assertTrue(tunedOptimizer.getBestMakespan() < baseOptimizer
+				.getBestMakespan());
+
+		// The best job configurations are tuned for the best shape
+		for (int jobId = 0; jobId < 2; ++jobId) {
+			Configuration bestConf = tunedOptimizer
+					.getBestConfiguration(jobId);
+			assertNotNull(bestConf.get(Constants.MR_SORT_MB));
+			assertNotNull(bestConf.get(Constants.MR_RED_TASKS));
+		}
+	}
+
+	/**
+	 * @param jobOptimizer
+	 *            the job optimizer type
+	 * @return the optimizer configuration for the tests
+	 */
+	private Configuration getOptimizerConf(String jobOptimizer) {
+		Configuration conf = new Configuration(false);
+		conf.set(ClusterOptimizer.CLUSTER_OPT_NODE_TYPES,
+				"small:0.10:2,large:0.40:8");
+		conf.setInt(ClusterOptimizer.CLUSTER_OPT_MAX_HOSTS, 6);
+		conf.set(ClusterOptimizer.CLUSTER_OPT_JOB_OPTIMIZER, jobOptimizer);
+		return conf;
+	}
+
+	/**
+	 * Create a cluster optimizer for a workload of TeraSort and WordCount
+	 * 
+	 * @param conf
+	 *            the optimizer configuration
+	 * @return the cluster optimizer
+	 */
+	private ClusterOptimizer getClusterOptimizer(Configuration conf) {
+		ClusterOptimizer optimizer = new ClusterOptimizer(
+				new SampleDataSetModel(), conf);
+
+		Configuration tsConf = SampleProfiles.getTeraSortConfiguration();
+		tsConf.setInt(SampleDataSetModel.NUM_MAPPERS, 5);
+		tsConf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+		tsConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		tsConf.setLong(RecursiveRandomSearch.RRS_RANDOM_SEED, 23l);
+		optimizer.addJob(SampleProfiles.getTeraSortJobProfile(), tsConf);
+
+		Configuration wcConf = SampleProfiles.getWordCountConfiguration();
+		wcConf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		wcConf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		wcConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		wcConf.setLong(RecursiveRandomSearch.RRS_RANDOM_SEED, 23l);
+		optimizer.addJob(SampleProfiles.getWordCountJobProfile(), wcConf);
+
+		return optimizer;
+	}
+
+}
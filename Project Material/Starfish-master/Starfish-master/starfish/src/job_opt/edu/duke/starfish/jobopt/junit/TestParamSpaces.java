@@ -1,19 +1,30 @@
 package edu.duke.starfish.jobopt.junit;
 
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 
 import junit.framework.TestCase;
 
+import org.apache.hadoop.conf.Configuration;
 import org.junit.Test;
 
 import edu.duke.starfish.jobopt.params.BooleanParamDescriptor;
 import edu.duke.starfish.jobopt.params.DoubleParamDescriptor;
 import edu.duke.starfish.jobopt.params.HadoopParameter;
 import edu.duke.starfish.jobopt.params.IntegerParamDescriptor;
+import edu.duke.starfish.jobopt.params.ListParamDescriptor;
 import edu.duke.starfish.jobopt.params.ParamTaskEffect;
 import edu.duke.starfish.jobopt.space.MultiJobParamSpacePoint;
 import edu.duke.starfish.jobopt.space.MultiJobParameterSpace;
+import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
 import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpaceGrid;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.whatif.JobSettings;
 
 /**
  * Test the parameter space classes
@@ -193,4 +204,198 @@ public class TestParamSpaces extends TestCase {
 				.getJobSpacePoint(1).toString());
 	}
 
+	@Test
+	public void testCanonicalSpacePoint() {
+
+		Configuration conf1 = new Configuration(false);
+		conf1.set(HadoopParameter.SORT_FACTOR.toString(), "010");
+		conf1.set(HadoopParameter.SPILL_PERC.toString(), "0.80000000001");
+		conf1.set(HadoopParameter.COMPRESS_OUT.toString(), "true");
+
+		Configuration conf2 = new Configuration(false);
+		conf2.set(HadoopParameter.SORT_FACTOR.toString(), "10");
+		conf2.set(HadoopParameter.SPILL_PERC.toString(), "0.8");
+		conf2.set(HadoopParameter.COMPRESS_OUT.toString(), "true");
+
+		ParameterSpacePoint point1 = ParamSpaceUtils
+				.getCanonicalSpacePoint(conf1);
+		ParameterSpacePoint point2 = ParamSpaceUtils
+				.getCanonicalSpacePoint(conf2);
+		assertEquals(point1, point2);
+		assertEquals(point1, ParamSpaceUtils
+				.getCanonicalSpacePoint(new JobSettings(conf1)));
+		assertEquals("10", point1
+				.getParameterValue(HadoopParameter.SORT_FACTOR));
+		assertEquals("true", point1
+				.getParameterValue(HadoopParameter.COMPRESS_OUT));
+
+		conf2.set(HadoopParameter.SPILL_PERC.toString(), "0.81");
+		assertFalse(point1.equals(ParamSpaceUtils
+				.getCanonicalSpacePoint(conf2)));
+
+		// Unset and invalid values take the defaults of the What-if Engine
+		Configuration conf3 = new Configuration(false);
+		conf3.set(HadoopParameter.SORT_FACTOR.toString(), "ten");
+		assertEquals(ParamSpaceUtils.getCanonicalSpacePoint(new Configuration(
+				false)), ParamSpaceUtils.getCanonicalSpacePoint(conf3));
+	}
+
+	/**
+	 * Test that the space points survive a round trip through the unit
+	 * hypercube and that any coordinates map to the closest space point
+	 */
+	@Test
+	public void testNormalizedCoordinates() {
+
+		// A space with mixed domains (the dimensions follow the order of the
+		// parameters)
+		ParameterSpace space = new ParameterSpace();
+		space.addParameterDescriptor(new DoubleParamDescriptor(
+				HadoopParameter.SPILL_PERC, ParamTaskEffect.EFFECT_MAP, 0.2,
+				0.8));
+		space.addParameterDescriptor(new IntegerParamDescriptor(
+				HadoopParameter.SORT_FACTOR, ParamTaskEffect.EFFECT_MAP, 2, 5));
+		space.addParameterDescriptor(new ListParamDescriptor(
+				HadoopParameter.NUM_SPILLS_COMBINE, ParamTaskEffect.EFFECT_MAP,
+				"3", "10", "9999"));
+		space.addParameterDescriptor(new BooleanParamDescriptor(
+				HadoopParameter.COMPRESS_OUT, ParamTaskEffect.EFFECT_MAP));
+
+		assertEquals(Integer.MAX_VALUE, space.getNumUniqueValues(0));
+		assertEquals(4, space.getNumUniqueValues(1));
+		assertEquals(3, space.getNumUniqueValues(2));
+		assertEquals(2, space.getNumUniqueValues(3));
+
+		ParameterSpacePoint point = space.getSpacePoint(new double[] { 1.5,
+				0.4, 0.8, 0.49 });
+		assertEquals("3", point.getParameterValue(HadoopParameter.SORT_FACTOR));
+		assertEquals(0.8, point.getNumericValue(HadoopParameter.SPILL_PERC),
+				1e-9);
+		assertEquals("false", point
+				.getParameterValue(HadoopParameter.COMPRESS_OUT));
+		assertEquals("9999", point
+				.getParameterValue(HadoopParameter.NUM_SPILLS_COMBINE));
+
+		point = space.getSpacePoint(new double[] { -1, -1, 0.2, 0.5 });
+		assertEquals("2", point.getParameterValue(HadoopParameter.SORT_FACTOR));
+		assertEquals(0.2, point.getNumericValue(HadoopParameter.SPILL_PERC),
+				1e-9);
+		assertEquals("true", point
+				.getParameterValue(HadoopParameter.COMPRESS_OUT));
+		assertEquals("3", point
+				.getParameterValue(HadoopParameter.NUM_SPILLS_COMBINE));
+
+		// Round trips through the full space
+		Configuration conf = new Configuration(false);
+		conf.set(Constants.MR_COMBINE_CLASS, "Combiner");
+		ParameterSpace fullSpace = ParamSpaceUtils.getFullParamSpace(conf);
+		for (int i = 0; i < 100; ++i) {
+			point = fullSpace.getRandomSpacePoint();
+			ParameterSpacePoint copy = fullSpace.getSpacePoint(fullSpace
+					.getNormalizedCoordinates(point));
+			assertEquals(point.getAllParameters(), copy.getAllParameters());
+			for (HadoopParameter param : point.getAllParameters()) {
+				assertEquals(point.getNumericValue(param), copy
+						.getNumericValue(param), 1e-9);
+			}
+		}
+	}
+
+	/**
+	 * Test that populating the compiled job settings directly leads to the
+	 * same settings as populating and compiling a configuration
+	 */
+	@Test
+	public void testPopulateJobSettings() {
+
+		Configuration conf = new Configuration(false);
+		conf.set(Constants.MR_COMBINE_CLASS, "Combiner");
+		ParameterSpace space = ParamSpaceUtils.getFullParamSpace(conf);
+		JobSettings base = new JobSettings(conf);
+
+		for (int i = 0; i < 100; ++i) {
+			ParameterSpacePoint point = space.getRandomSpacePoint();
+
+			Configuration pointConf = new Configuration(conf);
+			point.populateConfiguration(pointConf);
+			JobSettings expected = new JobSettings(pointConf);
+
+			JobSettings settings = new JobSettings(base);
+			point.populateJobSettings(settings);
+			assertEquals(ParamSpaceUtils.getCanonicalSpacePoint(expected),
+					ParamSpaceUtils.getCanonicalSpacePoint(settings));
+
+			// The point must survive a round trip through the configuration
+			ParameterSpacePoint copy = new ParameterSpacePoint();
+			for (HadoopParameter param : point.getAllParameters())
+				copy.addParamValue(param, pointConf.get(param.toString()));
+			assertEquals(point, copy);
+		}
+	}
+
+	/**
+	 * Test that the lazy grid generates the same points in the same order as
+	 * the materialized grid, and that the permuted order visits every point
+	 * exactly once
+	 */
+	@Test
+	public void testLazySpacePointGrid() {
+
+		ParameterSpace space = new ParameterSpace();
+		BooleanParamDescriptor compress = new BooleanParamDescriptor(
+				HadoopParameter.COMPRESS_OUT, ParamTaskEffect.EFFECT_MAP);
+		IntegerParamDescriptor factor = new IntegerParamDescriptor(
+				HadoopParameter.SORT_FACTOR, ParamTaskEffect.EFFECT_MAP, 2, 5);
+		space.addParameterDescriptor(compress);
+		space.addParameterDescriptor(factor);
+
+		ParameterSpaceGrid grid = space.getLazySpacePointGrid(false, 3);
+		assertEquals(2, grid.getNumParameters());
+		assertEquals(6, grid.size());
+
+		// The first parameter varies the fastest
+		List<ParameterSpacePoint> points = space.getSpacePointGrid(false, 3);
+		assertEquals(6, points.size());
+		Iterator<ParameterSpacePoint> iter = grid.iterator();
+		int index = 0;
+		for (String compressValue : compress.getEquiSpacedValues(3)) {
+			for (String factorValue : factor.getEquiSpacedValues(3)) {
+				ParameterSpacePoint expected = new ParameterSpacePoint(
+						HadoopParameter.SORT_FACTOR, factorValue);
+				expected.addParamValue(HadoopParameter.COMPRESS_OUT,
+						compressValue);
+				assertEquals(expected, points.get(index));
+				assertEquals(expected, grid.getSpacePoint(index));
+				assertEquals(expected, iter.next());
+				++index;
+			}
+		}
+		assertFalse(iter.hasNext());
+
+		// Ranges of the grid
+		iter = grid.iterator(2, 5);
+		for (int i = 2; i < 5; ++i)
+			assertEquals(points.get(i), iter.next());
+		assertFalse(iter.hasNext());
+
+		// The permuted order visits every point of the full space once
+		Configuration conf = new Configuration(false);
+		conf.set(Constants.MR_COMBINE_CLASS, "Combiner");
+		ParameterSpaceGrid fullGrid = ParamSpaceUtils.getFullParamSpace(conf)
+				.getLazySpacePointGrid(false, 2);
+		Set<ParameterSpacePoint> visited = new HashSet<ParameterSpacePoint>();
+		iter = fullGrid.permutedIterator(new Random(7));
+		while (iter.hasNext())
+			assertTrue(visited.add(iter.next()));
+		assertEquals(fullGrid.size(), visited.size());
+		for (ParameterSpacePoint point : fullGrid)
+			assertTrue(visited.contains(point));
+
+		// An empty space has a single empty point
+		ParameterSpaceGrid emptyGrid = new ParameterSpace()
+				.getLazySpacePointGrid(false, 3);
+		assertEquals(1, emptyGrid.size());
+		assertEquals(new ParameterSpacePoint(), emptyGrid.iterator().next());
+	}
+
 }
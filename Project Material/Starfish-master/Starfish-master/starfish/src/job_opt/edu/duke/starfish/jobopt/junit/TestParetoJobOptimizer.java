@@ -0,0 +1,231 @@
+package edu.duke.starfish.jobopt.junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.ParetoJobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.SmartRRSJobOptimizer;
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.jobopt.pareto.ParetoArchive;
+import edu.duke.starfish.jobopt.pareto.ParetoPoint;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.whatif.junit.SampleDataSetModel;
+import edu.duke.starfish.whatif.junit.SampleProfiles;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+
+/**
+ * Test the ParetoJobOptimizer and the Pareto archive
+ * 
+ * @author hero
+ */
+public class TestParetoJobOptimizer extends TestCase {
+
+	/**
+	 * Test that the archive keeps exactly the non-dominated points and that
+	 * the selection policy picks the fastest point within the tolerance
+	 */
+	@Test
+	public void testParetoArchive() {
+		ParetoArchive<String> archive = new ParetoArchive<String>();
+		assertNull(archive.select(0.1));
+
+		assertTrue(archive.add("a", 100, 50));
+		assertTrue(archive.add("b", 80, 60));
+		assertFalse(archive.add("c", 90, 60)); // dominated by b
+		assertFalse(archive.add("d", 100, 50)); // same as a
+		assertTrue(archive.add("e", 120, 40));
+		assertTrue(archive.add("f", 100, 45)); // dominates a
+		assertTrue(archive.add("g", 80, 55)); // dominates b
+		assertEquals(7, archive.getNumOffered());
+
+		List<ParetoPoint<String>> front = archive.getFront();
+		assertEquals(3, front.size());
+		assertEquals("g", front.get(0).getPoint());
+		assertEquals("f", front.get(1).getPoint());
+		assertEquals("e", front.get(2).getPoint());
+		for (int i = 1; i < front.size(); ++i) {
+			assertTrue(front.get(i - 1).getRunningTime() < front.get(i)
+					.getRunningTime());
+			assertTrue(front.get(i - 1).getSlotSeconds() > front.get(i)
+					.getSlotSeconds());
+		}
+
+		assertEquals("e", archive.select(0).getPoint());
+		assertEquals("f", archive.select(0.125).getPoint());
+		assertEquals("g", archive.select(0.5).getPoint());
+	}
+
+	/**
+	 * Test that the Pareto front contains a point as fast as the one found by
+	 * the SmartRRSJobOptimizer and points that use fewer slot-seconds, and
+	 * that the selected point follows the policy
+	 */
+	@Test
+	public void testParetoFront() {
+		// Common elements
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+
+		// TeraSort ---------------------------------------------------
+		Configuration tsConf = SampleProfiles.getTeraSortConfiguration();
+		tsConf.setInt(SampleDataSetModel.NUM_MAPPERS, 5);
+		tsConf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+		tsConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		checkParetoFront(SampleProfiles.getTeraSortJobProfile(), model,
+				cluster, tsConf);
+
+		// WordCount ---------------------------------------------------
+		Configuration wcConf = SampleProfiles.getWordCountConfiguration();
+		wcConf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		wcConf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		wcConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		checkParetoFront(SampleProfiles.getWordCountJobProfile(), model,
+				cluster, wcConf);
+	}
+
+	/**
+	 * Test that the selected point remains the best configuration when the
+	 * time budget runs out, even if the current configuration is faster
+	 */
+	@Test
+	public void testTimeBudget() {
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		Configuration conf = SampleProfiles.getWordCountConfiguration();
+		conf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		conf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		conf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		conf.setFloat(ParetoJobOptimizer.PARETO_SLOT_TOLERANCE, 0f);
+
+		// The current configuration becomes the fastest point of the front
+		ParameterDescriptor.setRandomSeed(23);
+		ParetoJobOptimizer paretoOptimizer = new ParetoJobOptimizer(
+				new JobProfileOracle(SampleProfiles.getWordCountJobProfile()),
+				new SampleDataSetModel(), new BasicFIFOScheduler(cluster),
+				cluster, conf);
+		paretoOptimizer.optimize();
+		ParetoPoint<ParameterSpacePoint> fastest = paretoOptimizer
+				.getParetoFront().get(0);
+		fastest.getPoint().populateConfiguration(conf);
+		double initTime = fastest.getRunningTime();
+
+		// The budget runs out after a full search
+		conf.setLong(JobOptimizer.JOB_OPT_TIME_BUDGET, 1l);
+		ParameterDescriptor.setRandomSeed(23);
+		paretoOptimizer = new ExhaustedParetoJobOptimizer(
+				new JobProfileOracle(SampleProfiles.getWordCountJobProfile()),
+				new SampleDataSetModel(), new BasicFIFOScheduler(cluster),
+				cluster, conf);
+		paretoOptimizer.optimize();
+		assertTrue(paretoOptimizer.isTimeBudgetExhausted());
+
+		// The selected point is slower than the current configuration
+		ParetoPoint<ParameterSpacePoint> selected = paretoOptimizer
+				.getSelectedPoint();
+		assertTrue(paretoOptimizer.getParetoFront().contains(selected));
+		assertTrue(initTime < selected.getRunningTime());
+		checkSelectedPoint(paretoOptimizer);
+	}
+
+	/**
+	 * Optimize the job with both optimizers and check the Pareto front
+	 * 
+	 * @param prof
+	 *            the job profile
+	 * @param model
+	 *            the data set model
+	 * @param cluster
+	 *            the cluster
+	 * @param conf
+	 *            the job configuration
+	 */
+	private void checkParetoFront(MRJobProfile prof, SampleDataSetModel model,
+			ClusterConfiguration cluster, Configuration conf) {
+
+		ParameterDescriptor.setRandomSeed(23);
+		JobOptimizer rrsOptimizer = new SmartRRSJobOptimizer(
+				new JobProfileOracle(prof), model, new BasicFIFOScheduler(
+						cluster), cluster, conf);
+		rrsOptimizer.optimize();
+		double rrsSlotSeconds = JobOptimizer.getSlotSeconds(rrsOptimizer
+				.getBestMRJobInfo());
+
+		ParameterDescriptor.setRandomSeed(23);
+		ParetoJobOptimizer paretoOptimizer = new ParetoJobOptimizer(
+				new JobProfileOracle(prof), model, new BasicFIFOScheduler(
+						cluster), cluster, conf);
+		paretoOptimizer.optimize();
+
+		// The front is sorted and non-dominated
+		List<ParetoPoint<ParameterSpacePoint>> front = paretoOptimizer
+				.getParetoFront();
+		assertTrue(front.size() > 1);
+		for (int i = 1; i < front.size(); ++i) {
+			assertTrue(front.get(i - 1).getRunningTime() < front.get(i)
+					.getRunningTime());
+			assertTrue(front.get(i - 1).getSlotSeconds() > front.get(i)
+					.getSlotSeconds());
+		}
+
+		// The ends of the front are at least as good as the RRS point
+		assertTrue(front.get(0).getRunningTime() <= 1.01 * rrsOptimizer
+				.getBestRunningTime());
+		assertTrue(front.get(front.size() - 1).getSlotSeconds()
+				<= rrsSlotSeconds);
+
+		// The selected point is the fastest within 10% of the min slots
+		ParetoPoint<ParameterSpacePoint> selected = paretoOptimizer
+				.getSelectedPoint();
+		double maxSlotSeconds = 1.1 * front.get(front.size() - 1)
+				.getSlotSeconds();
+		assertTrue(front.contains(selected));
+		assertTrue(selected.getSlotSeconds() <= maxSlotSeconds);
+		for (ParetoPoint<ParameterSpacePoint> point : front) {
+			if (point.getRunningTime() < selected.getRunningTime())
+				assertTrue(point.getSlotSeconds() > maxSlotSeconds);
+		}
+
+		// The best configuration is the selected point
+		checkSelectedPoint(paretoOptimizer);
+
+		// The front is printed as an XML comment
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		paretoOptimizer.printParetoFront(new PrintStream(bytes, true));
+		String output = bytes.toString().trim();
+		assertTrue(output.startsWith("<!--"));
+		assertTrue(output.endsWith("-->"));
+		assertEquals(-1, output.substring(4, output.length() - 3).indexOf(
+				"--"));
+		assertTrue(output.indexOf(Constants.MR_SORT_MB) > 0);
+	}
+
+	/**
+	 * Check that the best configuration of the optimizer is the selected
+	 * point of the Pareto front
+	 * 
+	 * @param paretoOptimizer
+	 *            the optimizer (after the optimization)
+	 */
+	private void checkSelectedPoint(ParetoJobOptimizer paretoOptimizer) {
+		ParetoPoint<ParameterSpacePoint> selected = paretoOptimizer
+				.getSelectedPoint();
+		assertEquals(selected.getRunningTime(), paretoOptimizer
+				.getBestRunningTime(), 1d);
+		assertEquals(selected.getSlotSeconds(), JobOptimizer
+				.getSlotSeconds(paretoOptimizer.getBestMRJobInfo()), 1d);
+		Configuration bestConf = paretoOptimizer.getBestConfiguration(true);
+		assertNotNull(bestConf.get(Constants.MR_SORT_MB));
+		assertNotNull(bestConf.get(Constants.MR_RED_TASKS));
+	}
+
+}
@@ -1,16 +1,25 @@
 package edu.duke.starfish.jobopt.junit;
 
+import java.util.Date;
+
 import junit.framework.TestCase;
 
 import org.apache.hadoop.conf.Configuration;
 import org.junit.Test;
 
 import edu.duke.starfish.jobopt.optimizer.FullEnumJobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
 import edu.duke.starfish.jobopt.optimizer.RRSJobOptimizer;
+import edu.duke.starfish.jobopt.params.HadoopParameter;
 import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
+import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
+import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
 import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
 import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.whatif.WhatIfEngine;
 import edu.duke.starfish.whatif.junit.SampleDataSetModel;
 import edu.duke.starfish.whatif.junit.SampleProfiles;
 import edu.duke.starfish.whatif.oracle.JobProfileOracle;
@@ -100,4 +109,115 @@ public class TestRRSJobOptimizer extends TestCase {
 
 	}
 
+	/**
+	 * Test that the what-if cost cache does not change the optimization result
+	 */
+	@Test
+	public void testWhatIfCostCache() {
+		// Common elements
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+		MRJobProfile wcJobProf = SampleProfiles.getWordCountJobProfile();
+		Configuration wcConf = SampleProfiles.getWordCountConfiguration();
+
+		// Set the input specs
+		wcConf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		wcConf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		wcConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+
+		// Optimize without the cache
+		ParameterDescriptor.setRandomSeed(23);
+		wcConf.setInt(JobOptimizer.JOB_OPT_CACHE_SIZE, 0);
+		RRSJobOptimizer noCacheOptimizer = new RRSJobOptimizer(
+				new JobProfileOracle(wcJobProf), model,
+				new BasicFIFOScheduler(cluster), cluster, wcConf);
+		noCacheOptimizer.optimize();
+		assertEquals(0, noCacheOptimizer.getWhatIfCostCache().size());
+		assertEquals(0, noCacheOptimizer.getWhatIfCostCache().getNumHits());
+
+		// Optimize with a small cache
+		ParameterDescriptor.setRandomSeed(23);
+		wcConf.setInt(JobOptimizer.JOB_OPT_CACHE_SIZE, 8);
+		RRSJobOptimizer cacheOptimizer = new RRSJobOptimizer(
+				new JobProfileOracle(wcJobProf), model,
+				new BasicFIFOScheduler(cluster), cluster, wcConf);
+		cacheOptimizer.optimize();
+
+		assertEquals(noCacheOptimizer.getBestRunningTime(), cacheOptimizer
+				.getBestRunningTime());
+		assertEquals(8, cacheOptimizer.getWhatIfCostCache().size());
+		assertTrue(cacheOptimizer.getWhatIfCostCache().getNumMisses() > 8);
+		assertEquals(cacheOptimizer.getWhatIfCostCache().getNumEvictions(),
+				cacheOptimizer.getWhatIfCostCache().getNumMisses() - 8);
+	}
+
+	/**
+	 * Test that a search stops at its deadline and that an optimization whose
+	 * time budget runs out returns a configuration no worse than the initial
+	 * one. The deadlines are set so that they always pass, regardless of the
+	 * speed of the machine.
+	 */
+	@Test
+	public void testTimeBudget() {
+		// Common elements
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+		MRJobProfile wcJobProf = SampleProfiles.getWordCountJobProfile();
+		Configuration wcConf = SampleProfiles.getWordCountConfiguration();
+
+		// Set the input specs
+		wcConf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		wcConf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		wcConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+
+		// A search whose deadline has passed costs no points
+		ParameterSpace space = ParamSpaceUtils.getFullParamSpace(wcConf);
+		RecursiveRandomSearch<ParameterSpacePoint> rrs =
+			new RecursiveRandomSearch<ParameterSpacePoint>(wcConf);
+		rrs.setDeadline(System.currentTimeMillis() - 1);
+		assertEquals(new ParameterSpacePoint(), rrs.findBestSpacePoint(space,
+				new SyntheticCostEngine(space, 0)));
+
+		// Predict the running time with the initial configuration
+		Date submissionTime = new Date();
+		WhatIfEngine engine = new WhatIfEngine(new JobProfileOracle(
+				wcJobProf), model, new BasicFIFOScheduler(cluster));
+		double initTime = engine.whatIfJobConfGetJobInfo(submissionTime,
+				wcConf).getDuration();
+
+		// A faster and a slower point than the initial configuration
+		ParameterSpacePoint[] points = new ParameterSpacePoint[] {
+				new ParameterSpacePoint(HadoopParameter.RED_TASKS, "27"),
+				new ParameterSpacePoint(HadoopParameter.COMBINE, "false") };
+
+		int numReplaced = 0;
+		for (ParameterSpacePoint point : points) {
+
+			// The point found without a time budget is always kept
+			wcConf.setLong(JobOptimizer.JOB_OPT_TIME_BUDGET, 0l);
+			JobOptimizer optimizer = new FixedPointJobOptimizer(
+					new JobProfileOracle(wcJobProf), model,
+					new BasicFIFOScheduler(cluster), cluster, wcConf, point);
+			optimizer.optimize(submissionTime);
+			assertFalse(optimizer.isTimeBudgetExhausted());
+			double pointTime = optimizer.getBestRunningTime();
+
+			// The point found when the budget runs out must beat the initial
+			// configuration
+			wcConf.setLong(JobOptimizer.JOB_OPT_TIME_BUDGET, 1l);
+			optimizer = new FixedPointJobOptimizer(new JobProfileOracle(
+					wcJobProf), model, new BasicFIFOScheduler(cluster),
+					cluster, wcConf, point);
+			optimizer.optimize(submissionTime);
+			assertTrue(optimizer.isTimeBudgetExhausted());
+			assertEquals(Math.min(initTime, pointTime), optimizer
+					.getBestRunningTime());
+			assertNotNull(optimizer.getBestConfiguration(true).get(
+					Constants.MR_RED_TASKS));
+			if (initTime < pointTime)
+				++numReplaced;
+		}
+		assertEquals(1, numReplaced);
+	}
+
 }
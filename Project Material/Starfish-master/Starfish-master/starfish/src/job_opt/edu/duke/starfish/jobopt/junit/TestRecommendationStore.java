@@ -0,0 +1,212 @@
+package edu.duke.starfish.jobopt.junit;
+
+import java.io.File;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
+import edu.duke.starfish.jobopt.store.BatchRecommender;
+import edu.duke.starfish.jobopt.store.Recommendation;
+import edu.duke.starfish.jobopt.store.RecommendationStore;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.whatif.junit.SampleProfiles;
+
+/**
+ * Test the RecommendationStore and the BatchRecommender
+ * 
+ * @author hero
+ */
+public class TestRecommendationStore extends TestCase {
+
+	private File storeDir; // The store directory of the tests
+
+	@Override
+	protected void setUp() {
+		storeDir = new File(System.getProperty("java.io.tmpdir"),
+				"starfish-store-" + System.nanoTime());
+	}
+
+	@Override
+	protected void tearDown() {
+		File[] files = storeDir.listFiles();
+		if (files != null)
+			for (File file : files)
+				file.delete();
+		storeDir.delete();
+	}
+
+	/**
+	 * Test storing and looking up recommendations, including the keying by
+	 * the input size bucket and the detection of stale recommendations
+	 */
+	@Test
+	public void testStoreAndLookup() {
+		RecommendationStore store = new RecommendationStore(storeDir, 0l);
+		ClusterConfiguration cluster = getCluster(4);
+
+		Configuration conf = new Configuration(false);
+		conf.setInt(Constants.MR_SORT_MB, 120);
+		conf.setInt(Constants.MR_RED_TASKS, 7);
+		store.put(new Recommendation("job_1_0001", cluster, 3000l, "rrs",
+				JobOptimizer.OPTIMIZER_VERSION, "", 12345.5d, conf));
+
+		// Any input in the same power of two finds the recommendation
+		Recommendation rec = store.lookup("job_1_0001", cluster, 2048l, "rrs",
+				"");
+		assertNotNull(rec);
+		assertEquals("job_1_0001", rec.getProfileId());
+		assertEquals("test", rec.getClusterName());
+		assertEquals(3000l, rec.getInputSize());
+		assertEquals(11, rec.getInputBucket());
+		assertEquals(12345.5d, rec.getPredictedTime());
+		assertEquals(8, rec.getNumMapSlots());
+		assertEquals(4, rec.getNumReduceSlots());
+		assertEquals(120, rec.getConfiguration().getInt(Constants.MR_SORT_MB,
+				0));
+		assertEquals(7, rec.getConfiguration().getInt(Constants.MR_RED_TASKS,
+				0));
+		assertNull(rec.getConfiguration().get(
+				"starfish.recommendation.profile.id"));
+
+		// Other jobs, clusters, and input buckets miss
+		assertNull(store.lookup("job_1_0002", cluster, 3000l, "rrs", ""));
+		assertNull(store.lookup("job_1_0001", cluster, 4096l, "rrs", ""));
+		ClusterConfiguration other = ClusterConfiguration
+				.createClusterConfiguration("other", 1, 4, 2, 1, 200l << 20);
+		assertNull(store.lookup("job_1_0001", other, 3000l, "rrs", ""));
+
+		// Stale recommendations are ignored
+		assertNull(store.lookup("job_1_0001", cluster, 3000l, "smart_rrs",
+				""));
+		assertNull(store.lookup("job_1_0001", getCluster(5), 3000l, "rrs",
+				""));
+		store.put(new Recommendation("job_1_0003", cluster, 3000l, "rrs",
+				JobOptimizer.OPTIMIZER_VERSION - 1, "", 1d, conf));
+		assertNotNull(store.get("job_1_0003", "test", 3000l));
+		assertNull(store.lookup("job_1_0003", cluster, 3000l, "rrs", ""));
+
+		Recommendation old = new Recommendation("job_1_0004", "test", 3000l,
+				"rrs", JobOptimizer.OPTIMIZER_VERSION, "", 1d, System
+						.currentTimeMillis() - 60000l, 8, 4, conf);
+		store.put(old);
+		assertNotNull(store.lookup("job_1_0004", cluster, 3000l, "rrs", ""));
+		RecommendationStore ageStore = new RecommendationStore(storeDir,
+				30000l);
+		assertNull(ageStore.lookup("job_1_0004", cluster, 3000l, "rrs", ""));
+		assertNotNull(ageStore.lookup("job_1_0001", cluster, 3000l, "rrs",
+				""));
+
+		// So are recommendations made with other parameters excluded
+		Configuration optConf = new Configuration(false);
+		optConf.set(JobOptimizer.JOB_OPT_EXCLUDE_PARAMS, Constants.MR_SORT_MB
+				+ ", " + Constants.MR_RED_TASKS);
+		String exclude = Recommendation.getExcludedParameters(optConf);
+		store.put(new Recommendation("job_1_0005", cluster, 3000l, "rrs",
+				JobOptimizer.OPTIMIZER_VERSION, exclude, 1d, conf));
+		assertEquals(exclude, store.get("job_1_0005", "test", 3000l)
+				.getExcludedParameters());
+		assertNull(store.lookup("job_1_0005", cluster, 3000l, "rrs", ""));
+		assertNull(store.lookup("job_1_0005", cluster, 3000l, "rrs",
+				Constants.MR_SORT_MB));
+		assertNull(store.lookup("job_1_0001", cluster, 3000l, "rrs", exclude));
+		optConf.set(JobOptimizer.JOB_OPT_EXCLUDE_PARAMS,
+				Constants.MR_RED_TASKS + "," + Constants.MR_SORT_MB);
+		assertNotNull(store.lookup("job_1_0005", cluster, 3000l, "rrs",
+				Recommendation.getExcludedParameters(optConf)));
+
+		// A new recommendation replaces the old one
+		conf.setInt(Constants.MR_RED_TASKS, 9);
+		store.put(new Recommendation("job_1_0001", cluster, 2500l, "rrs",
+				JobOptimizer.OPTIMIZER_VERSION, "", 100d, conf));
+		rec = store.lookup("job_1_0001", cluster, 3000l, "rrs", "");
+		assertEquals(9, rec.getConfiguration().getInt(Constants.MR_RED_TASKS,
+				0));
+		assertEquals(4, storeDir.listFiles().length);
+	}
+
+	/**
+	 * Test populating the store with the batch recommender, and that
+	 * optimizing the jobs in parallel gives the same recommendations
+	 */
+	@Test
+	public void testBatchRecommender() {
+		ClusterConfiguration cluster = getCluster(4);
+		Configuration conf = new Configuration(false);
+		conf.set(JobOptimizer.JOB_OPT_TYPE, "rrs");
+		conf.setLong(RecursiveRandomSearch.RRS_RANDOM_SEED, 23l);
+
+		RecommendationStore store = new RecommendationStore(storeDir, 0l);
+		List<Recommendation> serial = getBatchRecommender(store, cluster,
+				conf).recommend();
+		assertEquals(2, serial.size());
+
+		conf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, 2);
+		List<Recommendation> parallel = getBatchRecommender(store, cluster,
+				conf).recommend();
+		assertEquals(2, parallel.size());
+
+		String[] jobIds = { "ts", "wc" };
+		for (int i = 0; i < jobIds.length; ++i) {
+			Recommendation rec = parallel.get(i);
+			assertEquals(jobIds[i], rec.getProfileId());
+			assertEquals("rrs", rec.getOptimizerType());
+			assertTrue(rec.getPredictedTime() > 0);
+			assertEquals(serial.get(i).getPredictedTime(), rec
+					.getPredictedTime());
+			assertEquals(serial.get(i).getConfiguration().get(
+					Constants.MR_SORT_MB), rec.getConfiguration().get(
+					Constants.MR_SORT_MB));
+
+			// The stored recommendation is found for the profiled input
+			Recommendation stored = store.lookup(jobIds[i], cluster, rec
+					.getInputSize(), "rrs", "");
+			assertNotNull(stored);
+			assertEquals(rec.getPredictedTime(), stored.getPredictedTime());
+			assertEquals(rec.getConfiguration().get(Constants.MR_RED_TASKS),
+					stored.getConfiguration().get(Constants.MR_RED_TASKS));
+		}
+
+		// The profiled input of TeraSort is 5 maps of ~20MB, i.e., ~100MB
+		assertEquals(26, parallel.get(0).getInputBucket());
+	}
+
+	/**
+	 * @param numHosts
+	 *            the number of slave hosts
+	 * @return a cluster with 2 map and 1 reduce slots per host
+	 */
+	private ClusterConfiguration getCluster(int numHosts) {
+		return ClusterConfiguration.createClusterConfiguration("test", 1,
+				numHosts, 2, 1, 200l << 20);
+	}
+
+	/**
+	 * Create a batch recommender for TeraSort and WordCount
+	 * 
+	 * @param store
+	 *            the recommendation store
+	 * @param cluster
+	 *            the cluster
+	 * @param conf
+	 *            the optimizer configuration
+	 * @return the batch recommender
+	 */
+	private BatchRecommender getBatchRecommender(RecommendationStore store,
+			ClusterConfiguration cluster, Configuration conf) {
+		BatchRecommender recommender = new BatchRecommender(store, cluster,
+				conf);
+		recommender.addJob("ts", SampleProfiles.getTeraSortJobProfile(),
+				SampleProfiles.getTeraSortConfiguration());
+		recommender.addJob("wc", SampleProfiles.getWordCountJobProfile(),
+				SampleProfiles.getWordCountConfiguration());
+		assertEquals(2, recommender.getNumJobs());
+		return recommender;
+	}
+
+}
@@ -0,0 +1,234 @@
+package edu.duke.starfish.jobopt.junit;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import edu.duke.starfish.jobopt.optimizer.FullEnumJobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.jobopt.params.HadoopParameter;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
+import edu.duke.starfish.jobopt.rrs.SearchCheckpoint;
+import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
+import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpaceGrid;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.whatif.junit.SampleDataSetModel;
+import edu.duke.starfish.whatif.junit.SampleProfiles;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+
+/**
+ * Test the SearchCheckpoint with the recursive random search and the
+ * enumeration optimizers
+ * 
+ * @author hero
+ */
+public class TestSearchCheckpoint extends TestCase {
+
+	private File file; // The checkpoint file of the tests
+
+	@Override
+	protected void setUp() {
+		file = new File(System.getProperty("java.io.tmpdir"),
+				"starfish-checkpoint-" + System.nanoTime());
+	}
+
+	@Override
+	protected void tearDown() {
+		file.delete();
+		new File(file.getAbsolutePath() + ".tmp").delete();
+	}
+
+	/**
+	 * Test that a search that crashed resumes from the checkpoint and finds
+	 * the same point as a search that was never interrupted
+	 */
+	@Test
+	public void testResumeRRS() {
+		Configuration conf = SampleProfiles.getTeraSortConfiguration();
+		conf.setLong(RecursiveRandomSearch.RRS_RANDOM_SEED, 11l);
+		conf.setInt(RecursiveRandomSearch.RRS_NUM_STARTS, 2);
+		ParameterSpace space = ParamSpaceUtils.getFullParamSpace(conf);
+
+		// Search without interruptions
+		SyntheticCostEngine engine = new SyntheticCostEngine(space,
+				Integer.MAX_VALUE);
+		RecursiveRandomSearch<ParameterSpacePoint> rrs =
+			new RecursiveRandomSearch<ParameterSpacePoint>(conf);
+		ParameterSpacePoint expected = rrs.findBestSpacePoint(space, engine);
+		int numCosts = engine.getCount();
+		assertTrue(numCosts > 100);
+
+		// Crash half way through the search
+		rrs = new RecursiveRandomSearch<ParameterSpacePoint>(conf);
+		rrs.setCheckpoint(new SearchCheckpoint(file, 0l, "test"), "rrs");
+		try {
+			rrs.findBestSpacePoint(space, new SyntheticCostEngine(space,
+					numCosts / 2));
+			fail("Expected the cost engine to fail");
+		} catch (RuntimeException e) {
+			assertTrue(file.isFile());
+		}
+
+		// Resume the search
+		engine = new SyntheticCostEngine(space, Integer.MAX_VALUE);
+		rrs = new RecursiveRandomSearch<ParameterSpacePoint>(conf);
+		rrs.setCheckpoint(new SearchCheckpoint(file, 0l, "test"), "rrs");
+		assertEquals(expected, rrs.findBestSpacePoint(space, engine));
+		assertTrue(engine.getCount() > 0);
+		assertTrue(engine.getCount() < numCosts);
+
+		// A completed search is not repeated
+		engine = new SyntheticCostEngine(space, 0);
+		rrs = new RecursiveRandomSearch<ParameterSpacePoint>(conf);
+		rrs.setCheckpoint(new SearchCheckpoint(file, 0l, "test"), "rrs");
+		assertEquals(expected, rrs.findBestSpacePoint(space, engine));
+
+		// The checkpoint of another job is ignored
+		engine = new SyntheticCostEngine(space, Integer.MAX_VALUE);
+		rrs = new RecursiveRandomSearch<ParameterSpacePoint>(conf);
+		rrs.setCheckpoint(new SearchCheckpoint(file, 0l, "other"), "rrs");
+		assertEquals(expected, rrs.findBestSpacePoint(space, engine));
+		assertEquals(numCosts, engine.getCount());
+	}
+
+	/**
+	 * Test that the enumeration resumes from the checkpoint and that the
+	 * logged costs warm-start later optimizations of the same job
+	 */
+	@Test
+	public void testResumeEnumeration() {
+		Configuration conf = SampleProfiles.getTeraSortConfiguration();
+		conf.setInt(SampleDataSetModel.NUM_MAPPERS, 5);
+		conf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+		conf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		conf.setInt(FullEnumJobOptimizer.NUM_VALUES_PER_PARAM, 2);
+
+		// Optimize without a checkpoint
+		JobOptimizer optimizer = new FullEnumJobOptimizer(getOracle(),
+				new SampleDataSetModel(), getScheduler(), getCluster(), conf);
+		optimizer.optimize();
+		double expected = optimizer.getBestRunningTime();
+		assertTrue(optimizer.getNumWhatIfCalls() > 0);
+
+		// The checkpointed optimization finds the same configuration
+		conf.set(SearchCheckpoint.CHECKPOINT_FILE, file.getAbsolutePath());
+		optimizer = new FullEnumJobOptimizer(getOracle(),
+				new SampleDataSetModel(), getScheduler(), getCluster(), conf);
+		optimizer.optimize();
+		assertEquals(expected, optimizer.getBestRunningTime());
+		assertTrue(file.isFile());
+		String sortMB = optimizer.getBestConfiguration(false).get(
+				Constants.MR_SORT_MB);
+
+		// A completed enumeration is not repeated
+		optimizer = new FullEnumJobOptimizer(getOracle(),
+				new SampleDataSetModel(), getScheduler(), getCluster(), conf);
+		optimizer.optimize();
+		assertEquals(0, optimizer.getNumWhatIfCalls());
+		assertEquals(expected, optimizer.getBestRunningTime());
+		assertEquals(sortMB, optimizer.getBestConfiguration(false).get(
+				Constants.MR_SORT_MB));
+
+		// Another enumeration of the same job reuses the logged costs
+		conf.set(JobOptimizer.JOB_OPT_EXCLUDE_PARAMS,
+				HadoopParameter.COMPRESS_MAP_OUT.toString());
+		optimizer = new FullEnumJobOptimizer(getOracle(),
+				new SampleDataSetModel(), getScheduler(), getCluster(), conf);
+		optimizer.optimize();
+		assertEquals(0, optimizer.getNumWhatIfCalls());
+		assertTrue(optimizer.getWhatIfCostCache().getNumHits() > 0);
+		assertTrue(optimizer.getBestRunningTime() >= expected);
+	}
+
+	/**
+	 * Test that neither the searches nor the logged costs of an input are
+	 * reused for a different input of the same job
+	 */
+	@Test
+	public void testOtherInput() {
+		Configuration conf = SampleProfiles.getTeraSortConfiguration();
+		conf.setInt(SampleDataSetModel.NUM_MAPPERS, 5);
+		conf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+		conf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		conf.setInt(FullEnumJobOptimizer.NUM_VALUES_PER_PARAM, 2);
+
+		// Complete a checkpointed enumeration
+		conf.set(SearchCheckpoint.CHECKPOINT_FILE, file.getAbsolutePath());
+		JobOptimizer optimizer = new FullEnumJobOptimizer(getOracle(),
+				new SampleDataSetModel(), getScheduler(), getCluster(), conf);
+		optimizer.optimize();
+		double firstTime = optimizer.getBestRunningTime();
+		assertTrue(file.isFile());
+
+		// Optimize the larger input without a checkpoint
+		conf.setLong(SampleDataSetModel.INPUT_SIZE, 80000000l);
+		conf.set(SearchCheckpoint.CHECKPOINT_FILE, "");
+		optimizer = new FullEnumJobOptimizer(getOracle(),
+				new SampleDataSetModel(), getScheduler(), getCluster(), conf);
+		optimizer.optimize();
+		double expected = optimizer.getBestRunningTime();
+		int numCalls = optimizer.getNumWhatIfCalls();
+		assertTrue(expected > firstTime);
+
+		// The checkpoint of the smaller input is not reused
+		conf.set(SearchCheckpoint.CHECKPOINT_FILE, file.getAbsolutePath());
+		optimizer = new FullEnumJobOptimizer(getOracle(),
+				new SampleDataSetModel(), getScheduler(), getCluster(), conf);
+		optimizer.optimize();
+		assertEquals(numCalls, optimizer.getNumWhatIfCalls());
+		assertEquals(0, optimizer.getWhatIfCostCache().getNumHits());
+		assertEquals(expected, optimizer.getBestRunningTime());
+	}
+
+	/**
+	 * Test that a permuted iteration of a grid can be resumed
+	 */
+	@Test
+	public void testResumePermutedIterator() {
+		Configuration conf = SampleProfiles.getTeraSortConfiguration();
+		ParameterSpaceGrid grid = ParamSpaceUtils.getFullParamSpace(conf)
+				.getLazySpacePointGrid(false, 2);
+
+		Iterator<ParameterSpacePoint> iter = grid.permutedIterator(new Random(
+				3l));
+		for (int i = 0; i < 100; ++i)
+			iter.next();
+
+		Iterator<ParameterSpacePoint> resumed = grid.permutedIterator(
+				new Random(3l), 100l);
+		while (iter.hasNext())
+			assertEquals(iter.next(), resumed.next());
+		assertFalse(resumed.hasNext());
+	}
+
+	/**
+	 * @return the job profile oracle of TeraSort
+	 */
+	private JobProfileOracle getOracle() {
+		return new JobProfileOracle(SampleProfiles.getTeraSortJobProfile());
+	}
+
+	/**
+	 * @return the sample cluster
+	 */
+	private ClusterConfiguration getCluster() {
+		return SampleProfiles.getClusterConfiguration();
+	}
+
+	/**
+	 * @return a scheduler for the sample cluster
+	 */
+	private BasicFIFOScheduler getScheduler() {
+		return new BasicFIFOScheduler(getCluster());
+	}
+
+}
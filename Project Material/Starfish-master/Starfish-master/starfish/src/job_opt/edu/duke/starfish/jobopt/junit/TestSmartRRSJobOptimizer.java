@@ -1,13 +1,18 @@
 package edu.duke.starfish.jobopt.junit;
 
+import java.util.Map.Entry;
+
 import junit.framework.TestCase;
 
 import org.apache.hadoop.conf.Configuration;
 import org.junit.Test;
 
 import edu.duke.starfish.jobopt.optimizer.FullEnumJobOptimizer;
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
 import edu.duke.starfish.jobopt.optimizer.SmartRRSJobOptimizer;
+import edu.duke.starfish.jobopt.params.HadoopParameter;
 import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
 import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
 import edu.duke.starfish.profile.utils.Constants;
@@ -100,4 +105,140 @@ public class TestSmartRRSJobOptimizer extends TestCase {
 
 	}
 
+	/**
+	 * Test that asking the what-if questions in parallel produces the same
+	 * result as asking them serially
+	 */
+	@Test
+	public void testParallelWhatIf() {
+		// Common elements
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+		MRJobProfile wcJobProf = SampleProfiles.getWordCountJobProfile();
+		Configuration wcConf = SampleProfiles.getWordCountConfiguration();
+
+		// Set the input specs
+		wcConf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		wcConf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		wcConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+
+		// Optimize serially
+		ParameterDescriptor.setRandomSeed(23);
+		wcConf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, 1);
+		SmartRRSJobOptimizer serialOptimizer = new SmartRRSJobOptimizer(
+				new JobProfileOracle(wcJobProf), model,
+				new BasicFIFOScheduler(cluster), cluster, wcConf);
+		serialOptimizer.optimize();
+
+		// Optimize in parallel
+		ParameterDescriptor.setRandomSeed(23);
+		wcConf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, 4);
+		SmartRRSJobOptimizer parallelOptimizer = new SmartRRSJobOptimizer(
+				new JobProfileOracle(wcJobProf), model,
+				new BasicFIFOScheduler(cluster), cluster, wcConf);
+		parallelOptimizer.optimize();
+
+		assertEquals(serialOptimizer.getBestRunningTime(), parallelOptimizer
+				.getBestRunningTime());
+		Configuration serialConf = serialOptimizer.getBestConfiguration(false);
+		Configuration parallelConf = parallelOptimizer
+				.getBestConfiguration(false);
+		for (Entry<String, String> entry : serialConf) {
+			assertEquals(entry.getValue(), parallelConf.get(entry.getKey()));
+		}
+	}
+
+	/**
+	 * Test that a multi-start search with a fixed root seed produces the same
+	 * result regardless of the number of threads and the shared random
+	 * generator
+	 */
+	@Test
+	public void testMultiStartRRS() {
+		// Common elements
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+		MRJobProfile wcJobProf = SampleProfiles.getWordCountJobProfile();
+		Configuration wcConf = SampleProfiles.getWordCountConfiguration();
+
+		// Set the input specs and the multi-start settings
+		wcConf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		wcConf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		wcConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+		wcConf.setInt(RecursiveRandomSearch.RRS_NUM_STARTS, 4);
+		wcConf.setLong(RecursiveRandomSearch.RRS_RANDOM_SEED, 23l);
+
+		// Optimize with one thread
+		ParameterDescriptor.setRandomSeed(1);
+		wcConf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, 1);
+		SmartRRSJobOptimizer serialOptimizer = new SmartRRSJobOptimizer(
+				new JobProfileOracle(wcJobProf), model,
+				new BasicFIFOScheduler(cluster), cluster, wcConf);
+		serialOptimizer.optimize();
+
+		// Optimize with one thread per chain
+		ParameterDescriptor.setRandomSeed(2);
+		wcConf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, 4);
+		SmartRRSJobOptimizer parallelOptimizer = new SmartRRSJobOptimizer(
+				new JobProfileOracle(wcJobProf), model,
+				new BasicFIFOScheduler(cluster), cluster, wcConf);
+		parallelOptimizer.optimize();
+
+		assertEquals(serialOptimizer.getBestRunningTime(), parallelOptimizer
+				.getBestRunningTime());
+		Configuration serialConf = serialOptimizer.getBestConfiguration(false);
+		Configuration parallelConf = parallelOptimizer
+				.getBestConfiguration(false);
+		for (Entry<String, String> entry : serialConf) {
+			assertEquals(entry.getValue(), parallelConf.get(entry.getKey()));
+		}
+
+		// The chains use different random streams
+		assertTrue(RecursiveRandomSearch.getChainSeed(23l, 0) != 
+			RecursiveRandomSearch.getChainSeed(23l, 1));
+	}
+
+	/**
+	 * Test that screening the parameter spaces prunes the parameters without
+	 * an effect, saves what-if calls, and still finds a good configuration
+	 */
+	@Test
+	public void testScreening() {
+		// Common elements
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+		MRJobProfile wcJobProf = SampleProfiles.getWordCountJobProfile();
+		Configuration wcConf = SampleProfiles.getWordCountConfiguration();
+		wcConf.setInt(SampleDataSetModel.NUM_MAPPERS, 15);
+		wcConf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+		wcConf.setBoolean(SampleDataSetModel.INPUT_COMPR, false);
+
+		// Optimize without screening
+		ParameterDescriptor.setRandomSeed(23);
+		SmartRRSJobOptimizer fullOptimizer = new SmartRRSJobOptimizer(
+				new JobProfileOracle(wcJobProf), model,
+				new BasicFIFOScheduler(cluster), cluster, wcConf);
+		fullOptimizer.optimize();
+		assertTrue(fullOptimizer.getPrunedParameters().isEmpty());
+
+		// Optimize with screening
+		ParameterDescriptor.setRandomSeed(23);
+		wcConf.setBoolean(JobOptimizer.JOB_OPT_SCREENING, true);
+		SmartRRSJobOptimizer screenOptimizer = new SmartRRSJobOptimizer(
+				new JobProfileOracle(wcJobProf), model,
+				new BasicFIFOScheduler(cluster), cluster, wcConf);
+		screenOptimizer.optimize();
+
+		assertFalse(screenOptimizer.getPrunedParameters().isEmpty());
+		assertTrue(screenOptimizer.getNumWhatIfCalls() < fullOptimizer
+				.getNumWhatIfCalls());
+		assertTrue(screenOptimizer.getBestRunningTime() <= 1.02 * fullOptimizer
+				.getBestRunningTime());
+
+		// The pruned parameters are part of the recommendation
+		Configuration bestConf = screenOptimizer.getBestConfiguration(false);
+		for (HadoopParameter param : screenOptimizer.getPrunedParameters())
+			assertNotNull(bestConf.get(param.toString()));
+	}
+
 }
@@ -0,0 +1,180 @@
+package edu.duke.starfish.jobopt.junit;
+
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import edu.duke.starfish.jobopt.optimizer.WorkflowOptimizer;
+import edu.duke.starfish.jobopt.params.HadoopParameter;
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.jobopt.space.MultiJobParamSpacePoint;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.whatif.junit.SampleProfiles;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+import edu.duke.starfish.whatif.virtualfs.VirtualFSDataSetModel;
+import edu.duke.starfish.whatif.virtualfs.VirtualFileSystem;
+import edu.duke.starfish.whatif.virtualfs.VirtualFileSystem.VirtualFSException;
+
+/**
+ * Test the WorkflowOptimizer
+ * 
+ * @author hero
+ */
+public class TestWorkflowOptimizer extends TestCase {
+
+	/**
+	 * Test method for
+	 * {@link edu.duke.starfish.jobopt.optimizer.WorkflowOptimizer#optimize(Date)}
+	 * on a workflow with two independent branches, where the first branch
+	 * consists of two dependent jobs.
+	 */
+	@Test
+	public void testOptimizeWorkflow() throws VirtualFSException {
+
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+
+		// Create the workflow inputs
+		VirtualFileSystem vfs = new VirtualFileSystem();
+		for (int i = 0; i < 5; ++i)
+			vfs.createFile("/in/ts/part-" + i, 20000000l / 5, false);
+		for (int i = 0; i < 15; ++i)
+			vfs.createFile("/in/wc/part-" + i, 21252750l / 15, false);
+
+		Configuration conf = new Configuration(false);
+		ParameterDescriptor.setRandomSeed(23);
+		WorkflowOptimizer optimizer = new WorkflowOptimizer(vfs,
+				new BasicFIFOScheduler(cluster), cluster, conf);
+
+		// TeraSort -> TeraSort and WordCount in parallel
+		Configuration tsConf = SampleProfiles.getTeraSortConfiguration();
+		VirtualFSDataSetModel.setVirtualInputPaths(tsConf, "/in/ts");
+		int ts1 = optimizer.addJob(SampleProfiles.getTeraSortJobProfile(),
+				tsConf, "/out/ts1");
+
+		Configuration wcConf = SampleProfiles.getWordCountConfiguration();
+		VirtualFSDataSetModel.setVirtualInputPaths(wcConf, "/in/wc");
+		int wc = optimizer.addJob(SampleProfiles.getWordCountJobProfile(),
+				wcConf, "/out/wc");
+
+		tsConf = SampleProfiles.getTeraSortConfiguration();
+		VirtualFSDataSetModel.setVirtualInputPaths(tsConf, "/out/ts1/");
+		int ts2 = optimizer.addJob(SampleProfiles.getTeraSortJobProfile(),
+				tsConf, "/out/ts2");
+
+		assertEquals(3, optimizer.getNumJobs());
+		assertEquals(0, optimizer.getParentJobIds(ts1).size());
+		assertEquals(0, optimizer.getParentJobIds(wc).size());
+		assertEquals(1, optimizer.getParentJobIds(ts2).size());
+		assertEquals(ts1, optimizer.getParentJobIds(ts2).get(0).intValue());
+
+		// Optimize the workflow
+		Date submissionTime = new Date(0l);
+		optimizer.optimize(submissionTime);
+		double bestMakespan = optimizer.getBestMakespan();
+		assertTrue(bestMakespan > 0);
+
+		Configuration bestConf = optimizer.getBestConfiguration(ts1, false);
+		assertNotNull(bestConf.get(Constants.MR_SORT_MB));
+		assertNotNull(bestConf.get(Constants.MR_RED_TASKS));
+
+		// The dependent job starts after its parent, the independent one not
+		long ts1End = optimizer.getBestJobEndTime(ts1).getTime();
+		long ts2End = optimizer.getBestJobEndTime(ts2).getTime();
+		long wcEnd = optimizer.getBestJobEndTime(wc).getTime();
+		assertTrue(ts1End < ts2End);
+		assertTrue(wcEnd < ts1End + ts2End);
+		assertEquals((double) Math.max(ts2End, wcEnd), bestMakespan);
+
+		// The best makespan is no worse than the makespan of the current conf
+		MultiJobParamSpacePoint point = new MultiJobParamSpacePoint();
+		assertTrue(bestMakespan <= optimizer.costSpacePoint(point));
+
+		// The reducers of the first job become the mappers of the second job
+		point.addJobSpacePoint(ts1, new ParameterSpacePoint(
+				HadoopParameter.RED_TASKS, "4"));
+		optimizer.costSpacePoint(point);
+		assertEquals(4l, optimizer.getBestMRJobProfile(ts2).getCounter(
+				MRCounter.MAP_TASKS).longValue());
+
+		point.addJobSpacePoint(ts1, new ParameterSpacePoint(
+				HadoopParameter.RED_TASKS, "9"));
+		optimizer.costSpacePoint(point);
+		assertEquals(9l, optimizer.getBestMRJobProfile(ts2).getCounter(
+				MRCounter.MAP_TASKS).longValue());
+
+		// Re-evaluating a point gives the same makespan
+		double makespan = optimizer.costSpacePoint(point);
+		assertEquals(makespan, optimizer.costSpacePoint(point));
+	}
+
+	/**
+	 * Test the dependencies of jobs whose outputs are nested in the input
+	 * directories of other jobs
+	 */
+	@Test
+	public void testNestedDirectories() {
+
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		WorkflowOptimizer optimizer = new WorkflowOptimizer(
+				new VirtualFileSystem(), new BasicFIFOScheduler(cluster),
+				cluster, new Configuration(false));
+
+		// A reads /data and writes /data/a; B reads /data/a and writes /data/b
+		Configuration confA = SampleProfiles.getTeraSortConfiguration();
+		VirtualFSDataSetModel.setVirtualInputPaths(confA, "/data");
+		int a = optimizer.addJob(SampleProfiles.getTeraSortJobProfile(),
+				confA, "/data/a");
+
+		Configuration confB = SampleProfiles.getTeraSortConfiguration();
+		VirtualFSDataSetModel.setVirtualInputPaths(confB, "/data/a");
+		int b = optimizer.addJob(SampleProfiles.getTeraSortJobProfile(),
+				confB, "/data/b");
+
+		// C reads a file in the output of B
+		Configuration confC = SampleProfiles.getTeraSortConfiguration();
+		VirtualFSDataSetModel.setVirtualInputPaths(confC,
+				"/data/b/part-00000");
+		int c = optimizer.addJob(SampleProfiles.getTeraSortJobProfile(),
+				confC, "/out/c");
+
+		assertEquals(0, optimizer.getParentJobIds(a).size());
+		assertEquals(1, optimizer.getParentJobIds(b).size());
+		assertEquals(a, optimizer.getParentJobIds(b).get(0).intValue());
+		assertEquals(1, optimizer.getParentJobIds(c).size());
+		assertEquals(b, optimizer.getParentJobIds(c).get(0).intValue());
+	}
+
+	/**
+	 * Test that the workflow optimizer detects cycles
+	 */
+	@Test
+	public void testWorkflowCycle() {
+
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		WorkflowOptimizer optimizer = new WorkflowOptimizer(
+				new VirtualFileSystem(), new BasicFIFOScheduler(cluster),
+				cluster, new Configuration(false));
+
+		Configuration conf1 = SampleProfiles.getTeraSortConfiguration();
+		VirtualFSDataSetModel.setVirtualInputPaths(conf1, "/a");
+		optimizer.addJob(SampleProfiles.getTeraSortJobProfile(), conf1, "/b");
+
+		Configuration conf2 = SampleProfiles.getTeraSortConfiguration();
+		VirtualFSDataSetModel.setVirtualInputPaths(conf2, "/b/part-00000");
+		optimizer.addJob(SampleProfiles.getTeraSortJobProfile(), conf2, "/a");
+
+		try {
+			optimizer.getParentJobIds(0);
+			fail("Expected a cycle in the workflow");
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().contains("cycle"));
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+package edu.duke.starfish.jobopt.optimizer;
+
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.cmaes.CMAEvolutionStrategy;
+import edu.duke.starfish.jobopt.rrs.IRRSCostEngine;
+import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
+import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.whatif.data.DataSetModel;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.IWhatIfScheduler;
+
+/**
+ * A Job optimizer that uses the Covariance Matrix Adaptation Evolution
+ * Strategy ({@link CMAEvolutionStrategy}) in order to find the best
+ * configuration parameter settings. The what-if questions of each generation
+ * are asked in parallel. It is useful when the good settings of some
+ * parameters depend on each other, e.g., io.sort.mb and
+ * io.sort.record.percent.
+ * 
+ * @author hero
+ */
+public class CMAESJobOptimizer extends JobOptimizer implements
+		IRRSCostEngine<ParameterSpacePoint> {
+
+	/**
+	 * Constructor
+	 * 
+	 * @param jobOracle
+	 *            the job profile oracle
+	 * @param dataModel
+	 *            the data set model
+	 * @param scheduler
+	 *            the scheduler
+	 * @param cluster
+	 *            the cluster setup
+	 * @param conf
+	 *            the current configuration settings
+	 */
+	public CMAESJobOptimizer(JobProfileOracle jobOracle, DataSetModel dataModel,
+			IWhatIfScheduler scheduler, ClusterConfiguration cluster,
+			Configuration conf) {
+		super(jobOracle, dataModel, scheduler, cluster, conf);
+	}
+
+	/* ***************************************************************
+	 * OVERRIDEN METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @see edu.duke.starfish.jobopt.optimizer.JobOptimizer#optimizeInternal()
+	 */
+	@Override
+	protected ParameterSpacePoint optimizeInternal() {
+
+		// Initialize the space
+		ParameterSpace space = ParamSpaceUtils.getFullParamSpace(currConf);
+		space = screenParameterSpace(space);
+
+		// Perform CMA-ES to find the best point
+		CMAEvolutionStrategy<ParameterSpacePoint> cma = 
+			new CMAEvolutionStrategy<ParameterSpacePoint>(currConf);
+		cma.setDeadline(getDeadline());
+		return cma.findBestSpacePoint(space, this);
+	}
+
+	/**
+	 * @see IRRSCostEngine#costSpacePoint(Object)
+	 */
+	@Override
+	public double costSpacePoint(ParameterSpacePoint point) {
+		return whatif(point, currSettings);
+	}
+
+	/**
+	 * @see IRRSCostEngine#costSpacePoints(List)
+	 */
+	@Override
+	public double[] costSpacePoints(List<ParameterSpacePoint> points) {
+		return whatif(points, currSettings);
+	}
+
+}
@@ -1,13 +1,12 @@
 package edu.duke.starfish.jobopt.optimizer;
 
-import java.util.List;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 
 import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
 import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpaceGrid;
 import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
 import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
 import edu.duke.starfish.whatif.data.DataSetModel;
@@ -79,15 +78,16 @@ public class FullEnumJobOptimizer extends JobOptimizer {
 		boolean useRandom = currConf.getBoolean(USE_RANDOM_VALUES, false);
 		int numValuesPerParam = currConf.getInt(NUM_VALUES_PER_PARAM, 2);
 		ParameterSpace space = ParamSpaceUtils.getFullParamSpace(currConf);
-		List<ParameterSpacePoint> points = space.getSpacePointGrid(useRandom,
+		space = screenParameterSpace(space);
+		ParameterSpaceGrid grid = space.getLazySpacePointGrid(useRandom,
 				numValuesPerParam);
 
 		// Log some stats
 		LOG.debug("Number of parameters: " + space.getNumParameters());
-		LOG.debug("Number of settings: " + points.size());
+		LOG.debug("Number of settings: " + grid.size());
 
 		// Find the best configuration
-		return findBestParameterSpacePoint(points, currConf);
+		return findBestParameterSpacePoint(grid, currSettings);
 	}
 
 }
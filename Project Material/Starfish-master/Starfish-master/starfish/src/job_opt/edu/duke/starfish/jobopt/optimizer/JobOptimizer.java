@@ -3,28 +3,56 @@ package edu.duke.starfish.jobopt.optimizer;
 import static edu.duke.starfish.profile.utils.Constants.MR_COMBINE_CLASS;
 import static edu.duke.starfish.profile.utils.Constants.STARFISH_USE_COMBINER;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Job;
 
+import edu.duke.starfish.jobopt.params.HadoopParameter;
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.jobopt.rrs.IRRSCostEngine;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
+import edu.duke.starfish.jobopt.rrs.SearchCheckpoint;
+import edu.duke.starfish.jobopt.screening.MorrisScreening;
+import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
+import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpaceGrid;
 import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.jobopt.store.Recommendation;
+import edu.duke.starfish.jobopt.store.RecommendationStore;
 import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
 import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
+import edu.duke.starfish.profile.profileinfo.execution.mrtaskattempts.MRTaskAttemptInfo;
+import edu.duke.starfish.profile.profileinfo.execution.mrtasks.MRTaskInfo;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
 import edu.duke.starfish.profile.profiler.Profiler;
 import edu.duke.starfish.profile.utils.ProfileUtils;
+import edu.duke.starfish.profile.utils.ThreadPoolUtils;
+import edu.duke.starfish.whatif.JobSettings;
 import edu.duke.starfish.whatif.WhatIfEngine;
 import edu.duke.starfish.whatif.data.DataSetModel;
+import edu.duke.starfish.whatif.data.MapInputSpecs;
 import edu.duke.starfish.whatif.data.RealAvgDataSetModel;
 import edu.duke.starfish.whatif.oracle.JobProfileOracle;
 import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
@@ -49,9 +77,33 @@ public abstract class JobOptimizer {
 	protected ClusterConfiguration cluster; // The cluster setup
 	protected IWhatIfScheduler scheduler; // The task scheduler
 	protected Configuration currConf; // The best configuration
+	protected JobSettings currSettings; // The compiled current configuration
 
 	private WhatIfEngine whatifEngine; // The what-if engine
 	private Date submissionTime; // The job submission time
+	private boolean ignoreReducers; // Flag to ignore reducers
+	private WhatIfCostCache cache; // Cache for the what-if predictions
+	private AtomicInteger numWhatIfCalls; // The what-if questions asked
+
+	// Used for bounding the optimization time
+	private long timeBudget; // The time budget in ms (0 for unbounded)
+	private long deadline; // The time to stop searching (in ms)
+	private boolean budgetExhausted; // Whether the search ran out of time
+
+	// Used for screening the parameter spaces before the search
+	private boolean screening; // Whether to screen the spaces
+	private List<HadoopParameter> prunedParams; // The pruned parameters
+	private ParameterSpacePoint frozenPoint; // The pruned parameter values
+
+	// Used for checkpointing the progress of long searches
+	private SearchCheckpoint checkpoint; // The checkpoint (null for none)
+	private String checkpointPrefix; // The prefix of the search keys
+	private int numSearches; // The number of searches started
+
+	// Used for asking what-if questions in parallel
+	private int numThreads; // The number of what-if threads
+	private ExecutorService executor; // The thread pool
+	private List<WhatIfWorker> workers; // One worker per thread
 
 	// Populated AFTER the optimization process
 	private ParameterSpacePoint bestPoint; // The best point
@@ -68,6 +120,10 @@ public abstract class JobOptimizer {
 	public static final String JOB_OPT_MODE = "starfish.job.optimizer.mode";
 	public static final String JOB_OPT_PROFILE_ID = "starfish.job.optimizer.profile.id";
 	public static final String JOB_OPT_SCHEDULER = "starfish.whatif.task.scheduler";
+	public static final String JOB_OPT_NUM_THREADS = "starfish.job.optimizer.num.threads";
+	public static final String JOB_OPT_CACHE_SIZE = "starfish.job.optimizer.cache.size";
+	public static final String JOB_OPT_TIME_BUDGET = "starfish.job.optimizer.time.budget.ms";
+	public static final String JOB_OPT_SCREENING = "starfish.job.optimizer.screening";
 
 	public static final String JOB_OPT_RUN = "run";
 	public static final String JOB_OPT_RECOMMEND = "recommend";
@@ -77,11 +133,28 @@ public abstract class JobOptimizer {
 	private static final String OPT_SMART_FULL = "smart_full";
 	private static final String OPT_RRS = "rrs";
 	private static final String OPT_SMART_RRS = "smart_rrs";
+	private static final String OPT_BO = "bo";
+	private static final String OPT_SMART_BO = "smart_bo";
+	private static final String OPT_CMAES = "cmaes";
+	private static final String OPT_SMART_CMAES = "smart_cmaes";
+	private static final String OPT_PARETO = "pareto";
+
+	// The checkpoint section with the log of the evaluated costs
+	private static final String COST_LOG = "costs";
+
+	// The number of points per thread costed at a time during enumeration
+	// when the optimization time is bounded or the grid is generated lazily
+	private static final int ENUM_CHUNK_SIZE = 32;
 
 	// Scheduler options
 	private static final String SCH_BASIC = "basic";
 	private static final String SCH_ADVANCED = "advanced";
 
+	// The version of the optimizers, recorded with the stored recommendations.
+	// Increase it when a change in the optimizers or the what-if models
+	// invalidates the recommendations produced earlier.
+	public static final int OPTIMIZER_VERSION = 1;
+
 	/**
 	 * Constructor
 	 * 
@@ -105,12 +178,32 @@ public abstract class JobOptimizer {
 		this.cluster = cluster;
 		this.scheduler = scheduler;
 		this.currConf = new Configuration(conf);
+		this.currSettings = null;
 
 		this.bestPoint = null;
 		this.bestJob = null;
 
 		this.whatifEngine = new WhatIfEngine(jobOracle, dataModel, scheduler);
 		this.submissionTime = null;
+		this.ignoreReducers = false;
+		this.cache = new WhatIfCostCache(conf.getInt(JOB_OPT_CACHE_SIZE, 4096));
+		this.numWhatIfCalls = new AtomicInteger(0);
+
+		this.timeBudget = Math.max(0l, conf.getLong(JOB_OPT_TIME_BUDGET, 0l));
+		this.deadline = Long.MAX_VALUE;
+		this.budgetExhausted = false;
+
+		this.screening = conf.getBoolean(JOB_OPT_SCREENING, false);
+		this.prunedParams = new ArrayList<HadoopParameter>();
+		this.frozenPoint = new ParameterSpacePoint();
+
+		this.checkpoint = null;
+		this.checkpointPrefix = null;
+		this.numSearches = 0;
+
+		this.numThreads = Math.max(1, conf.getInt(JOB_OPT_NUM_THREADS, 1));
+		this.executor = null;
+		this.workers = null;
 	}
 
 	/* ***************************************************************
@@ -162,6 +255,50 @@ public abstract class JobOptimizer {
 		return bestJob.getProfile();
 	}
 
+	/**
+	 * Get the cache used for the what-if predictions during the last
+	 * optimization, along with its hit, miss, and eviction statistics.
+	 * 
+	 * @return the what-if cost cache
+	 */
+	public WhatIfCostCache getWhatIfCostCache() {
+		return cache;
+	}
+
+	/**
+	 * Get the number of what-if questions asked to the What-if Engine during
+	 * the last optimization. Questions answered by the what-if cost cache are
+	 * not counted.
+	 * 
+	 * @return the number of what-if calls
+	 */
+	public int getNumWhatIfCalls() {
+		return numWhatIfCalls.get();
+	}
+
+	/**
+	 * Get the parameters that were pruned from the search by the screening
+	 * of the parameter spaces during the last optimization (see
+	 * "starfish.job.optimizer.screening"). The pruned parameters are frozen
+	 * to their values in the best point costed during the screening.
+	 * 
+	 * @return the pruned parameters
+	 */
+	public List<HadoopParameter> getPrunedParameters() {
+		return prunedParams;
+	}
+
+	/**
+	 * Get whether the last optimization stopped searching because it ran out
+	 * of its time budget (see "starfish.job.optimizer.time.budget.ms"). In
+	 * that case, the best configuration is the best one found in time.
+	 * 
+	 * @return true if the time budget was exhausted
+	 */
+	public boolean isTimeBudgetExhausted() {
+		return budgetExhausted;
+	}
+
 	/**
 	 * Get the best MR job running time (in ms).
 	 * 
@@ -194,14 +331,71 @@ public abstract class JobOptimizer {
 	 * simulating the job execution. This method is useful when you want to
 	 * optimize multiple jobs that will be executed on the same cluster.
 	 * 
+	 * If a time budget is set (see "starfish.job.optimizer.time.budget.ms"),
+	 * the search stops when the budget expires and the best configuration
+	 * found so far is used, unless the current configuration is better (see
+	 * {@link #keepInitialConfiguration()}). So, there is always a valid
+	 * configuration to return. The current configuration is costed (with the
+	 * cache) before the search starts, so that only the best configuration is
+	 * fully simulated after the deadline.
+	 * 
+	 * If a checkpoint file is set (see
+	 * "starfish.job.optimizer.checkpoint.file"), the progress of the
+	 * enumerations and of the recursive random searches is saved in the file
+	 * periodically, and a restarted optimization of the same job resumes from
+	 * the saved progress. The file also holds the most recent what-if costs
+	 * (up to the cache size), which warm-start the cache of any later
+	 * optimization of the same job profile on the same cluster and input. A
+	 * checkpoint of a different input is discarded. Since the logged costs
+	 * are reused for any submission time, the checkpoint file should not be
+	 * used when the scheduler holds other jobs.
+	 * 
 	 * @param submissionTime
 	 *            the job submission time
 	 */
 	public void optimize(Date submissionTime) {
+		// Start the clock for the time budget
+		long start = System.currentTimeMillis();
+		deadline = (timeBudget > 0) ? start + timeBudget : Long.MAX_VALUE;
+
 		// Checkpoint the schedule and optimize the job
 		this.submissionTime = submissionTime;
 		scheduler.checkpoint();
-		bestPoint = optimizeInternal();
+		cache.clear();
+		numWhatIfCalls.set(0);
+		prunedParams.clear();
+		frozenPoint = new ParameterSpacePoint();
+		currSettings = new JobSettings(currConf);
+		JobSettings initSettings = currSettings;
+		openCheckpoint(initSettings);
+
+		// Cost the initial configuration within the budget (and the cache)
+		boolean keepInit = (timeBudget > 0) && keepInitialConfiguration();
+		double initTime = keepInit ? whatif(new ParameterSpacePoint(),
+				initSettings) : Double.MAX_VALUE;
+
+		startWorkers();
+		try {
+			ParameterSpacePoint foundPoint = optimizeInternal();
+			if (checkpoint != null)
+				checkpoint.save();
+
+			// The pruned parameters keep the values they were frozen to
+			bestPoint = new ParameterSpacePoint(frozenPoint);
+			bestPoint.addParamValues(foundPoint);
+		} finally {
+			stopWorkers();
+		}
+		budgetExhausted = System.currentTimeMillis() >= deadline;
+		LOG.debug("What-if cache statistics: " + cache);
+		LOG.debug("What-if calls: " + numWhatIfCalls.get()
+				+ (budgetExhausted ? " (time budget exhausted)" : ""));
+
+		if (keepInit && budgetExhausted
+				&& initTime < whatif(bestPoint, initSettings)) {
+			// A search cut short may not beat the initial configuration
+			bestPoint = ParamSpaceUtils.getCanonicalSpacePoint(initSettings);
+		}
 
 		// Get the best MR job (based on the best configuration)
 		scheduler.reset();
@@ -225,48 +419,622 @@ public abstract class JobOptimizer {
 
 	/**
 	 * Find the best parameter space point from the collection of points using
-	 * the provided What-if Engine and configuration
+	 * the provided What-if Engine and job settings. If the time budget
+	 * expires, the best point among the ones costed so far is returned (the
+	 * empty point if none was costed).
 	 * 
 	 * @param points
 	 *            the parameter space points
-	 * @param conf
-	 *            the configuration
+	 * @param settings
+	 *            the compiled base job settings
 	 * @return the best parameter space point
 	 */
 	protected ParameterSpacePoint findBestParameterSpacePoint(
-			Collection<ParameterSpacePoint> points, Configuration conf) {
+			Collection<ParameterSpacePoint> points, JobSettings settings) {
+		return findBestParameterSpacePoint(points, settings, deadline);
+	}
+
+	/**
+	 * Find the best parameter space point from the collection of points using
+	 * the provided What-if Engine and job settings, until the given deadline.
+	 * 
+	 * When the time is bounded, the points are costed in a random order, so
+	 * that the points costed before the deadline cover the entire space.
+	 * 
+	 * @param points
+	 *            the parameter space points
+	 * @param settings
+	 *            the compiled base job settings
+	 * @param stopTime
+	 *            the deadline (in ms since the epoch)
+	 * @return the best parameter space point
+	 */
+	protected ParameterSpacePoint findBestParameterSpacePoint(
+			Collection<ParameterSpacePoint> points, JobSettings settings,
+			long stopTime) {
+
+		// Ask the what-if questions in chunks, in case the time runs out
+		List<ParameterSpacePoint> pointList = new ArrayList<ParameterSpacePoint>(
+				points);
+		int chunkSize = pointList.size();
+		if (stopTime != Long.MAX_VALUE) {
+			Collections.shuffle(pointList, new Random(ParameterDescriptor
+					.nextRandomSeed()));
+			chunkSize = ENUM_CHUNK_SIZE * numThreads;
+		}
 
 		// Find the best parameter space point
 		double minTime = Double.MAX_VALUE;
-		double currTime = 0;
 		ParameterSpacePoint bestPoint = new ParameterSpacePoint();
 
-		for (ParameterSpacePoint point : points) {
+		for (int start = 0; start < pointList.size()
+				&& System.currentTimeMillis() < stopTime; start += chunkSize) {
+			List<ParameterSpacePoint> chunk = pointList.subList(start, Math
+					.min(start + chunkSize, pointList.size()));
+			double[] times = whatif(chunk, settings);
+
+			for (int i = 0; i < times.length; ++i) {
+				if (times[i] < minTime) {
+					minTime = times[i];
+					bestPoint = chunk.get(i);
+				}
+			}
+		}
 
-			// Ask the what-if question for each parameter space point
-			point.populateConfiguration(conf);
-			currTime = whatif(conf);
+		return bestPoint;
+	}
+
+	/**
+	 * Find the best parameter space point from a lazily generated grid of
+	 * points using the provided job settings.
+	 * 
+	 * Also see
+	 * {@link #findBestParameterSpacePoint(ParameterSpaceGrid, JobSettings, long)}
+	 * 
+	 * @param grid
+	 *            the grid of parameter space points
+	 * @param settings
+	 *            the compiled base job settings
+	 * @return the best parameter space point
+	 */
+	protected ParameterSpacePoint findBestParameterSpacePoint(
+			ParameterSpaceGrid grid, JobSettings settings) {
+		return findBestParameterSpacePoint(grid, settings, deadline);
+	}
 
-			if (currTime < minTime) {
-				minTime = currTime;
-				bestPoint = point;
+	/**
+	 * Find the best parameter space point from a lazily generated grid of
+	 * points using the provided job settings, until the given deadline.
+	 * 
+	 * The points are generated in chunks of a fixed size, and the points of
+	 * each chunk are costed in parallel if the optimizer uses multiple
+	 * threads (see {@link #whatif(List, JobSettings)}). Hence, the memory
+	 * needed is independent of the size of the grid. The points are costed
+	 * in the grid order, which gives the same result as costing the list
+	 * returned by {@link ParameterSpace#getSpacePointGrid(boolean, int)}.
+	 * When the time is bounded, the points are costed in a pseudo-random
+	 * order instead, so that the points costed before the deadline cover the
+	 * entire space.
+	 * 
+	 * If the optimization is checkpointed, the number of points costed so far
+	 * and the best point among them are saved after each chunk when the
+	 * checkpoint interval has passed, and a restarted enumeration of the same
+	 * grid skips the points costed before (in the same order).
+	 * 
+	 * @param grid
+	 *            the grid of parameter space points
+	 * @param settings
+	 *            the compiled base job settings
+	 * @param stopTime
+	 *            the deadline (in ms since the epoch)
+	 * @return the best parameter space point
+	 */
+	protected ParameterSpacePoint findBestParameterSpacePoint(
+			ParameterSpaceGrid grid, JobSettings settings, long stopTime) {
+
+		// Resume from the checkpointed state, if any
+		boolean permuted = stopTime != Long.MAX_VALUE;
+		EnumState state = new EnumState(grid.size(), permuted);
+		String key = null;
+		if (checkpoint != null) {
+			key = getCheckpointKey(grid.toString());
+			if (checkpoint.get(key, state))
+				LOG.info("Resuming the enumeration " + key + " after "
+						+ state.count + " points");
+		}
+
+		Iterator<ParameterSpacePoint> iter = grid.iterator(state.count, grid
+				.size());
+		if (state.permuted)
+			iter = grid.permutedIterator(new Random(state.seed), state.count);
+		int chunkSize = ENUM_CHUNK_SIZE * numThreads;
+		List<ParameterSpacePoint> chunk = new ArrayList<ParameterSpacePoint>(
+				chunkSize);
+
+		// Find the best parameter space point
+		while (iter.hasNext() && System.currentTimeMillis() < stopTime) {
+			chunk.clear();
+			while (iter.hasNext() && chunk.size() < chunkSize)
+				chunk.add(iter.next());
+			double[] times = whatif(chunk, settings);
+
+			for (int i = 0; i < times.length; ++i) {
+				if (times[i] < state.minTime) {
+					state.minTime = times[i];
+					state.bestPoint = chunk.get(i);
+				}
+			}
+			state.count += chunk.size();
+
+			if (checkpoint != null && (!iter.hasNext() || checkpoint.isDue())) {
+				checkpoint.put(key, state);
+				checkpoint.save();
 			}
 		}
 
-		return bestPoint;
+		return state.bestPoint;
 	}
 
 	/**
-	 * Asks the What-if Engine to find the running time of the job with this
-	 * configuration
+	 * Asks the What-if Engine to find the running time of the job with the
+	 * parameter space point populated on top of the provided job settings.
+	 * The job settings are not modified.
 	 * 
-	 * @param conf
-	 *            the suggested configuration
+	 * @param point
+	 *            the parameter space point
+	 * @param settings
+	 *            the compiled base job settings
 	 * @return the estimated running time
 	 */
-	protected double whatif(Configuration conf) {
-		scheduler.reset();
-		return whatifEngine.whatIfJobConfGetTime(submissionTime, conf);
+	protected double whatif(ParameterSpacePoint point, JobSettings settings) {
+		return whatif(point, settings, scheduler, whatifEngine);
+	}
+
+	/**
+	 * Asks the What-if Engine to find the running time of the job for each of
+	 * the parameter space points. Each point is populated on top of a copy of
+	 * the provided job settings, so no configuration is modified.
+	 * 
+	 * If the optimizer is configured to use multiple threads (see
+	 * "starfish.job.optimizer.num.threads"), the points are split in
+	 * contiguous chunks and each chunk is costed by a worker with its own
+	 * oracle and scheduler. The returned times are identical to the ones
+	 * obtained serially.
+	 * 
+	 * @param points
+	 *            the parameter space points
+	 * @param settings
+	 *            the compiled base job settings
+	 * @return the estimated running times, in the same order as the points
+	 */
+	protected double[] whatif(List<ParameterSpacePoint> points,
+			JobSettings settings) {
+
+		int numPoints = points.size();
+		double[] times = new double[numPoints];
+		if (workers == null || numPoints < 2) {
+			// Ask the what-if questions serially
+			for (int i = 0; i < numPoints; ++i) {
+				times[i] = whatif(points.get(i), settings);
+			}
+			return times;
+		}
+
+		// Split the points into chunks, one per worker
+		int numChunks = Math.min(workers.size(), numPoints);
+		List<Future<?>> futures = new ArrayList<Future<?>>(numChunks);
+		for (int c = 0; c < numChunks; ++c) {
+			int start = (int) ((long) c * numPoints / numChunks);
+			int end = (int) ((long) (c + 1) * numPoints / numChunks);
+			WhatIfWorker worker = workers.get(c);
+			worker.prepare(settings, ignoreReducers);
+			futures.add(executor.submit(new WhatIfTask(worker, points, times,
+					start, end)));
+		}
+
+		ThreadPoolUtils.getResults(futures);
+		return times;
+	}
+
+	/**
+	 * Asks the What-if Engine to find both the running time and the slot
+	 * occupancy of the job for each of the parameter space points, for the
+	 * optimizers that trade one objective for the other. The slot occupancy
+	 * is the sum of the durations of all the task attempts of the simulated
+	 * job (see {@link #getSlotSeconds(MRJobInfo)}).
+	 * 
+	 * The points are costed like in {@link #whatif(List, JobSettings)}, in
+	 * parallel if the optimizer uses multiple threads. The what-if cost cache
+	 * is not used, since it only holds running times.
+	 * 
+	 * @param points
+	 *            the parameter space points
+	 * @param settings
+	 *            the compiled base job settings
+	 * @return the running times (in ms) and the slot-seconds, i.e., two
+	 *         values per point, in the same order as the points
+	 */
+	protected double[][] whatifObjectives(List<ParameterSpacePoint> points,
+			JobSettings settings) {
+
+		int numPoints = points.size();
+		double[][] objectives = new double[numPoints][];
+		if (workers == null || numPoints < 2) {
+			// Ask the what-if questions serially
+			for (int i = 0; i < numPoints; ++i) {
+				objectives[i] = whatifObjectives(points.get(i), settings,
+						scheduler, whatifEngine);
+			}
+			return objectives;
+		}
+
+		// Split the points into chunks, one per worker
+		int numChunks = Math.min(workers.size(), numPoints);
+		List<Future<?>> futures = new ArrayList<Future<?>>(numChunks);
+		for (int c = 0; c < numChunks; ++c) {
+			int start = (int) ((long) c * numPoints / numChunks);
+			int end = (int) ((long) (c + 1) * numPoints / numChunks);
+			WhatIfWorker worker = workers.get(c);
+			worker.prepare(settings, ignoreReducers);
+			futures.add(executor.submit(new ObjectivesTask(worker, points,
+					objectives, start, end)));
+		}
+
+		ThreadPoolUtils.getResults(futures);
+		return objectives;
+	}
+
+	/**
+	 * Get the cost engines to use for a search with the given number of
+	 * independent chains (see {@link RecursiveRandomSearch}). If the optimizer
+	 * is configured to use multiple threads, each returned engine owns a
+	 * what-if worker, so that the engines can be used concurrently. Otherwise,
+	 * the provided engine is the only one returned.
+	 * 
+	 * The engines always cost the points on top of the current job settings.
+	 * 
+	 * @param costEngine
+	 *            the cost engine of the optimizer
+	 * @param numChains
+	 *            the number of search chains
+	 * @return the cost engines
+	 */
+	protected List<IRRSCostEngine<ParameterSpacePoint>> getCostEngines(
+			IRRSCostEngine<ParameterSpacePoint> costEngine, int numChains) {
+
+		int numEngines = Math.min(numThreads, numChains);
+		List<IRRSCostEngine<ParameterSpacePoint>> engines = 
+			new ArrayList<IRRSCostEngine<ParameterSpacePoint>>(numEngines);
+		if (numEngines <= 1) {
+			engines.add(costEngine);
+		} else {
+			for (int i = 0; i < numEngines; ++i) {
+				engines.add(new WorkerCostEngine());
+			}
+		}
+
+		return engines;
+	}
+
+	/**
+	 * Set the checkpoint of the optimization on a recursive random search
+	 * over the given space, if the optimization is checkpointed. Must be
+	 * called before each search, in the same order in every run of the
+	 * optimizer, so that a restarted search finds its own progress.
+	 * 
+	 * @param rrs
+	 *            the recursive random search
+	 * @param space
+	 *            the space to search
+	 */
+	protected void setCheckpoint(RecursiveRandomSearch<ParameterSpacePoint> rrs,
+			ParameterSpace space) {
+		if (checkpoint != null)
+			rrs.setCheckpoint(checkpoint, getCheckpointKey(space.toString()));
+	}
+
+	/**
+	 * Get the time when the search must stop, based on the time budget set
+	 * in "starfish.job.optimizer.time.budget.ms". Searches should stop when
+	 * the deadline passes and return the best point found so far.
+	 * 
+	 * @return the deadline (in ms since the epoch), or Long.MAX_VALUE if the
+	 *         optimization time is not bounded
+	 */
+	protected long getDeadline() {
+		return deadline;
+	}
+
+	/**
+	 * Whether the current configuration replaces the best configuration found
+	 * by a search that ran out of time, if the current one is faster. The
+	 * optimizers that do not select the fastest configuration on purpose
+	 * should return false.
+	 * 
+	 * @return true to keep the current configuration if it is faster
+	 */
+	protected boolean keepInitialConfiguration() {
+		return true;
+	}
+
+	/**
+	 * Get the time when an optimization stage must stop, if the stage may
+	 * use the given fraction of the remaining time budget. Useful for the
+	 * optimizers that optimize different parts of the parameter space in
+	 * stages, so that the last stages get some time too.
+	 * 
+	 * @param fraction
+	 *            the fraction of the remaining time budget
+	 * @return the deadline (in ms since the epoch), or Long.MAX_VALUE if the
+	 *         optimization time is not bounded
+	 */
+	protected long getStageDeadline(double fraction) {
+		if (deadline == Long.MAX_VALUE)
+			return deadline;
+		long now = System.currentTimeMillis();
+		return now + (long) (fraction * Math.max(0l, deadline - now));
+	}
+
+	/**
+	 * Get the values of the parameters pruned by the screening during the
+	 * current optimization. The points found by the search do not contain
+	 * these parameters, so the values must be added to any point returned
+	 * to the users.
+	 * 
+	 * @return the pruned parameter values
+	 */
+	protected ParameterSpacePoint getFrozenPoint() {
+		return frozenPoint;
+	}
+
+	/**
+	 * Screen the parameter space with Morris screening (see
+	 * {@link MorrisScreening}) and return a space with the influential
+	 * parameters only, so that the search needs fewer what-if calls. The
+	 * pruned parameters are logged and frozen to their values in the best
+	 * point costed during the screening, i.e., the current configuration is
+	 * updated with them and they are part of the best configuration. The space
+	 * is returned as is if screening is disabled (see
+	 * "starfish.job.optimizer.screening") or the time budget is exhausted.
+	 * 
+	 * The screening points are costed on top of the current job settings,
+	 * in parallel if the optimizer uses multiple threads. Hence, the flag for
+	 * ignoring the reducers must be set as in the search that follows.
+	 * 
+	 * @param space
+	 *            the parameter space
+	 * @return the space with the influential parameters
+	 */
+	protected ParameterSpace screenParameterSpace(ParameterSpace space) {
+		if (!screening || space.getNumDimensions() == 0
+				|| System.currentTimeMillis() >= deadline)
+			return space;
+
+		MorrisScreening<ParameterSpacePoint> morris = 
+			new MorrisScreening<ParameterSpacePoint>(currConf);
+		boolean[] influential = morris.findInfluentialDimensions(space,
+				new SettingsCostEngine());
+		double[] effects = morris.getEffects();
+
+		ParameterSpacePoint screenPoint = morris.getBestPoint();
+
+		ParameterSpace reduced = new ParameterSpace();
+		ParameterSpacePoint frozen = new ParameterSpacePoint();
+		int i = 0;
+		for (ParameterDescriptor descr : space.getParameterDescriptors()) {
+			HadoopParameter param = descr.getParameter();
+			if (influential[i]) {
+				reduced.addParameterDescriptor(descr);
+			} else {
+				prunedParams.add(param);
+				frozen.addParamValue(param, screenPoint
+						.getParameterValue(param));
+				LOG.info("Screening pruned parameter " + param
+						+ " (relative effect: " + effects[i] + ", value: "
+						+ screenPoint.getParameterValue(param) + ")");
+			}
+			++i;
+		}
+
+		// Freeze the pruned parameters
+		updateCurrConf(frozen);
+		frozenPoint.addParamValues(frozen);
+
+		LOG.debug("Screening kept " + reduced.getNumDimensions() + " of "
+				+ space.getNumDimensions() + " parameters");
+		return reduced;
+	}
+
+	/**
+	 * Set the flag for ignoring the reducers in both the job oracle and the
+	 * scheduler (including the ones used by the parallel workers).
+	 * 
+	 * @param ignoreReducers
+	 *            set ignore reducers flag
+	 */
+	protected void setIgnoreReducers(boolean ignoreReducers) {
+		this.ignoreReducers = ignoreReducers;
+		jobOracle.setIgnoreReducers(ignoreReducers);
+		scheduler.setIgnoreReducers(ignoreReducers);
+	}
+
+	/**
+	 * Update the current configuration with the provided parameter space point
+	 * and recompile the current job settings. Useful for optimizers that
+	 * optimize different parts of the parameter space in stages.
+	 * 
+	 * @param point
+	 *            the parameter space point
+	 */
+	protected void updateCurrConf(ParameterSpacePoint point) {
+		point.populateConfiguration(currConf);
+		currSettings = new JobSettings(currConf);
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Asks the provided What-if Engine to find the running time of the job
+	 * with the parameter space point populated on top of the job settings,
+	 * unless the running time is already cached. The cache key is the
+	 * canonical parameter space point of the resulting job settings, along
+	 * with the submission time and the ignore reducers flag.
+	 * 
+	 * @param point
+	 *            the parameter space point
+	 * @param base
+	 *            the compiled base job settings
+	 * @param sched
+	 *            the scheduler used by the what-if engine
+	 * @param engine
+	 *            the what-if engine
+	 * @return the estimated running time
+	 */
+	private double whatif(ParameterSpacePoint point, JobSettings base,
+			IWhatIfScheduler sched, WhatIfEngine engine) {
+
+		JobSettings settings = new JobSettings(base);
+		point.populateJobSettings(settings);
+
+		// Check the cache first
+		ParameterSpacePoint key = null;
+		if (cache.isEnabled()) {
+			key = ParamSpaceUtils.getCanonicalSpacePoint(settings);
+			Double time = cache.get(key, submissionTime.getTime(),
+					ignoreReducers);
+			if (time != null)
+				return time;
+		}
+
+		// Ask the what-if question
+		numWhatIfCalls.incrementAndGet();
+		sched.reset();
+		double time = engine.whatIfJobSettingsGetTime(submissionTime,
+				settings);
+
+		if (key != null)
+			cache.put(key, submissionTime.getTime(), ignoreReducers, time);
+		return time;
+	}
+
+	/**
+	 * Asks the provided What-if Engine to simulate the job with the parameter
+	 * space point populated on top of the job settings, and returns the
+	 * running time and the slot-seconds of the simulated job.
+	 * 
+	 * @param point
+	 *            the parameter space point
+	 * @param base
+	 *            the compiled base job settings
+	 * @param sched
+	 *            the scheduler used by the what-if engine
+	 * @param engine
+	 *            the what-if engine
+	 * @return the running time (in ms) and the slot-seconds
+	 */
+	private double[] whatifObjectives(ParameterSpacePoint point,
+			JobSettings base, IWhatIfScheduler sched, WhatIfEngine engine) {
+
+		JobSettings settings = new JobSettings(base);
+		point.populateJobSettings(settings);
+
+		numWhatIfCalls.incrementAndGet();
+		sched.reset();
+		MRJobInfo job = engine.whatIfJobSettingsGetJobInfo(submissionTime,
+				settings);
+		return new double[] { job.getDuration(), getSlotSeconds(job) };
+	}
+
+	/**
+	 * Open the checkpoint set in "starfish.job.optimizer.checkpoint.file", if
+	 * any, and warm-start the what-if cache with the logged costs. The
+	 * checkpoint belongs to the job profile, the cluster, and the input (see
+	 * {@link #getInputDigest()}), while the searches are keyed by the
+	 * optimizer, the initial job settings, and the input.
+	 * 
+	 * @param initSettings
+	 *            the initial job settings
+	 */
+	private void openCheckpoint(JobSettings initSettings) {
+		numSearches = 0;
+		if (!SearchCheckpoint.isCheckpointed(currConf))
+			return;
+
+		String inputDigest = getInputDigest();
+		checkpoint = SearchCheckpoint.getCheckpoint(currConf, "v"
+				+ OPTIMIZER_VERSION + ":" + jobOracle.getSourceProf().getJobId()
+				+ "@" + cluster.getClusterName() + "#" + inputDigest);
+
+		checkpointPrefix = getClass().getSimpleName()
+				+ "@"
+				+ Integer.toHexString(ParamSpaceUtils.getCanonicalSpacePoint(
+						initSettings).hashCode()) + "#" + inputDigest;
+
+		CostLog costLog = new CostLog();
+		if (checkpoint.get(COST_LOG, costLog))
+			LOG.info("Warm-started the what-if cache with " + cache.size()
+					+ " costs from " + checkpoint.getFile());
+		checkpoint.register(COST_LOG, costLog);
+	}
+
+	/**
+	 * Get a digest of the input of the job, i.e., of the map input
+	 * specifications generated by the data model for the current
+	 * configuration. The what-if costs depend on the input, so the
+	 * checkpoints of different inputs must not be mixed.
+	 * 
+	 * @return the input digest
+	 */
+	private String getInputDigest() {
+		StringBuilder sb = new StringBuilder();
+		for (MapInputSpecs spec : dataModel.generateMapInputSpecs(currConf))
+			sb.append(spec).append(spec.getLocality());
+		return Integer.toHexString(sb.toString().hashCode());
+	}
+
+	/**
+	 * Get the key of the next search in the checkpoint. The key contains the
+	 * order of the search in the optimization and a hash of the searched
+	 * space, so a search never resumes the progress of a different space.
+	 * 
+	 * @param space
+	 *            the description of the searched space
+	 * @return the key of the search
+	 */
+	private String getCheckpointKey(String space) {
+		return checkpointPrefix + "/" + (numSearches++) + "/"
+				+ Integer.toHexString(space.hashCode());
+	}
+
+	/**
+	 * Create the thread pool and the what-if workers, if the optimizer is
+	 * configured to use more than one thread. Must be called after the
+	 * scheduler is checkpointed.
+	 */
+	private void startWorkers() {
+		if (numThreads <= 1)
+			return;
+
+		executor = ThreadPoolUtils.newThreadPool("whatif-worker", numThreads);
+
+		workers = new ArrayList<WhatIfWorker>(numThreads);
+		for (int i = 0; i < numThreads; ++i) {
+			workers.add(new WhatIfWorker());
+		}
+	}
+
+	/**
+	 * Shut down the thread pool and release the what-if workers
+	 */
+	private void stopWorkers() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+		workers = null;
 	}
 
 	/* ***************************************************************
@@ -307,13 +1075,39 @@ public abstract class JobOptimizer {
 		}
 	}
 
+	/**
+	 * Get the slot occupancy of a job, i.e., the sum of the durations of all
+	 * the task attempts of the job (including the setup and cleanup
+	 * attempts), in seconds. On a shared cluster, it is the amount of cluster
+	 * capacity the job takes away from the other jobs.
+	 * 
+	 * @param job
+	 *            the MR job
+	 * @return the slot-seconds of the job
+	 */
+	public static double getSlotSeconds(MRJobInfo job) {
+		long slotTime = 0l;
+		List<MRTaskInfo> tasks = new ArrayList<MRTaskInfo>();
+		tasks.addAll(job.getSetupTasks());
+		tasks.addAll(job.getMapTasks());
+		tasks.addAll(job.getReduceTasks());
+		tasks.addAll(job.getCleanupTasks());
+		for (MRTaskInfo task : tasks) {
+			for (MRTaskAttemptInfo attempt : task.getAttempts()) {
+				slotTime += attempt.getDuration();
+			}
+		}
+		return slotTime / 1000d;
+	}
+
 	/**
 	 * Process a job optimization request. Given a job and the job profile file,
 	 * this method will modify the job's configuration to use the recommended
 	 * settings.
 	 * 
 	 * Note: The Hadoop parameter 'starfish.job.optimizer.type' should contain
-	 * the type of the optimizer to use: rrs, smart_rrs, full, smart_full.
+	 * the type of the optimizer to use: rrs, smart_rrs, bo, smart_bo, cmaes,
+	 * smart_cmaes, full, smart_full, pareto.
 	 * 
 	 * @param job
 	 *            the MapReduce job
@@ -338,10 +1132,14 @@ public abstract class JobOptimizer {
 	/**
 	 * Process a job recommendation request. Given a job and the job profile
 	 * file, this method will return a configuration containing the recommended
-	 * settings.
+	 * settings. The 'pareto' optimizer also prints the Pareto front of the
+	 * running time vs. the slot-seconds after the configuration; hence, it
+	 * always optimizes the job instead of looking up the recommendation store,
+	 * which keeps only the selected configuration.
 	 * 
 	 * Note: The Hadoop parameter 'starfish.job.optimizer.type' should contain
-	 * the type of the optimizer to use: rrs, smart_rrs, full, smart_full.
+	 * the type of the optimizer to use: rrs, smart_rrs, bo, smart_bo, cmaes,
+	 * smart_cmaes, full, smart_full, pareto.
 	 * 
 	 * @param job
 	 *            the MapReduce job
@@ -352,36 +1150,46 @@ public abstract class JobOptimizer {
 	public static boolean processJobRecommendationRequest(Job job,
 			String jobProfileId) {
 
-		// Find the best configuration
-		Configuration bestConf = findBestJobConfiguration(job, jobProfileId);
-		if (bestConf != null) {
-
-			// Get the output location
-			PrintStream out = getOptimizerOutput(job.getConfiguration());
-			if (out == null)
+		// Find the best configuration, unless it is stored
+		JobOptimizer optimizer = null;
+		Configuration bestConf = null;
+		if (!OPT_PARETO.equals(getJobOptimizerType(job.getConfiguration())))
+			bestConf = findStoredJobConfiguration(job, jobProfileId);
+		if (bestConf == null) {
+			optimizer = optimizeJob(job, jobProfileId);
+			if (optimizer == null)
 				return false;
+			bestConf = optimizer.getBestConfiguration(false);
+		}
 
-			// Print out the recommendation
-			try {
-				bestConf.writeXml(out);
-				out.println();
-			} catch (IOException e) {
-				LOG.error("Job optimization failed!", e);
-				return false;
-			}
+		// Get the output location
+		PrintStream out = getOptimizerOutput(job.getConfiguration());
+		if (out == null)
+			return false;
 
-			return true;
+		// Print out the recommendation
+		try {
+			bestConf.writeXml(out);
+			out.println();
+			if (optimizer instanceof ParetoJobOptimizer)
+				((ParetoJobOptimizer) optimizer).printParetoFront(out);
+		} catch (IOException e) {
+			LOG.error("Job optimization failed!", e);
+			return false;
 		}
 
-		return false;
+		return true;
 	}
 
 	/**
 	 * Given a job and the job profile file, this method will return a
-	 * configuration containing the recommended settings.
+	 * configuration containing the recommended settings. If a recommendation
+	 * store is set in 'starfish.job.optimizer.store.dir', the settings are
+	 * looked up in the store first, and the job is optimized only on a miss.
 	 * 
 	 * Note: The Hadoop parameter 'starfish.job.optimizer.type' should contain
-	 * the type of the optimizer to use: rrs, smart_rrs, full, smart_full.
+	 * the type of the optimizer to use: rrs, smart_rrs, bo, smart_bo, cmaes,
+	 * smart_cmaes, full, smart_full, pareto.
 	 * 
 	 * @param job
 	 *            the MapReduce job
@@ -394,6 +1202,73 @@ public abstract class JobOptimizer {
 	public static Configuration findBestJobConfiguration(Job job,
 			String jobProfileId) {
 
+		Configuration storedConf = findStoredJobConfiguration(job,
+				jobProfileId);
+		if (storedConf != null)
+			return storedConf;
+
+		JobOptimizer optimizer = optimizeJob(job, jobProfileId);
+		return (optimizer != null) ? optimizer.getBestConfiguration(false)
+				: null;
+	}
+
+	/**
+	 * Look up the recommended configuration of a job in the recommendation
+	 * store set in 'starfish.job.optimizer.store.dir', if any. The lookup is
+	 * keyed by the current cluster and the current input size of the job.
+	 * 
+	 * @param job
+	 *            the MapReduce job
+	 * @param jobProfileId
+	 *            the job id of the profiled job
+	 * @return the stored configuration, or null on a miss or a stale
+	 *         recommendation
+	 */
+	private static Configuration findStoredJobConfiguration(Job job,
+			String jobProfileId) {
+
+		// Note: we must catch all exceptions because BTrace cannot catch them
+		Configuration conf = job.getConfiguration();
+		try {
+			RecommendationStore store = RecommendationStore.getStore(conf);
+			if (store == null)
+				return null;
+
+			long inputSize = RecommendationStore
+					.getInputSize(new RealAvgDataSetModel()
+							.generateMapInputSpecs(conf));
+			Recommendation rec = store.lookup(jobProfileId,
+					new ClusterConfiguration(conf), inputSize,
+					getJobOptimizerType(conf), Recommendation
+							.getExcludedParameters(conf));
+			if (rec == null)
+				return null;
+
+			LOG.info("Using the stored " + rec);
+			return rec.getConfiguration();
+
+		} catch (Exception e) {
+			LOG.error("Recommendation lookup failed!", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Given a job and the job profile file, this method will create the job
+	 * optimizer based on 'starfish.job.optimizer.type' and use it to optimize
+	 * the job. The best configuration is added in the recommendation store,
+	 * if one is set.
+	 * 
+	 * @param job
+	 *            the MapReduce job
+	 * @param jobProfileId
+	 *            the job id of the profiled job (or a file path to the
+	 *            profile XML file)
+	 * @return the job optimizer after the optimization, or null if the
+	 *         optimization failed
+	 */
+	private static JobOptimizer optimizeJob(Job job, String jobProfileId) {
+
 		// Note: we must surround the entire method to catch all exceptions
 		// because BTrace cannot catch them
 		Configuration conf = job.getConfiguration();
@@ -416,7 +1291,7 @@ public abstract class JobOptimizer {
 			IWhatIfScheduler scheduler = getTaskScheduler(cluster, strScheduler);
 
 			// Get the job optimizer
-			String type = conf.get(JOB_OPT_TYPE, OPT_SMART_RRS);
+			String type = getJobOptimizerType(conf);
 			LOG.info("Job optimizer used: " + type);
 			JobOptimizer optimizer = JobOptimizer.getJobOptimizer(type,
 					jobOracle, dataModel, cluster, conf, scheduler);
@@ -426,8 +1301,31 @@ public abstract class JobOptimizer {
 			optimizer.optimize();
 			long end = System.currentTimeMillis();
 			LOG.info("Job optimization time (ms): " + (end - start));
+			LOG.info("Job optimization what-if calls: "
+					+ optimizer.getNumWhatIfCalls());
+			if (optimizer.isTimeBudgetExhausted())
+				LOG.info("Job optimization time budget exhausted");
+			if (!optimizer.getPrunedParameters().isEmpty())
+				LOG.info("Job optimization pruned parameters: "
+						+ optimizer.getPrunedParameters());
+
+			// Keep the recommendation for the next submissions
+			RecommendationStore store = RecommendationStore.getStore(conf);
+			if (store != null) {
+				try {
+					store.put(new Recommendation(jobProfileId, cluster,
+							RecommendationStore.getInputSize(dataModel
+									.generateMapInputSpecs(conf)), type,
+							OPTIMIZER_VERSION, Recommendation
+									.getExcludedParameters(conf), optimizer
+									.getBestRunningTime(), optimizer
+									.getBestConfiguration(false)));
+				} catch (RuntimeException e) {
+					LOG.warn("Unable to store the recommendation", e);
+				}
+			}
 
-			return optimizer.getBestConfiguration(false);
+			return optimizer;
 
 		} catch (Exception e) {
 			LOG.error("Job optimization failed!", e);
@@ -454,11 +1352,22 @@ public abstract class JobOptimizer {
 				dataModel, cluster, conf, new BasicFIFOScheduler(cluster));
 	}
 
+	/**
+	 * @param conf
+	 *            the configuration
+	 * @return the job optimizer type set in 'starfish.job.optimizer.type'
+	 *         (smart_rrs by default)
+	 */
+	public static String getJobOptimizerType(Configuration conf) {
+		return conf.get(JOB_OPT_TYPE, OPT_SMART_RRS);
+	}
+
 	/**
 	 * Create and return the appropriate optimizer based on the type.
 	 * 
 	 * @param type
-	 *            the optimizer type (full, smart_full, rrs, smart_rrs)
+	 *            the optimizer type (full, smart_full, rrs, smart_rrs, bo,
+	 *            smart_bo, cmaes, smart_cmaes, pareto)
 	 * @param jobOracle
 	 *            the job profile oracle
 	 * @param dataModel
@@ -489,6 +1398,21 @@ public abstract class JobOptimizer {
 		} else if (type.equals(OPT_SMART_RRS)) {
 			optimizer = new SmartRRSJobOptimizer(jobOracle, dataModel,
 					scheduler, cluster, conf);
+		} else if (type.equals(OPT_BO)) {
+			optimizer = new BOJobOptimizer(jobOracle, dataModel, scheduler,
+					cluster, conf);
+		} else if (type.equals(OPT_SMART_BO)) {
+			optimizer = new SmartBOJobOptimizer(jobOracle, dataModel,
+					scheduler, cluster, conf);
+		} else if (type.equals(OPT_CMAES)) {
+			optimizer = new CMAESJobOptimizer(jobOracle, dataModel, scheduler,
+					cluster, conf);
+		} else if (type.equals(OPT_SMART_CMAES)) {
+			optimizer = new SmartCMAESJobOptimizer(jobOracle, dataModel,
+					scheduler, cluster, conf);
+		} else if (type.equals(OPT_PARETO)) {
+			optimizer = new ParetoJobOptimizer(jobOracle, dataModel,
+					scheduler, cluster, conf);
 		} else {
 			LOG.error("Unsupported optimizer type: " + type);
 		}
@@ -576,5 +1500,350 @@ public abstract class JobOptimizer {
 		// Set the output location
 		if (conf.get(JOB_OPT_OUTPUT) == null)
 			conf.set(JOB_OPT_OUTPUT, System.getProperty(JOB_OPT_OUTPUT));
+
+		// Set the number of what-if threads
+		if (conf.get(JOB_OPT_NUM_THREADS) == null
+				&& System.getProperty(JOB_OPT_NUM_THREADS) != null)
+			conf.set(JOB_OPT_NUM_THREADS, System
+					.getProperty(JOB_OPT_NUM_THREADS));
+
+		// Set the time budget
+		if (conf.get(JOB_OPT_TIME_BUDGET) == null
+				&& System.getProperty(JOB_OPT_TIME_BUDGET) != null)
+			conf.set(JOB_OPT_TIME_BUDGET, System
+					.getProperty(JOB_OPT_TIME_BUDGET));
+
+		// Set the screening flag
+		if (conf.get(JOB_OPT_SCREENING) == null
+				&& System.getProperty(JOB_OPT_SCREENING) != null)
+			conf.set(JOB_OPT_SCREENING, System.getProperty(JOB_OPT_SCREENING));
+
+		// Set the recommendation store
+		String storeKey = RecommendationStore.STORE_DIR;
+		if (conf.get(storeKey) == null && System.getProperty(storeKey) != null)
+			conf.set(storeKey, System.getProperty(storeKey));
+
+		String maxAgeKey = RecommendationStore.STORE_MAX_AGE;
+		if (conf.get(maxAgeKey) == null
+				&& System.getProperty(maxAgeKey) != null)
+			conf.set(maxAgeKey, System.getProperty(maxAgeKey));
+
+		// Set the checkpoint of long optimizations
+		String checkpointKey = SearchCheckpoint.CHECKPOINT_FILE;
+		if (conf.get(checkpointKey) == null
+				&& System.getProperty(checkpointKey) != null)
+			conf.set(checkpointKey, System.getProperty(checkpointKey));
+
+		String intervalKey = SearchCheckpoint.CHECKPOINT_INTERVAL;
+		if (conf.get(intervalKey) == null
+				&& System.getProperty(intervalKey) != null)
+			conf.set(intervalKey, System.getProperty(intervalKey));
+
+		// Set the slot-seconds tolerance of the pareto optimizer
+		String toleranceKey = ParetoJobOptimizer.PARETO_SLOT_TOLERANCE;
+		if (conf.get(toleranceKey) == null
+				&& System.getProperty(toleranceKey) != null)
+			conf.set(toleranceKey, System.getProperty(toleranceKey));
+	}
+
+	/* ***************************************************************
+	 * PRIVATE CLASSES
+	 * ***************************************************************
+	 */
+
+	/**
+	 * The progress of the enumeration of a grid, as saved in the checkpoint
+	 * 
+	 * @author hero
+	 */
+	private static class EnumState implements Writable {
+
+		private long size; // The number of points in the grid
+		private boolean permuted; // Whether the points are permuted
+		private long seed; // The seed of the permutation
+		private long count; // The number of points costed
+		private double minTime; // The best running time
+		private ParameterSpacePoint bestPoint; // The best point
+
+		/**
+		 * Constructor
+		 * 
+		 * @param size
+		 *            the number of points in the grid
+		 * @param permuted
+		 *            whether to cost the points in a pseudo-random order
+		 */
+		public EnumState(long size, boolean permuted) {
+			this.size = size;
+			this.permuted = permuted;
+			this.seed = permuted ? ParameterDescriptor.nextRandomSeed() : 0l;
+			this.count = 0l;
+			this.minTime = Double.MAX_VALUE;
+			this.bestPoint = new ParameterSpacePoint();
+		}
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			out.writeLong(size);
+			out.writeBoolean(permuted);
+			out.writeLong(seed);
+			out.writeLong(count);
+			out.writeDouble(minTime);
+			bestPoint.write(out);
+		}
+
+		@Override
+		public void readFields(DataInput in) throws IOException {
+			if (in.readLong() != size)
+				throw new IOException("The grid size has changed");
+
+			boolean inPermuted = in.readBoolean();
+			long inSeed = in.readLong();
+			long inCount = in.readLong();
+			if (inCount < 0 || inCount > size)
+				throw new IOException("Invalid point count: " + inCount);
+			double inMinTime = in.readDouble();
+			ParameterSpacePoint inBestPoint = new ParameterSpacePoint();
+			inBestPoint.readFields(in);
+
+			permuted = inPermuted;
+			seed = inSeed;
+			count = inCount;
+			minTime = inMinTime;
+			bestPoint = inBestPoint;
+		}
+	}
+
+	/**
+	 * The log of the what-if costs of the current submission time, as saved
+	 * in the checkpoint
+	 * 
+	 * @author hero
+	 */
+	private class CostLog implements Writable {
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			cache.writeEntries(out, submissionTime.getTime());
+		}
+
+		@Override
+		public void readFields(DataInput in) throws IOException {
+			cache.readEntries(in, submissionTime.getTime());
+		}
+	}
+
+	/**
+	 * A what-if worker owns a private job oracle, scheduler, and what-if
+	 * engine, so that it can ask what-if questions concurrently with other
+	 * workers.
+	 * 
+	 * @author hero
+	 */
+	private class WhatIfWorker {
+
+		private JobProfileOracle workerOracle; // The job profile oracle
+		private IWhatIfScheduler workerScheduler; // The task scheduler
+		private WhatIfEngine workerEngine; // The what-if engine
+		private JobSettings workerSettings; // The base job settings
+
+		/**
+		 * Default constructor
+		 */
+		public WhatIfWorker() {
+			this.workerOracle = new JobProfileOracle(jobOracle.getSourceProf());
+			this.workerScheduler = scheduler.duplicate();
+			this.workerEngine = new WhatIfEngine(workerOracle, dataModel,
+					workerScheduler);
+			this.workerSettings = null;
+		}
+
+		/**
+		 * Prepare the worker for a new batch of what-if questions
+		 * 
+		 * @param settings
+		 *            the compiled base job settings
+		 * @param ignoreReducers
+		 *            the ignore reducers flag
+		 */
+		public void prepare(JobSettings settings, boolean ignoreReducers) {
+			workerSettings = settings;
+			workerOracle.setIgnoreReducers(ignoreReducers);
+			workerScheduler.setIgnoreReducers(ignoreReducers);
+		}
+
+		/**
+		 * Asks the What-if Engine to find the running time of the job with
+		 * the provided parameter space point
+		 * 
+		 * @param point
+		 *            the parameter space point
+		 * @return the estimated running time
+		 */
+		public double whatif(ParameterSpacePoint point) {
+			return JobOptimizer.this.whatif(point, workerSettings,
+					workerScheduler, workerEngine);
+		}
+
+		/**
+		 * Asks the What-if Engine to find the running time and the
+		 * slot-seconds of the job with the provided parameter space point
+		 * 
+		 * @param point
+		 *            the parameter space point
+		 * @return the running time and the slot-seconds
+		 */
+		public double[] whatifObjectives(ParameterSpacePoint point) {
+			return JobOptimizer.this.whatifObjectives(point, workerSettings,
+					workerScheduler, workerEngine);
+		}
+	}
+
+	/**
+	 * A cost engine that owns a what-if worker and costs the points serially
+	 * on top of the current job settings
+	 * 
+	 * @author hero
+	 */
+	private class WorkerCostEngine implements
+			IRRSCostEngine<ParameterSpacePoint> {
+
+		private WhatIfWorker worker; // The what-if worker
+
+		/**
+		 * Default constructor
+		 */
+		public WorkerCostEngine() {
+			this.worker = new WhatIfWorker();
+		}
+
+		@Override
+		public double costSpacePoint(ParameterSpacePoint point) {
+			worker.prepare(currSettings, ignoreReducers);
+			return worker.whatif(point);
+		}
+
+		@Override
+		public double[] costSpacePoints(List<ParameterSpacePoint> points) {
+			worker.prepare(currSettings, ignoreReducers);
+			double[] costs = new double[points.size()];
+			for (int i = 0; i < costs.length; ++i) {
+				costs[i] = worker.whatif(points.get(i));
+			}
+			return costs;
+		}
+	}
+
+	/**
+	 * A cost engine that costs the points on top of the current job settings,
+	 * in parallel if the optimizer uses multiple threads
+	 * 
+	 * @author hero
+	 */
+	private class SettingsCostEngine implements
+			IRRSCostEngine<ParameterSpacePoint> {
+
+		@Override
+		public double costSpacePoint(ParameterSpacePoint point) {
+			return whatif(point, currSettings);
+		}
+
+		@Override
+		public double[] costSpacePoints(List<ParameterSpacePoint> points) {
+			return whatif(points, currSettings);
+		}
+	}
+
+	/**
+	 * A task that uses a worker to cost a contiguous range of points
+	 * 
+	 * @author hero
+	 */
+	private static class WhatIfTask implements Callable<Object> {
+
+		private WhatIfWorker worker; // The what-if worker
+		private List<ParameterSpacePoint> points; // All points
+		private double[] times; // The output times
+		private int start; // The first point index (inclusive)
+		private int end; // The last point index (exclusive)
+
+		/**
+		 * Constructor
+		 * 
+		 * @param worker
+		 *            the what-if worker
+		 * @param points
+		 *            the parameter space points
+		 * @param times
+		 *            the array to store the times in
+		 * @param start
+		 *            the first point index (inclusive)
+		 * @param end
+		 *            the last point index (exclusive)
+		 */
+		public WhatIfTask(WhatIfWorker worker,
+				List<ParameterSpacePoint> points, double[] times, int start,
+				int end) {
+			this.worker = worker;
+			this.points = points;
+			this.times = times;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Object call() {
+			for (int i = start; i < end; ++i) {
+				times[i] = worker.whatif(points.get(i));
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * A task that uses a worker to find the running time and the slot-seconds
+	 * for a contiguous range of points
+	 * 
+	 * @author hero
+	 */
+	private static class ObjectivesTask implements Callable<Object> {
+
+		private WhatIfWorker worker; // The what-if worker
+		private List<ParameterSpacePoint> points; // All points
+		private double[][] objectives; // The output objectives
+		private int start; // The first point index (inclusive)
+		private int end; // The last point index (exclusive)
+
+		/**
+		 * Constructor
+		 * 
+		 * @param worker
+		 *            the what-if worker
+		 * @param points
+		 *            the parameter space points
+		 * @param objectives
+		 *            the array to store the objectives in
+		 * @param start
+		 *            the first point index (inclusive)
+		 * @param end
+		 *            the last point index (exclusive)
+		 */
+		public ObjectivesTask(WhatIfWorker worker,
+				List<ParameterSpacePoint> points, double[][] objectives,
+				int start, int end) {
+			this.worker = worker;
+			this.points = points;
+			this.objectives = objectives;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Object call() {
+			for (int i = start; i < end; ++i) {
+				objectives[i] = worker.whatifObjectives(points.get(i));
+			}
+			return null;
+		}
 	}
 }
@@ -0,0 +1,352 @@
+package edu.duke.starfish.jobopt.optimizer;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.cmaes.CMAEvolutionStrategy;
+import edu.duke.starfish.jobopt.params.HadoopParameter;
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.jobopt.pareto.ParetoArchive;
+import edu.duke.starfish.jobopt.pareto.ParetoPoint;
+import edu.duke.starfish.jobopt.rrs.IRRSCostEngine;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
+import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
+import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.whatif.data.DataSetModel;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.IWhatIfScheduler;
+
+/**
+ * A multi-objective Job optimizer that trades the running time of the job
+ * for its slot occupancy, i.e., the slot-seconds of all the task attempts
+ * (see {@link JobOptimizer#getSlotSeconds}). On a shared cluster, a slightly
+ * slower configuration may leave a lot more capacity to the other jobs.
+ * 
+ * The optimizer runs one CMA-ES search ({@link CMAEvolutionStrategy}) over
+ * the full parameter space for each of a few weights between the two
+ * objectives. The objectives are normalized by the ones of the current
+ * configuration, so the weights are independent of their scales. Every point
+ * costed by any of the searches is offered to a non-dominated archive
+ * ({@link ParetoArchive}), so the searches build a single Pareto front. The
+ * current configuration is part of the front too.
+ * 
+ * The final configuration is the fastest point of the front whose
+ * slot-seconds are within a tolerance of the minimum slot-seconds of the
+ * front, e.g., the fastest one within 10% of the minimum slot-seconds. This
+ * holds even if the time budget runs out, since the current configuration
+ * is on the front anyway.
+ * 
+ * Parameters:
+ * <ul>
+ * <li>starfish.job.optimizer.pareto.num.weights (5)</li>
+ * <li>starfish.job.optimizer.pareto.slot.tolerance (0.1)</li>
+ * </ul>
+ * 
+ * @author hero
+ */
+public class ParetoJobOptimizer extends JobOptimizer {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+	private static final Log LOG = LogFactory.getLog(ParetoJobOptimizer.class);
+
+	// Constants
+	public static final String PARETO_NUM_WEIGHTS = "starfish.job.optimizer.pareto.num.weights";
+	public static final String PARETO_SLOT_TOLERANCE = "starfish.job.optimizer.pareto.slot.tolerance";
+
+	// Default values
+	public static final int PARETO_DEF_NUM_WEIGHTS = 5;
+	public static final float PARETO_DEF_SLOT_TOLERANCE = 0.1f;
+
+	private ParetoArchive<ParameterSpacePoint> archive; // The Pareto archive
+	private Map<ParameterSpacePoint, double[]> objectives; // Costed points
+
+	// Populated AFTER the optimization process
+	private List<ParetoPoint<ParameterSpacePoint>> front; // The Pareto front
+	private ParetoPoint<ParameterSpacePoint> selected; // The selected point
+
+	/**
+	 * Constructor
+	 * 
+	 * @param jobOracle
+	 *            the job profile oracle
+	 * @param dataModel
+	 *            the data set model
+	 * @param scheduler
+	 *            the scheduler
+	 * @param cluster
+	 *            the cluster setup
+	 * @param conf
+	 *            the current configuration settings
+	 */
+	public ParetoJobOptimizer(JobProfileOracle jobOracle,
+			DataSetModel dataModel, IWhatIfScheduler scheduler,
+			ClusterConfiguration cluster, Configuration conf) {
+		super(jobOracle, dataModel, scheduler, cluster, conf);
+		this.archive = null;
+		this.objectives = null;
+		this.front = new ArrayList<ParetoPoint<ParameterSpacePoint>>();
+		this.selected = null;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Get the Pareto front of the running time vs. the slot-seconds, sorted
+	 * by increasing running time. The points contain the values of all the
+	 * optimized parameters, so each one can populate a configuration.
+	 * 
+	 * Warning: This method should only be called after optimize() is called
+	 * 
+	 * @return the Pareto front
+	 */
+	public List<ParetoPoint<ParameterSpacePoint>> getParetoFront() {
+		return front;
+	}
+
+	/**
+	 * Get the point of the Pareto front selected as the best configuration
+	 * (see "starfish.job.optimizer.pareto.slot.tolerance").
+	 * 
+	 * Warning: This method should only be called after optimize() is called
+	 * 
+	 * @return the selected point
+	 */
+	public ParetoPoint<ParameterSpacePoint> getSelectedPoint() {
+		return selected;
+	}
+
+	/**
+	 * Print the Pareto front as an XML comment, so that it can follow the
+	 * XML of the best configuration. Each point is printed with its running
+	 * time, its slot-seconds, and its parameter values, and the selected
+	 * point is marked with a '*'.
+	 * 
+	 * Warning: This method should only be called after optimize() is called
+	 * 
+	 * @param out
+	 *            the print stream
+	 */
+	public void printParetoFront(PrintStream out) {
+		out.println("<!-- Pareto front of running time vs. slot-seconds ("
+				+ front.size() + " points, * = selected)");
+
+		int i = 1;
+		for (ParetoPoint<ParameterSpacePoint> point : front) {
+			out.println((point == selected ? "* " : "  ") + i
+					+ ". running time (ms): "
+					+ Math.round(point.getRunningTime())
+					+ ", slot-seconds: "
+					+ Math.round(point.getSlotSeconds()));
+			ParameterSpacePoint values = point.getPoint();
+			for (HadoopParameter param : values.getAllParameters()) {
+				out.println("     " + param + "="
+						+ values.getParameterValue(param));
+			}
+			++i;
+		}
+
+		out.println("-->");
+	}
+
+	/* ***************************************************************
+	 * OVERRIDEN METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @see edu.duke.starfish.jobopt.optimizer.JobOptimizer#optimizeInternal()
+	 */
+	@Override
+	protected ParameterSpacePoint optimizeInternal() {
+
+		archive = new ParetoArchive<ParameterSpacePoint>();
+		objectives = new HashMap<ParameterSpacePoint, double[]>();
+		front = new ArrayList<ParetoPoint<ParameterSpacePoint>>();
+		selected = null;
+
+		// Initialize the space
+		ParameterSpace space = ParamSpaceUtils.getFullParamSpace(currConf);
+		space = screenParameterSpace(space);
+
+		// The current configuration normalizes the objectives
+		ParameterSpacePoint currPoint = new ParameterSpacePoint();
+		ParameterSpacePoint canonical = ParamSpaceUtils
+				.getCanonicalSpacePoint(currSettings);
+		for (ParameterDescriptor descr : space.getParameterDescriptors()) {
+			HadoopParameter param = descr.getParameter();
+			if (canonical.containsParameter(param))
+				currPoint.addParamValue(param, canonical
+						.getParameterValue(param));
+		}
+		List<ParameterSpacePoint> currPoints = 
+			new ArrayList<ParameterSpacePoint>();
+		currPoints.add(currPoint);
+		double[] currObjectives = costObjectives(currPoints).get(0);
+
+		// Search the space once per weight of the running time
+		int numWeights = Math.max(1, currConf.getInt(PARETO_NUM_WEIGHTS,
+				PARETO_DEF_NUM_WEIGHTS));
+		String strSeed = currConf.get(RecursiveRandomSearch.RRS_RANDOM_SEED);
+		for (int k = 0; k < numWeights
+				&& System.currentTimeMillis() < getDeadline(); ++k) {
+			double weight = (numWeights == 1) ? 0.5d : k
+					/ (numWeights - 1d);
+
+			// Each search gets its own seed
+			Configuration cmaConf = currConf;
+			if (strSeed != null) {
+				cmaConf = new Configuration(currConf);
+				cmaConf.setLong(RecursiveRandomSearch.RRS_RANDOM_SEED,
+						RecursiveRandomSearch.getChainSeed(Long
+								.parseLong(strSeed.trim()), k));
+			}
+
+			CMAEvolutionStrategy<ParameterSpacePoint> cma = 
+				new CMAEvolutionStrategy<ParameterSpacePoint>(cmaConf);
+			cma.setDeadline(getStageDeadline(1d / (numWeights - k)));
+			cma.findBestSpacePoint(space, new WeightedCostEngine(weight,
+					currObjectives));
+		}
+
+		// Select the final point and complete the front with the pruned
+		// parameter values
+		selected = archive.select(currConf.getFloat(PARETO_SLOT_TOLERANCE,
+				PARETO_DEF_SLOT_TOLERANCE));
+		for (ParetoPoint<ParameterSpacePoint> point : archive.getFront()) {
+			ParameterSpacePoint values = new ParameterSpacePoint(
+					getFrozenPoint());
+			values.addParamValues(point.getPoint());
+			ParetoPoint<ParameterSpacePoint> full = 
+				new ParetoPoint<ParameterSpacePoint>(values, point
+						.getRunningTime(), point.getSlotSeconds());
+			front.add(full);
+			if (point == selected)
+				selected = full;
+		}
+
+		LOG.debug("Pareto front has " + front.size() + " of "
+				+ archive.getNumOffered() + " costed points");
+		return selected.getPoint();
+	}
+
+	/**
+	 * The selected point trades running time for slot-seconds, so it is not
+	 * replaced by a faster current configuration when the budget runs out
+	 * 
+	 * @see JobOptimizer#keepInitialConfiguration()
+	 */
+	@Override
+	protected boolean keepInitialConfiguration() {
+		return false;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Find the running time and the slot-seconds of the points on top of the
+	 * current job settings. The points that were not costed before are
+	 * costed together (in parallel if the optimizer uses multiple threads)
+	 * and offered to the Pareto archive.
+	 * 
+	 * @param points
+	 *            the parameter space points
+	 * @return the objectives of the points, in the same order as the points
+	 */
+	private List<double[]> costObjectives(List<ParameterSpacePoint> points) {
+
+		// Find the points that were not costed before
+		List<ParameterSpacePoint> newPoints = 
+			new ArrayList<ParameterSpacePoint>();
+		for (ParameterSpacePoint point : points) {
+			if (!objectives.containsKey(point)) {
+				objectives.put(point, null);
+				newPoints.add(point);
+			}
+		}
+
+		// Cost the new points and offer them to the archive
+		double[][] newObjectives = whatifObjectives(newPoints, currSettings);
+		for (int i = 0; i < newObjectives.length; ++i) {
+			ParameterSpacePoint point = newPoints.get(i);
+			objectives.put(point, newObjectives[i]);
+			archive.add(point, newObjectives[i][0], newObjectives[i][1]);
+		}
+
+		List<double[]> result = new ArrayList<double[]>(points.size());
+		for (ParameterSpacePoint point : points) {
+			result.add(objectives.get(point));
+		}
+		return result;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE CLASSES
+	 * ***************************************************************
+	 */
+
+	/**
+	 * A cost engine that combines the normalized running time and
+	 * slot-seconds of the points with a weighted sum
+	 * 
+	 * @author hero
+	 */
+	private class WeightedCostEngine implements
+			IRRSCostEngine<ParameterSpacePoint> {
+
+		private double weight; // The weight of the running time
+		private double timeScale; // The reference running time
+		private double slotScale; // The reference slot-seconds
+
+		/**
+		 * Constructor
+		 * 
+		 * @param weight
+		 *            the weight of the running time (in [0, 1])
+		 * @param reference
+		 *            the reference running time and slot-seconds
+		 */
+		public WeightedCostEngine(double weight, double[] reference) {
+			this.weight = weight;
+			this.timeScale = Math.max(reference[0], 1d);
+			this.slotScale = Math.max(reference[1], 1d);
+		}
+
+		@Override
+		public double costSpacePoint(ParameterSpacePoint point) {
+			List<ParameterSpacePoint> points = 
+				new ArrayList<ParameterSpacePoint>();
+			points.add(point);
+			return costSpacePoints(points)[0];
+		}
+
+		@Override
+		public double[] costSpacePoints(List<ParameterSpacePoint> points) {
+			List<double[]> values = costObjectives(points);
+			double[] costs = new double[values.size()];
+			for (int i = 0; i < costs.length; ++i) {
+				costs[i] = weight * values.get(i)[0] / timeScale
+						+ (1d - weight) * values.get(i)[1] / slotScale;
+			}
+			return costs;
+		}
+	}
+
+}
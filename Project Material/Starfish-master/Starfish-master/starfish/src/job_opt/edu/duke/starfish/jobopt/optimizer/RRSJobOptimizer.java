@@ -1,5 +1,7 @@
 package edu.duke.starfish.jobopt.optimizer;
 
+import java.util.List;
+
 import org.apache.hadoop.conf.Configuration;
 
 import edu.duke.starfish.jobopt.rrs.IRRSCostEngine;
@@ -57,11 +59,15 @@ public class RRSJobOptimizer extends JobOptimizer implements
 
 		// Initialize the space
 		ParameterSpace space = ParamSpaceUtils.getFullParamSpace(currConf);
+		space = screenParameterSpace(space);
 
 		// Perform recursive random search to find the best point
 		RecursiveRandomSearch<ParameterSpacePoint> rrs = 
 			new RecursiveRandomSearch<ParameterSpacePoint>(currConf);
-		return rrs.findBestSpacePoint(space, this);
+		rrs.setDeadline(getDeadline());
+		setCheckpoint(rrs, space);
+		return rrs.findBestSpacePoint(space, getCostEngines(this, rrs
+				.getNumStarts()));
 	}
 
 	/**
@@ -69,8 +75,15 @@ public class RRSJobOptimizer extends JobOptimizer implements
 	 */
 	@Override
 	public double costSpacePoint(ParameterSpacePoint point) {
-		point.populateConfiguration(currConf);
-		return whatif(currConf);
+		return whatif(point, currSettings);
+	}
+
+	/**
+	 * @see IRRSCostEngine#costSpacePoints(List)
+	 */
+	@Override
+	public double[] costSpacePoints(List<ParameterSpacePoint> points) {
+		return whatif(points, currSettings);
 	}
 
 }
@@ -0,0 +1,91 @@
+package edu.duke.starfish.jobopt.optimizer;
+
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.cmaes.CMAEvolutionStrategy;
+import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
+import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.whatif.data.DataSetModel;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.IWhatIfScheduler;
+
+/**
+ * A Job optimizer that uses the Covariance Matrix Adaptation Evolution
+ * Strategy (CMA-ES) and domain knowledge in order to find the best
+ * configuration parameter settings. Like the {@link SmartRRSJobOptimizer}, it
+ * optimizes the map-side parameters first (ignoring the reducers) and then the
+ * reduce-side parameters, over domains adjusted based on the cluster and the
+ * job profile.
+ * 
+ * For more information on CMA-ES see CMAESJobOptimizer.java.
+ * 
+ * @author hero
+ */
+public class SmartCMAESJobOptimizer extends CMAESJobOptimizer {
+
+	/**
+	 * Constructor
+	 * 
+	 * @param jobOracle
+	 *            the job profile oracle
+	 * @param dataModel
+	 *            the data set model
+	 * @param scheduler
+	 *            the scheduler
+	 * @param cluster
+	 *            the cluster setup
+	 * @param conf
+	 *            the current configuration settings
+	 */
+	public SmartCMAESJobOptimizer(JobProfileOracle jobOracle,
+			DataSetModel dataModel, IWhatIfScheduler scheduler,
+			ClusterConfiguration cluster, Configuration conf) {
+		super(jobOracle, dataModel, scheduler, cluster, conf);
+	}
+
+	/* ***************************************************************
+	 * OVERRIDEN METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @see edu.duke.starfish.jobopt.optimizer.JobOptimizer#optimizeInternal()
+	 */
+	@Override
+	protected ParameterSpacePoint optimizeInternal() {
+
+		// Initialize the map parameter space
+		MRJobProfile virtualProf = jobOracle.whatif(currSettings, dataModel);
+		ParameterSpace space = ParamSpaceUtils
+				.getParamSpaceForMappers(currConf);
+		ParamSpaceUtils.adjustParameterDescriptors(space, cluster, currConf,
+				virtualProf);
+
+		// Perform CMA-ES to find the best point in the map space
+		setIgnoreReducers(true);
+		space = screenParameterSpace(space);
+		CMAEvolutionStrategy<ParameterSpacePoint> cma = 
+			new CMAEvolutionStrategy<ParameterSpacePoint>(currConf);
+		cma.setDeadline(getStageDeadline(0.5));
+		ParameterSpacePoint optMapPoint = cma.findBestSpacePoint(space, this);
+		updateCurrConf(optMapPoint);
+
+		// Initialize the reduce parameter space
+		space = ParamSpaceUtils.getParamSpaceForReducers(currConf);
+		ParamSpaceUtils.adjustParameterDescriptors(space, cluster, currConf,
+				virtualProf);
+
+		// Perform CMA-ES to find the best point in the reduce space
+		setIgnoreReducers(false);
+		space = screenParameterSpace(space);
+		cma.setDeadline(getDeadline());
+		ParameterSpacePoint optRedPoint = cma.findBestSpacePoint(space, this);
+
+		// Add the best reduce param values and return
+		optMapPoint.addParamValues(optRedPoint);
+		return optMapPoint;
+	}
+}
@@ -1,7 +1,5 @@
 package edu.duke.starfish.jobopt.optimizer;
 
-import java.util.List;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
@@ -10,6 +8,7 @@ import edu.duke.starfish.jobopt.params.HadoopParameter;
 import edu.duke.starfish.jobopt.params.IntegerParamDescriptor;
 import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
 import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpaceGrid;
 import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
 import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
@@ -65,26 +64,28 @@ public class SmartEnumJobOptimizer extends FullEnumJobOptimizer {
 	protected ParameterSpacePoint optimizeInternal() {
 
 		// Initialize the parameter space for the map tasks
-		MRJobProfile virtualProf = jobOracle.whatif(currConf, dataModel);
+		MRJobProfile virtualProf = jobOracle.whatif(currSettings, dataModel);
 		ParameterSpace mapSpace = ParamSpaceUtils
 				.getParamSpaceForMappers(currConf);
 		ParamSpaceUtils.adjustParameterDescriptors(mapSpace, cluster, currConf,
 				virtualProf);
 
+		// Screen the map space (ignoring the reducers as in the search)
+		setIgnoreReducers(true);
+		mapSpace = screenParameterSpace(mapSpace);
+
 		// Generate the grid of points
 		boolean useRandom = currConf.getBoolean(USE_RANDOM_VALUES, false);
 		int numValuesPerParam = currConf.getInt(NUM_VALUES_PER_PARAM, 2);
-		List<ParameterSpacePoint> mapPoints = mapSpace.getSpacePointGrid(
+		ParameterSpaceGrid mapGrid = mapSpace.getLazySpacePointGrid(
 				useRandom, numValuesPerParam);
 		LOG.debug("Number of parameters: " + mapSpace.getNumParameters());
-		LOG.debug("Number of settings: " + mapPoints.size());
+		LOG.debug("Number of settings: " + mapGrid.size());
 
 		// Find the best point for the map tasks
-		jobOracle.setIgnoreReducers(true);
-		scheduler.setIgnoreReducers(true);
 		ParameterSpacePoint optMapPoint = findBestParameterSpacePoint(
-				mapPoints, currConf);
-		optMapPoint.populateConfiguration(currConf);
+				mapGrid, currSettings, getStageDeadline(0.5));
+		updateCurrConf(optMapPoint);
 
 		// Initialize the parameter space for the reduce tasks
 		ParameterSpace redSpace = ParamSpaceUtils
@@ -99,17 +100,19 @@ public class SmartEnumJobOptimizer extends FullEnumJobOptimizer {
 					+ descr.getMaxValue() + "]");
 		}
 
+		// Screen the reduce space
+		setIgnoreReducers(false);
+		redSpace = screenParameterSpace(redSpace);
+
 		// Generate the new grid of points
-		List<ParameterSpacePoint> redPoints = redSpace.getSpacePointGrid(
+		ParameterSpaceGrid redGrid = redSpace.getLazySpacePointGrid(
 				useRandom, numValuesPerParam);
 		LOG.debug("Number of parameters: " + redSpace.getNumParameters());
-		LOG.debug("Number of settings: " + redPoints.size());
+		LOG.debug("Number of settings: " + redGrid.size());
 
 		// Find the best point for the entire job
-		jobOracle.setIgnoreReducers(false);
-		scheduler.setIgnoreReducers(false);
 		ParameterSpacePoint optRedPoint = findBestParameterSpacePoint(
-				redPoints, currConf);
+				redGrid, currSettings);
 
 		// Add the best reduce param values and return
 		optMapPoint.addParamValues(optRedPoint);
@@ -1,11 +1,14 @@
 package edu.duke.starfish.jobopt.optimizer;
 
+import java.util.List;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 
 import edu.duke.starfish.jobopt.params.HadoopParameter;
 import edu.duke.starfish.jobopt.params.IntegerParamDescriptor;
+import edu.duke.starfish.jobopt.rrs.IRRSCostEngine;
 import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
 import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
 import edu.duke.starfish.jobopt.space.ParameterSpace;
@@ -61,19 +64,24 @@ public class SmartRRSJobOptimizer extends RRSJobOptimizer {
 	protected ParameterSpacePoint optimizeInternal() {
 
 		// Initialize the map parameter space
-		MRJobProfile virtualProf = jobOracle.whatif(currConf, dataModel);
+		MRJobProfile virtualProf = jobOracle.whatif(currSettings, dataModel);
 		ParameterSpace space = ParamSpaceUtils
 				.getParamSpaceForMappers(currConf);
 		ParamSpaceUtils.adjustParameterDescriptors(space, cluster, currConf,
 				virtualProf);
 
 		// Perform RRS to find the best point in the map space
-		jobOracle.setIgnoreReducers(true);
-		scheduler.setIgnoreReducers(true);
+		setIgnoreReducers(true);
+		space = screenParameterSpace(space);
 		RecursiveRandomSearch<ParameterSpacePoint> rrs = 
 			new RecursiveRandomSearch<ParameterSpacePoint>(currConf);
-		ParameterSpacePoint optMapPoint = rrs.findBestSpacePoint(space, this);
-		optMapPoint.populateConfiguration(currConf);
+		rrs.setDeadline(getStageDeadline(0.5));
+		setCheckpoint(rrs, space);
+		List<IRRSCostEngine<ParameterSpacePoint>> engines = getCostEngines(
+				this, rrs.getNumStarts());
+		ParameterSpacePoint optMapPoint = rrs.findBestSpacePoint(space,
+				engines);
+		updateCurrConf(optMapPoint);
 
 		// Initialize the reduce parameter space
 		space = ParamSpaceUtils.getParamSpaceForReducers(currConf);
@@ -88,9 +96,12 @@ public class SmartRRSJobOptimizer extends RRSJobOptimizer {
 		}
 
 		// Perform RRS to find the best point in the reduce space
-		jobOracle.setIgnoreReducers(false);
-		scheduler.setIgnoreReducers(false);
-		ParameterSpacePoint optRedPoint = rrs.findBestSpacePoint(space, this);
+		setIgnoreReducers(false);
+		space = screenParameterSpace(space);
+		rrs.setDeadline(getDeadline());
+		setCheckpoint(rrs, space);
+		ParameterSpacePoint optRedPoint = rrs.findBestSpacePoint(space,
+				engines);
 
 		// Add the best reduce param values and return
 		optMapPoint.addParamValues(optRedPoint);
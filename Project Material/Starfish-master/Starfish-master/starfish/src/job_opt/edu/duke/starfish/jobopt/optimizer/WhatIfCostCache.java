@@ -0,0 +1,278 @@
+package edu.duke.starfish.jobopt.optimizer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+
+/**
+ * A bounded LRU cache for the running times predicted by the What-if Engine.
+ * The cache is keyed by a canonical parameter space point (see
+ * {@link edu.duke.starfish.jobopt.space.ParamSpaceUtils#getCanonicalSpacePoint}
+ * ), the job submission time, and the flag for ignoring the reducers.
+ * 
+ * The cache keeps track of the number of hits, misses, and evictions. All
+ * methods are synchronized so that the cache can be shared by the threads
+ * asking what-if questions in parallel.
+ * 
+ * The entries of a submission time can be written out and read back for
+ * another submission time (see {@link #writeEntries(DataOutput, long)}), so
+ * that the costs evaluated by one optimization can warm-start another
+ * optimization of the same job.
+ * 
+ * @author hero
+ */
+public class WhatIfCostCache {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private int maxSize; // The maximum number of entries
+	private LinkedHashMap<CacheKey, Double> entries; // The cached times
+
+	// Statistics
+	private long numHits;
+	private long numMisses;
+	private long numEvictions;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param maxSize
+	 *            the maximum number of cached entries (0 disables the cache)
+	 */
+	public WhatIfCostCache(int maxSize) {
+		this.maxSize = Math.max(0, maxSize);
+		this.entries = new LinkedHashMap<CacheKey, Double>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, Double> e) {
+				if (size() > WhatIfCostCache.this.maxSize) {
+					++numEvictions;
+					return true;
+				}
+				return false;
+			}
+		};
+
+		this.numHits = 0;
+		this.numMisses = 0;
+		this.numEvictions = 0;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @return true if the cache can hold any entries
+	 */
+	public boolean isEnabled() {
+		return maxSize > 0;
+	}
+
+	/**
+	 * Get the cached running time
+	 * 
+	 * @param point
+	 *            the canonical parameter space point
+	 * @param submissionTime
+	 *            the job submission time (in ms)
+	 * @param ignoreReducers
+	 *            the ignore reducers flag
+	 * @return the cached running time, or null if it is not cached
+	 */
+	public synchronized Double get(ParameterSpacePoint point,
+			long submissionTime, boolean ignoreReducers) {
+		Double time = entries.get(new CacheKey(point, submissionTime,
+				ignoreReducers));
+		if (time == null)
+			++numMisses;
+		else
+			++numHits;
+
+		return time;
+	}
+
+	/**
+	 * Cache a running time
+	 * 
+	 * @param point
+	 *            the canonical parameter space point
+	 * @param submissionTime
+	 *            the job submission time (in ms)
+	 * @param ignoreReducers
+	 *            the ignore reducers flag
+	 * @param time
+	 *            the running time
+	 */
+	public synchronized void put(ParameterSpacePoint point,
+			long submissionTime, boolean ignoreReducers, double time) {
+		if (maxSize > 0)
+			entries.put(new CacheKey(point, submissionTime, ignoreReducers),
+					time);
+	}
+
+	/**
+	 * Remove all entries and reset the statistics
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		numHits = 0;
+		numMisses = 0;
+		numEvictions = 0;
+	}
+
+	/**
+	 * Write the cached entries of a submission time, from the least to the
+	 * most recently used
+	 * 
+	 * @param out
+	 *            the output
+	 * @param submissionTime
+	 *            the job submission time (in ms)
+	 * @throws IOException
+	 */
+	public synchronized void writeEntries(DataOutput out, long submissionTime)
+			throws IOException {
+		int count = 0;
+		for (CacheKey key : entries.keySet()) {
+			if (key.submissionTime == submissionTime)
+				++count;
+		}
+
+		out.writeInt(count);
+		for (Map.Entry<CacheKey, Double> entry : entries.entrySet()) {
+			CacheKey key = entry.getKey();
+			if (key.submissionTime == submissionTime) {
+				key.point.write(out);
+				out.writeBoolean(key.ignoreReducers);
+				out.writeDouble(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Read the entries written by {@link #writeEntries(DataOutput, long)} and
+	 * cache them for the given submission time. The hit and miss statistics
+	 * are not affected.
+	 * 
+	 * @param in
+	 *            the input
+	 * @param submissionTime
+	 *            the job submission time (in ms)
+	 * @throws IOException
+	 */
+	public synchronized void readEntries(DataInput in, long submissionTime)
+			throws IOException {
+		int count = in.readInt();
+		for (int i = 0; i < count; ++i) {
+			ParameterSpacePoint point = new ParameterSpacePoint();
+			point.readFields(in);
+			boolean ignoreReducers = in.readBoolean();
+			put(point, submissionTime, ignoreReducers, in.readDouble());
+		}
+	}
+
+	/**
+	 * @return the number of cached entries
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of cache hits
+	 */
+	public synchronized long getNumHits() {
+		return numHits;
+	}
+
+	/**
+	 * @return the number of cache misses
+	 */
+	public synchronized long getNumMisses() {
+		return numMisses;
+	}
+
+	/**
+	 * @return the number of evicted entries
+	 */
+	public synchronized long getNumEvictions() {
+		return numEvictions;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public synchronized String toString() {
+		return "WhatIfCostCache [size=" + entries.size() + ", hits="
+				+ numHits + ", misses=" + numMisses + ", evictions="
+				+ numEvictions + "]";
+	}
+
+	/* ***************************************************************
+	 * PRIVATE CLASS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * The key of a cache entry
+	 * 
+	 * @author hero
+	 */
+	private static class CacheKey {
+
+		private ParameterSpacePoint point; // The canonical point
+		private long submissionTime; // The submission time
+		private boolean ignoreReducers; // The ignore reducers flag
+
+		/**
+		 * Constructor
+		 * 
+		 * @param point
+		 *            the canonical parameter space point
+		 * @param submissionTime
+		 *            the job submission time (in ms)
+		 * @param ignoreReducers
+		 *            the ignore reducers flag
+		 */
+		public CacheKey(ParameterSpacePoint point, long submissionTime,
+				boolean ignoreReducers) {
+			this.point = point;
+			this.submissionTime = submissionTime;
+			this.ignoreReducers = ignoreReducers;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = 31 + point.hashCode();
+			result = 31 * result
+					+ (int) (submissionTime ^ (submissionTime >>> 32));
+			result = 31 * result + (ignoreReducers ? 1231 : 1237);
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof CacheKey))
+				return false;
+			CacheKey other = (CacheKey) obj;
+			return submissionTime == other.submissionTime
+					&& ignoreReducers == other.ignoreReducers
+					&& point.equals(other.point);
+		}
+	}
+}
@@ -0,0 +1,521 @@
+package edu.duke.starfish.jobopt.optimizer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.rrs.IRRSCostEngine;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
+import edu.duke.starfish.jobopt.rrs.SearchCheckpoint;
+import edu.duke.starfish.jobopt.space.MultiJobParamSpacePoint;
+import edu.duke.starfish.jobopt.space.MultiJobParameterSpace;
+import edu.duke.starfish.jobopt.space.ParamSpaceUtils;
+import edu.duke.starfish.jobopt.space.ParameterSpace;
+import edu.duke.starfish.jobopt.space.ParameterSpacePoint;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.utils.GeneralUtils;
+import edu.duke.starfish.whatif.JobSettings;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.IWhatIfScheduler;
+import edu.duke.starfish.whatif.virtualfs.VirtualFSDataSetModel;
+import edu.duke.starfish.whatif.virtualfs.VirtualFileSystem;
+
+/**
+ * An optimizer for a workflow of MapReduce jobs, such as the jobs generated
+ * for a Pig script or a Hive query. The workflow is a DAG of jobs, where a job
+ * depends on another job if it reads (part of) the other job's output.
+ * 
+ * Unlike optimizing each job in isolation, the optimizer searches the union
+ * of the parameter spaces of all jobs (see {@link MultiJobParameterSpace})
+ * using Recursive Random Search, and minimizes the makespan of the entire
+ * workflow. For each multi-job space point, the jobs are predicted in
+ * topological order: the predicted output of a job is written into the
+ * virtual file system and becomes the input of the jobs that depend on it
+ * (e.g., the number of reducers of one job determines the number of mappers
+ * of the next job). Then, all jobs are scheduled on one shared scheduler,
+ * where each job is submitted as soon as all the jobs it depends on complete.
+ * Hence, independent branches of the workflow run concurrently.
+ * 
+ * The input directories of each job must be set in its configuration using
+ * {@link VirtualFSDataSetModel#setVirtualInputPaths(Configuration, String...)}
+ * and the workflow inputs must exist in the virtual file system.
+ * 
+ * @author hero
+ */
+public class WorkflowOptimizer implements
+		IRRSCostEngine<MultiJobParamSpacePoint> {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+	private static final Log LOG = LogFactory.getLog(WorkflowOptimizer.class);
+
+	private VirtualFileSystem vfs; // The virtual file system
+	private VirtualFSDataSetModel dataModel; // The data model over the vfs
+	private IWhatIfScheduler scheduler; // The shared task scheduler
+	private ClusterConfiguration cluster; // The cluster setup
+	private Configuration conf; // The optimizer configuration
+
+	private List<WorkflowJob> jobs; // The jobs in the order they were added
+	private List<WorkflowJob> sortedJobs; // The jobs in topological order
+	private Date submissionTime; // The workflow submission time
+
+	// Populated AFTER the optimization process
+	private MultiJobParamSpacePoint bestPoint; // The best point
+	private double bestMakespan; // The best workflow makespan
+
+	// Orders the jobs by the time they are ready to be submitted
+	private static final Comparator<WorkflowJob> READY_COMPARATOR =
+		new Comparator<WorkflowJob>() {
+			@Override
+			public int compare(WorkflowJob j1, WorkflowJob j2) {
+				if (j1.readyTime != j2.readyTime)
+					return (j1.readyTime < j2.readyTime) ? -1 : 1;
+				return j1.id - j2.id;
+			}
+		};
+
+	/**
+	 * Constructor
+	 * 
+	 * @param vfs
+	 *            the virtual file system containing the workflow inputs
+	 * @param scheduler
+	 *            the scheduler shared by all the jobs
+	 * @param cluster
+	 *            the cluster setup
+	 * @param conf
+	 *            the optimizer configuration (e.g., the RRS settings)
+	 */
+	public WorkflowOptimizer(VirtualFileSystem vfs,
+			IWhatIfScheduler scheduler, ClusterConfiguration cluster,
+			Configuration conf) {
+		this.vfs = vfs;
+		this.dataModel = new VirtualFSDataSetModel(vfs);
+		this.scheduler = scheduler;
+		this.cluster = cluster;
+		this.conf = conf;
+
+		this.jobs = new ArrayList<WorkflowJob>();
+		this.sortedJobs = null;
+		this.submissionTime = null;
+
+		this.bestPoint = null;
+		this.bestMakespan = Double.MAX_VALUE;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Add a job in the workflow. The job depends on all the jobs (added
+	 * before or after it) whose output directory is one of its virtual input
+	 * directories or contains one of them. An input directory that only
+	 * contains the output directory of another job does not make it depend
+	 * on that job, since the input formats do not read subdirectories.
+	 * 
+	 * @param profile
+	 *            the source job profile
+	 * @param jobConf
+	 *            the job configuration, including the virtual input paths
+	 * @param outputDir
+	 *            the virtual output directory of the job
+	 * @return the id of the job in the workflow
+	 */
+	public int addJob(MRJobProfile profile, Configuration jobConf,
+			String outputDir) {
+
+		String[] inputDirs = jobConf
+				.getStrings(VirtualFSDataSetModel.VIRTUAL_INPUT_DIRS);
+		if (inputDirs == null || inputDirs.length == 0)
+			throw new RuntimeException("ERROR: No virtual input paths for "
+					+ "the job " + profile.getJobId());
+
+		for (int i = 0; i < inputDirs.length; ++i)
+			inputDirs[i] = GeneralUtils.normalizePath(inputDirs[i]);
+
+		WorkflowJob job = new WorkflowJob(jobs.size(), profile,
+				new Configuration(jobConf), inputDirs, GeneralUtils
+						.normalizePath(outputDir));
+		jobs.add(job);
+		sortedJobs = null;
+
+		return job.id;
+	}
+
+	/**
+	 * @return the number of jobs in the workflow
+	 */
+	public int getNumJobs() {
+		return jobs.size();
+	}
+
+	/**
+	 * Get the ids of the jobs that the provided job depends on
+	 * 
+	 * @param jobId
+	 *            the job id
+	 * @return the ids of the parent jobs
+	 */
+	public List<Integer> getParentJobIds(int jobId) {
+		buildWorkflow();
+		List<Integer> ids = new ArrayList<Integer>();
+		for (WorkflowJob parent : jobs.get(jobId).parents)
+			ids.add(parent.id);
+		return ids;
+	}
+
+	/**
+	 * Optimize the workflow assuming it is submitted now
+	 */
+	public void optimize() {
+		optimize(new Date());
+	}
+
+	/**
+	 * Optimize the workflow. The search space consists of the full parameter
+	 * spaces of all jobs, after adjusting the parameter domains based on the
+	 * predicted job profiles for the current configurations. After using this
+	 * method, you can use any of the getBestX() methods.
+	 * 
+	 * If a checkpoint file is set (see
+	 * "starfish.job.optimizer.checkpoint.file"), the progress of the search is
+	 * saved in the file periodically, and a restarted optimization of the
+	 * same workflow resumes from the saved progress.
+	 * 
+	 * @param submissionTime
+	 *            the workflow submission time
+	 */
+	public void optimize(Date submissionTime) {
+		buildWorkflow();
+		this.submissionTime = submissionTime;
+		scheduler.checkpoint();
+
+		// Predict the workflow with the current configurations
+		MultiJobParameterSpace space = new MultiJobParameterSpace();
+		double currMakespan = costSpacePoint(space.getEmptySpacePoint());
+		LOG.debug("Current workflow makespan (ms): " + currMakespan);
+
+		// Build the multi-job parameter space
+		StringBuilder jobIds = new StringBuilder();
+		StringBuilder spaces = new StringBuilder();
+		for (WorkflowJob job : jobs) {
+			ParameterSpace jobSpace = ParamSpaceUtils
+					.getFullParamSpace(job.conf);
+			ParamSpaceUtils.adjustParameterDescriptors(jobSpace, cluster,
+					job.conf, job.virtualProf);
+			space.addParamSpace(job.id, jobSpace);
+
+			jobIds.append(job.oracle.getSourceProf().getJobId()).append(',');
+			spaces.append(job.id).append(jobSpace);
+		}
+
+		// Perform recursive random search to find the best point
+		RecursiveRandomSearch<MultiJobParamSpacePoint> rrs =
+			new RecursiveRandomSearch<MultiJobParamSpacePoint>(conf);
+		SearchCheckpoint checkpoint = SearchCheckpoint.getCheckpoint(conf, "v"
+				+ JobOptimizer.OPTIMIZER_VERSION + ":" + jobIds + "@"
+				+ cluster.getClusterName());
+		if (checkpoint != null)
+			rrs.setCheckpoint(checkpoint, "WorkflowOptimizer/"
+					+ Integer.toHexString(spaces.toString().hashCode()));
+		bestPoint = rrs.findBestSpacePoint(space, this);
+
+		// Leave the virtual profiles and the file system at the best point
+		bestMakespan = costSpacePoint(bestPoint);
+		LOG.debug("Best workflow makespan (ms): " + bestMakespan);
+	}
+
+	/**
+	 * Get the best configuration of a job in the workflow.
+	 * 
+	 * Warning: This method should only be called after optimize() is called
+	 * 
+	 * @param jobId
+	 *            the job id
+	 * @param fullConf
+	 *            whether to produce the full configuration or only the
+	 *            optimized parameters
+	 * @return the best job configuration
+	 */
+	public Configuration getBestConfiguration(int jobId, boolean fullConf) {
+		Configuration bestConf;
+		if (fullConf) {
+			bestConf = new Configuration(jobs.get(jobId).conf);
+		} else {
+			bestConf = new Configuration(false);
+		}
+
+		ParameterSpacePoint jobPoint = bestPoint.getJobSpacePoint(jobId);
+		if (jobPoint != null)
+			jobPoint.populateConfiguration(bestConf);
+		return bestConf;
+	}
+
+	/**
+	 * Get the predicted profile of a job under the best configuration.
+	 * 
+	 * Warning: This method should only be called after optimize() is called
+	 * 
+	 * @param jobId
+	 *            the job id
+	 * @return the best virtual job profile
+	 */
+	public MRJobProfile getBestMRJobProfile(int jobId) {
+		return jobs.get(jobId).virtualProf;
+	}
+
+	/**
+	 * Get the predicted end time of a job under the best configuration.
+	 * 
+	 * Warning: This method should only be called after optimize() is called
+	 * 
+	 * @param jobId
+	 *            the job id
+	 * @return the best job end time
+	 */
+	public Date getBestJobEndTime(int jobId) {
+		return new Date(jobs.get(jobId).endTime);
+	}
+
+	/**
+	 * Get the best workflow makespan (in ms), i.e., the time from the
+	 * submission of the workflow until all of its jobs complete.
+	 * 
+	 * Warning: This method should only be called after optimize() is called
+	 * 
+	 * @return the best workflow makespan
+	 */
+	public double getBestMakespan() {
+		return bestMakespan;
+	}
+
+	/* ***************************************************************
+	 * OVERRIDEN METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Returns the workflow makespan for the multi-job space point. The jobs
+	 * without a job space point use their current configuration.
+	 * 
+	 * @see IRRSCostEngine#costSpacePoint(Object)
+	 */
+	@Override
+	public double costSpacePoint(MultiJobParamSpacePoint point) {
+
+		// Predict the jobs in topological order and propagate their outputs
+		for (WorkflowJob job : sortedJobs) {
+			job.settings.copyFrom(job.baseSettings);
+			ParameterSpacePoint jobPoint = point.getJobSpacePoint(job.id);
+			if (jobPoint != null)
+				jobPoint.populateJobSettings(job.settings);
+
+			// The input of the job may have changed since the last prediction
+			if (job.parents.size() > 0)
+				job.oracle.clearCachedProfiles();
+
+			job.virtualProf = job.oracle.whatif(job.settings, dataModel);
+			VirtualFSDataSetModel.setVirtualOutputPaths(vfs, job.settings
+					.getNumReducers() == 0, job.outputDir, dataModel
+					.generateJobOutputSpecs(job.conf, job.virtualProf));
+		}
+
+		// Schedule each job as soon as all of its parents complete
+		scheduler.reset();
+		PriorityQueue<WorkflowJob> readyJobs = new PriorityQueue<WorkflowJob>(
+				jobs.size(), READY_COMPARATOR);
+		for (WorkflowJob job : jobs) {
+			job.numPendingParents = job.parents.size();
+			job.readyTime = submissionTime.getTime();
+			if (job.numPendingParents == 0)
+				readyJobs.add(job);
+		}
+
+		long workflowEndTime = submissionTime.getTime();
+		while (!readyJobs.isEmpty()) {
+			WorkflowJob job = readyJobs.poll();
+			job.endTime = scheduler.scheduleJobGetEndTime(new Date(
+					job.readyTime), job.virtualProf, job.settings);
+			if (workflowEndTime < job.endTime)
+				workflowEndTime = job.endTime;
+
+			for (WorkflowJob child : job.children) {
+				if (child.readyTime < job.endTime)
+					child.readyTime = job.endTime;
+				if (--child.numPendingParents == 0)
+					readyJobs.add(child);
+			}
+		}
+
+		return workflowEndTime - submissionTime.getTime();
+	}
+
+	/**
+	 * The workflow predictions share the virtual file system, so the points
+	 * are costed serially.
+	 * 
+	 * @see IRRSCostEngine#costSpacePoints(List)
+	 */
+	@Override
+	public double[] costSpacePoints(List<MultiJobParamSpacePoint> points) {
+		double[] costs = new double[points.size()];
+		for (int i = 0; i < costs.length; ++i)
+			costs[i] = costSpacePoint(points.get(i));
+		return costs;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Find the dependencies among the jobs and sort them in topological
+	 * order. Jobs without dependencies between them are sorted by job id.
+	 */
+	private void buildWorkflow() {
+		if (sortedJobs != null)
+			return;
+
+		// Find the dependencies
+		for (WorkflowJob job : jobs) {
+			job.parents.clear();
+			job.children.clear();
+		}
+		for (WorkflowJob child : jobs) {
+			for (WorkflowJob parent : jobs) {
+				if (parent != child && child.readsOutputOf(parent)) {
+					child.parents.add(parent);
+					parent.children.add(child);
+				}
+			}
+		}
+
+		// Sort the jobs in topological order
+		sortedJobs = new ArrayList<WorkflowJob>(jobs.size());
+		PriorityQueue<WorkflowJob> readyJobs = new PriorityQueue<WorkflowJob>(
+				Math.max(1, jobs.size()), READY_COMPARATOR);
+		for (WorkflowJob job : jobs) {
+			job.numPendingParents = job.parents.size();
+			job.readyTime = 0l;
+			if (job.numPendingParents == 0)
+				readyJobs.add(job);
+		}
+
+		while (!readyJobs.isEmpty()) {
+			WorkflowJob job = readyJobs.poll();
+			sortedJobs.add(job);
+			for (WorkflowJob child : job.children) {
+				if (--child.numPendingParents == 0)
+					readyJobs.add(child);
+			}
+		}
+
+		if (sortedJobs.size() != jobs.size()) {
+			sortedJobs = null;
+			throw new RuntimeException("ERROR: The workflow contains a cycle");
+		}
+	}
+
+	/* ***************************************************************
+	 * PRIVATE CLASS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * A job in the workflow along with the state of its latest prediction
+	 * 
+	 * @author hero
+	 */
+	private static class WorkflowJob {
+
+		private int id; // The job id in the workflow
+		private Configuration conf; // The job configuration
+		private JobSettings baseSettings; // The compiled job configuration
+		private JobProfileOracle oracle; // The job profile oracle
+		private String[] inputDirs; // The virtual input directories
+		private String outputDir; // The virtual output directory
+		private List<WorkflowJob> parents; // The jobs this job depends on
+		private List<WorkflowJob> children; // The jobs depending on this job
+
+		// The state of the latest prediction
+		private JobSettings settings; // The job settings
+		private MRJobProfile virtualProf; // The virtual job profile
+		private int numPendingParents; // The parents not scheduled yet
+		private long readyTime; // The time all parents completed
+		private long endTime; // The job end time
+
+		/**
+		 * Constructor
+		 * 
+		 * @param id
+		 *            the job id in the workflow
+		 * @param profile
+		 *            the source job profile
+		 * @param conf
+		 *            the job configuration
+		 * @param inputDirs
+		 *            the normalized virtual input directories
+		 * @param outputDir
+		 *            the normalized virtual output directory
+		 */
+		public WorkflowJob(int id, MRJobProfile profile, Configuration conf,
+				String[] inputDirs, String outputDir) {
+			this.id = id;
+			this.conf = conf;
+			this.baseSettings = new JobSettings(conf);
+			this.oracle = new JobProfileOracle(profile);
+			this.inputDirs = inputDirs;
+			this.outputDir = outputDir;
+			this.parents = new ArrayList<WorkflowJob>(2);
+			this.children = new ArrayList<WorkflowJob>(2);
+
+			this.settings = new JobSettings(baseSettings);
+			this.virtualProf = null;
+			this.numPendingParents = 0;
+			this.readyTime = 0l;
+			this.endTime = 0l;
+		}
+
+		/**
+		 * @param other
+		 *            another job
+		 * @return true if one of the input directories of this job is the
+		 *         output directory of the other job or a child directory of
+		 *         it
+		 */
+		public boolean readsOutputOf(WorkflowJob other) {
+			for (String inputDir : inputDirs) {
+				if (isSameOrSubDir(inputDir, other.outputDir))
+					return true;
+			}
+			return false;
+		}
+
+		/**
+		 * @param dir
+		 *            a normalized directory
+		 * @param parentDir
+		 *            a normalized directory
+		 * @return true if the dir is the parent dir or below it
+		 */
+		private static boolean isSameOrSubDir(String dir, String parentDir) {
+			if (parentDir.equals(VirtualFileSystem.SEPARATOR))
+				return true;
+			return dir.equals(parentDir)
+					|| dir.startsWith(parentDir + VirtualFileSystem.SEPARATOR);
+		}
+	}
+
+}
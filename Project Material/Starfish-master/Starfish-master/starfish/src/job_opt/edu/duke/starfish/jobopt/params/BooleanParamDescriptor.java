@@ -2,6 +2,7 @@ package edu.duke.starfish.jobopt.params;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * A parameter descriptor for a parameter with a boolean domain
@@ -76,10 +77,10 @@ public class BooleanParamDescriptor extends ParameterDescriptor {
 	}
 
 	/**
-	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue()
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue(Random)
 	 */
 	@Override
-	public String getRandomValue() {
+	public String getRandomValue(Random random) {
 		if (random.nextFloat() < 0.5)
 			return "false";
 		else
@@ -88,16 +89,33 @@ public class BooleanParamDescriptor extends ParameterDescriptor {
 
 	/**
 	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue(String,
-	 *      double)
+	 *      double, Random)
 	 */
 	@Override
-	public String getRandomValue(String center, double scale) {
+	public String getRandomValue(String center, double scale,
+			Random random) {
 		if (random.nextFloat() < 0.5 / scale)
 			return center;
 		else
 			return center == "true" ? "false" : "true";
 	}
 
+	/**
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getNormalizedValue(String)
+	 */
+	@Override
+	public double getNormalizedValue(String value) {
+		return Boolean.parseBoolean(value) ? 1d : 0d;
+	}
+
+	/**
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getDenormalizedValue(double)
+	 */
+	@Override
+	public String getDenormalizedValue(double normValue) {
+		return (normValue < 0.5d) ? "false" : "true";
+	}
+
 	/**
 	 * @see java.lang.Object#toString()
 	 */
@@ -3,6 +3,7 @@ package edu.duke.starfish.jobopt.params;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 
 /**
  * A parameter descriptor for a parameter with a numeric range domain
@@ -152,20 +153,21 @@ public class DoubleParamDescriptor extends ParameterDescriptor {
 	}
 
 	/**
-	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue()
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue(Random)
 	 */
 	@Override
-	public String getRandomValue() {
+	public String getRandomValue(Random random) {
 		return Double.toString(minValue + (maxValue - minValue)
 				* random.nextDouble());
 	}
 
 	/**
 	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue(String,
-	 *      double)
+	 *      double, Random)
 	 */
 	@Override
-	public String getRandomValue(String center, double scale) {
+	public String getRandomValue(String center, double scale,
+			Random random) {
 		double c = Double.parseDouble(center);
 		double r = scale * (maxValue - minValue) / 2.0;
 		double min = Math.max(c - r, minValue);
@@ -174,6 +176,25 @@ public class DoubleParamDescriptor extends ParameterDescriptor {
 		return Double.toString(min + (max - min) * random.nextDouble());
 	}
 
+	/**
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getNormalizedValue(String)
+	 */
+	@Override
+	public double getNormalizedValue(String value) {
+		if (maxValue == minValue)
+			return 0.5d;
+		return (Double.parseDouble(value) - minValue) / (maxValue - minValue);
+	}
+
+	/**
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getDenormalizedValue(double)
+	 */
+	@Override
+	public String getDenormalizedValue(double normValue) {
+		double norm = Math.min(Math.max(normValue, 0d), 1d);
+		return Double.toString(minValue + (maxValue - minValue) * norm);
+	}
+
 	/**
 	 * @see java.lang.Object#toString()
 	 */
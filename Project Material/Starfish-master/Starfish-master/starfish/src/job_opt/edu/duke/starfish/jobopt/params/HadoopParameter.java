@@ -64,6 +64,36 @@ public enum HadoopParameter {
 		return super.toString();
 	}
 
+	/**
+	 * @return the type of the values of the Hadoop parameter
+	 */
+	public ParamValueType getValueType() {
+		switch (this) {
+		case SORT_MB:
+		case SORT_FACTOR:
+		case NUM_SPILLS_COMBINE:
+		case RED_TASKS:
+		case INMEM_MERGE:
+			return ParamValueType.VALUE_INTEGER;
+
+		case SPILL_PERC:
+		case SORT_REC_PERC:
+		case SHUFFLE_IN_BUFF_PERC:
+		case SHUFFLE_MERGE_PERC:
+		case RED_IN_BUFF_PERC:
+		case RED_SLOWSTART_MAPS:
+			return ParamValueType.VALUE_DOUBLE;
+
+		case COMBINE:
+		case COMPRESS_MAP_OUT:
+		case COMPRESS_OUT:
+			return ParamValueType.VALUE_BOOLEAN;
+
+		default:
+			return ParamValueType.VALUE_DOUBLE;
+		}
+	}
+
 	/**
 	 * @return a description of the Hadoop parameter
 	 */
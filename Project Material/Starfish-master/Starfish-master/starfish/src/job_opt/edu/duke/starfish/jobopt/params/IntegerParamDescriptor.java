@@ -3,6 +3,7 @@ package edu.duke.starfish.jobopt.params;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 
 /**
  * A parameter descriptor for a parameter with an integer range domain
@@ -164,20 +165,21 @@ public class IntegerParamDescriptor extends ParameterDescriptor {
 	}
 
 	/**
-	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue()
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue(Random)
 	 */
 	@Override
-	public String getRandomValue() {
+	public String getRandomValue(Random random) {
 		return Integer.toString(minValue
 				+ random.nextInt(maxValue - minValue + 1));
 	}
 
 	/**
 	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue(String,
-	 *      double)
+	 *      double, Random)
 	 */
 	@Override
-	public String getRandomValue(String center, double scale) {
+	public String getRandomValue(String center, double scale,
+			Random random) {
 		int c = Integer.parseInt(center);
 		int r = (int) Math.round(scale * (maxValue - minValue) / 2.0);
 		int min = Math.max(c - r, minValue);
@@ -186,6 +188,27 @@ public class IntegerParamDescriptor extends ParameterDescriptor {
 		return Integer.toString(min + random.nextInt(max - min + 1));
 	}
 
+	/**
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getNormalizedValue(String)
+	 */
+	@Override
+	public double getNormalizedValue(String value) {
+		if (maxValue == minValue)
+			return 0.5d;
+		return (Double.parseDouble(value) - minValue)
+				/ (double) (maxValue - minValue);
+	}
+
+	/**
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getDenormalizedValue(double)
+	 */
+	@Override
+	public String getDenormalizedValue(double normValue) {
+		double norm = Math.min(Math.max(normValue, 0d), 1d);
+		return Integer.toString(minValue
+				+ (int) Math.round(norm * (maxValue - minValue)));
+	}
+
 	/**
 	 * @see java.lang.Object#toString()
 	 */
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 
 /**
  * A parameter descriptor for a parameter with a domain consisting of a list of
@@ -107,19 +108,20 @@ public class ListParamDescriptor extends ParameterDescriptor {
 	}
 
 	/**
-	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue()
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue(Random)
 	 */
 	@Override
-	public String getRandomValue() {
+	public String getRandomValue(Random random) {
 		return values[random.nextInt(values.length)];
 	}
 
 	/**
 	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getRandomValue(String,
-	 *      double)
+	 *      double, Random)
 	 */
 	@Override
-	public String getRandomValue(String center, double scale) {
+	public String getRandomValue(String center, double scale,
+			Random random) {
 		int c = cacheValues.indexOf(center);
 		int r = (int) Math.round(scale * values.length / 2.0);
 		int min = Math.max(c - r, 0);
@@ -131,6 +133,26 @@ public class ListParamDescriptor extends ParameterDescriptor {
 			return values[min + random.nextInt(max - min)];
 	}
 
+	/**
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getNormalizedValue(String)
+	 */
+	@Override
+	public double getNormalizedValue(String value) {
+		if (values.length < 2)
+			return 0.5d;
+		return Math.max(cacheValues.indexOf(value), 0)
+				/ (double) (values.length - 1);
+	}
+
+	/**
+	 * @see edu.duke.starfish.jobopt.params.ParameterDescriptor#getDenormalizedValue(double)
+	 */
+	@Override
+	public String getDenormalizedValue(double normValue) {
+		double norm = Math.min(Math.max(normValue, 0d), 1d);
+		return values[(int) Math.round(norm * (values.length - 1))];
+	}
+
 	/**
 	 * @see java.lang.Object#toString()
 	 */
@@ -0,0 +1,13 @@
+package edu.duke.starfish.jobopt.params;
+
+/**
+ * Describes the type of the values a particular parameter can take.
+ * 
+ * @author hero
+ */
+public enum ParamValueType {
+
+	VALUE_INTEGER, // Integral values (e.g., number of reducers)
+	VALUE_DOUBLE, // Real values (e.g., buffer percentages)
+	VALUE_BOOLEAN; // Boolean flags (e.g., use compression)
+}
@@ -50,6 +50,16 @@ public abstract class ParameterDescriptor {
 		random.setSeed(seed);
 	}
 
+	/**
+	 * Draw a new seed from the random generator. Useful for seeding other
+	 * random generators reproducibly after a call to setRandomSeed.
+	 * 
+	 * @return a random seed
+	 */
+	public static long nextRandomSeed() {
+		return random.nextLong();
+	}
+
 	/* ***************************************************************
 	 * PUBLIC METHODS
 	 * ***************************************************************
@@ -69,6 +79,31 @@ public abstract class ParameterDescriptor {
 		return effect;
 	}
 
+	/**
+	 * Returns a random value from the parameter's domain, using the shared
+	 * random generator.
+	 * 
+	 * @return a random value
+	 */
+	public String getRandomValue() {
+		return getRandomValue(random);
+	}
+
+	/**
+	 * Returns a random value z from the parameter's domain D = (lower, upper)
+	 * such that |z - center| < scale * (upper - lower), using the shared
+	 * random generator.
+	 * 
+	 * @param center
+	 *            the center value
+	 * @param scale
+	 *            the scale
+	 * @return a random value
+	 */
+	public String getRandomValue(String center, double scale) {
+		return getRandomValue(center, scale, random);
+	}
+
 	/* ***************************************************************
 	 * ABSTRACT METHODS
 	 * ***************************************************************
@@ -113,9 +148,11 @@ public abstract class ParameterDescriptor {
 	/**
 	 * Returns a random value from the parameter's domain.
 	 * 
+	 * @param random
+	 *            the random generator to draw from
 	 * @return a random value
 	 */
-	public abstract String getRandomValue();
+	public abstract String getRandomValue(Random random);
 
 	/**
 	 * Returns a random value z from the parameter's domain D = (lower, upper)
@@ -125,8 +162,34 @@ public abstract class ParameterDescriptor {
 	 *            the center value
 	 * @param scale
 	 *            the scale
+	 * @param random
+	 *            the random generator to draw from
 	 * @return a random value
 	 */
-	public abstract String getRandomValue(String center, double scale);
+	public abstract String getRandomValue(String center, double scale,
+			Random random);
+
+	/**
+	 * Returns the position of the value in the parameter's domain D = (lower,
+	 * upper) scaled to [0, 1], i.e., (value - lower) / (upper - lower). Used
+	 * by the optimizers that build a model over the space points.
+	 * 
+	 * @param value
+	 *            a value from the domain
+	 * @return the normalized value
+	 */
+	public abstract double getNormalizedValue(String value);
+
+	/**
+	 * Returns the value of the parameter's domain D = (lower, upper) at the
+	 * given position in [0, 1], i.e., the inverse of getNormalizedValue.
+	 * Positions outside [0, 1] are clipped and discrete domains return the
+	 * closest value.
+	 * 
+	 * @param normValue
+	 *            the normalized value
+	 * @return a value from the domain
+	 */
+	public abstract String getDenormalizedValue(double normValue);
 
 }
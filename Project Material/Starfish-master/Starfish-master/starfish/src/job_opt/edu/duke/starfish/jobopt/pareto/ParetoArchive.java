@@ -0,0 +1,129 @@
+package edu.duke.starfish.jobopt.pareto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An archive of the non-dominated points found during a multi-objective
+ * search over the running time and the slot-seconds of a job. A point is
+ * added only if no archived point dominates it (or has the same objectives),
+ * and the archived points it dominates are removed. Hence, the archive is
+ * always the Pareto front of all the points offered to it.
+ * 
+ * The points are kept sorted by increasing running time, and hence by
+ * decreasing slot-seconds. The archive is safe to use from multiple threads.
+ * 
+ * @author hero
+ */
+public class ParetoArchive<P> {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private List<ParetoPoint<P>> front; // The non-dominated points
+	private int numOffered; // The number of points offered
+
+	/**
+	 * Default constructor
+	 */
+	public ParetoArchive() {
+		this.front = new ArrayList<ParetoPoint<P>>();
+		this.numOffered = 0;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Offer a point to the archive
+	 * 
+	 * @param point
+	 *            the space point
+	 * @param runningTime
+	 *            the running time (in ms)
+	 * @param slotSeconds
+	 *            the slot occupancy (in slot-seconds)
+	 * @return true if the point was added to the archive
+	 */
+	public synchronized boolean add(P point, double runningTime,
+			double slotSeconds) {
+
+		++numOffered;
+		ParetoPoint<P> cand = new ParetoPoint<P>(point, runningTime,
+				slotSeconds);
+
+		// Find the position of the point and check for dominance
+		int pos = 0;
+		while (pos < front.size()
+				&& front.get(pos).getRunningTime() < runningTime) {
+			if (front.get(pos).getSlotSeconds() <= slotSeconds)
+				return false;
+			++pos;
+		}
+		if (pos < front.size()
+				&& front.get(pos).getRunningTime() == runningTime
+				&& front.get(pos).getSlotSeconds() <= slotSeconds)
+			return false;
+
+		// Remove the points dominated by the new point
+		while (pos < front.size()
+				&& front.get(pos).getSlotSeconds() >= slotSeconds) {
+			front.remove(pos);
+		}
+
+		front.add(pos, cand);
+		return true;
+	}
+
+	/**
+	 * @return a copy of the Pareto front, sorted by increasing running time
+	 */
+	public synchronized List<ParetoPoint<P>> getFront() {
+		return new ArrayList<ParetoPoint<P>>(front);
+	}
+
+	/**
+	 * @return the number of points offered to the archive
+	 */
+	public synchronized int getNumOffered() {
+		return numOffered;
+	}
+
+	/**
+	 * @return the number of points in the Pareto front
+	 */
+	public synchronized int size() {
+		return front.size();
+	}
+
+	/**
+	 * Select the fastest point of the Pareto front whose slot-seconds are
+	 * within the given tolerance of the minimum slot-seconds. For example, a
+	 * tolerance of 0.1 selects the fastest point that uses at most 10% more
+	 * slot-seconds than the most frugal point. A tolerance of 0 selects the
+	 * most frugal point, while a very large tolerance selects the fastest one.
+	 * 
+	 * @param slotTolerance
+	 *            the tolerance over the minimum slot-seconds
+	 * @return the selected point, or null if the archive is empty
+	 */
+	public synchronized ParetoPoint<P> select(double slotTolerance) {
+		if (front.isEmpty())
+			return null;
+
+		// The last point has the minimum slot-seconds
+		double maxSlotSeconds = front.get(front.size() - 1).getSlotSeconds()
+				* (1d + Math.max(0d, slotTolerance));
+		for (ParetoPoint<P> point : front) {
+			if (point.getSlotSeconds() <= maxSlotSeconds)
+				return point;
+		}
+
+		return front.get(front.size() - 1);
+	}
+
+}
@@ -0,0 +1,87 @@
+package edu.duke.starfish.jobopt.pareto;
+
+/**
+ * A point of a search space along with the two objectives to minimize for
+ * it: the running time of the job and the slot-seconds, i.e., the total time
+ * the task attempts of the job occupy the task slots of the cluster.
+ * 
+ * @author hero
+ */
+public class ParetoPoint<P> {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private P point; // The space point
+	private double runningTime; // The running time (in ms)
+	private double slotSeconds; // The slot occupancy (in slot-seconds)
+
+	/**
+	 * Constructor
+	 * 
+	 * @param point
+	 *            the space point
+	 * @param runningTime
+	 *            the running time (in ms)
+	 * @param slotSeconds
+	 *            the slot occupancy (in slot-seconds)
+	 */
+	public ParetoPoint(P point, double runningTime, double slotSeconds) {
+		this.point = point;
+		this.runningTime = runningTime;
+		this.slotSeconds = slotSeconds;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @return the space point
+	 */
+	public P getPoint() {
+		return point;
+	}
+
+	/**
+	 * @return the running time (in ms)
+	 */
+	public double getRunningTime() {
+		return runningTime;
+	}
+
+	/**
+	 * @return the slot occupancy (in slot-seconds)
+	 */
+	public double getSlotSeconds() {
+		return slotSeconds;
+	}
+
+	/**
+	 * A point dominates another point if it is no worse in both objectives
+	 * and better in at least one of them.
+	 * 
+	 * @param other
+	 *            the other point
+	 * @return true if this point dominates the other point
+	 */
+	public boolean dominates(ParetoPoint<?> other) {
+		return runningTime <= other.runningTime
+				&& slotSeconds <= other.slotSeconds
+				&& (runningTime < other.runningTime
+						|| slotSeconds < other.slotSeconds);
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ParetoPoint [runningTime=" + runningTime + ", slotSeconds="
+				+ slotSeconds + ", point=" + point + "]";
+	}
+
+}
@@ -1,5 +1,7 @@
 package edu.duke.starfish.jobopt.rrs;
 
+import java.util.List;
+
 /**
  * Interface for a cost engine knows how to cost a space point
  * 
@@ -15,4 +17,15 @@ public interface IRRSCostEngine<P> {
 	 * @return the cost
 	 */
 	public double costSpacePoint(P point);
+
+	/**
+	 * Return the costs of the provided space points. The points are
+	 * independent of each other so an implementation is free to cost them
+	 * concurrently, as long as the i-th cost corresponds to the i-th point.
+	 * 
+	 * @param points
+	 *            the space points to cost
+	 * @return the costs, in the same order as the points
+	 */
+	public double[] costSpacePoints(List<P> points);
 }
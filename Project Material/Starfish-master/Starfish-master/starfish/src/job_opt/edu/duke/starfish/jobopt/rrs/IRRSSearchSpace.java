@@ -1,6 +1,7 @@
 package edu.duke.starfish.jobopt.rrs;
 
 import java.util.List;
+import java.util.Random;
 
 /**
  * Interface representing the search space used by recursive random search.
@@ -55,6 +56,33 @@ public interface IRRSSearchSpace<P> {
 	 */
 	public P getRandomSpacePoint(P center, double scale);
 
+	/**
+	 * Returns a random parameter space point in the space, drawing the
+	 * values from the provided random generator
+	 * 
+	 * @param random
+	 *            the random generator
+	 * @return a parameter space point
+	 */
+	public P getRandomSpacePoint(Random random);
+
+	/**
+	 * Returns a random parameter space point Z = z_1, ..., z_k in the space
+	 * such that |z_i - center_i| < scale * (upper_i - lower_i) for i=1...k,
+	 * drawing the values from the provided random generator
+	 * 
+	 * @see #getRandomSpacePoint(Object, double)
+	 * 
+	 * @param center
+	 *            the center point
+	 * @param scale
+	 *            the scale factor for the parameter space
+	 * @param random
+	 *            the random generator
+	 * @return a random space point
+	 */
+	public P getRandomSpacePoint(P center, double scale, Random random);
+
 	/**
 	 * Generate a list of parameter space points that represents the Cartesian
 	 * product of parameter values (a.k.a. Gridding).
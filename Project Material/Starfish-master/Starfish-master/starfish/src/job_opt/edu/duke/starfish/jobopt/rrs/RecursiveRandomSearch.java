@@ -1,10 +1,22 @@
 package edu.duke.starfish.jobopt.rrs;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
+
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.profile.utils.ThreadPoolUtils;
 
 /**
  * Recursive Random Search is a black-box global optimization algorithm that
@@ -24,6 +36,14 @@ import org.apache.hadoop.conf.Configuration;
  * <li>st = starfish.job.optimizer.exploit.termination.size (0.001)</li>
  * </ul>
  * 
+ * Multi-start parameters:
+ * <ul>
+ * <li>starfish.job.optimizer.rrs.num.starts (1)</li>
+ * <li>starfish.job.optimizer.rrs.prune.ratio (0.1)</li>
+ * <li>starfish.job.optimizer.random.seed (drawn from the random generator
+ * of the parameter descriptors)</li>
+ * </ul>
+ * 
  * Pseudocode:
  * 
  * <pre>
@@ -67,14 +87,23 @@ import org.apache.hadoop.conf.Configuration;
  * 
  * </pre>
  * 
+ * The progress of a search can be checkpointed (see
+ * {@link #setCheckpoint(SearchCheckpoint, String)}), so that a restarted
+ * search resumes from the last checkpoint instead of starting over. The
+ * checkpoint contains the full state of each chain, including the evaluated
+ * samples, the exploitation thresholds, the optimal point, and the state of
+ * the random generator. Hence, the space points must be serializable.
+ * 
  * @author hero
  */
-public class RecursiveRandomSearch<P> {
+public class RecursiveRandomSearch<P extends Writable> {
 
 	/* ***************************************************************
 	 * DATA MEMBERS
 	 * ***************************************************************
 	 */
+	private static final Log LOG = LogFactory
+			.getLog(RecursiveRandomSearch.class);
 
 	// Constants
 	public static final String RRS_EXPLORE_CONF_PROB = "starfish.job.optimizer.explore.confidence.prob";
@@ -83,6 +112,9 @@ public class RecursiveRandomSearch<P> {
 	public static final String RRS_EXPLOIT_EXP_VALUE = "starfish.job.optimizer.exploit.expected.value";
 	public static final String RRS_EXPLOIT_RED_RATIO = "starfish.job.optimizer.exploit.reduction.ratio";
 	public static final String RRS_EXPLOIT_TERM_SIZE = "starfish.job.optimizer.exploit.termination.size";
+	public static final String RRS_NUM_STARTS = "starfish.job.optimizer.rrs.num.starts";
+	public static final String RRS_PRUNE_RATIO = "starfish.job.optimizer.rrs.prune.ratio";
+	public static final String RRS_RANDOM_SEED = "starfish.job.optimizer.random.seed";
 
 	// Default values
 	public static final float RRS_DEF_EXPLORE_CONF_PROB = 0.99f;
@@ -91,6 +123,12 @@ public class RecursiveRandomSearch<P> {
 	public static final float RRS_DEF_EXPLOIT_EXP_VALUE = 0.8f;
 	public static final float RRS_DEF_EXPLOIT_RED_RATIO = 0.5f;
 	public static final float RRS_DEF_EXPLOIT_TERM_SIZE = 0.001f;
+	public static final int RRS_DEF_NUM_STARTS = 1;
+	public static final float RRS_DEF_PRUNE_RATIO = 0.1f;
+
+	// The min number of cost evaluations per chain between two
+	// synchronizations of the incumbent
+	private static final int ROUND_SIZE = 32;
 
 	// Exploration parameters
 	float p;
@@ -104,6 +142,18 @@ public class RecursiveRandomSearch<P> {
 	float s_t;
 	int l;
 
+	// Multi-start parameters
+	int numStarts;
+	float pruneRatio;
+	Long seed;
+
+	// The time to stop searching (in ms)
+	long deadline;
+
+	// The checkpoint of the search progress (null for no checkpoints)
+	SearchCheckpoint checkpoint;
+	String checkpointKey;
+
 	/**
 	 * Constructor
 	 * 
@@ -122,6 +172,17 @@ public class RecursiveRandomSearch<P> {
 		c = conf.getFloat(RRS_EXPLOIT_RED_RATIO, RRS_DEF_EXPLOIT_RED_RATIO);
 		s_t = conf.getFloat(RRS_EXPLOIT_TERM_SIZE, RRS_DEF_EXPLOIT_TERM_SIZE);
 		l = (int) Math.round(Math.log(1 - q) / Math.log(1 - v));
+
+		// Initialize multi-start parameters
+		numStarts = Math.max(1, conf.getInt(RRS_NUM_STARTS,
+				RRS_DEF_NUM_STARTS));
+		pruneRatio = conf.getFloat(RRS_PRUNE_RATIO, RRS_DEF_PRUNE_RATIO);
+		seed = (conf.get(RRS_RANDOM_SEED) != null) ? conf.getLong(
+				RRS_RANDOM_SEED, 0l) : null;
+
+		deadline = Long.MAX_VALUE;
+		checkpoint = null;
+		checkpointKey = null;
 	}
 
 	/* ***************************************************************
@@ -141,120 +202,149 @@ public class RecursiveRandomSearch<P> {
 	 */
 	public P findBestSpacePoint(IRRSSearchSpace<P> space,
 			IRRSCostEngine<P> costEngine) {
+		return findBestSpacePoint(space, Collections
+				.singletonList(costEngine));
+	}
+
+	/**
+	 * Performs recursive random search to find the best point in the provided
+	 * space, running "starfish.job.optimizer.rrs.num.starts" independent
+	 * search chains.
+	 * 
+	 * The chains advance in rounds of (at least) ROUND_SIZE cost evaluations.
+	 * Within a round, the chains are spread over the cost engines, and each
+	 * cost engine is used by one thread, so the engines must be safe to use
+	 * concurrently with each other. At the end of each round, the best cost
+	 * found by any chain becomes the shared incumbent, and a chain abandons
+	 * an exploitation phase that has already shrunk its sample space but is
+	 * still worse than the incumbent by more than the pruning ratio.
+	 * 
+	 * Each chain draws its random values from its own generator, seeded from
+	 * the root seed, and only sees the incumbent at round boundaries. Hence,
+	 * the best point depends only on the root seed and not on the number of
+	 * cost engines or the thread timing.
+	 * 
+	 * If a checkpoint is set, the state of the chains is put in the
+	 * checkpoint at the end of a round when the checkpoint interval has
+	 * passed, and when the search completes. A search that finds a snapshot in
+	 * the checkpoint continues from it, so it returns the same point as a
+	 * search that was never interrupted. The state of a search stopped by the
+	 * deadline is not put in the checkpoint, so that a restarted search
+	 * continues from the last round completed in time.
+	 * 
+	 * @param space
+	 *            the parameter space
+	 * @param costEngines
+	 *            the cost engines (one per thread)
+	 * @return the best parameter point
+	 */
+	public P findBestSpacePoint(IRRSSearchSpace<P> space,
+			List<? extends IRRSCostEngine<P>> costEngines) {
 
-		// Check for empty space
-		if (space.getNumDimensions() == 0)
+		// Check for empty space or no time left
+		if (space.getNumDimensions() == 0
+				|| System.currentTimeMillis() >= deadline)
 			return space.getEmptySpacePoint();
 
 		// Special case for very small spaces
 		if (space.getNumUniqueSpacePoints() < n) {
 			// Enumerate the full space
 			List<P> points = space.getSpacePointGrid(false, n);
-			return findBestSpacePoint(points, costEngine);
+			return findBestSpacePoint(points, costEngines.get(0));
 		}
 
-		// Take n random samples from the parameter space
-		int countWhatIf = 0;
-		List<P> x_array = new ArrayList<P>(n);
-		double[] f_x_array = new double[n];
-		for (int i = 0; i < n; ++i) {
-			x_array.add(space.getRandomSpacePoint());
-			f_x_array[i] = costEngine.costSpacePoint(x_array.get(i));
-			++countWhatIf;
+		// A single chain without a seed uses the shared random generator,
+		// unless its state must be checkpointed
+		if (numStarts == 1 && seed == null && checkpoint == null) {
+			SearchChain chain = new SearchChain(space, null);
+			chain.run(costEngines.get(0), Double.MAX_VALUE, Integer.MAX_VALUE);
+			return chain.x_opt;
 		}
 
-		// Find the min point
-		int minIndex = findMinIndex(f_x_array);
-		P x_0 = x_array.get(minIndex);
-		double f_x_0 = f_x_array[minIndex];
-		double y_r = f_x_0;
-
-		// Initialize the threshold list
-		ArrayList<Double> thresList = new ArrayList<Double>();
-		thresList.add(f_x_0);
-
-		// Initialize the optimal point
-		P x_opt = x_0;
-		double f_x_opt = f_x_0;
-		int lastCountOptChange = countWhatIf;
-
-		// Calculate termination criteria as scaled exponential functions
-		// of the number of parameters in the space
-		int MAX_COUNT_WHAT_IF = (int) Math.ceil(150 * Math.pow(
-				space.getNumDimensions(), 1.2));
-		int MAX_COUNT_OPT_CHANGE = (int) Math.ceil(80 * Math.pow(
-				space.getNumDimensions(), 1.2));
-
-		// Start the main exploration search
-		int i = 0;
-		boolean exploit = true;
-
-		while (countWhatIf < MAX_COUNT_WHAT_IF
-				&& countWhatIf - lastCountOptChange < MAX_COUNT_OPT_CHANGE) {
-
-			if (exploit) {
-				// Start the exploitation process
-				int j = 0;
-				P x_l = x_0;
-				double f_x_l = f_x_0;
-				P x_prime;
-				double f_x_prime = 0;
-				float ro = r;
-
-				while (ro > s_t) {
-					x_prime = space.getRandomSpacePoint(x_l, ro);
-					f_x_prime = costEngine.costSpacePoint(x_prime);
-					++countWhatIf;
-
-					if (f_x_prime < f_x_l) {
-						// Re-align the center of sample space
-						x_l = x_prime;
-						f_x_l = f_x_prime;
-						j = 0;
-					} else {
-						++j;
-					}
-
-					if (j == l) {
-						// Shrink the sample space
-						ro *= c;
-						j = 0;
-					}
-				} // End while
-
-				// Update the optimal point
-				exploit = false;
-				if (f_x_l < f_x_opt) {
-					x_opt = x_l;
-					f_x_opt = f_x_l;
-					lastCountOptChange = countWhatIf;
-				}
-			} // End exploitation
+		// Create the chains with their own random generators
+		long rootSeed = (seed != null) ? seed : ParameterDescriptor
+				.nextRandomSeed();
+		List<SearchChain> chains = new ArrayList<SearchChain>(numStarts);
+		for (int k = 0; k < numStarts; ++k) {
+			chains.add(new SearchChain(space, new Random(getChainSeed(
+					rootSeed, k))));
+		}
 
-			// Take a new random space point
-			x_0 = space.getRandomSpacePoint();
-			f_x_0 = costEngine.costSpacePoint(x_0);
-			++countWhatIf;
+		// Resume from the checkpointed state, if any
+		SearchState state = new SearchState(space, chains, Double.MAX_VALUE);
+		if (checkpoint != null && checkpoint.get(checkpointKey, state))
+			LOG.info("Resuming the search " + checkpointKey + " after "
+					+ state.getCountWhatIf() + " cost evaluations");
 
-			x_array.set(i, x_0);
-			f_x_array[i] = f_x_0;
+		runChains(state, costEngines);
+		chains = state.chains;
 
-			if (f_x_0 < y_r) {
-				// Found a promising point, set the flag to exploit
-				exploit = true;
-			}
+		// Find the best point (ties go to the chain with the smaller index)
+		SearchChain bestChain = chains.get(0);
+		for (SearchChain chain : chains) {
+			if (chain.f_x_opt < bestChain.f_x_opt)
+				bestChain = chain;
+		}
 
-			++i;
-			if (i == n) {
-				// Update the exploitation threshold y_r
-				minIndex = findMinIndex(f_x_array);
-				thresList.add(f_x_array[minIndex]);
-				y_r = findMean(f_x_array);
-				i = 0;
-			}
-		} // End exploration
+		return bestChain.x_opt;
+	}
+
+	/**
+	 * Set the checkpoint of the search progress. The search puts its state in
+	 * the section of the checkpoint with the given key, so different searches
+	 * using the same checkpoint must use different keys.
+	 * 
+	 * @param checkpoint
+	 *            the checkpoint (null for no checkpoints)
+	 * @param key
+	 *            the key of the search in the checkpoint
+	 */
+	public void setCheckpoint(SearchCheckpoint checkpoint, String key) {
+		this.checkpoint = checkpoint;
+		this.checkpointKey = key;
+	}
+
+	/**
+	 * @return the number of independent search chains
+	 */
+	public int getNumStarts() {
+		return numStarts;
+	}
+
+	/**
+	 * Set the time when the search must stop. The chains stop as soon as the
+	 * deadline passes (after their initial samples) and the best point found
+	 * so far is returned. If the time has passed before the search starts,
+	 * the empty space point is returned.
+	 * 
+	 * @param deadline
+	 *            the deadline (in ms since the epoch)
+	 */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC STATIC METHODS
+	 * ***************************************************************
+	 */
 
-		return x_opt;
+	/**
+	 * Derive the seed of a search chain from the root seed. The seeds are
+	 * generated like the SplitMix64 generator, which splits a root seed into
+	 * well-mixed, statistically independent streams.
+	 * 
+	 * @param rootSeed
+	 *            the root seed
+	 * @param chain
+	 *            the chain index
+	 * @return the seed of the chain
+	 */
+	public static long getChainSeed(long rootSeed, int chain) {
+		long z = rootSeed + (chain + 1) * 0x9E3779B97F4A7C15l;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9l;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBl;
+		return z ^ (z >>> 31);
 	}
 
 	/* ***************************************************************
@@ -262,31 +352,102 @@ public class RecursiveRandomSearch<P> {
 	 * ***************************************************************
 	 */
 
+	/**
+	 * Run the search chains in rounds until all of them terminate. The chains
+	 * are assigned to the cost engines in a round-robin fashion.
+	 * 
+	 * @param state
+	 *            the search state with the chains and the incumbent
+	 * @param costEngines
+	 *            the cost engines
+	 */
+	private void runChains(SearchState state,
+			List<? extends IRRSCostEngine<P>> costEngines) {
+
+		List<SearchChain> chains = state.chains;
+
+		// Assign the chains to the cost engines
+		int numGroups = Math.min(costEngines.size(), chains.size());
+		List<List<SearchChain>> groups = new ArrayList<List<SearchChain>>(
+				numGroups);
+		for (int g = 0; g < numGroups; ++g) {
+			groups.add(new ArrayList<SearchChain>());
+		}
+		for (int k = 0; k < chains.size(); ++k) {
+			groups.get(k % numGroups).add(chains.get(k));
+		}
+
+		ExecutorService executor = null;
+		if (numGroups > 1) {
+			executor = ThreadPoolUtils.newThreadPool("rrs-chain", numGroups);
+		}
+
+		try {
+			double incumbent = state.incumbent;
+			boolean active = false;
+			for (SearchChain chain : chains) {
+				active |= !chain.done;
+			}
+
+			while (active) {
+				// Advance all chains by one round
+				List<ChainRound> rounds = new ArrayList<ChainRound>(numGroups);
+				for (int g = 0; g < numGroups; ++g) {
+					rounds.add(new ChainRound(groups.get(g), costEngines
+							.get(g), incumbent));
+				}
+
+				if (executor == null) {
+					rounds.get(0).call();
+				} else {
+					ThreadPoolUtils.invokeAll(executor, rounds);
+				}
+
+				// Share the incumbent among the chains
+				active = false;
+				boolean stopped = false;
+				for (SearchChain chain : chains) {
+					incumbent = Math.min(incumbent, chain.getBestCost());
+					active |= !chain.done;
+					stopped |= chain.stopped;
+				}
+				state.incumbent = incumbent;
+
+				// Checkpoint the rounds completed before the deadline
+				if (checkpoint != null && !stopped
+						&& (!active || checkpoint.isDue())) {
+					checkpoint.put(checkpointKey, state);
+					checkpoint.save();
+				}
+			}
+		} finally {
+			if (executor != null)
+				executor.shutdownNow();
+		}
+	}
+
 	/**
 	 * Find the best space point from the collection of points
 	 * 
 	 * @param points
-	 *            the collection of space points
+	 *            the list of space points
 	 * @param costEngine
 	 *            the cost engine
 	 * @return the best space point
 	 */
-	private P findBestSpacePoint(Collection<P> points,
-			IRRSCostEngine<P> costEngine) {
+	private P findBestSpacePoint(List<P> points, IRRSCostEngine<P> costEngine) {
+
+		// Cost all parameter space points
+		double[] costs = costEngine.costSpacePoints(points);
 
 		// Find the best parameter space point
 		double minTime = Double.MAX_VALUE;
-		double currTime = 0;
 		P bestPoint = null;
 
-		for (P point : points) {
-
-			// Cost each parameter space point
-			currTime = costEngine.costSpacePoint(point);
-
-			if (currTime < minTime) {
-				minTime = currTime;
-				bestPoint = point;
+		for (int i = 0; i < costs.length; ++i) {
+			if (costs[i] < minTime) {
+				minTime = costs[i];
+				bestPoint = points.get(i);
 			}
 		}
 
@@ -330,4 +491,493 @@ public class RecursiveRandomSearch<P> {
 		return sum / values.length;
 	}
 
+	/* ***************************************************************
+	 * PRIVATE CLASSES
+	 * ***************************************************************
+	 */
+
+	/**
+	 * A single chain of recursive random search. The chain is a state machine
+	 * that can be advanced a few cost evaluations at a time, following the
+	 * pseudocode in {@link RecursiveRandomSearch}.
+	 * 
+	 * @author hero
+	 */
+	private class SearchChain {
+
+		// The chain phases
+		private static final int INIT = 0;
+		private static final int CHECK = 1;
+		private static final int EXPLOIT = 2;
+		private static final int EXPLORE = 3;
+
+		private IRRSSearchSpace<P> space; // The search space
+		private Random random; // The random generator (null for shared)
+		private int phase; // The current phase
+		private boolean done; // Whether the chain has terminated
+		private boolean stopped; // Whether the deadline stopped the chain
+
+		// Exploration state
+		private List<P> x_array;
+		private double[] f_x_array;
+		private P x_0;
+		private double f_x_0;
+		private double y_r;
+		private ArrayList<Double> thresList;
+		private int i;
+		private boolean exploit;
+
+		// Exploitation state
+		private P x_l;
+		private double f_x_l;
+		private float ro;
+		private int j;
+
+		// Optimal point and termination state
+		private P x_opt;
+		private double f_x_opt;
+		private int countWhatIf;
+		private int lastCountOptChange;
+		private int maxCountWhatIf;
+		private int maxCountOptChange;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param space
+		 *            the search space
+		 * @param random
+		 *            the random generator (null to use the shared one)
+		 */
+		public SearchChain(IRRSSearchSpace<P> space, Random random) {
+			this.space = space;
+			this.random = random;
+			this.phase = INIT;
+			this.done = false;
+			this.stopped = false;
+			this.x_opt = null;
+			this.f_x_opt = Double.MAX_VALUE;
+
+			// Calculate termination criteria as scaled exponential functions
+			// of the number of parameters in the space
+			this.maxCountWhatIf = (int) Math.ceil(150 * Math.pow(space
+					.getNumDimensions(), 1.2));
+			this.maxCountOptChange = (int) Math.ceil(80 * Math.pow(space
+					.getNumDimensions(), 1.2));
+		}
+
+		/**
+		 * @return the best cost found so far, including the exploitation
+		 *         phase in progress
+		 */
+		public double getBestCost() {
+			if (phase == EXPLOIT)
+				return Math.min(f_x_opt, f_x_l);
+			return f_x_opt;
+		}
+
+		/**
+		 * Advance the chain until it terminates or it performs the given
+		 * number of cost evaluations
+		 * 
+		 * @param costEngine
+		 *            the cost engine
+		 * @param incumbent
+		 *            the best cost found by any chain
+		 * @param maxCount
+		 *            the max number of cost evaluations to perform
+		 */
+		public void run(IRRSCostEngine<P> costEngine, double incumbent,
+				int maxCount) {
+			int startCount = countWhatIf;
+			while (!done && countWhatIf - startCount < maxCount) {
+				step(costEngine, incumbent);
+			}
+		}
+
+		/**
+		 * Perform one step of the search, i.e., at most one cost evaluation
+		 * (or n evaluations during initialization)
+		 * 
+		 * @param costEngine
+		 *            the cost engine
+		 * @param incumbent
+		 *            the best cost found by any chain
+		 */
+		private void step(IRRSCostEngine<P> costEngine, double incumbent) {
+
+			// Stop when the deadline passes, keeping the best point so far
+			if (phase != INIT && System.currentTimeMillis() >= deadline) {
+				if (phase == EXPLOIT)
+					endExploitation();
+				done = true;
+				stopped = true;
+				return;
+			}
+
+			switch (phase) {
+			case INIT:
+				// Take n random samples from the parameter space. The samples
+				// are independent so they are costed together as one batch.
+				x_array = new ArrayList<P>(n);
+				for (int k = 0; k < n; ++k) {
+					x_array.add(getRandomSpacePoint());
+				}
+				f_x_array = costEngine.costSpacePoints(x_array);
+				countWhatIf += n;
+
+				// Find the min point
+				int minIndex = findMinIndex(f_x_array);
+				x_0 = x_array.get(minIndex);
+				f_x_0 = f_x_array[minIndex];
+				y_r = f_x_0;
+
+				// Initialize the threshold list and the optimal point
+				thresList = new ArrayList<Double>();
+				thresList.add(f_x_0);
+				x_opt = x_0;
+				f_x_opt = f_x_0;
+				lastCountOptChange = countWhatIf;
+
+				i = 0;
+				exploit = true;
+				phase = CHECK;
+				break;
+
+			case CHECK:
+				// Check the termination criteria
+				boolean improving = countWhatIf - lastCountOptChange
+					< maxCountOptChange;
+				if (countWhatIf >= maxCountWhatIf || !improving) {
+					done = true;
+				} else if (exploit) {
+					// Start the exploitation process
+					j = 0;
+					x_l = x_0;
+					f_x_l = f_x_0;
+					ro = r;
+					if (ro > s_t)
+						phase = EXPLOIT;
+					else
+						endExploitation();
+				} else {
+					phase = EXPLORE;
+				}
+				break;
+
+			case EXPLOIT:
+				P x_prime = getRandomSpacePoint(x_l, ro);
+				double f_x_prime = costEngine.costSpacePoint(x_prime);
+				++countWhatIf;
+
+				if (f_x_prime < f_x_l) {
+					// Re-align the center of sample space
+					x_l = x_prime;
+					f_x_l = f_x_prime;
+					j = 0;
+				} else {
+					++j;
+				}
+
+				if (j == l) {
+					// Shrink the sample space
+					ro *= c;
+					j = 0;
+				}
+
+				// Stop exploiting a shrunk region clearly worse than the
+				// incumbent found by the other chains
+				if (ro <= s_t
+						|| (ro < r && f_x_l > (1 + pruneRatio) * incumbent))
+					endExploitation();
+				break;
+
+			case EXPLORE:
+				// Take a new random space point
+				x_0 = getRandomSpacePoint();
+				f_x_0 = costEngine.costSpacePoint(x_0);
+				++countWhatIf;
+
+				x_array.set(i, x_0);
+				f_x_array[i] = f_x_0;
+
+				if (f_x_0 < y_r) {
+					// Found a promising point, set the flag to exploit
+					exploit = true;
+				}
+
+				++i;
+				if (i == n) {
+					// Update the exploitation threshold y_r
+					thresList.add(f_x_array[findMinIndex(f_x_array)]);
+					y_r = findMean(f_x_array);
+					i = 0;
+				}
+
+				phase = CHECK;
+				break;
+			}
+		}
+
+		/**
+		 * Write the state of the chain. The termination limits are not
+		 * written, since they depend only on the search space.
+		 * 
+		 * @param out
+		 *            the output
+		 * @throws IOException
+		 */
+		public void write(DataOutput out) throws IOException {
+			out.writeInt(phase);
+			out.writeBoolean(done);
+			SearchCheckpoint.writeRandom(out, random);
+			out.writeInt(countWhatIf);
+			if (phase == INIT)
+				return;
+
+			// Exploration state
+			for (int k = 0; k < n; ++k) {
+				x_array.get(k).write(out);
+				out.writeDouble(f_x_array[k]);
+			}
+			x_0.write(out);
+			out.writeDouble(f_x_0);
+			out.writeDouble(y_r);
+			out.writeInt(thresList.size());
+			for (double thres : thresList) {
+				out.writeDouble(thres);
+			}
+			out.writeInt(i);
+			out.writeBoolean(exploit);
+
+			// Exploitation state
+			out.writeBoolean(x_l != null);
+			if (x_l != null) {
+				x_l.write(out);
+				out.writeDouble(f_x_l);
+				out.writeFloat(ro);
+				out.writeInt(j);
+			}
+
+			// Optimal point
+			x_opt.write(out);
+			out.writeDouble(f_x_opt);
+			out.writeInt(lastCountOptChange);
+		}
+
+		/**
+		 * Read the state of the chain written by {@link #write(DataOutput)}
+		 * 
+		 * @param in
+		 *            the input
+		 * @throws IOException
+		 */
+		public void readFields(DataInput in) throws IOException {
+			phase = in.readInt();
+			if (phase < INIT || phase > EXPLORE)
+				throw new IOException("Invalid chain phase: " + phase);
+			done = in.readBoolean();
+			random = SearchCheckpoint.readRandom(in);
+			countWhatIf = in.readInt();
+			if (phase == INIT)
+				return;
+
+			// Exploration state
+			x_array = new ArrayList<P>(n);
+			f_x_array = new double[n];
+			for (int k = 0; k < n; ++k) {
+				x_array.add(readPoint(in));
+				f_x_array[k] = in.readDouble();
+			}
+			x_0 = readPoint(in);
+			f_x_0 = in.readDouble();
+			y_r = in.readDouble();
+			int numThres = in.readInt();
+			thresList = new ArrayList<Double>(numThres);
+			for (int k = 0; k < numThres; ++k) {
+				thresList.add(in.readDouble());
+			}
+			i = in.readInt();
+			exploit = in.readBoolean();
+
+			// Exploitation state
+			if (in.readBoolean()) {
+				x_l = readPoint(in);
+				f_x_l = in.readDouble();
+				ro = in.readFloat();
+				j = in.readInt();
+			}
+
+			// Optimal point
+			x_opt = readPoint(in);
+			f_x_opt = in.readDouble();
+			lastCountOptChange = in.readInt();
+		}
+
+		/**
+		 * End the exploitation process, update the optimal point, and move
+		 * on to exploring
+		 */
+		private void endExploitation() {
+			exploit = false;
+			if (f_x_l < f_x_opt) {
+				x_opt = x_l;
+				f_x_opt = f_x_l;
+				lastCountOptChange = countWhatIf;
+			}
+			phase = EXPLORE;
+		}
+
+		/**
+		 * @param in
+		 *            the input
+		 * @return a space point read from the input
+		 * @throws IOException
+		 */
+		private P readPoint(DataInput in) throws IOException {
+			P point = space.getEmptySpacePoint();
+			point.readFields(in);
+			return point;
+		}
+
+		/**
+		 * @return a random space point from the chain's random generator
+		 */
+		private P getRandomSpacePoint() {
+			if (random == null)
+				return space.getRandomSpacePoint();
+			return space.getRandomSpacePoint(random);
+		}
+
+		/**
+		 * @param center
+		 *            the center point
+		 * @param scale
+		 *            the scale factor for the parameter space
+		 * @return a random space point around the center from the chain's
+		 *         random generator
+		 */
+		private P getRandomSpacePoint(P center, double scale) {
+			if (random == null)
+				return space.getRandomSpacePoint(center, scale);
+			return space.getRandomSpacePoint(center, scale, random);
+		}
+	}
+
+	/**
+	 * The state of a search with multiple chains, as put in the checkpoint.
+	 * The state is only read back by a search with the same settings and
+	 * number of dimensions.
+	 * 
+	 * @author hero
+	 */
+	private class SearchState implements Writable {
+
+		private IRRSSearchSpace<P> space; // The search space
+		private List<SearchChain> chains; // The search chains
+		private double incumbent; // The best cost found by any chain
+
+		/**
+		 * Constructor
+		 * 
+		 * @param space
+		 *            the search space
+		 * @param chains
+		 *            the search chains
+		 * @param incumbent
+		 *            the best cost found by any chain
+		 */
+		public SearchState(IRRSSearchSpace<P> space, List<SearchChain> chains,
+				double incumbent) {
+			this.space = space;
+			this.chains = chains;
+			this.incumbent = incumbent;
+		}
+
+		/**
+		 * @return the number of cost evaluations performed by the chains
+		 */
+		public int getCountWhatIf() {
+			int count = 0;
+			for (SearchChain chain : chains) {
+				count += chain.countWhatIf;
+			}
+			return count;
+		}
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			out.writeInt(space.getNumDimensions());
+			out.writeInt(n);
+			out.writeInt(l);
+			out.writeInt(chains.size());
+			out.writeDouble(incumbent);
+			for (SearchChain chain : chains) {
+				chain.write(out);
+			}
+		}
+
+		@Override
+		public void readFields(DataInput in) throws IOException {
+			int numDims = in.readInt();
+			int inN = in.readInt();
+			int inL = in.readInt();
+			int numChains = in.readInt();
+			if (numDims != space.getNumDimensions() || inN != n || inL != l
+					|| numChains != chains.size())
+				throw new IOException("The search settings have changed");
+
+			// Read into new chains, so a failure keeps the current ones
+			double inIncumbent = in.readDouble();
+			List<SearchChain> inChains = new ArrayList<SearchChain>(
+					numChains);
+			for (int k = 0; k < numChains; ++k) {
+				SearchChain chain = new SearchChain(space, null);
+				chain.readFields(in);
+				inChains.add(chain);
+			}
+
+			chains = inChains;
+			incumbent = inIncumbent;
+		}
+	}
+
+	/**
+	 * A task that advances a group of chains by one round using one cost
+	 * engine
+	 * 
+	 * @author hero
+	 */
+	private class ChainRound implements Callable<Object> {
+
+		private List<SearchChain> chains; // The chains to advance
+		private IRRSCostEngine<P> costEngine; // The cost engine
+		private double incumbent; // The best cost at the start of the round
+
+		/**
+		 * Constructor
+		 * 
+		 * @param chains
+		 *            the chains to advance
+		 * @param costEngine
+		 *            the cost engine
+		 * @param incumbent
+		 *            the best cost at the start of the round
+		 */
+		public ChainRound(List<SearchChain> chains,
+				IRRSCostEngine<P> costEngine, double incumbent) {
+			this.chains = chains;
+			this.costEngine = costEngine;
+			this.incumbent = incumbent;
+		}
+
+		@Override
+		public Object call() {
+			for (SearchChain chain : chains) {
+				chain.run(costEngine, incumbent, ROUND_SIZE);
+			}
+			return null;
+		}
+	}
+
 }
@@ -0,0 +1,387 @@
+package edu.duke.starfish.jobopt.rrs;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
+
+/**
+ * The durable progress state of long optimization runs, kept in a compact
+ * file so that a restarted run resumes from where the previous run stopped.
+ * 
+ * The file holds a number of sections, each one identified by a key. A search
+ * (e.g., a {@link RecursiveRandomSearch} or the enumeration of a grid)
+ * periodically puts a snapshot of its state in its own section and saves the
+ * file when the checkpoint interval has passed (see {@link #isDue()}). A
+ * restarted search gets its last snapshot back and continues from there.
+ * Sections can also be registered, in which case they are written every time
+ * the file is saved (e.g., the log of the evaluated costs).
+ * 
+ * The file also records an identifier of the optimized job (e.g., the
+ * profile and the cluster). A file with a different identifier is ignored
+ * and overwritten on the first save. The file is written to a temporary file
+ * first and then renamed, so a crash while saving keeps the previous file.
+ * 
+ * Parameters:
+ * <ul>
+ * <li>starfish.job.optimizer.checkpoint.file (no checkpoints if not set)</li>
+ * <li>starfish.job.optimizer.checkpoint.interval.ms (10000)</li>
+ * </ul>
+ * 
+ * @author hero
+ */
+public class SearchCheckpoint {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+	private static final Log LOG = LogFactory.getLog(SearchCheckpoint.class);
+
+	private File file; // The checkpoint file
+	private long interval; // The min time between two saves (in ms)
+	private String id; // The identifier of the optimized job
+	private long lastSaveTime; // The time of the last save (in ms)
+
+	private Map<String, byte[]> snapshots; // The section snapshots
+	private Map<String, Writable> registered; // The sections written on save
+
+	/* ***************************************************************
+	 * STATIC DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	public static final String CHECKPOINT_FILE = "starfish.job.optimizer.checkpoint.file";
+	public static final String CHECKPOINT_INTERVAL = "starfish.job.optimizer.checkpoint.interval.ms";
+
+	public static final long DEF_CHECKPOINT_INTERVAL = 10000l;
+
+	// The file header
+	private static final int MAGIC = 0x53464350; // "SFCP"
+	private static final int VERSION = 1;
+
+	private static final String DOT_TMP = ".tmp";
+
+	/**
+	 * Constructor. Loads the sections of an existing checkpoint file with the
+	 * same identifier.
+	 * 
+	 * @param file
+	 *            the checkpoint file
+	 * @param interval
+	 *            the min time between two saves (in ms)
+	 * @param id
+	 *            the identifier of the optimized job
+	 */
+	public SearchCheckpoint(File file, long interval, String id) {
+		this.file = file;
+		this.interval = Math.max(0l, interval);
+		this.id = id;
+		this.lastSaveTime = System.currentTimeMillis();
+
+		this.snapshots = new LinkedHashMap<String, byte[]>();
+		this.registered = new LinkedHashMap<String, Writable>();
+
+		if (file.isFile())
+			load();
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @return the checkpoint file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @param key
+	 *            the section key
+	 * @return true if the checkpoint contains the section
+	 */
+	public boolean contains(String key) {
+		return snapshots.containsKey(key) || registered.containsKey(key);
+	}
+
+	/**
+	 * Read the last snapshot of a section into the provided state. The state
+	 * must not be used if the snapshot cannot be read (e.g., it was taken by
+	 * a search with different settings).
+	 * 
+	 * @param key
+	 *            the section key
+	 * @param state
+	 *            the state to read the snapshot into
+	 * @return true if the state was read successfully
+	 */
+	public boolean get(String key, Writable state) {
+		byte[] bytes = snapshots.get(key);
+		if (bytes == null)
+			return false;
+
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+					bytes));
+			state.readFields(in);
+			if (in.read() != -1)
+				throw new IOException("Unexpected trailing data");
+			return true;
+		} catch (IOException e) {
+			LOG.warn("Ignoring the checkpoint of " + key + ": "
+					+ e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Take a snapshot of the state of a section. The snapshot is written to
+	 * the file on the next save.
+	 * 
+	 * @param key
+	 *            the section key
+	 * @param state
+	 *            the state of the section
+	 */
+	public void put(String key, Writable state) {
+		snapshots.put(key, toBytes(state));
+	}
+
+	/**
+	 * Register a section, so that its current state is written every time the
+	 * file is saved
+	 * 
+	 * @param key
+	 *            the section key
+	 * @param section
+	 *            the section
+	 */
+	public void register(String key, Writable section) {
+		registered.put(key, section);
+	}
+
+	/**
+	 * @return true if the checkpoint interval has passed since the last save
+	 */
+	public boolean isDue() {
+		return System.currentTimeMillis() - lastSaveTime >= interval;
+	}
+
+	/**
+	 * Save the snapshots and the registered sections to the checkpoint file
+	 */
+	public void save() {
+		// Snapshot the registered sections
+		for (Entry<String, Writable> entry : registered.entrySet()) {
+			snapshots.put(entry.getKey(), toBytes(entry.getValue()));
+		}
+
+		File tmpFile = new File(file.getAbsolutePath() + DOT_TMP);
+		try {
+			DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new GZIPOutputStream(
+							new FileOutputStream(tmpFile))));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeUTF(id);
+				out.writeInt(snapshots.size());
+				for (Entry<String, byte[]> entry : snapshots.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeInt(entry.getValue().length);
+					out.write(entry.getValue());
+				}
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			tmpFile.delete();
+			throw new RuntimeException("ERROR: Unable to write the "
+					+ "checkpoint " + file, e);
+		}
+
+		if (!tmpFile.renameTo(file)) {
+			// Some platforms cannot rename over an existing file
+			file.delete();
+			if (!tmpFile.renameTo(file)) {
+				tmpFile.delete();
+				throw new RuntimeException("ERROR: Unable to write the "
+						+ "checkpoint " + file);
+			}
+		}
+
+		lastSaveTime = System.currentTimeMillis();
+	}
+
+	/* ***************************************************************
+	 * PUBLIC STATIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @param conf
+	 *            the configuration
+	 * @return true if "starfish.job.optimizer.checkpoint.file" is set
+	 */
+	public static boolean isCheckpointed(Configuration conf) {
+		String fileName = conf.get(CHECKPOINT_FILE);
+		return fileName != null && fileName.trim().length() > 0;
+	}
+
+	/**
+	 * Get the checkpoint set in "starfish.job.optimizer.checkpoint.file"
+	 * 
+	 * @param conf
+	 *            the configuration
+	 * @param id
+	 *            the identifier of the optimized job
+	 * @return the checkpoint, or null if no checkpoint file is set
+	 */
+	public static SearchCheckpoint getCheckpoint(Configuration conf,
+			String id) {
+		if (!isCheckpointed(conf))
+			return null;
+
+		return new SearchCheckpoint(new File(conf.get(CHECKPOINT_FILE)
+				.trim()), conf.getLong(CHECKPOINT_INTERVAL,
+				DEF_CHECKPOINT_INTERVAL), id);
+	}
+
+	/**
+	 * Serialize the state of a random number generator, so that it produces
+	 * the same numbers after it is read back
+	 * 
+	 * @param out
+	 *            the output
+	 * @param random
+	 *            the random number generator
+	 * @throws IOException
+	 */
+	public static void writeRandom(DataOutput out, Random random)
+			throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream objOut = new ObjectOutputStream(bytes);
+		objOut.writeObject(random);
+		objOut.close();
+
+		out.writeInt(bytes.size());
+		out.write(bytes.toByteArray());
+	}
+
+	/**
+	 * Read back a random number generator written by
+	 * {@link #writeRandom(DataOutput, Random)}
+	 * 
+	 * @param in
+	 *            the input
+	 * @return the random number generator
+	 * @throws IOException
+	 */
+	public static Random readRandom(DataInput in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+
+		ObjectInputStream objIn = new ObjectInputStream(
+				new ByteArrayInputStream(bytes));
+		try {
+			return (Random) objIn.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e.getMessage());
+		} catch (ClassCastException e) {
+			throw new IOException(e.getMessage());
+		} finally {
+			objIn.close();
+		}
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Load the sections from the checkpoint file. A file that cannot be read
+	 * or belongs to another job is ignored.
+	 */
+	private void load() {
+		Map<String, byte[]> loaded = new LinkedHashMap<String, byte[]>();
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					new GZIPInputStream(new FileInputStream(file))));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+					LOG.warn("Ignoring the checkpoint " + file
+							+ ": unknown format");
+					return;
+				}
+
+				String fileId = in.readUTF();
+				if (!fileId.equals(id)) {
+					LOG.info("Ignoring the checkpoint " + file + " of "
+							+ fileId);
+					return;
+				}
+
+				int numSections = in.readInt();
+				for (int i = 0; i < numSections; ++i) {
+					String key = in.readUTF();
+					byte[] bytes = new byte[in.readInt()];
+					in.readFully(bytes);
+					loaded.put(key, bytes);
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			LOG.warn("Ignoring the checkpoint " + file + ": " + e.getMessage());
+			return;
+		}
+
+		snapshots.putAll(loaded);
+		LOG.info("Loaded " + loaded.size() + " sections from the checkpoint "
+				+ file);
+	}
+
+	/**
+	 * @param state
+	 *            the state of a section
+	 * @return the serialized state
+	 */
+	private static byte[] toBytes(Writable state) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try {
+			DataOutputStream out = new DataOutputStream(bytes);
+			state.write(out);
+			out.close();
+		} catch (IOException e) {
+			throw new RuntimeException("ERROR: Unable to serialize the "
+					+ "checkpoint state", e);
+		}
+		return bytes.toByteArray();
+	}
+
+}
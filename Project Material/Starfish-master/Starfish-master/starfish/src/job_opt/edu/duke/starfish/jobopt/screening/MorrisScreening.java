@@ -0,0 +1,220 @@
+package edu.duke.starfish.jobopt.screening;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.cmaes.ICMASearchSpace;
+import edu.duke.starfish.jobopt.params.ParameterDescriptor;
+import edu.duke.starfish.jobopt.rrs.IRRSCostEngine;
+import edu.duke.starfish.jobopt.rrs.RecursiveRandomSearch;
+
+/**
+ * Morris screening is a cheap one-at-a-time sensitivity analysis used to find
+ * the dimensions of a space that have (almost) no effect on the cost. It
+ * builds r random trajectories over a grid of p levels in the unit hypercube.
+ * Each trajectory starts at a random grid point and moves each dimension once
+ * (in random order) by delta = p / (2 * (p - 1)). The change in the cost
+ * after moving a dimension is an elementary effect of the dimension. The
+ * importance of a dimension is the mean absolute elementary effect (mu*),
+ * relative to the mean cost of the points.
+ * 
+ * All the r * (#dims + 1) points of the trajectories are costed as a single
+ * batch, so the cost engine can cost them in parallel.
+ * 
+ * Reference: Factorial Sampling Plans for Preliminary Computational
+ * Experiments, Max D. Morris, Technometrics, 33(2), 1991
+ * 
+ * Parameters:
+ * <ul>
+ * <li>starfish.job.optimizer.screening.trajectories (10)</li>
+ * <li>starfish.job.optimizer.screening.levels (4)</li>
+ * <li>starfish.job.optimizer.screening.threshold (0.01)</li>
+ * <li>starfish.job.optimizer.random.seed ()</li>
+ * </ul>
+ * 
+ * @author hero
+ */
+public class MorrisScreening<P> {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+	private static final Log LOG = LogFactory.getLog(MorrisScreening.class);
+
+	// Constants
+	public static final String SCREEN_TRAJECTORIES = "starfish.job.optimizer.screening.trajectories";
+	public static final String SCREEN_LEVELS = "starfish.job.optimizer.screening.levels";
+	public static final String SCREEN_THRESHOLD = "starfish.job.optimizer.screening.threshold";
+
+	// Default values
+	public static final int SCREEN_DEF_TRAJECTORIES = 10;
+	public static final int SCREEN_DEF_LEVELS = 4;
+	public static final float SCREEN_DEF_THRESHOLD = 0.01f;
+
+	private Configuration conf; // The configuration with the parameters
+	private Long seed; // The random seed (null if not set)
+	private double[] effects; // The effects of the last screening
+	private P bestPoint; // The best point costed by the last screening
+	private int numEvals; // The number of evaluations of the last screening
+
+	/**
+	 * Constructor
+	 * 
+	 * @param conf
+	 *            settings with (optional) screening parameters
+	 */
+	public MorrisScreening(Configuration conf) {
+		this.conf = conf;
+		String strSeed = conf.get(RecursiveRandomSearch.RRS_RANDOM_SEED);
+		this.seed = (strSeed != null) ? Long.valueOf(strSeed.trim()) : null;
+		this.effects = null;
+		this.bestPoint = null;
+		this.numEvals = 0;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Screen the dimensions of the provided space and find the influential
+	 * ones, i.e., the dimensions whose relative effect on the cost is at
+	 * least the threshold.
+	 * 
+	 * @param space
+	 *            the parameter space
+	 * @param costEngine
+	 *            the cost engine
+	 * @return one flag per dimension, true if the dimension is influential
+	 */
+	public boolean[] findInfluentialDimensions(ICMASearchSpace<P> space,
+			IRRSCostEngine<P> costEngine) {
+
+		double threshold = conf.getFloat(SCREEN_THRESHOLD,
+				SCREEN_DEF_THRESHOLD);
+		computeEffects(space, costEngine);
+
+		boolean[] influential = new boolean[effects.length];
+		for (int i = 0; i < effects.length; ++i)
+			influential[i] = effects[i] >= threshold;
+		return influential;
+	}
+
+	/**
+	 * Compute the relative effect of each dimension of the provided space on
+	 * the cost, i.e., the mean absolute elementary effect of the dimension
+	 * divided by the mean cost of the points.
+	 * 
+	 * @param space
+	 *            the parameter space
+	 * @param costEngine
+	 *            the cost engine
+	 * @return the effects, one per dimension
+	 */
+	public double[] computeEffects(ICMASearchSpace<P> space,
+			IRRSCostEngine<P> costEngine) {
+
+		int numDims = space.getNumDimensions();
+		int numTrajectories = Math.max(1, conf.getInt(SCREEN_TRAJECTORIES,
+				SCREEN_DEF_TRAJECTORIES));
+		int numLevels = Math.max(2, conf.getInt(SCREEN_LEVELS,
+				SCREEN_DEF_LEVELS));
+		double delta = numLevels / (2d * (numLevels - 1));
+		Random random = new Random((seed != null) ? seed
+				: ParameterDescriptor.nextRandomSeed());
+
+		effects = new double[numDims];
+		bestPoint = space.getEmptySpacePoint();
+		numEvals = 0;
+		if (numDims == 0)
+			return effects;
+
+		// Build the trajectories
+		int[][] moves = new int[numTrajectories][numDims];
+		List<P> points = new ArrayList<P>(numTrajectories * (numDims + 1));
+		for (int t = 0; t < numTrajectories; ++t) {
+			double[] coords = new double[numDims];
+			for (int i = 0; i < numDims; ++i) {
+				coords[i] = random.nextInt(numLevels) / (numLevels - 1d);
+				moves[t][i] = i;
+			}
+			points.add(space.getSpacePoint(coords));
+
+			// Move the dimensions in a random order
+			for (int i = numDims - 1; i > 0; --i) {
+				int j = random.nextInt(i + 1);
+				int tmp = moves[t][i];
+				moves[t][i] = moves[t][j];
+				moves[t][j] = tmp;
+			}
+			for (int i = 0; i < numDims; ++i) {
+				int dim = moves[t][i];
+				if (coords[dim] + delta <= 1d + 1e-9d)
+					coords[dim] += delta;
+				else
+					coords[dim] -= delta;
+				points.add(space.getSpacePoint(coords));
+			}
+		}
+
+		// Cost all the points at once
+		double[] costs = costEngine.costSpacePoints(points);
+		numEvals = costs.length;
+
+		// Compute the mean absolute elementary effects
+		double meanCost = 0d;
+		int bestIndex = 0;
+		for (int k = 0; k < costs.length; ++k) {
+			meanCost += costs[k];
+			if (costs[k] < costs[bestIndex])
+				bestIndex = k;
+		}
+		meanCost /= costs.length;
+		bestPoint = points.get(bestIndex);
+
+		for (int t = 0; t < numTrajectories; ++t) {
+			int offset = t * (numDims + 1);
+			for (int i = 0; i < numDims; ++i) {
+				effects[moves[t][i]] += Math.abs(costs[offset + i + 1]
+						- costs[offset + i]);
+			}
+		}
+		for (int i = 0; i < numDims; ++i) {
+			effects[i] /= numTrajectories;
+			if (meanCost > 0d)
+				effects[i] /= meanCost;
+		}
+
+		LOG.debug("Morris screening costed " + numEvals + " points");
+		return effects;
+	}
+
+	/**
+	 * @return the relative effects computed by the last screening
+	 */
+	public double[] getEffects() {
+		return effects;
+	}
+
+	/**
+	 * @return the best point costed by the last screening
+	 */
+	public P getBestPoint() {
+		return bestPoint;
+	}
+
+	/**
+	 * @return the number of points costed by the last screening
+	 */
+	public int getNumEvaluations() {
+		return numEvals;
+	}
+
+}
@@ -1,8 +1,14 @@
 package edu.duke.starfish.jobopt.space;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.hadoop.io.Writable;
 
 /**
  * Represents a space point that is formed from the union of parameter points
@@ -10,7 +16,7 @@ import java.util.Map.Entry;
  * 
  * @author hero
  */
-public class MultiJobParamSpacePoint {
+public class MultiJobParamSpacePoint implements Writable {
 
 	/* ***************************************************************
 	 * DATA MEMBERS
@@ -91,6 +97,36 @@ public class MultiJobParamSpacePoint {
 		}
 	}
 
+	/**
+	 * @see org.apache.hadoop.io.Writable#write(java.io.DataOutput)
+	 */
+	@Override
+	public void write(DataOutput out) throws IOException {
+		// Write the job points in job order
+		Map<Integer, ParameterSpacePoint> sorted = 
+			new TreeMap<Integer, ParameterSpacePoint>(jobPoints);
+		out.writeInt(sorted.size());
+		for (Entry<Integer, ParameterSpacePoint> entry : sorted.entrySet()) {
+			out.writeInt(entry.getKey());
+			entry.getValue().write(out);
+		}
+	}
+
+	/**
+	 * @see org.apache.hadoop.io.Writable#readFields(java.io.DataInput)
+	 */
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		jobPoints.clear();
+		int size = in.readInt();
+		for (int i = 0; i < size; ++i) {
+			int jobId = in.readInt();
+			ParameterSpacePoint jobPoint = new ParameterSpacePoint();
+			jobPoint.readFields(in);
+			jobPoints.put(jobId, jobPoint);
+		}
+	}
+
 	/**
 	 * @see java.lang.Object#hashCode()
 	 */
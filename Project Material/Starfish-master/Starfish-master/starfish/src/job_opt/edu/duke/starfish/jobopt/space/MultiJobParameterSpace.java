@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Map.Entry;
 
 import edu.duke.starfish.jobopt.rrs.IRRSSearchSpace;
@@ -171,6 +172,43 @@ public class MultiJobParameterSpace implements
 		return point;
 	}
 
+	/**
+	 * @see edu.duke.starfish.jobopt.rrs.IRRSSearchSpace#getRandomSpacePoint(Random)
+	 */
+	@Override
+	public MultiJobParamSpacePoint getRandomSpacePoint(Random random) {
+
+		MultiJobParamSpacePoint point = new MultiJobParamSpacePoint();
+
+		for (Entry<Integer, ParameterSpace> entry : spaces.entrySet()) {
+			point.addJobSpacePoint(entry.getKey(), entry.getValue()
+					.getRandomSpacePoint(random));
+		}
+
+		return point;
+	}
+
+	/**
+	 * @see edu.duke.starfish.jobopt.rrs.IRRSSearchSpace#getRandomSpacePoint(Object,
+	 *      double, Random)
+	 */
+	@Override
+	public MultiJobParamSpacePoint getRandomSpacePoint(
+			MultiJobParamSpacePoint center, double scale, Random random) {
+
+		MultiJobParamSpacePoint point = new MultiJobParamSpacePoint();
+		double pScale = Math.pow(scale, 1.0d / spaces.size());
+
+		for (Entry<Integer, ParameterSpace> entry : spaces.entrySet()) {
+			point.addJobSpacePoint(entry.getKey(), entry.getValue()
+					.getRandomSpacePoint(
+							center.getJobSpacePoint(entry.getKey()), pScale,
+							random));
+		}
+
+		return point;
+	}
+
 	/**
 	 * Generate a list of multi-job parameter space points that represents the
 	 * Cartesian product of parameter space points (a.k.a. Gridding).
@@ -22,6 +22,7 @@ import edu.duke.starfish.profile.profileinfo.execution.profile.MRReduceProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRStatistics;
 import edu.duke.starfish.profile.utils.ProfileUtils;
+import edu.duke.starfish.whatif.JobSettings;
 import edu.duke.starfish.whatif.WhatIfUtils;
 
 /**
@@ -190,12 +191,12 @@ public class ParamSpaceUtils {
 		// Calculate the (uncompressed) reduce input size
 		double shuffleSize = redProfile.getNumTasks()
 				* redProfile.getCounter(MRCounter.REDUCE_SHUFFLE_BYTES)
-				/ redProfile.getStatistic(MRStatistics.INTERM_COMPRESS_RATIO,
-						1d);
+				/ redProfile.getStatisticDouble(
+						MRStatistics.INTERM_COMPRESS_RATIO, 1d);
 
 		// Calculate the number of reduce groups
 		long numGroups = redProfile.getNumTasks()
-				* redProfile.getCounter(MRCounter.REDUCE_INPUT_GROUPS, 1l);
+				* redProfile.getCounterLong(MRCounter.REDUCE_INPUT_GROUPS, 1l);
 
 		// Calculate the min and max number of reducers
 		double min = Math.ceil(shuffleSize / (2 * taskMemory));
@@ -362,6 +363,69 @@ public class ParamSpaceUtils {
 		return space;
 	}
 
+	/**
+	 * Build a parameter space point with the canonical values of all the
+	 * Hadoop parameters in the configuration. The configuration is compiled
+	 * into job settings first, so the values are read exactly the way the
+	 * What-if Engine reads them, and unset or invalid values take the
+	 * defaults of the What-if Engine. Hence, two configurations that lead to
+	 * the same what-if prediction produce equal points.
+	 * 
+	 * @param conf
+	 *            the configuration
+	 * @return the canonical parameter space point
+	 */
+	public static ParameterSpacePoint getCanonicalSpacePoint(
+			Configuration conf) {
+		return getCanonicalSpacePoint(new JobSettings(conf));
+	}
+
+	/**
+	 * Build a parameter space point with the values of all the Hadoop
+	 * parameters in the compiled job settings. Job settings that lead to the
+	 * same what-if prediction produce equal points.
+	 * 
+	 * @param settings
+	 *            the compiled job settings
+	 * @return the canonical parameter space point
+	 */
+	public static ParameterSpacePoint getCanonicalSpacePoint(
+			JobSettings settings) {
+
+		ParameterSpacePoint point = new ParameterSpacePoint();
+		point.addParamValue(HadoopParameter.SORT_MB, settings.getSortMB());
+		point.addParamValue(HadoopParameter.SPILL_PERC, settings
+				.getSpillPerc());
+		point.addParamValue(HadoopParameter.SORT_REC_PERC, settings
+				.getSortRecPerc());
+		point.addParamValue(HadoopParameter.SORT_FACTOR, settings
+				.getSortFactor());
+		point.addParamValue(HadoopParameter.NUM_SPILLS_COMBINE, settings
+				.getNumSpillsForCombine());
+
+		point.addParamValue(HadoopParameter.RED_TASKS, settings
+				.getNumReducers());
+		point.addParamValue(HadoopParameter.INMEM_MERGE, settings
+				.getInMemMergeThr());
+		point.addParamValue(HadoopParameter.SHUFFLE_IN_BUFF_PERC, settings
+				.getShuffleInBuffPerc());
+		point.addParamValue(HadoopParameter.SHUFFLE_MERGE_PERC, settings
+				.getShuffleMergePerc());
+		point.addParamValue(HadoopParameter.RED_IN_BUFF_PERC, settings
+				.getRedInBuffPerc());
+		point.addParamValue(HadoopParameter.RED_SLOWSTART_MAPS, settings
+				.getRedSlowstartMaps());
+
+		point.addParamValue(HadoopParameter.COMBINE,
+				settings.getUseCombiner() ? 1d : 0d);
+		point.addParamValue(HadoopParameter.COMPRESS_MAP_OUT, settings
+				.getCompressMapOutput() ? 1d : 0d);
+		point.addParamValue(HadoopParameter.COMPRESS_OUT, settings
+				.getCompressOutput() ? 1d : 0d);
+
+		return point;
+	}
+
 	/* ***************************************************************
 	 * PRIVATE STATIC METHODS
 	 * ***************************************************************
@@ -4,18 +4,19 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.List;
+import java.util.Random;
 
+import edu.duke.starfish.jobopt.cmaes.ICMASearchSpace;
 import edu.duke.starfish.jobopt.params.HadoopParameter;
 import edu.duke.starfish.jobopt.params.ParamTaskEffect;
 import edu.duke.starfish.jobopt.params.ParameterDescriptor;
-import edu.duke.starfish.jobopt.rrs.IRRSSearchSpace;
 
 /**
  * Represents the entire Hadoop configuration parameter space
  * 
  * @author hero
  */
-public class ParameterSpace implements IRRSSearchSpace<ParameterSpacePoint> {
+public class ParameterSpace implements ICMASearchSpace<ParameterSpacePoint> {
 
 	/* ***************************************************************
 	 * DATA MEMBERS
@@ -80,6 +81,66 @@ public class ParameterSpace implements IRRSSearchSpace<ParameterSpacePoint> {
 		return paramDescriptors.size();
 	}
 
+	/**
+	 * Get the coordinates of the space point in the unit hypercube. There is
+	 * one coordinate per parameter in the space, in the order of the
+	 * parameters. Parameters missing from the point are placed in the middle
+	 * of their domain.
+	 * 
+	 * @param point
+	 *            the space point
+	 * @return the coordinates of the point
+	 */
+	@Override
+	public double[] getNormalizedCoordinates(ParameterSpacePoint point) {
+		double[] coords = new double[paramDescriptors.size()];
+
+		int i = 0;
+		for (ParameterDescriptor descr : paramDescriptors.values()) {
+			String value = point.getParameterValue(descr.getParameter());
+			coords[i++] = (value == null) ? 0.5d : descr
+					.getNormalizedValue(value);
+		}
+
+		return coords;
+	}
+
+	/**
+	 * @see edu.duke.starfish.jobopt.cmaes.ICMASearchSpace#getNumUniqueValues(int)
+	 */
+	@Override
+	public int getNumUniqueValues(int dimension) {
+		int i = 0;
+		for (ParameterDescriptor descr : paramDescriptors.values()) {
+			if (i++ == dimension)
+				return descr.getNumUniqueValues();
+		}
+
+		throw new RuntimeException("ERROR: Invalid dimension " + dimension);
+	}
+
+	/**
+	 * Get the space point that is closest to the coordinates in the unit
+	 * hypercube. There is one coordinate per parameter in the space, in the
+	 * order of the parameters.
+	 * 
+	 * @param coordinates
+	 *            the coordinates
+	 * @return the space point
+	 */
+	@Override
+	public ParameterSpacePoint getSpacePoint(double[] coordinates) {
+		ParameterSpacePoint point = new ParameterSpacePoint();
+
+		int i = 0;
+		for (ParameterDescriptor descr : paramDescriptors.values()) {
+			point.addParamValue(descr.getParameter(), descr
+					.getDenormalizedValue(coordinates[i++]));
+		}
+
+		return point;
+	}
+
 	/**
 	 * Get the number of parameters in the space
 	 * 
@@ -200,6 +261,40 @@ public class ParameterSpace implements IRRSSearchSpace<ParameterSpacePoint> {
 		return point;
 	}
 
+	/**
+	 * @see edu.duke.starfish.jobopt.rrs.IRRSSearchSpace#getRandomSpacePoint(Random)
+	 */
+	@Override
+	public ParameterSpacePoint getRandomSpacePoint(Random random) {
+		ParameterSpacePoint point = new ParameterSpacePoint();
+
+		for (ParameterDescriptor descr : paramDescriptors.values()) {
+			point.addParamValue(descr.getParameter(), descr
+					.getRandomValue(random));
+		}
+
+		return point;
+	}
+
+	/**
+	 * @see edu.duke.starfish.jobopt.rrs.IRRSSearchSpace#getRandomSpacePoint(Object,
+	 *      double, Random)
+	 */
+	@Override
+	public ParameterSpacePoint getRandomSpacePoint(ParameterSpacePoint center,
+			double scale, Random random) {
+		ParameterSpacePoint point = new ParameterSpacePoint();
+		double pScale = Math.pow(scale, 1.0d / paramDescriptors.size());
+
+		for (ParameterDescriptor descr : paramDescriptors.values()) {
+			point.addParamValue(descr.getParameter(), descr.getRandomValue(
+					center.getParameterValue(descr.getParameter()), pScale,
+					random));
+		}
+
+		return point;
+	}
+
 	/**
 	 * Generate a list of parameter space points that represents the Cartesian
 	 * product of parameter values (a.k.a. Gridding).
@@ -208,6 +303,9 @@ public class ParameterSpace implements IRRSSearchSpace<ParameterSpacePoint> {
 	 * domains. This function also support using random values from the
 	 * parameter domains.
 	 * 
+	 * Also see {@link #getLazySpacePointGrid(boolean, int)} for enumerating
+	 * large grids without materializing them.
+	 * 
 	 * @param random
 	 *            whether to generate random or equi-spaced values
 	 * @param numValuesPerParam
@@ -217,57 +315,53 @@ public class ParameterSpace implements IRRSSearchSpace<ParameterSpacePoint> {
 	@Override
 	public List<ParameterSpacePoint> getSpacePointGrid(boolean random,
 			int numValuesPerParam) {
-		ArrayList<ParameterSpacePoint> points = new ArrayList<ParameterSpacePoint>();
+		ParameterSpaceGrid grid = getLazySpacePointGrid(random,
+				numValuesPerParam);
+		if (grid.size() > Integer.MAX_VALUE)
+			throw new RuntimeException("ERROR: The grid has too many points "
+					+ "to materialize: " + grid.size());
+
+		List<ParameterSpacePoint> points = new ArrayList<ParameterSpacePoint>(
+				(int) grid.size());
+		for (ParameterSpacePoint point : grid) {
+			points.add(point);
+		}
 
-		// Generate all the parameter space points
-		for (ParameterDescriptor descriptor : paramDescriptors.values()) {
+		return points;
+	}
+
+	/**
+	 * Get the grid of parameter space points that represents the Cartesian
+	 * product of parameter values, like
+	 * {@link #getSpacePointGrid(boolean, int)}, but without generating the
+	 * points. The values of each parameter are selected once, and the points
+	 * are generated on demand while enumerating the grid, in the same order.
+	 * 
+	 * @param random
+	 *            whether to generate random or equi-spaced values
+	 * @param numValuesPerParam
+	 *            the max number of values to obtain from each parameter
+	 * @return the lazy grid of parameter space points
+	 */
+	public ParameterSpaceGrid getLazySpacePointGrid(boolean random,
+			int numValuesPerParam) {
+		List<HadoopParameter> params = new ArrayList<HadoopParameter>();
+		List<List<String>> values = new ArrayList<List<String>>();
 
-			HadoopParameter param = descriptor.getParameter();
-			List<String> values = (random) ? descriptor
+		for (ParameterDescriptor descriptor : paramDescriptors.values()) {
+			List<String> paramValues = (random) ? descriptor
 					.getRandomValues(numValuesPerParam) : descriptor
 					.getEquiSpacedValues(numValuesPerParam);
 
-			int numValues = values.size();
-			if (numValues == 0)
+			// Parameters without values are not part of the grid
+			if (paramValues.size() == 0)
 				continue;
 
-			if (points.size() == 0) {
-				// First parameter. Add one point for each value
-				for (String value : values) {
-					ParameterSpacePoint point = new ParameterSpacePoint();
-					point.addParamValue(param, value);
-					points.add(point);
-				}
-			} else {
-				// Add the first value to all existing points
-				for (ParameterSpacePoint point : points) {
-					point.addParamValue(param, values.get(0));
-				}
-
-				// Perform the Cartesian product of points with rest values
-				int numExistingPoints = points.size();
-				for (int i = 1; i < numValues; ++i) {
-
-					// Duplicate the existing points
-					points.ensureCapacity(points.size() + numExistingPoints);
-					for (int j = 0; j < numExistingPoints; ++j) {
-						points.add(new ParameterSpacePoint(points.get(j)));
-					}
-
-					// Set the values
-					int start = i * numExistingPoints;
-					int end = (i + 1) * numExistingPoints;
-					for (int j = start; j < end; ++j) {
-						points.get(j).addParamValue(param, values.get(i));
-					}
-				}
-			}
+			params.add(descriptor.getParameter());
+			values.add(paramValues);
 		}
 
-		if (points.size() == 0)
-			points.add(getEmptySpacePoint());
-
-		return points;
+		return new ParameterSpaceGrid(params, values);
 	}
 
 	/**
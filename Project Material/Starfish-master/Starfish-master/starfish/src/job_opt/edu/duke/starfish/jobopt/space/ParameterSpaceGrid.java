@@ -0,0 +1,316 @@
+package edu.duke.starfish.jobopt.space;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import edu.duke.starfish.jobopt.params.HadoopParameter;
+
+/**
+ * A lazily generated grid of parameter space points, i.e., the Cartesian
+ * product of a list of values for each parameter. Unlike
+ * {@link ParameterSpace#getSpacePointGrid(boolean, int)}, the points are not
+ * materialized. Instead, each point is generated on demand from its index in
+ * the grid, which is a mixed-radix number with one digit per parameter. The
+ * first parameter is the least significant digit, so iterating the grid in
+ * index order produces the points in the same order as getSpacePointGrid.
+ * 
+ * Hence, the memory needed for enumerating the grid is independent of the
+ * number of points, and the grid can be split into index ranges that are
+ * enumerated independently (e.g., by multiple threads).
+ * 
+ * @author hero
+ */
+public class ParameterSpaceGrid implements Iterable<ParameterSpacePoint> {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private HadoopParameter[] params; // The parameters of the grid
+	private String[][] values; // The values of each parameter
+	private long size; // The number of points in the grid
+
+	/**
+	 * Constructor
+	 * 
+	 * @param params
+	 *            the parameters of the grid
+	 * @param values
+	 *            the (non-empty) list of values for each parameter
+	 */
+	public ParameterSpaceGrid(List<HadoopParameter> params,
+			List<List<String>> values) {
+		if (params.size() != values.size())
+			throw new RuntimeException("ERROR: Expected " + params.size()
+					+ " lists of values, not " + values.size());
+
+		this.params = params.toArray(new HadoopParameter[params.size()]);
+		this.values = new String[params.size()][];
+		this.size = 1l;
+
+		for (int i = 0; i < this.params.length; ++i) {
+			List<String> paramValues = values.get(i);
+			if (paramValues.isEmpty())
+				throw new RuntimeException("ERROR: No values for the "
+						+ "parameter " + this.params[i]);
+			if (size > Long.MAX_VALUE / paramValues.size())
+				throw new RuntimeException("ERROR: The grid is too large to "
+						+ "be indexed");
+
+			this.values[i] = paramValues.toArray(new String[paramValues
+					.size()]);
+			size *= paramValues.size();
+		}
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @return the number of parameters of the grid
+	 */
+	public int getNumParameters() {
+		return params.length;
+	}
+
+	/**
+	 * @return the number of points in the grid
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Generate the point with the given index in the grid
+	 * 
+	 * @param index
+	 *            the index of the point, in [0, size)
+	 * @return the parameter space point
+	 */
+	public ParameterSpacePoint getSpacePoint(long index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index
+					+ ", Size: " + size);
+
+		ParameterSpacePoint point = new ParameterSpacePoint();
+		for (int i = 0; i < params.length; ++i) {
+			int radix = values[i].length;
+			point.addParamValue(params[i], values[i][(int) (index % radix)]);
+			index /= radix;
+		}
+
+		return point;
+	}
+
+	/**
+	 * @return an iterator over all the points of the grid in index order
+	 */
+	@Override
+	public Iterator<ParameterSpacePoint> iterator() {
+		return iterator(0l, size);
+	}
+
+	/**
+	 * Get an iterator over the points of the grid with an index in the range
+	 * [start, end), in index order. The iterator generates each point from a
+	 * mixed-radix counter, without decoding its index.
+	 * 
+	 * @param start
+	 *            the index of the first point (inclusive)
+	 * @param end
+	 *            the index of the last point (exclusive)
+	 * @return the iterator
+	 */
+	public Iterator<ParameterSpacePoint> iterator(final long start,
+			final long end) {
+		if (start < 0 || end > size || start > end)
+			throw new IndexOutOfBoundsException("Range: [" + start + ", "
+					+ end + "), Size: " + size);
+
+		return new Iterator<ParameterSpacePoint>() {
+			private long next = start; // The index of the next point
+			private int[] digits = getDigits(start); // The next point digits
+
+			@Override
+			public boolean hasNext() {
+				return next < end;
+			}
+
+			@Override
+			public ParameterSpacePoint next() {
+				if (next >= end)
+					throw new NoSuchElementException();
+
+				ParameterSpacePoint point = new ParameterSpacePoint();
+				for (int i = 0; i < params.length; ++i)
+					point.addParamValue(params[i], values[i][digits[i]]);
+
+				// Increment the counter
+				++next;
+				for (int i = 0; i < digits.length; ++i) {
+					if (++digits[i] < values[i].length)
+						break;
+					digits[i] = 0;
+				}
+
+				return point;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Get an iterator over all the points of the grid in a pseudo-random
+	 * order, using constant memory. The iterator starts from a random index
+	 * and advances by a random stride that is co-prime with the grid size, so
+	 * that every point is visited exactly once. Hence, any prefix of the
+	 * iteration is spread over the entire grid.
+	 * 
+	 * @param random
+	 *            the random number generator
+	 * @return the iterator
+	 */
+	public Iterator<ParameterSpacePoint> permutedIterator(Random random) {
+		return permutedIterator(random, 0l);
+	}
+
+	/**
+	 * Get an iterator over the points of the grid in the pseudo-random order
+	 * of {@link #permutedIterator(Random)}, skipping the given number of
+	 * points. A generator with the same seed produces the same order, so an
+	 * interrupted iteration can be resumed without generating the skipped
+	 * points.
+	 * 
+	 * @param random
+	 *            the random number generator
+	 * @param start
+	 *            the number of points to skip, in [0, size]
+	 * @return the iterator
+	 */
+	public Iterator<ParameterSpacePoint> permutedIterator(Random random,
+			final long start) {
+		if (start < 0 || start > size)
+			throw new IndexOutOfBoundsException("Start: " + start
+					+ ", Size: " + size);
+
+		final long offset = nextLong(random, size);
+		long s = 1l;
+		if (size > 2) {
+			do {
+				s = 1l + nextLong(random, size - 1);
+			} while (gcd(s, size) != 1l);
+		}
+		final long stride = s;
+
+		// The index of the first point is (offset + start * stride) mod size
+		final long first = BigInteger.valueOf(start).multiply(
+				BigInteger.valueOf(stride)).add(BigInteger.valueOf(offset))
+				.mod(BigInteger.valueOf(size)).longValue();
+
+		return new Iterator<ParameterSpacePoint>() {
+			private long count = start; // The number of points returned
+			private long next = first; // The index of the next point
+
+			@Override
+			public boolean hasNext() {
+				return count < size;
+			}
+
+			@Override
+			public ParameterSpacePoint next() {
+				if (count >= size)
+					throw new NoSuchElementException();
+
+				ParameterSpacePoint point = getSpacePoint(next);
+				++count;
+				next = (next >= size - stride) ? next - (size - stride)
+						: next + stride;
+				return point;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ParameterSpaceGrid [");
+		for (int i = 0; i < params.length; ++i) {
+			if (i > 0)
+				sb.append(", ");
+			sb.append(params[i]).append("=").append(Arrays.toString(values[i]));
+		}
+		sb.append("]");
+		return sb.toString();
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Decode the index of a point into its mixed-radix digits
+	 * 
+	 * @param index
+	 *            the index of the point
+	 * @return the value index of each parameter
+	 */
+	private int[] getDigits(long index) {
+		int[] digits = new int[params.length];
+		for (int i = 0; i < params.length; ++i) {
+			digits[i] = (int) (index % values[i].length);
+			index /= values[i].length;
+		}
+		return digits;
+	}
+
+	/**
+	 * @param random
+	 *            the random number generator
+	 * @param bound
+	 *            the (positive) upper bound
+	 * @return a uniformly distributed random number in [0, bound)
+	 */
+	private static long nextLong(Random random, long bound) {
+		if (bound <= Integer.MAX_VALUE)
+			return random.nextInt((int) bound);
+
+		long bits, value;
+		do {
+			bits = random.nextLong() >>> 1;
+			value = bits % bound;
+		} while (bits - value + (bound - 1) < 0);
+		return value;
+	}
+
+	/**
+	 * @return the greatest common divisor of two positive numbers
+	 */
+	private static long gcd(long a, long b) {
+		while (b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+}
@@ -1,33 +1,53 @@
 package edu.duke.starfish.jobopt.space;
 
-import java.util.EnumMap;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Set;
-import java.util.Map.Entry;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
 
 import edu.duke.starfish.jobopt.params.HadoopParameter;
+import edu.duke.starfish.whatif.JobSettings;
 
 /**
  * This class represents a point in the Hadoop configuration parameter space.
  * 
+ * The values are stored in a primitive array indexed by the ordinal of the
+ * {@link HadoopParameter}, along with a bit mask of the parameters that are
+ * set. Integer values are stored as integral doubles, while boolean values are
+ * stored as 0 or 1. String values are parsed once, when they are added, and
+ * are rendered back only when requested (e.g., when populating a
+ * configuration).
+ * 
+ * A point is serialized compactly as its bit mask followed by the values of
+ * the parameters that are set (see {@link #write(DataOutput)}). Since the bits
+ * follow the parameter ordinals, serialized points can only be read back by
+ * the same version of {@link HadoopParameter}.
+ * 
  * @author hero
  */
-public class ParameterSpacePoint {
+public class ParameterSpacePoint implements Writable {
 
 	/* ***************************************************************
 	 * DATA MEMBERS
 	 * ***************************************************************
 	 */
 
-	private EnumMap<HadoopParameter, String> values;
+	private double[] values; // The values indexed by the parameter ordinal
+	private long mask; // The bits of the parameters that are set
+
+	private static final HadoopParameter[] PARAMS = HadoopParameter.values();
 
 	/**
 	 * Default Constructor
 	 */
 	public ParameterSpacePoint() {
-		this.values = new EnumMap<HadoopParameter, String>(
-				HadoopParameter.class);
+		this.values = new double[PARAMS.length];
+		this.mask = 0l;
 	}
 
 	/**
@@ -39,9 +59,8 @@ public class ParameterSpacePoint {
 	 *            the value
 	 */
 	public ParameterSpacePoint(HadoopParameter param, String value) {
-		this.values = new EnumMap<HadoopParameter, String>(
-				HadoopParameter.class);
-		this.values.put(param, value);
+		this();
+		addParamValue(param, value);
 	}
 
 	/**
@@ -51,7 +70,8 @@ public class ParameterSpacePoint {
 	 *            the point to duplicate
 	 */
 	public ParameterSpacePoint(ParameterSpacePoint point) {
-		this.values = new EnumMap<HadoopParameter, String>(point.values);
+		this.values = point.values.clone();
+		this.mask = point.mask;
 	}
 
 	/* ***************************************************************
@@ -66,9 +86,36 @@ public class ParameterSpacePoint {
 	 *            the parameter
 	 * @param value
 	 *            the value
+	 * @throws NumberFormatException
+	 *             if the value of a numeric parameter cannot be parsed
 	 */
 	public void addParamValue(HadoopParameter param, String value) {
-		values.put(param, value);
+		addParamValue(param, parseValue(param, value));
+	}
+
+	/**
+	 * Add a numeric parameter value. Integer values are truncated and boolean
+	 * values are true when non-zero.
+	 * 
+	 * @param param
+	 *            the parameter
+	 * @param value
+	 *            the value
+	 */
+	public void addParamValue(HadoopParameter param, double value) {
+		switch (param.getValueType()) {
+		case VALUE_INTEGER:
+			value = (long) value;
+			break;
+		case VALUE_BOOLEAN:
+			value = (value != 0d) ? 1d : 0d;
+			break;
+		default:
+			break;
+		}
+
+		values[param.ordinal()] = value;
+		mask |= 1l << param.ordinal();
 	}
 
 	/**
@@ -78,7 +125,11 @@ public class ParameterSpacePoint {
 	 *            the parameter
 	 */
 	public void addParamValues(ParameterSpacePoint point) {
-		values.putAll(point.values);
+		for (int i = 0; i < PARAMS.length; ++i) {
+			if ((point.mask & (1l << i)) != 0)
+				values[i] = point.values[i];
+		}
+		mask |= point.mask;
 	}
 
 	/**
@@ -87,7 +138,22 @@ public class ParameterSpacePoint {
 	 * @return the hadoop parameters
 	 */
 	public Set<HadoopParameter> getAllParameters() {
-		return values.keySet();
+		EnumSet<HadoopParameter> params = EnumSet.noneOf(HadoopParameter.class);
+		for (HadoopParameter param : PARAMS) {
+			if (containsParameter(param))
+				params.add(param);
+		}
+
+		return params;
+	}
+
+	/**
+	 * @param param
+	 *            the parameter
+	 * @return true if the point contains a value for the parameter
+	 */
+	public boolean containsParameter(HadoopParameter param) {
+		return (mask & (1l << param.ordinal())) != 0;
 	}
 
 	/**
@@ -95,10 +161,26 @@ public class ParameterSpacePoint {
 	 * 
 	 * @param param
 	 *            the parameter
-	 * @return the value
+	 * @return the value (null if the parameter is not set)
 	 */
 	public String getParameterValue(HadoopParameter param) {
-		return values.get(param);
+		if (!containsParameter(param))
+			return null;
+		return formatValue(param, values[param.ordinal()]);
+	}
+
+	/**
+	 * Get the numeric parameter value of the provided parameter. Boolean
+	 * values are returned as 0 or 1.
+	 * 
+	 * @param param
+	 *            the parameter
+	 * @return the value (NaN if the parameter is not set)
+	 */
+	public double getNumericValue(HadoopParameter param) {
+		if (!containsParameter(param))
+			return Double.NaN;
+		return values[param.ordinal()];
 	}
 
 	/**
@@ -109,8 +191,102 @@ public class ParameterSpacePoint {
 	 *            the job configuration
 	 */
 	public void populateConfiguration(Configuration conf) {
-		for (Entry<HadoopParameter, String> entry : values.entrySet()) {
-			conf.set(entry.getKey().toString(), entry.getValue());
+		for (HadoopParameter param : PARAMS) {
+			if (containsParameter(param))
+				conf.set(param.toString(), getParameterValue(param));
+		}
+	}
+
+	/**
+	 * Populate the compiled job settings with the parameter values in this
+	 * parameter space point. The settings will be identical to the ones
+	 * compiled from a configuration populated with this point.
+	 * 
+	 * @param settings
+	 *            the job settings
+	 */
+	public void populateJobSettings(JobSettings settings) {
+		for (HadoopParameter param : PARAMS) {
+			if (!containsParameter(param))
+				continue;
+
+			double value = values[param.ordinal()];
+			switch (param) {
+			case SORT_MB:
+				settings.setSortMB((int) value);
+				break;
+			case SPILL_PERC:
+				settings.setSpillPerc((float) value);
+				break;
+			case SORT_REC_PERC:
+				settings.setSortRecPerc((float) value);
+				break;
+			case SORT_FACTOR:
+				settings.setSortFactor((int) value);
+				break;
+			case NUM_SPILLS_COMBINE:
+				settings.setNumSpillsForCombine((int) value);
+				break;
+
+			case RED_TASKS:
+				settings.setNumReducers((int) value);
+				break;
+			case INMEM_MERGE:
+				settings.setInMemMergeThr((long) value);
+				break;
+			case SHUFFLE_IN_BUFF_PERC:
+				settings.setShuffleInBuffPerc((float) value);
+				break;
+			case SHUFFLE_MERGE_PERC:
+				settings.setShuffleMergePerc((float) value);
+				break;
+			case RED_IN_BUFF_PERC:
+				settings.setRedInBuffPerc((float) value);
+				break;
+			case RED_SLOWSTART_MAPS:
+				settings.setRedSlowstartMaps((float) value);
+				break;
+
+			case COMBINE:
+				settings.setUseCombiner(value != 0d);
+				break;
+			case COMPRESS_MAP_OUT:
+				settings.setCompressMapOutput(value != 0d);
+				break;
+			case COMPRESS_OUT:
+				settings.setCompressOutput(value != 0d);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * @see org.apache.hadoop.io.Writable#write(java.io.DataOutput)
+	 */
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeLong(mask);
+		for (int i = 0; i < PARAMS.length; ++i) {
+			if ((mask & (1l << i)) != 0)
+				out.writeDouble(values[i]);
+		}
+	}
+
+	/**
+	 * @see org.apache.hadoop.io.Writable#readFields(java.io.DataInput)
+	 */
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		long newMask = in.readLong();
+		if ((newMask >>> PARAMS.length) != 0)
+			throw new IOException("Invalid parameter mask: "
+					+ Long.toHexString(newMask));
+
+		Arrays.fill(values, 0d);
+		mask = newMask;
+		for (int i = 0; i < PARAMS.length; ++i) {
+			if ((mask & (1l << i)) != 0)
+				values[i] = in.readDouble();
 		}
 	}
 
@@ -121,7 +297,8 @@ public class ParameterSpacePoint {
 	 */
 	@Override
 	public int hashCode() {
-		return 31 + ((values == null) ? 0 : values.hashCode());
+		int result = 31 + (int) (mask ^ (mask >>> 32));
+		return 31 * result + Arrays.hashCode(values);
 	}
 
 	/*
@@ -138,12 +315,7 @@ public class ParameterSpacePoint {
 		if (!(obj instanceof ParameterSpacePoint))
 			return false;
 		ParameterSpacePoint other = (ParameterSpacePoint) obj;
-		if (values == null) {
-			if (other.values != null)
-				return false;
-		} else if (!values.equals(other.values))
-			return false;
-		return true;
+		return mask == other.mask && Arrays.equals(values, other.values);
 	}
 
 	/*
@@ -153,7 +325,64 @@ public class ParameterSpacePoint {
 	 */
 	@Override
 	public String toString() {
-		return "ParameterSpacePoint [values=" + values + "]";
+		StringBuilder sb = new StringBuilder();
+		sb.append("ParameterSpacePoint [values={");
+		boolean first = true;
+		for (HadoopParameter param : PARAMS) {
+			if (containsParameter(param)) {
+				if (!first)
+					sb.append(", ");
+				sb.append(param).append('=').append(getParameterValue(param));
+				first = false;
+			}
+		}
+		sb.append("}]");
+		return sb.toString();
+	}
+
+	/* ***************************************************************
+	 * PRIVATE STATIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Parse a string value based on the type of the parameter
+	 * 
+	 * @param param
+	 *            the parameter
+	 * @param value
+	 *            the string value
+	 * @return the numeric value
+	 */
+	private static double parseValue(HadoopParameter param, String value) {
+		switch (param.getValueType()) {
+		case VALUE_INTEGER:
+			return Long.parseLong(value.trim());
+		case VALUE_BOOLEAN:
+			return Boolean.parseBoolean(value.trim()) ? 1d : 0d;
+		default:
+			return Double.parseDouble(value);
+		}
+	}
+
+	/**
+	 * Format a numeric value based on the type of the parameter
+	 * 
+	 * @param param
+	 *            the parameter
+	 * @param value
+	 *            the numeric value
+	 * @return the string value
+	 */
+	private static String formatValue(HadoopParameter param, double value) {
+		switch (param.getValueType()) {
+		case VALUE_INTEGER:
+			return Long.toString((long) value);
+		case VALUE_BOOLEAN:
+			return (value != 0d) ? "true" : "false";
+		default:
+			return Double.toString(value);
+		}
 	}
 
 }
@@ -0,0 +1,299 @@
+package edu.duke.starfish.jobopt.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.DataLocality;
+import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRMapProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRStatistics;
+import edu.duke.starfish.profile.profiler.MRJobLogsManager;
+import edu.duke.starfish.profile.utils.ThreadPoolUtils;
+import edu.duke.starfish.whatif.data.FixedInputSpecsDataSetModel;
+import edu.duke.starfish.whatif.data.MapInputSpecs;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+
+/**
+ * Populates a {@link RecommendationStore} offline. Each profiled job is
+ * optimized for a cluster with the same input as the profiled run, and the
+ * best configuration is stored under the job id of the profiled job, the
+ * cluster name, and the input size bucket.
+ * 
+ * The jobs are optimized in parallel using "starfish.job.optimizer.num.threads"
+ * threads. In that case, each job optimizer uses a single thread. The job
+ * optimizer type and its settings are taken from the "starfish.*" settings of
+ * the given configuration, which override the settings of each job.
+ * 
+ * @author hero
+ */
+public class BatchRecommender {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+	private static final Log LOG = LogFactory.getLog(BatchRecommender.class);
+
+	private RecommendationStore store; // The recommendation store
+	private ClusterConfiguration cluster; // The cluster to optimize for
+	private Configuration conf; // The optimizer configuration
+	private List<ProfiledJob> jobs; // The jobs in the order they were added
+
+	// The prefix of the settings that override the job settings
+	private static final String STARFISH_PREFIX = "starfish.";
+
+	/**
+	 * Constructor
+	 * 
+	 * @param store
+	 *            the recommendation store to populate
+	 * @param cluster
+	 *            the cluster to optimize the jobs for
+	 * @param conf
+	 *            the optimizer configuration (e.g., the optimizer type)
+	 */
+	public BatchRecommender(RecommendationStore store,
+			ClusterConfiguration cluster, Configuration conf) {
+		this.store = store;
+		this.cluster = cluster;
+		this.conf = conf;
+		this.jobs = new ArrayList<ProfiledJob>();
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Add a profiled job to optimize
+	 * 
+	 * @param profileId
+	 *            the job id of the profiled job
+	 * @param profile
+	 *            the job profile
+	 * @param jobConf
+	 *            the job configuration
+	 */
+	public void addJob(String profileId, MRJobProfile profile,
+			Configuration jobConf) {
+		jobs.add(new ProfiledJob(profileId, profile, jobConf));
+	}
+
+	/**
+	 * Add all the profiled jobs found by a job logs manager. The profiles are
+	 * loaded here, since the manager cannot be used concurrently.
+	 * 
+	 * @param manager
+	 *            the job logs manager
+	 * @return the number of jobs added
+	 */
+	public int addJobs(MRJobLogsManager manager) {
+		int count = 0;
+		for (MRJobInfo job : manager.getAllMRJobInfos()) {
+			String jobId = job.getExecId();
+			MRJobProfile profile = manager.getMRJobProfile(jobId);
+			Configuration jobConf = manager.getHadoopConfiguration(jobId);
+			if (profile == null || jobConf == null) {
+				LOG.info("Skipping job without a profile: " + jobId);
+				continue;
+			}
+
+			addJob(jobId, profile, jobConf);
+			++count;
+		}
+
+		return count;
+	}
+
+	/**
+	 * @return the number of jobs to optimize
+	 */
+	public int getNumJobs() {
+		return jobs.size();
+	}
+
+	/**
+	 * Optimize all the jobs and store their recommendations. A job that fails
+	 * to optimize is logged and skipped.
+	 * 
+	 * @return the stored recommendations, in the order the jobs were added
+	 */
+	public List<Recommendation> recommend() {
+
+		int numThreads = Math.min(jobs.size(), Math.max(1, conf.getInt(
+				JobOptimizer.JOB_OPT_NUM_THREADS, 1)));
+		List<Recommendation> recs = new ArrayList<Recommendation>(jobs
+				.size());
+
+		if (numThreads <= 1) {
+			for (ProfiledJob job : jobs) {
+				try {
+					recs.add(recommend(job, false));
+				} catch (RuntimeException e) {
+					LOG.error("Job optimization failed for " + job.profileId,
+							e);
+				}
+			}
+			return recs;
+		}
+
+		ExecutorService executor = ThreadPoolUtils.newThreadPool(
+				"recommend-worker", numThreads);
+
+		try {
+			List<Callable<Recommendation>> tasks =
+				new ArrayList<Callable<Recommendation>>(jobs.size());
+			for (final ProfiledJob job : jobs) {
+				tasks.add(new Callable<Recommendation>() {
+					@Override
+					public Recommendation call() {
+						try {
+							return recommend(job, true);
+						} catch (RuntimeException e) {
+							LOG.error("Job optimization failed for "
+									+ job.profileId, e);
+							return null;
+						}
+					}
+				});
+			}
+
+			for (Recommendation rec : ThreadPoolUtils.invokeAll(executor,
+					tasks)) {
+				if (rec != null)
+					recs.add(rec);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return recs;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC STATIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Create the map input specifications of the profiled run of a job, based
+	 * on the number of map tasks and the average bytes read per map task of
+	 * each input.
+	 * 
+	 * @param profile
+	 *            the job profile
+	 * @return the map input specifications
+	 */
+	public static List<MapInputSpecs> getProfiledInputSpecs(
+			MRJobProfile profile) {
+		List<MRMapProfile> mapProfs = profile.getAvgMapProfiles();
+		List<MapInputSpecs> specs = new ArrayList<MapInputSpecs>(mapProfs
+				.size());
+		for (MRMapProfile mapProf : mapProfs) {
+			long size = mapProf.getCounterLong(MRCounter.HDFS_BYTES_READ,
+					mapProf.getCounterLong(MRCounter.S3N_BYTES_READ, 0l));
+			boolean isCompressed = mapProf.getStatisticDouble(
+					MRStatistics.INPUT_COMPRESS_RATIO, 1d) != 1d;
+			specs.add(new MapInputSpecs(mapProf.getInputIndex(), mapProf
+					.getNumTasks(), size, isCompressed,
+					DataLocality.DATA_LOCAL));
+		}
+
+		return specs;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Optimize a job and store its recommendation. Only thread-local what-if
+	 * components are used, so jobs can be optimized concurrently.
+	 * 
+	 * @param job
+	 *            the profiled job
+	 * @param singleThreaded
+	 *            whether the job optimizer must use a single thread
+	 * @return the recommendation
+	 */
+	private Recommendation recommend(ProfiledJob job, boolean singleThreaded) {
+
+		// The optimizer settings override the job settings
+		Configuration jobConf = new Configuration(job.conf);
+		for (Entry<String, String> entry : conf) {
+			if (entry.getKey().startsWith(STARFISH_PREFIX))
+				jobConf.set(entry.getKey(), entry.getValue());
+		}
+		if (singleThreaded)
+			jobConf.setInt(JobOptimizer.JOB_OPT_NUM_THREADS, 1);
+
+		// Optimize the job for the profiled input
+		List<MapInputSpecs> specs = getProfiledInputSpecs(job.profile);
+		String type = JobOptimizer.getJobOptimizerType(jobConf);
+		JobOptimizer optimizer = JobOptimizer.getJobOptimizer(type,
+				new JobProfileOracle(job.profile),
+				new FixedInputSpecsDataSetModel(specs), cluster, jobConf,
+				new BasicFIFOScheduler(cluster));
+		if (optimizer == null)
+			throw new RuntimeException("ERROR: Unsupported job optimizer "
+					+ "type: " + type);
+		optimizer.optimize();
+
+		Recommendation rec = new Recommendation(job.profileId, cluster,
+				RecommendationStore.getInputSize(specs), type,
+				JobOptimizer.OPTIMIZER_VERSION, Recommendation
+						.getExcludedParameters(jobConf), optimizer
+						.getBestRunningTime(), optimizer
+						.getBestConfiguration(false));
+		store.put(rec);
+		LOG.info("Stored " + rec);
+		return rec;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE CLASSES
+	 * ***************************************************************
+	 */
+
+	/**
+	 * A profiled job to optimize
+	 */
+	private static class ProfiledJob {
+
+		private String profileId; // The job id of the profiled job
+		private MRJobProfile profile; // The job profile
+		private Configuration conf; // The job configuration
+
+		/**
+		 * Constructor
+		 * 
+		 * @param profileId
+		 *            the job id of the profiled job
+		 * @param profile
+		 *            the job profile
+		 * @param conf
+		 *            the job configuration
+		 */
+		public ProfiledJob(String profileId, MRJobProfile profile,
+				Configuration conf) {
+			this.profileId = profileId;
+			this.profile = profile;
+			this.conf = conf;
+		}
+	}
+
+}
@@ -0,0 +1,261 @@
+package edu.duke.starfish.jobopt.store;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+
+/**
+ * The recommended configuration settings for running a profiled job on a
+ * cluster with an input of a certain size, as kept in the
+ * {@link RecommendationStore}. Along with the settings, a recommendation
+ * records the predicted running time of the job, the optimizer that produced
+ * it along with the parameters excluded from its search, and the cluster
+ * capacity it was produced for, so that stale recommendations can be
+ * detected.
+ * 
+ * The input size is captured as a bucket, i.e., the floor of its base-2
+ * logarithm. Hence, a recommendation is reused for any input within the same
+ * power of two.
+ * 
+ * @author hero
+ */
+public class Recommendation {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private String profileId; // The job id of the profiled job
+	private String clusterName; // The name of the cluster
+	private long inputSize; // The total input size in bytes
+	private String optimizerType; // The job optimizer type
+	private int optimizerVersion; // The job optimizer version
+	private String excludedParams; // The parameters excluded from the search
+	private double predictedTime; // The predicted running time (in ms)
+	private long creationTime; // The creation time (in ms)
+	private int numMapSlots; // The total map slots of the cluster
+	private int numReduceSlots; // The total reduce slots of the cluster
+	private Configuration conf; // The recommended settings
+
+	/**
+	 * Constructor
+	 * 
+	 * @param profileId
+	 *            the job id of the profiled job
+	 * @param cluster
+	 *            the cluster the recommendation is for
+	 * @param inputSize
+	 *            the total input size in bytes
+	 * @param optimizerType
+	 *            the job optimizer type
+	 * @param optimizerVersion
+	 *            the job optimizer version
+	 * @param excludedParams
+	 *            the parameters excluded from the search (see
+	 *            {@link #getExcludedParameters(Configuration)})
+	 * @param predictedTime
+	 *            the predicted running time (in ms)
+	 * @param conf
+	 *            the recommended settings
+	 */
+	public Recommendation(String profileId, ClusterConfiguration cluster,
+			long inputSize, String optimizerType, int optimizerVersion,
+			String excludedParams, double predictedTime, Configuration conf) {
+		this(profileId, cluster.getClusterName(), inputSize, optimizerType,
+				optimizerVersion, excludedParams, predictedTime, System
+						.currentTimeMillis(), cluster.getTotalMapSlots(),
+				cluster.getTotalReduceSlots(), conf);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param profileId
+	 *            the job id of the profiled job
+	 * @param clusterName
+	 *            the name of the cluster
+	 * @param inputSize
+	 *            the total input size in bytes
+	 * @param optimizerType
+	 *            the job optimizer type
+	 * @param optimizerVersion
+	 *            the job optimizer version
+	 * @param excludedParams
+	 *            the parameters excluded from the search (see
+	 *            {@link #getExcludedParameters(Configuration)})
+	 * @param predictedTime
+	 *            the predicted running time (in ms)
+	 * @param creationTime
+	 *            the creation time (in ms)
+	 * @param numMapSlots
+	 *            the total map slots of the cluster
+	 * @param numReduceSlots
+	 *            the total reduce slots of the cluster
+	 * @param conf
+	 *            the recommended settings
+	 */
+	public Recommendation(String profileId, String clusterName,
+			long inputSize, String optimizerType, int optimizerVersion,
+			String excludedParams, double predictedTime, long creationTime,
+			int numMapSlots, int numReduceSlots, Configuration conf) {
+		this.profileId = profileId;
+		this.clusterName = clusterName;
+		this.inputSize = inputSize;
+		this.optimizerType = optimizerType;
+		this.optimizerVersion = optimizerVersion;
+		this.excludedParams = excludedParams;
+		this.predictedTime = predictedTime;
+		this.creationTime = creationTime;
+		this.numMapSlots = numMapSlots;
+		this.numReduceSlots = numReduceSlots;
+		this.conf = conf;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @return the job id of the profiled job
+	 */
+	public String getProfileId() {
+		return profileId;
+	}
+
+	/**
+	 * @return the name of the cluster
+	 */
+	public String getClusterName() {
+		return clusterName;
+	}
+
+	/**
+	 * @return the total input size in bytes
+	 */
+	public long getInputSize() {
+		return inputSize;
+	}
+
+	/**
+	 * @return the input size bucket
+	 */
+	public int getInputBucket() {
+		return getInputBucket(inputSize);
+	}
+
+	/**
+	 * @return the job optimizer type
+	 */
+	public String getOptimizerType() {
+		return optimizerType;
+	}
+
+	/**
+	 * @return the job optimizer version
+	 */
+	public int getOptimizerVersion() {
+		return optimizerVersion;
+	}
+
+	/**
+	 * @return the parameters excluded from the search
+	 */
+	public String getExcludedParameters() {
+		return excludedParams;
+	}
+
+	/**
+	 * @return the predicted running time (in ms)
+	 */
+	public double getPredictedTime() {
+		return predictedTime;
+	}
+
+	/**
+	 * @return the creation time (in ms)
+	 */
+	public long getCreationTime() {
+		return creationTime;
+	}
+
+	/**
+	 * @return the total map slots of the cluster
+	 */
+	public int getNumMapSlots() {
+		return numMapSlots;
+	}
+
+	/**
+	 * @return the total reduce slots of the cluster
+	 */
+	public int getNumReduceSlots() {
+		return numReduceSlots;
+	}
+
+	/**
+	 * @return the recommended settings
+	 */
+	public Configuration getConfiguration() {
+		return conf;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "Recommendation [profile=" + profileId + ", cluster="
+				+ clusterName + ", bucket=" + getInputBucket()
+				+ ", optimizer=" + optimizerType + "-v" + optimizerVersion
+				+ ", time=" + predictedTime + "]";
+	}
+
+	/* ***************************************************************
+	 * PUBLIC STATIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @param inputSize
+	 *            the total input size in bytes
+	 * @return the input size bucket, i.e., floor(log2(inputSize))
+	 */
+	public static int getInputBucket(long inputSize) {
+		return 63 - Long.numberOfLeadingZeros(Math.max(inputSize, 1l));
+	}
+
+	/**
+	 * Get the parameters excluded from the search in a canonical form, i.e.,
+	 * the sorted names in "starfish.job.optimizer.exclude.parameters"
+	 * separated by commas, so that the same exclusions always compare equal
+	 * 
+	 * @param conf
+	 *            the configuration
+	 * @return the excluded parameters (empty if none)
+	 */
+	public static String getExcludedParameters(Configuration conf) {
+		Set<String> params = new TreeSet<String>();
+		String[] exclude = conf.getStrings(JobOptimizer.JOB_OPT_EXCLUDE_PARAMS);
+		if (exclude != null) {
+			for (String param : exclude) {
+				if (param.trim().length() > 0)
+					params.add(param.trim());
+			}
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (String param : params) {
+			if (sb.length() > 0)
+				sb.append(',');
+			sb.append(param);
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,363 @@
+package edu.duke.starfish.jobopt.store;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+
+import edu.duke.starfish.jobopt.optimizer.JobOptimizer;
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.whatif.data.MapInputSpecs;
+
+/**
+ * A persistent store of job optimization recommendations, so that the
+ * optimization of a job at submission time can be a lookup instead of a
+ * search. The recommendations are keyed by the job id of the profiled job,
+ * the cluster name, and the input size bucket (see {@link Recommendation}).
+ * The store is populated offline by the {@link BatchRecommender} and, on a
+ * miss, by the job optimizer at submission time.
+ * 
+ * Each recommendation is kept in its own file in the store directory, as a
+ * Hadoop configuration XML file containing the recommended settings along
+ * with the recommendation metadata (under "starfish.recommendation."). Files
+ * are written to a temporary file first and then renamed, so concurrent
+ * readers never see a partial recommendation.
+ * 
+ * A recommendation is stale, and hence ignored, when it was produced by a
+ * different optimizer type or version, when it was produced with different
+ * parameters excluded from the search, when the total map or reduce slots of
+ * the cluster have changed, or when it is older than
+ * "starfish.job.optimizer.store.max.age.ms" (0 for no limit).
+ * 
+ * @author hero
+ */
+public class RecommendationStore {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+	private static final Log LOG = LogFactory
+			.getLog(RecommendationStore.class);
+
+	private File storeDir; // The store directory
+	private long maxAge; // The max age of a recommendation (0 for no limit)
+
+	/* ***************************************************************
+	 * STATIC DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	public static final String STORE_DIR = "starfish.job.optimizer.store.dir";
+	public static final String STORE_MAX_AGE = "starfish.job.optimizer.store.max.age.ms";
+
+	// The keys of the recommendation metadata
+	private static final String PREFIX = "starfish.recommendation.";
+	private static final String PROFILE_ID = PREFIX + "profile.id";
+	private static final String CLUSTER_NAME = PREFIX + "cluster.name";
+	private static final String INPUT_SIZE = PREFIX + "input.size";
+	private static final String OPT_TYPE = PREFIX + "optimizer.type";
+	private static final String OPT_VERSION = PREFIX + "optimizer.version";
+	private static final String EXCLUDE_PARAMS = PREFIX + "exclude.parameters";
+	private static final String PREDICTED_TIME = PREFIX + "predicted.time.ms";
+	private static final String CREATION_TIME = PREFIX + "creation.time.ms";
+	private static final String MAP_SLOTS = PREFIX + "map.slots";
+	private static final String RED_SLOTS = PREFIX + "reduce.slots";
+
+	private static final String DOT_XML = ".xml";
+	private static final String DOT_TMP = ".tmp";
+
+	/**
+	 * Constructor
+	 * 
+	 * @param storeDir
+	 *            the store directory (created if it does not exist)
+	 * @param maxAge
+	 *            the max age of a recommendation in ms (0 for no limit)
+	 */
+	public RecommendationStore(File storeDir, long maxAge) {
+		if (!storeDir.isDirectory() && !storeDir.mkdirs())
+			throw new RuntimeException("ERROR: Unable to create the "
+					+ "recommendation store " + storeDir.getAbsolutePath());
+
+		this.storeDir = storeDir;
+		this.maxAge = maxAge;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @return the store directory
+	 */
+	public File getStoreDir() {
+		return storeDir;
+	}
+
+	/**
+	 * Get the recommendation for a profiled job, cluster, and input size,
+	 * even if it is stale
+	 * 
+	 * @param profileId
+	 *            the job id of the profiled job
+	 * @param clusterName
+	 *            the name of the cluster
+	 * @param inputSize
+	 *            the total input size in bytes
+	 * @return the recommendation, or null if there is none
+	 */
+	public Recommendation get(String profileId, String clusterName,
+			long inputSize) {
+		File file = getFile(profileId, clusterName, inputSize);
+		if (!file.isFile())
+			return null;
+
+		Recommendation rec = null;
+		try {
+			rec = readRecommendation(file);
+		} catch (RuntimeException e) {
+			LOG.warn("Unable to read the recommendation " + file, e);
+			return null;
+		}
+
+		// Different keys may escape to the same file name
+		return (rec.getProfileId().equals(profileId) && clusterName
+				.equals(rec.getClusterName())) ? rec : null;
+	}
+
+	/**
+	 * Look up the recommendation to use for a profiled job, cluster, and input
+	 * size, ignoring stale recommendations
+	 * 
+	 * @param profileId
+	 *            the job id of the profiled job
+	 * @param cluster
+	 *            the cluster to run the job on
+	 * @param inputSize
+	 *            the total input size in bytes
+	 * @param optimizerType
+	 *            the job optimizer type
+	 * @param excludedParams
+	 *            the parameters excluded from the search (see
+	 *            {@link Recommendation#getExcludedParameters(Configuration)})
+	 * @return the recommendation, or null on a miss or a stale recommendation
+	 */
+	public Recommendation lookup(String profileId,
+			ClusterConfiguration cluster, long inputSize,
+			String optimizerType, String excludedParams) {
+		Recommendation rec = get(profileId, cluster.getClusterName(),
+				inputSize);
+		if (rec == null) {
+			LOG.info("No stored recommendation for " + profileId);
+			return null;
+		}
+
+		String reason = getStaleReason(rec, cluster, optimizerType,
+				excludedParams);
+		if (reason != null) {
+			LOG.info("Ignoring stale " + rec + ": " + reason);
+			return null;
+		}
+
+		return rec;
+	}
+
+	/**
+	 * @param rec
+	 *            the recommendation
+	 * @param cluster
+	 *            the cluster to run the job on
+	 * @param optimizerType
+	 *            the job optimizer type
+	 * @param excludedParams
+	 *            the parameters excluded from the search
+	 * @return true if the recommendation is stale
+	 */
+	public boolean isStale(Recommendation rec, ClusterConfiguration cluster,
+			String optimizerType, String excludedParams) {
+		return getStaleReason(rec, cluster, optimizerType,
+				excludedParams) != null;
+	}
+
+	/**
+	 * Store a recommendation, replacing any recommendation with the same key
+	 * 
+	 * @param rec
+	 *            the recommendation
+	 */
+	public void put(Recommendation rec) {
+		Configuration conf = new Configuration(false);
+		for (Entry<String, String> entry : rec.getConfiguration())
+			conf.set(entry.getKey(), entry.getValue());
+
+		conf.set(PROFILE_ID, rec.getProfileId());
+		conf.set(CLUSTER_NAME, rec.getClusterName());
+		conf.setLong(INPUT_SIZE, rec.getInputSize());
+		conf.set(OPT_TYPE, rec.getOptimizerType());
+		conf.setInt(OPT_VERSION, rec.getOptimizerVersion());
+		conf.set(EXCLUDE_PARAMS, rec.getExcludedParameters());
+		conf.set(PREDICTED_TIME, Double.toString(rec.getPredictedTime()));
+		conf.setLong(CREATION_TIME, rec.getCreationTime());
+		conf.setInt(MAP_SLOTS, rec.getNumMapSlots());
+		conf.setInt(RED_SLOTS, rec.getNumReduceSlots());
+
+		File file = getFile(rec.getProfileId(), rec.getClusterName(), rec
+				.getInputSize());
+		File tmpFile = new File(storeDir, file.getName() + "."
+				+ Thread.currentThread().getId() + DOT_TMP);
+		try {
+			OutputStream out = new FileOutputStream(tmpFile);
+			try {
+				conf.writeXml(out);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			tmpFile.delete();
+			throw new RuntimeException("ERROR: Unable to write the "
+					+ "recommendation " + file, e);
+		}
+
+		if (!tmpFile.renameTo(file)) {
+			// Some platforms cannot rename over an existing file
+			file.delete();
+			if (!tmpFile.renameTo(file)) {
+				tmpFile.delete();
+				throw new RuntimeException("ERROR: Unable to write the "
+						+ "recommendation " + file);
+			}
+		}
+	}
+
+	/* ***************************************************************
+	 * PUBLIC STATIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Get the recommendation store set in "starfish.job.optimizer.store.dir"
+	 * 
+	 * @param conf
+	 *            the configuration
+	 * @return the store, or null if no store is set
+	 */
+	public static RecommendationStore getStore(Configuration conf) {
+		String dir = conf.get(STORE_DIR);
+		if (dir == null || dir.trim().length() == 0)
+			return null;
+
+		return new RecommendationStore(new File(dir.trim()), conf.getLong(
+				STORE_MAX_AGE, 0l));
+	}
+
+	/**
+	 * @param specs
+	 *            the map input specifications of a job
+	 * @return the total input size of the job in bytes
+	 */
+	public static long getInputSize(List<MapInputSpecs> specs) {
+		long size = 0l;
+		for (MapInputSpecs spec : specs)
+			size += spec.getSize() * spec.getNumSplits();
+		return size;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @param rec
+	 *            the recommendation
+	 * @param cluster
+	 *            the cluster to run the job on
+	 * @param optimizerType
+	 *            the job optimizer type
+	 * @param excludedParams
+	 *            the parameters excluded from the search
+	 * @return the reason the recommendation is stale, or null if it is not
+	 */
+	private String getStaleReason(Recommendation rec,
+			ClusterConfiguration cluster, String optimizerType,
+			String excludedParams) {
+		if (rec.getOptimizerVersion() != JobOptimizer.OPTIMIZER_VERSION)
+			return "optimizer version " + rec.getOptimizerVersion();
+		if (!rec.getOptimizerType().equals(optimizerType))
+			return "optimizer type " + rec.getOptimizerType();
+		if (!rec.getExcludedParameters().equals(excludedParams))
+			return "excluded parameters " + rec.getExcludedParameters();
+		if (rec.getNumMapSlots() != cluster.getTotalMapSlots()
+				|| rec.getNumReduceSlots() != cluster.getTotalReduceSlots())
+			return "cluster slots " + rec.getNumMapSlots() + "/"
+					+ rec.getNumReduceSlots();
+		if (maxAge > 0
+				&& System.currentTimeMillis() - rec.getCreationTime() > maxAge)
+			return "created at " + rec.getCreationTime();
+		return null;
+	}
+
+	/**
+	 * @param profileId
+	 *            the job id of the profiled job
+	 * @param clusterName
+	 *            the name of the cluster
+	 * @param inputSize
+	 *            the total input size in bytes
+	 * @return the file of the recommendation
+	 */
+	private File getFile(String profileId, String clusterName, long inputSize) {
+		return new File(storeDir, escape(profileId) + "@"
+				+ escape(clusterName) + "@"
+				+ Recommendation.getInputBucket(inputSize) + DOT_XML);
+	}
+
+	/**
+	 * Read a recommendation from a file
+	 * 
+	 * @param file
+	 *            the recommendation file
+	 * @return the recommendation
+	 */
+	private Recommendation readRecommendation(File file) {
+		Configuration stored = new Configuration(false);
+		stored.addResource(new Path(file.getAbsolutePath()));
+
+		Configuration conf = new Configuration(false);
+		for (Entry<String, String> entry : stored) {
+			if (!entry.getKey().startsWith(PREFIX))
+				conf.set(entry.getKey(), entry.getValue());
+		}
+
+		String profileId = stored.get(PROFILE_ID);
+		String optType = stored.get(OPT_TYPE);
+		if (profileId == null || optType == null)
+			throw new RuntimeException("ERROR: Invalid recommendation " + file);
+
+		return new Recommendation(profileId, stored.get(CLUSTER_NAME),
+				stored.getLong(INPUT_SIZE, 0l), optType, stored.getInt(
+						OPT_VERSION, 0), stored.get(EXCLUDE_PARAMS, ""),
+				Double.parseDouble(stored.get(PREDICTED_TIME, "0")), stored
+						.getLong(CREATION_TIME, 0l), stored.getInt(MAP_SLOTS,
+						0), stored.getInt(RED_SLOTS, 0), conf);
+	}
+
+	/**
+	 * @param name
+	 *            a name
+	 * @return the name with any character unsafe for a file name replaced
+	 */
+	private static String escape(String name) {
+		return (name == null) ? "" : name.replaceAll("[^A-Za-z0-9._-]", "_");
+	}
+
+}
@@ -1,6 +1,15 @@
 package edu.duke.starfish.profile.junit;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
 import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.MRExecutionStatus;
+import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
+import edu.duke.starfish.profile.profileinfo.execution.mrtaskattempts.MRMapAttemptInfo;
+import edu.duke.starfish.profile.profileinfo.execution.mrtasks.MRMapInfo;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRMapProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRReduceProfile;
@@ -168,4 +177,125 @@ public class JUnitUtils {
 		return prof;
 	}
 
+	/**
+	 * Write the history files (configuration and statistics) of a synthetic
+	 * job with a single map task, in the format of Hadoop 0.20.203.0
+	 * 
+	 * @param historyDir
+	 *            the history directory
+	 * @param id
+	 *            the job number
+	 * @param launchTime
+	 *            the launch time of the job (in ms)
+	 * @return the job id
+	 * @throws IOException
+	 */
+	public static String writeJobHistory(File historyDir, int id,
+			long launchTime) throws IOException {
+
+		String jobId = String.format("job_201011062135_%04d", id);
+		long finishTime = launchTime + 1000l * (1 + id % 100);
+
+		PrintWriter conf = new PrintWriter(new FileWriter(new File(
+				historyDir, jobId + "_conf.xml")));
+		conf.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		conf.println("<configuration>");
+		conf.println("<property><name>mapred.job.name</name><value>job-" + id
+				+ "</value></property>");
+		conf.println("</configuration>");
+		conf.close();
+
+		PrintWriter stat = new PrintWriter(new FileWriter(new File(
+				historyDir, jobId + "_1289100000000_hero_job-" + id)));
+		stat.println("Meta VERSION=\"1\" .");
+		stat.println("Job JOBID=\"" + jobId + "\" JOBNAME=\"job-" + id
+				+ "\" USER=\"hero\" SUBMIT_TIME=\"" + launchTime + "\" .");
+		stat.println("Job JOBID=\"" + jobId + "\" LAUNCH_TIME=\"" + launchTime
+				+ "\" TOTAL_MAPS=\"1\" TOTAL_REDUCES=\"0\" "
+				+ "JOB_STATUS=\"PREP\" .");
+		stat.println("Task TASKID=\"task" + jobId.substring(3)
+				+ "_m_000000\" TASK_TYPE=\"MAP\" START_TIME=\"" + launchTime
+				+ "\" SPLITS=\"/rack/host-0\" .");
+		stat.println("Job JOBID=\"" + jobId + "\" FINISH_TIME=\"" + finishTime
+				+ "\" JOB_STATUS=\"SUCCESS\" FINISHED_MAPS=\"1\" "
+				+ "FINISHED_REDUCES=\"0\" .");
+		stat.close();
+
+		return jobId;
+	}
+
+	/**
+	 * @param jobId
+	 *            the job id
+	 * @param numMaps
+	 *            the number of map tasks
+	 * @return a map-only job with one successful attempt per map task
+	 */
+	public static MRJobInfo getMapOnlyJob(String jobId, int numMaps) {
+		MRJobInfo job = new MRJobInfo(0, jobId, null, null,
+				MRExecutionStatus.SUCCESS, null, "job", "hero");
+		for (int i = 0; i < numMaps; ++i) {
+			MRMapInfo map = new MRMapInfo(i, String.format("task%s_m_%06d",
+					jobId.substring(3), i), null, null,
+					MRExecutionStatus.SUCCESS, null, null);
+			map.addAttempt(new MRMapAttemptInfo(i, getMapAttemptId(jobId, i),
+					null, null, MRExecutionStatus.SUCCESS, null, null, null));
+			job.addMapTaskInfo(map);
+		}
+		return job;
+	}
+
+	/**
+	 * Write the BTrace profile of the (first) attempt of a map task of a
+	 * map-only job. The values depend on the map number.
+	 * 
+	 * @param profilesDir
+	 *            the task profiles directory
+	 * @param jobId
+	 *            the job id
+	 * @param i
+	 *            the map number
+	 * @throws IOException
+	 */
+	public static void writeMapProfile(File profilesDir, String jobId, int i)
+			throws IOException {
+		long k = i + 1;
+		PrintWriter out = new PrintWriter(new FileWriter(new File(
+				profilesDir, getMapAttemptId(jobId, i) + ".profile")));
+		out.println("MAP\t/input/part-" + i + "\t0");
+		out.println("MAP\tSTARTUP_MEM\t214813440");
+		out.println("MAP\tSETUP\t" + (500000 + k * 1000));
+		out.println("MAP\tSETUP_MEM\t214813440");
+		out.println("MAP\tCLEANUP\t100000");
+		out.println("MAP\tCLEANUP_MEM\t231542080");
+		out.println("MAP\tTOTAL_RUN\t" + (77548114832l + k * 7919));
+		out.println("MAP\tREAD\t" + (779597000 + k * 131));
+		out.println("MAP\tUNCOMPRESS\t0");
+		out.println("MAP\tKEY_BYTE_COUNT\t" + (120876 + k));
+		out.println("MAP\tVALUE_BYTE_COUNT\t" + (45068801 + k * 17));
+		out.println("MAP\tMAP\t" + (7434129332l + k * 4099));
+		out.println("MAP\tWRITE\t" + (721472440 + k * 97));
+		out.println("MAP\tCOMPRESS\t0");
+		out.println("MAP\tPARTITION_OUTPUT\t0");
+		out.println("MAP\tSERIALIZE_OUTPUT\t0");
+		out.println("MAP\tMAP_MEM\t231544128");
+		out.println("MAP\tWRITE\t" + (5224153 + k * 53));
+		out.println("MAP\tCOMPRESS\t0");
+		out.println("MAP\tKEY_BYTE_COUNT\t" + (120876 + k * 3));
+		out.println("MAP\tVALUE_BYTE_COUNT\t" + (4506880 + k * 11));
+		out.println("TASK\tTOTAL_RUN\t" + (110886785432l + k * 9973));
+		out.close();
+	}
+
+	/**
+	 * @param jobId
+	 *            the job id
+	 * @param i
+	 *            the map number
+	 * @return the id of the (first) attempt of the map task
+	 */
+	private static String getMapAttemptId(String jobId, int i) {
+		return String.format("attempt%s_m_%06d_0", jobId.substring(3), i);
+	}
+
 }
@@ -0,0 +1,58 @@
+package edu.duke.starfish.profile.junit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.duke.starfish.profile.profiler.loaders.tasks.ProfileRecordGroups;
+
+/**
+ * Record groups that also keep every record added to them, in order, for
+ * comparing the parsed profile records in the JUnit tests
+ * 
+ * @author hero
+ */
+public class ProfileRecordList extends ProfileRecordGroups {
+
+	private List<String> processes; // The processes of the records
+	private List<Long> values; // The values of the records
+
+	/**
+	 * Default constructor
+	 */
+	public ProfileRecordList() {
+		super(1);
+		this.processes = new ArrayList<String>();
+		this.values = new ArrayList<Long>();
+	}
+
+	@Override
+	public void addRecord(String process, long value) {
+		super.addRecord(process, value);
+		processes.add(process);
+		values.add(value);
+	}
+
+	/**
+	 * @return the processes of the records
+	 */
+	public List<String> getProcesses() {
+		return processes;
+	}
+
+	/**
+	 * @return the values of the records
+	 */
+	public List<Long> getValues() {
+		return values;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < processes.size(); ++i)
+			sb.append(processes.get(i)).append('=').append(values.get(i))
+					.append('\n');
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,177 @@
+package edu.duke.starfish.profile.junit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.EnumMap;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.duke.starfish.profile.profiler.loaders.tasks.BTraceProfileParser;
+import edu.duke.starfish.profile.profiler.loaders.tasks.ProfileRecordGroups;
+import edu.duke.starfish.profile.profiler.loaders.tasks.MRTaskProfileLoader.ProfileFormatException;
+import edu.duke.starfish.profile.profiler.loaders.tasks.MRTaskProfileLoader.ProfileToken;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the parsing of the BTrace task profile files against reading the
+ * files line by line and splitting the lines on tabs
+ * 
+ * @author hero
+ */
+public class TestBTraceProfileParser extends TestCase {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Test that valid profiles produce the same records
+	 */
+	@Test
+	public void testValidProfiles() throws Exception {
+		String[] profiles = {
+				"",
+				"MAP\tMAP_TASK_INIT\t1234\nSPILL\tSPILL_SORT\t5678\n",
+				"MAP\tMAP_TASK_INIT\t1234\r\nREAD\tREAD_HDFS_IO\t-12\r\n",
+				"MAP\tMAP_TASK_INIT\t1234\rREAD\tREAD_HDFS_IO\t+12",
+				"MAP\tMAP_TASK_INIT\t1234\n\n\r\nMERGE\tMERGE_FILE\t0\n",
+				"MAP\tMAP_TASK_INIT\t1\tignored\textra\n",
+				"MAP\t\t9223372036854775807\nMAP\tx\t-9223372036854775808\n",
+				"BOGUS\tMAP_TASK_INIT\t1\nMAP\tMAP_TASK_INIT\t2\n",
+				"\tMAP\t1\nmap\tMAP_TASK_INIT\t1\nREDUCE\tREDUCE_\u00e9\t3\n" };
+
+		for (String profile : profiles)
+			assertSameRecords(profile, parse(profile));
+
+		// The process names are shared within a profile
+		EnumMap<ProfileToken, ProfileRecordList> records =
+			parse("MAP\tMAP_WRITE\t1\nMAP\tMAP_WRITE\t2\n");
+		List<String> processes = records.get(ProfileToken.MAP).getProcesses();
+		assertSame(processes.get(0), processes.get(1));
+
+		// The records of the tokens without groups are skipped
+		EnumMap<ProfileToken, ProfileRecordGroups> groups =
+			new EnumMap<ProfileToken, ProfileRecordGroups>(ProfileToken.class);
+		ProfileRecordList mapRecords = new ProfileRecordList();
+		groups.put(ProfileToken.MAP, mapRecords);
+		assertTrue(BTraceProfileParser.parse(ByteBuffer.wrap(
+				"SPILL\tQUICK_SORT\t1\nMAP\tMAP\t2\n".getBytes(UTF8)), UTF8,
+				groups));
+		assertEquals("MAP=2\n", mapRecords.toString());
+	}
+
+	/**
+	 * Test that the record groups accumulate the records of each position
+	 */
+	@Test
+	public void testRecordGroups() {
+		ProfileRecordGroups groups = new ProfileRecordGroups(3, "A", "B", "C");
+		assertEquals(0, groups.size());
+		assertEquals(0, groups.getNumGroups());
+
+		long[] values = { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 };
+		String[] processes = { "A", "B", "C", "A", "X", "C", "A", "B", "C",
+				"A" };
+		for (int i = 0; i < values.length; ++i)
+			groups.addRecord(processes[i], values[i]);
+
+		// The incomplete group counts only as records
+		assertEquals(10, groups.size());
+		assertEquals(3, groups.getNumGroups());
+		assertEquals(1, groups.getNumMismatches());
+		assertEquals("B", groups.getProcess(1));
+		assertEquals(2l, groups.getValue(1));
+		assertEquals(12l, groups.getSum(0));
+		assertEquals(15l, groups.getSum(1));
+		assertEquals(6d, groups.getAverage(2), 0d);
+	}
+
+	/**
+	 * Test that memory profiles are ignored and invalid lines are rejected
+	 */
+	@Test
+	public void testInvalidProfiles() throws Exception {
+		assertNull(parse("SETUP\tMAP_TASK_INIT\t1\n"));
+		assertNull(parse("MAP\tMAP_TASK_INIT\t1\nSETUP\n"));
+
+		String[] profiles = { "MAP\n", "MAP\tMAP_TASK_INIT\n",
+				"MAP\tMAP_TASK_INIT\t\n", "MAP\tMAP_TASK_INIT\t-\n",
+				"MAP\tMAP_TASK_INIT\t12a\n", "MAP\tMAP_TASK_INIT\t 12\n",
+				"MAP\tMAP_TASK_INIT\t9223372036854775808\n",
+				"MAP\tMAP_TASK_INIT\t-9223372036854775809\n" };
+
+		for (String profile : profiles) {
+			try {
+				parse(profile);
+				fail("Expected an exception for " + profile);
+			} catch (ProfileFormatException e) {
+				// Expected
+			}
+		}
+	}
+
+	/**
+	 * @param profile
+	 *            the contents of a profile file
+	 * @return the parsed profile records of each token, or null if the
+	 *         profile is a memory profile
+	 * @throws ProfileFormatException
+	 */
+	private EnumMap<ProfileToken, ProfileRecordList> parse(String profile)
+			throws ProfileFormatException {
+
+		EnumMap<ProfileToken, ProfileRecordList> records =
+			new EnumMap<ProfileToken, ProfileRecordList>(ProfileToken.class);
+		for (ProfileToken token : ProfileToken.values())
+			records.put(token, new ProfileRecordList());
+
+		if (!BTraceProfileParser.parse(ByteBuffer.wrap(profile
+				.getBytes(UTF8)), UTF8, records))
+			return null;
+		return records;
+	}
+
+	/**
+	 * Compare the records with the ones created by splitting the lines
+	 * 
+	 * @param profile
+	 *            the contents of a profile file
+	 * @param records
+	 *            the parsed profile records
+	 * @throws IOException
+	 */
+	private void assertSameRecords(String profile,
+			EnumMap<ProfileToken, ProfileRecordList> records)
+			throws IOException {
+
+		EnumMap<ProfileToken, StringBuilder> expected =
+			new EnumMap<ProfileToken, StringBuilder>(ProfileToken.class);
+		for (ProfileToken token : ProfileToken.values())
+			expected.put(token, new StringBuilder());
+
+		BufferedReader br = new BufferedReader(new StringReader(profile));
+		String line;
+		while ((line = br.readLine()) != null) {
+			String[] tokens = line.split("\t");
+			ProfileToken token;
+			try {
+				token = ProfileToken.valueOf(tokens[0]);
+			} catch (IllegalArgumentException e) {
+				continue;
+			}
+
+			expected.get(token).append(tokens[1]).append('=').append(
+					Long.parseLong(tokens[2])).append('\n');
+		}
+
+		assertNotNull(records);
+		for (ProfileToken token : ProfileToken.values()) {
+			assertEquals(expected.get(token).toString(), records.get(token)
+					.toString());
+		}
+	}
+
+}
@@ -0,0 +1,209 @@
+package edu.duke.starfish.profile.junit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.io.WritableUtils;
+import org.junit.Test;
+
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRMapProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
+import edu.duke.starfish.profile.utils.BinaryProfileParser;
+import edu.duke.starfish.profile.utils.ProfileUtils;
+import edu.duke.starfish.profile.utils.XMLProfileParser;
+
+/**
+ * Test the binary profile parser against the XML profile parser
+ * 
+ * @author hero
+ */
+public class TestBinaryProfileParser extends TestCase {
+
+	@Test
+	public void testImportExportProfile() {
+		MRJobProfile profile = JUnitUtils.getTeraSortJobProfile();
+		profile.setClusterName("cluster-1");
+		profile.setJobInputs(new String[] { "/input/a", "/input/b", "" });
+
+		assertSameAsXML(profile);
+	}
+
+	@Test
+	public void testImportExportProfileMapOnly() {
+		MRJobProfile profile = JUnitUtils.getTeraSortJobProfile();
+
+		// Turn terasort into a map-only job (as in TestXMLProfileParser)
+		profile.getAvgMapProfiles().get(0).addCounter(
+				MRCounter.MAP_MAX_UNIQUE_GROUPS, 0l);
+		profile.getMapProfiles().get(0).addCounter(
+				MRCounter.MAP_MAX_UNIQUE_GROUPS, 0l);
+		profile.getReduceProfiles().clear();
+		profile.getAvgReduceProfile().clearProfile();
+		profile.updateProfile();
+
+		assertSameAsXML(profile);
+	}
+
+	@Test
+	public void testImportProfileFiles() throws IOException {
+		MRJobProfile profile = JUnitUtils.getTeraSortJobProfile();
+		File xmlFile = File.createTempFile("profile", ".xml");
+		File binFile = File.createTempFile("profile", ".bin");
+		try {
+			XMLProfileParser.exportJobProfile(profile, xmlFile);
+			BinaryProfileParser.exportJobProfile(profile, binFile);
+
+			// The format is detected from the file contents
+			assertFalse(BinaryProfileParser.isBinaryProfile(xmlFile));
+			assertTrue(BinaryProfileParser.isBinaryProfile(binFile));
+			assertEquals(toXML(ProfileUtils.importJobProfile(xmlFile)),
+					toXML(ProfileUtils.importJobProfile(binFile)));
+		} finally {
+			xmlFile.delete();
+			binFile.delete();
+		}
+
+		// Non-binary input is rejected
+		try {
+			BinaryProfileParser.importJobProfile(new ByteArrayInputStream(
+					toXML(profile).getBytes("UTF-8")));
+			fail("Expected an exception for an XML profile");
+		} catch (RuntimeException e) {
+			// Expected
+		}
+
+		// Truncated input is not loaded
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		BinaryProfileParser.exportJobProfile(profile, baos);
+		byte[] bytes = baos.toByteArray();
+		for (int length : new int[] { 12, 40, bytes.length - 1 }) {
+			assertNull(BinaryProfileParser.importJobProfile(
+					new ByteArrayInputStream(bytes, 0, length)));
+		}
+	}
+
+	/**
+	 * Test a file whose key names are not in the order of the current enums
+	 */
+	@Test
+	public void testImportReorderedKeys() throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(baos);
+		data.writeInt(0x53464a50);
+		data.writeInt(1);
+		WritableUtils.writeString(data, "job_201011062135_0001");
+		WritableUtils.writeVLong(data, 1l);
+		WritableUtils.writeVLong(data, 0l);
+		WritableUtils.writeString(data, null);
+		WritableUtils.writeVInt(data, 0);
+
+		// The counter names are reversed; no other keys are listed
+		writeKeys(data, MRCounter.MAP_INPUT_BYTES, MRCounter.MAP_INPUT_RECORDS);
+		for (int i = 0; i < 3; ++i)
+			writeKeys(data);
+
+		// A single map profile with two counters
+		data.writeByte(1);
+		WritableUtils.writeString(data, "attempt_201011062135_0001_m_000000_0");
+		WritableUtils.writeVInt(data, 0);
+		WritableUtils.writeVInt(data, 1);
+		WritableUtils.writeVInt(data, 2);
+		WritableUtils.writeVInt(data, 0);
+		WritableUtils.writeVLong(data, 1000l);
+		WritableUtils.writeVInt(data, 1);
+		WritableUtils.writeVLong(data, 10l);
+		for (int i = 0; i < 3; ++i)
+			WritableUtils.writeVInt(data, 0);
+		data.writeByte(0);
+		data.flush();
+
+		MRJobProfile profile = BinaryProfileParser
+				.importJobProfile(new ByteArrayInputStream(baos.toByteArray()));
+		MRMapProfile mapProfile = profile.getMapProfiles().get(0);
+		assertEquals(1000l, mapProfile.getCounter(MRCounter.MAP_INPUT_BYTES)
+				.longValue());
+		assertEquals(10l, mapProfile.getCounter(MRCounter.MAP_INPUT_RECORDS)
+				.longValue());
+	}
+
+	/**
+	 * Write a list of key names as the binary profile parser does
+	 * 
+	 * @param data
+	 *            the output
+	 * @param keys
+	 *            the enum keys
+	 * @throws IOException
+	 */
+	private void writeKeys(DataOutputStream data, Enum<?>... keys)
+			throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream names = new DataOutputStream(baos);
+		for (Enum<?> key : keys)
+			names.writeUTF(key.name());
+		names.flush();
+
+		WritableUtils.writeVInt(data, keys.length);
+		WritableUtils.writeVInt(data, baos.size());
+		data.write(baos.toByteArray());
+	}
+
+	/**
+	 * Ensure that a profile read back from the binary format is the same as
+	 * the profile read back from the XML format
+	 * 
+	 * @param profile
+	 *            the job profile
+	 */
+	private void assertSameAsXML(MRJobProfile profile) {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		BinaryProfileParser.exportJobProfile(profile, baos);
+		MRJobProfile binProfile = BinaryProfileParser
+				.importJobProfile(new ByteArrayInputStream(baos.toByteArray()));
+
+		String xml = toXML(profile);
+		MRJobProfile xmlProfile = null;
+		try {
+			xmlProfile = XMLProfileParser
+					.importJobProfile(new ByteArrayInputStream(xml
+							.getBytes("UTF-8")));
+		} catch (IOException e) {
+			fail(e.getMessage());
+		}
+
+		assertEquals(xmlProfile.getJobId(), binProfile.getJobId());
+		assertEquals(xmlProfile.getClusterName(), binProfile.getClusterName());
+		assertEquals(xmlProfile.getAvgMapProfiles(), binProfile
+				.getAvgMapProfiles());
+		assertEquals(xmlProfile.getAvgReduceProfile(), binProfile
+				.getAvgReduceProfile());
+		assertEquals(xmlProfile.getCostFactors(), binProfile.getCostFactors());
+		assertEquals(xmlProfile.getCounters(), binProfile.getCounters());
+		assertEquals(xmlProfile.getStatistics(), binProfile.getStatistics());
+		assertEquals(toXML(xmlProfile), toXML(binProfile));
+	}
+
+	/**
+	 * @param profile
+	 *            the job profile
+	 * @return the XML representation of the profile
+	 */
+	private String toXML(MRJobProfile profile) {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		XMLProfileParser.exportJobProfile(profile, new PrintStream(baos));
+		try {
+			return baos.toString("UTF-8");
+		} catch (IOException e) {
+			fail(e.getMessage());
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,122 @@
+package edu.duke.starfish.profile.junit;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.duke.starfish.profile.profileinfo.execution.profile.EnumDoubleMap;
+import edu.duke.starfish.profile.profileinfo.execution.profile.EnumLongMap;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRMapProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRStatistics;
+
+import junit.framework.TestCase;
+
+/**
+ * JUnit test for the enum-indexed maps used by the profiles
+ * 
+ * @author hero
+ */
+public class TestEnumMaps extends TestCase {
+
+	/**
+	 * Apply the same random operations on an EnumLongMap and an EnumMap and
+	 * check that the two maps are always equal
+	 */
+	@Test
+	public void testEnumLongMap() {
+		Random rand = new Random(42);
+		MRCounter[] keys = MRCounter.values();
+		EnumLongMap<MRCounter> map = new EnumLongMap<MRCounter>(MRCounter.class);
+		Map<MRCounter, Long> expected = new EnumMap<MRCounter, Long>(
+				MRCounter.class);
+
+		for (int i = 0; i < 1000; ++i) {
+			MRCounter key = keys[rand.nextInt(keys.length)];
+			long value = rand.nextLong();
+			switch (rand.nextInt(4)) {
+			case 0:
+				map.putLong(key, value);
+				expected.put(key, value);
+				break;
+			case 1:
+				assertEquals(expected.put(key, value), map.put(key, value));
+				break;
+			case 2:
+				assertEquals(expected.remove(key), map.remove(key));
+				break;
+			default:
+				assertEquals(expected.containsKey(key), map.contains(key));
+				assertEquals(expected.containsKey(key) ? expected.get(key)
+						.longValue() : -1l, map.getLong(key, -1l));
+				break;
+			}
+
+			assertEquals(expected.size(), map.size());
+		}
+
+		assertEquals(expected, map);
+		assertEquals(map, expected);
+		assertEquals(expected.hashCode(), map.hashCode());
+		assertEquals(expected.toString(), map.toString());
+		assertEquals(expected, new EnumLongMap<MRCounter>(map));
+
+		// Remove through the iterator
+		Iterator<MRCounter> iter = map.keySet().iterator();
+		while (iter.hasNext()) {
+			if (iter.next().ordinal() % 2 == 0)
+				iter.remove();
+		}
+		expected.keySet().retainAll(map.keySet());
+		assertEquals(expected, map);
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertFalse(map.contains(keys[0]));
+	}
+
+	/**
+	 * Check that the primitive and map accessors of the profiles agree and
+	 * that the map views write through to the profile
+	 */
+	@Test
+	public void testProfileAccessors() {
+		MRMapProfile prof = new MRMapProfile("attempt_test_m_000000_0");
+		assertEquals(5l, prof.getCounterLong(MRCounter.MAP_INPUT_RECORDS, 5l));
+		assertEquals(1.5d, prof.getStatisticDouble(MRStatistics.MAP_SIZE_SEL,
+				1.5d));
+
+		prof.addCounter(MRCounter.MAP_INPUT_RECORDS, 1000l);
+		prof.addStatistic(MRStatistics.MAP_SIZE_SEL, 0.25d);
+		assertEquals(Long.valueOf(1000l), prof
+				.getCounter(MRCounter.MAP_INPUT_RECORDS));
+		assertEquals(1000l, prof.getCounterLong(MRCounter.MAP_INPUT_RECORDS,
+				5l));
+		assertEquals(0.25d, prof.getStatisticDouble(MRStatistics.MAP_SIZE_SEL,
+				1.5d));
+
+		// Write through the map views
+		prof.getCounters().put(MRCounter.MAP_OUTPUT_RECORDS, 7l);
+		prof.getStatistics().remove(MRStatistics.MAP_SIZE_SEL);
+		assertEquals(7l, prof.getCounterLong(MRCounter.MAP_OUTPUT_RECORDS, 0l));
+		assertFalse(prof.containsStatistic(MRStatistics.MAP_SIZE_SEL));
+
+		// Copies are independent
+		MRMapProfile copy = new MRMapProfile(prof);
+		assertEquals(prof, copy);
+		copy.addCounter(MRCounter.MAP_OUTPUT_RECORDS, 8l);
+		assertEquals(7l, prof.getCounterLong(MRCounter.MAP_OUTPUT_RECORDS, 0l));
+
+		// Null values remove the entries
+		EnumDoubleMap<MRStatistics> stats = new EnumDoubleMap<MRStatistics>(
+				MRStatistics.class);
+		stats.putDouble(MRStatistics.MAP_PAIRS_SEL, 2d);
+		prof.setStatistics(stats);
+		prof.addStatistic(MRStatistics.MAP_PAIRS_SEL, (Double) null);
+		assertTrue(stats.isEmpty());
+	}
+
+}
@@ -0,0 +1,246 @@
+package edu.duke.starfish.profile.junit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.duke.starfish.profile.profileinfo.execution.MRExecutionStatus;
+import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
+import edu.duke.starfish.profile.profiler.MRJobLogsManager;
+
+import junit.framework.TestCase;
+
+/**
+ * Test the loading of the job histories by the MR job logs manager
+ * 
+ * @author hero
+ */
+public class TestMRJobLogsManager extends TestCase {
+
+	private File resultsDir; // The results directory
+	private File historyDir; // The directory with the synthetic histories
+
+	private static final int NUM_JOBS = 250;
+	private static final long LAUNCH_TIME = 1289100000000l;
+
+	@Override
+	protected void setUp() throws IOException {
+		resultsDir = File.createTempFile("starfish-results", "");
+		resultsDir.delete();
+		historyDir = new File(resultsDir, "history");
+		historyDir.mkdirs();
+
+		for (int i = 1; i <= NUM_JOBS; ++i)
+			JUnitUtils.writeJobHistory(historyDir, i, LAUNCH_TIME + i * 60000l);
+	}
+
+	@Override
+	protected void tearDown() {
+		for (File file : historyDir.listFiles())
+			file.delete();
+		historyDir.delete();
+		for (File file : resultsDir.listFiles())
+			file.delete();
+		resultsDir.delete();
+	}
+
+	/**
+	 * Test that the parallel loading returns the same jobs in the same order
+	 * as the sequential loading
+	 */
+	@Test
+	public void testParallelLoading() {
+		List<MRJobInfo> expected = getAllMRJobInfos(1);
+		assertEquals(NUM_JOBS, expected.size());
+		for (int i = 1; i < expected.size(); ++i) {
+			assertTrue(expected.get(i - 1).getExecId().compareTo(
+					expected.get(i).getExecId()) < 0);
+		}
+
+		MRJobInfo job = expected.get(0);
+		assertEquals("job_201011062135_0001", job.getExecId());
+		assertEquals("job-1", job.getName());
+		assertEquals("hero", job.getUser());
+		assertEquals(new Date(LAUNCH_TIME + 60000l), job.getStartTime());
+		assertEquals(new Date(LAUNCH_TIME + 62000l), job.getEndTime());
+		assertEquals(MRExecutionStatus.SUCCESS, job.getStatus());
+
+		for (int numThreads : new int[] { 2, 7, 64 }) {
+			List<MRJobInfo> jobs = getAllMRJobInfos(numThreads);
+			assertEquals(expected.size(), jobs.size());
+			for (int i = 0; i < jobs.size(); ++i) {
+				assertEquals(expected.get(i).getExecId(), jobs.get(i)
+						.getExecId());
+				assertEquals(expected.get(i).getName(), jobs.get(i).getName());
+				assertEquals(expected.get(i).getStartTime(), jobs.get(i)
+						.getStartTime());
+				assertEquals(expected.get(i).getEndTime(), jobs.get(i)
+						.getEndTime());
+				assertEquals(expected.get(i).getStatus(), jobs.get(i)
+						.getStatus());
+			}
+		}
+	}
+
+	/**
+	 * Test that the summary catalog is used for unchanged history files and
+	 * is updated for new, changed, and deleted history files
+	 */
+	@Test
+	public void testSummaryCatalog() throws IOException {
+		List<MRJobInfo> expected = getAllMRJobInfos(1);
+		assertEquals(NUM_JOBS, getCatalogedMRJobInfos().size());
+		File catalogFile = new File(resultsDir, MRJobLogsManager.CATALOG_FILE);
+		assertTrue(catalogFile.isFile());
+
+		// Change the name of a job without changing the file length and time
+		File statFile = getStatFile(7);
+		long modTime = statFile.lastModified();
+		renameJob(statFile, "job-7", "job-X");
+		statFile.setLastModified(modTime);
+
+		List<MRJobInfo> jobs = getCatalogedMRJobInfos();
+		assertEquals(expected.size(), jobs.size());
+		for (int i = 0; i < jobs.size(); ++i) {
+			assertEquals(expected.get(i).getExecId(), jobs.get(i).getExecId());
+			assertEquals(expected.get(i).getName(), jobs.get(i).getName());
+			assertEquals(expected.get(i).getStartTime(), jobs.get(i)
+					.getStartTime());
+			assertEquals(expected.get(i).getEndTime(), jobs.get(i)
+					.getEndTime());
+			assertEquals(expected.get(i).getStatus(), jobs.get(i).getStatus());
+		}
+
+		// A changed file is parsed again
+		statFile.setLastModified(modTime + 2000l);
+		assertEquals("job-X", getCatalogedMRJobInfo("job_201011062135_0007")
+				.getName());
+
+		// New and deleted jobs
+		JUnitUtils.writeJobHistory(historyDir, NUM_JOBS + 1, LAUNCH_TIME);
+		statFile.delete();
+		jobs = getCatalogedMRJobInfos();
+		assertEquals(NUM_JOBS, jobs.size());
+		assertEquals("job_201011062135_0251", jobs.get(NUM_JOBS - 1)
+				.getExecId());
+		assertNull(getCatalogedMRJobInfo("job_201011062135_0007"));
+
+		// A corrupted catalog is ignored
+		RandomAccessFile raf = new RandomAccessFile(catalogFile, "rw");
+		raf.setLength(raf.length() / 2);
+		raf.close();
+		assertEquals(NUM_JOBS, getCatalogedMRJobInfos().size());
+	}
+
+	/**
+	 * Test that the jobs within a time interval are the same as the ones
+	 * found by checking all the jobs
+	 */
+	@Test
+	public void testJobsWithinInterval() {
+		MRJobLogsManager manager = new MRJobLogsManager();
+		manager.setResultsDir(resultsDir.getAbsolutePath());
+		List<MRJobInfo> allJobs = manager.getAllMRJobInfos();
+
+		long[] starts = { 0l, LAUNCH_TIME, LAUNCH_TIME + 60000l,
+				LAUNCH_TIME + 60001l, LAUNCH_TIME + 1234567l };
+		long[] lengths = { 0l, 1000l, 61000l, 3000000l, 100000000l };
+		for (long start : starts) {
+			for (long length : lengths) {
+				Date startDate = new Date(start);
+				Date endDate = new Date(start + length);
+
+				List<MRJobInfo> expected = new ArrayList<MRJobInfo>();
+				for (MRJobInfo job : allJobs) {
+					if (startDate.before(job.getStartTime())
+							&& endDate.after(job.getEndTime()))
+						expected.add(job);
+				}
+
+				assertEquals(expected, manager.getAllMRJobInfos(startDate,
+						endDate));
+			}
+		}
+
+		assertEquals(NUM_JOBS, manager.getAllMRJobInfos(new Date(0l),
+				new Date(Long.MAX_VALUE)).size());
+	}
+
+	/**
+	 * @return all the jobs loaded by a new manager using the catalog
+	 */
+	private List<MRJobInfo> getCatalogedMRJobInfos() {
+		MRJobLogsManager manager = new MRJobLogsManager();
+		manager.setResultsDir(resultsDir.getAbsolutePath());
+		return manager.getAllMRJobInfos();
+	}
+
+	/**
+	 * @param jobId
+	 *            the job id
+	 * @return the job loaded by a new manager using the catalog
+	 */
+	private MRJobInfo getCatalogedMRJobInfo(String jobId) {
+		for (MRJobInfo job : getCatalogedMRJobInfos()) {
+			if (job.getExecId().equals(jobId))
+				return job;
+		}
+		return null;
+	}
+
+	/**
+	 * @param id
+	 *            the job number
+	 * @return the statistics file of the job
+	 */
+	private File getStatFile(int id) {
+		for (File file : historyDir.listFiles()) {
+			if (file.getName().startsWith(
+					String.format("job_201011062135_%04d_", id))
+					&& !file.getName().endsWith(".xml"))
+				return file;
+		}
+		return null;
+	}
+
+	/**
+	 * Replace the job name in a statistics file with a name of equal length
+	 * 
+	 * @param statFile
+	 *            the statistics file
+	 * @param oldName
+	 *            the old job name
+	 * @param newName
+	 *            the new job name
+	 * @throws IOException
+	 */
+	private void renameJob(File statFile, String oldName, String newName)
+			throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(statFile, "rw");
+		byte[] bytes = new byte[(int) raf.length()];
+		raf.readFully(bytes);
+		String content = new String(bytes, "UTF-8").replace(
+				"JOBNAME=\"" + oldName + "\"", "JOBNAME=\"" + newName + "\"");
+		raf.seek(0l);
+		raf.write(content.getBytes("UTF-8"));
+		raf.close();
+	}
+
+	/**
+	 * @param numThreads
+	 *            the number of threads for parsing the histories
+	 * @return all the jobs loaded by a new manager
+	 */
+	private List<MRJobInfo> getAllMRJobInfos(int numThreads) {
+		MRJobLogsManager manager = new MRJobLogsManager();
+		manager.setNumThreads(numThreads);
+		manager.setHistoryDir(historyDir.getAbsolutePath());
+		return manager.getAllMRJobInfos();
+	}
+
+}
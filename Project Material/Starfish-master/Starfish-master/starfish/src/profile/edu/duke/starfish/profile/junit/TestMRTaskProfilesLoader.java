@@ -0,0 +1,95 @@
+package edu.duke.starfish.profile.junit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
+import edu.duke.starfish.profile.profiler.loaders.MRTaskProfilesLoader;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.profile.utils.XMLProfileParser;
+
+/**
+ * Test the loading of the task profiles of a job
+ * 
+ * @author hero
+ */
+public class TestMRTaskProfilesLoader extends TestCase {
+
+	private File profilesDir; // The directory with the task profiles
+	private Configuration conf; // The job configuration
+
+	private static final String JOB_ID = "job_201011062135_0001";
+	private static final int NUM_MAPS = 60;
+	private static final int MISSING_MAP = 17; // Map without a profile file
+
+	@Override
+	protected void setUp() throws IOException {
+		profilesDir = File.createTempFile("starfish-task-profiles", "");
+		profilesDir.delete();
+		profilesDir.mkdirs();
+
+		for (int i = 0; i < NUM_MAPS; ++i) {
+			if (i != MISSING_MAP)
+				JUnitUtils.writeMapProfile(profilesDir, JOB_ID, i);
+		}
+
+		conf = new Configuration(false);
+		conf.setInt(Constants.MR_RED_TASKS, 0);
+		conf.set(Constants.MR_INPUT_DIR, "/input");
+	}
+
+	@Override
+	protected void tearDown() {
+		for (File file : profilesDir.listFiles())
+			file.delete();
+		profilesDir.delete();
+	}
+
+	/**
+	 * Test that the concurrent loading produces the same job profile as the
+	 * sequential loading
+	 */
+	@Test
+	public void testParallelLoading() {
+		MRJobInfo job = JUnitUtils.getMapOnlyJob(JOB_ID, NUM_MAPS);
+		String expected = loadJobProfile(job, 1);
+		assertNotNull(expected);
+		assertEquals(NUM_MAPS - 1, job.getProfile().getMapProfiles().size());
+		assertEquals(NUM_MAPS, job.getProfile().getCounter(
+				MRCounter.MAP_TASKS).longValue());
+
+		for (int numThreads : new int[] { 2, 7, 128 }) {
+			assertEquals(expected, loadJobProfile(JUnitUtils.getMapOnlyJob(
+					JOB_ID, NUM_MAPS), numThreads));
+		}
+	}
+
+	/**
+	 * @param job
+	 *            the job
+	 * @param numThreads
+	 *            the number of threads for loading the task profiles
+	 * @return the XML export of the job profile, or null if it was not loaded
+	 */
+	private String loadJobProfile(MRJobInfo job, int numThreads) {
+		MRTaskProfilesLoader loader = new MRTaskProfilesLoader(job, conf,
+				profilesDir.getAbsolutePath());
+		loader.setNumThreads(numThreads);
+		if (!loader.loadExecutionProfile(job))
+			return null;
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		XMLProfileParser.exportJobProfile(job.getProfile(), new PrintStream(
+				baos));
+		return baos.toString();
+	}
+
+}
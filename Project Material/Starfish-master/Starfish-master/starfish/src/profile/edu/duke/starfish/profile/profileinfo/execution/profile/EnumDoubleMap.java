@@ -0,0 +1,326 @@
+package edu.duke.starfish.profile.profileinfo.execution.profile;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map from enum keys to double values that stores the values in a primitive
+ * array indexed by the ordinal of the keys, along with a bit set of the keys
+ * that are present. The primitive accessors never allocate any objects, while
+ * the {@link Map} interface is fully supported (and iterates the entries in
+ * the ordinal order of the keys, like an {@link java.util.EnumMap}).
+ * 
+ * Null values are not supported.
+ * 
+ * @author hero
+ * 
+ * @param <K>
+ *            the enum type of the keys
+ */
+public class EnumDoubleMap<K extends Enum<K>> extends AbstractMap<K, Double> {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private Class<K> keyType; // The enum class of the keys
+	private K[] keys; // All the enum keys
+	private double[] values; // The values indexed by the key ordinal
+	private long[] present; // The bits of the keys that are present
+	private int size; // The number of present keys
+
+	/**
+	 * Constructor
+	 * 
+	 * @param keyType
+	 *            the enum class of the keys
+	 */
+	public EnumDoubleMap(Class<K> keyType) {
+		this.keyType = keyType;
+		this.keys = keyType.getEnumConstants();
+		this.values = new double[keys.length];
+		this.present = new long[(keys.length + 63) >>> 6];
+		this.size = 0;
+	}
+
+	/**
+	 * Copy constructor
+	 * 
+	 * @param other
+	 *            the map to copy from
+	 */
+	public EnumDoubleMap(EnumDoubleMap<K> other) {
+		this.keyType = other.keyType;
+		this.keys = other.keys;
+		this.values = other.values.clone();
+		this.present = other.present.clone();
+		this.size = other.size;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Check for the existence of a key without any type checks
+	 * 
+	 * @param key
+	 *            the key
+	 * @return true if the key is present
+	 */
+	public boolean contains(K key) {
+		return isPresent(key.ordinal());
+	}
+
+	/**
+	 * Get the value of a key
+	 * 
+	 * @param key
+	 *            the key
+	 * @param defaultValue
+	 *            the value to return if the key is not present
+	 * @return the value
+	 */
+	public double getDouble(K key, double defaultValue) {
+		int index = key.ordinal();
+		return isPresent(index) ? values[index] : defaultValue;
+	}
+
+	/**
+	 * Set the value of a key
+	 * 
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 */
+	public void putDouble(K key, double value) {
+		int index = key.ordinal();
+		if (!isPresent(index)) {
+			present[index >>> 6] |= 1l << index;
+			++size;
+		}
+		values[index] = value;
+	}
+
+	/* ***************************************************************
+	 * OVERRIDEN METHODS
+	 * ***************************************************************
+	 */
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return keyType.isInstance(key)
+				&& isPresent(keyType.cast(key).ordinal());
+	}
+
+	@Override
+	public Double get(Object key) {
+		if (!keyType.isInstance(key))
+			return null;
+		int index = keyType.cast(key).ordinal();
+		return isPresent(index) ? values[index] : null;
+	}
+
+	@Override
+	public Double put(K key, Double value) {
+		if (value == null)
+			throw new NullPointerException("Null values are not supported");
+		Double old = get(key);
+		putDouble(key, value);
+		return old;
+	}
+
+	@Override
+	public void putAll(Map<? extends K, ? extends Double> map) {
+		if (map instanceof EnumDoubleMap<?>
+				&& ((EnumDoubleMap<?>) map).keyType == keyType) {
+			// Fast path: copy the present values directly
+			EnumDoubleMap<?> other = (EnumDoubleMap<?>) map;
+			for (int i = 0; i < values.length; ++i) {
+				if (other.isPresent(i)) {
+					if (!isPresent(i)) {
+						present[i >>> 6] |= 1l << i;
+						++size;
+					}
+					values[i] = other.values[i];
+				}
+			}
+		} else {
+			super.putAll(map);
+		}
+	}
+
+	@Override
+	public Double remove(Object key) {
+		if (!keyType.isInstance(key))
+			return null;
+		int index = keyType.cast(key).ordinal();
+		if (!isPresent(index))
+			return null;
+		Double old = values[index];
+		removeIndex(index);
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < present.length; ++i)
+			present[i] = 0l;
+		size = 0;
+	}
+
+	@Override
+	public Set<Map.Entry<K, Double>> entrySet() {
+		return new AbstractSet<Map.Entry<K, Double>>() {
+
+			@Override
+			public Iterator<Map.Entry<K, Double>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @param index
+	 *            the key ordinal
+	 * @return true if the key is present
+	 */
+	private boolean isPresent(int index) {
+		return (present[index >>> 6] & (1l << index)) != 0;
+	}
+
+	/**
+	 * @param index
+	 *            the key ordinal to remove
+	 */
+	private void removeIndex(int index) {
+		present[index >>> 6] &= ~(1l << index);
+		values[index] = 0d;
+		--size;
+	}
+
+	/**
+	 * @param from
+	 *            the ordinal to start from (inclusive)
+	 * @return the ordinal of the next present key, or -1
+	 */
+	private int nextPresent(int from) {
+		for (int i = from; i < values.length; ++i) {
+			if (isPresent(i))
+				return i;
+		}
+		return -1;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE CLASS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Iterates over the present entries in ordinal order
+	 */
+	private class EntryIterator implements Iterator<Map.Entry<K, Double>> {
+
+		private int next = nextPresent(0); // The next ordinal to return
+		private int last = -1; // The last ordinal returned
+
+		@Override
+		public boolean hasNext() {
+			return next >= 0;
+		}
+
+		@Override
+		public Map.Entry<K, Double> next() {
+			if (next < 0)
+				throw new NoSuchElementException();
+			last = next;
+			next = nextPresent(next + 1);
+			return new Entry(last);
+		}
+
+		@Override
+		public void remove() {
+			if (last < 0 || !isPresent(last))
+				throw new IllegalStateException();
+			removeIndex(last);
+		}
+	}
+
+	/**
+	 * A map entry that writes through to the map
+	 */
+	private class Entry implements Map.Entry<K, Double> {
+
+		private int index; // The key ordinal
+
+		public Entry(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public K getKey() {
+			return keys[index];
+		}
+
+		@Override
+		public Double getValue() {
+			return values[index];
+		}
+
+		@Override
+		public Double setValue(Double value) {
+			if (value == null)
+				throw new NullPointerException("Null values are not supported");
+			Double old = values[index];
+			values[index] = value;
+			return old;
+		}
+
+		@Override
+		public int hashCode() {
+			return keys[index].hashCode() ^ getValue().hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Map.Entry<?, ?>))
+				return false;
+			Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+			return keys[index] == other.getKey()
+					&& getValue().equals(other.getValue());
+		}
+
+		@Override
+		public String toString() {
+			return keys[index] + "=" + values[index];
+		}
+	}
+}
@@ -2,7 +2,6 @@ package edu.duke.starfish.profile.profileinfo.execution.profile;
 
 import java.io.PrintStream;
 import java.text.NumberFormat;
-import java.util.EnumMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -15,6 +14,12 @@ import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRStatistic
  * map-reduce task attempt, task, or job. It contains counters, statistics, and
  * cost factors.
  * 
+ * The counters, statistics, and cost factors are stored in primitive arrays
+ * indexed by the enum ordinals (see {@link EnumLongMap} and
+ * {@link EnumDoubleMap}). The primitive accessors (e.g.,
+ * {@link #getCounterLong(MRCounter, long)}) never allocate any objects, while
+ * the maps returned by the getters are live views of the profile.
+ * 
  * @author hero
  */
 public abstract class MRExecProfile {
@@ -24,9 +29,9 @@ public abstract class MRExecProfile {
 	 * ***************************************************************
 	 */
 
-	private Map<MRCounter, Long> counters; // The counters
-	private Map<MRStatistics, Double> stats; // The statistics
-	private Map<MRCostFactors, Double> costs; // The costs
+	private EnumLongMap<MRCounter> counters; // The counters
+	private EnumDoubleMap<MRStatistics> stats; // The statistics
+	private EnumDoubleMap<MRCostFactors> costs; // The costs
 
 	/**
 	 * Default constructor
@@ -46,11 +51,11 @@ public abstract class MRExecProfile {
 	public MRExecProfile(MRExecProfile other) {
 		this();
 		if (other.counters != null)
-			this.counters = new EnumMap<MRCounter, Long>(other.counters);
+			this.counters = new EnumLongMap<MRCounter>(other.counters);
 		if (other.stats != null)
-			this.stats = new EnumMap<MRStatistics, Double>(other.stats);
+			this.stats = new EnumDoubleMap<MRStatistics>(other.stats);
 		if (other.costs != null)
-			this.costs = new EnumMap<MRCostFactors, Double>(other.costs);
+			this.costs = new EnumDoubleMap<MRCostFactors>(other.costs);
 	}
 
 	/* ***************************************************************
@@ -63,7 +68,7 @@ public abstract class MRExecProfile {
 	 */
 	public Map<MRCounter, Long> getCounters() {
 		if (counters == null) // Create on demand
-			counters = new EnumMap<MRCounter, Long>(MRCounter.class);
+			counters = new EnumLongMap<MRCounter>(MRCounter.class);
 		return counters;
 	}
 
@@ -72,7 +77,7 @@ public abstract class MRExecProfile {
 	 */
 	public Map<MRStatistics, Double> getStatistics() {
 		if (stats == null) // Create on demand
-			stats = new EnumMap<MRStatistics, Double>(MRStatistics.class);
+			stats = new EnumDoubleMap<MRStatistics>(MRStatistics.class);
 		return stats;
 	}
 
@@ -81,32 +86,56 @@ public abstract class MRExecProfile {
 	 */
 	public Map<MRCostFactors, Double> getCostFactors() {
 		if (costs == null) // Create on demand
-			costs = new EnumMap<MRCostFactors, Double>(MRCostFactors.class);
+			costs = new EnumDoubleMap<MRCostFactors>(MRCostFactors.class);
 		return costs;
 	}
 
 	/**
+	 * Set the counters. The input map is used directly if it is an
+	 * enum-indexed map of the profile, otherwise its contents are copied.
+	 * 
 	 * @param counters
 	 *            the counters to set
 	 */
 	public void setCounters(Map<MRCounter, Long> counters) {
-		this.counters = counters;
+		if (counters == null || counters instanceof EnumLongMap<?>) {
+			this.counters = (EnumLongMap<MRCounter>) counters;
+		} else {
+			this.counters = new EnumLongMap<MRCounter>(MRCounter.class);
+			this.counters.putAll(counters);
+		}
 	}
 
 	/**
+	 * Set the statistics. The input map is used directly if it is an
+	 * enum-indexed map of the profile, otherwise its contents are copied.
+	 * 
 	 * @param stats
 	 *            the statistics to set
 	 */
 	public void setStatistics(Map<MRStatistics, Double> stats) {
-		this.stats = stats;
+		if (stats == null || stats instanceof EnumDoubleMap<?>) {
+			this.stats = (EnumDoubleMap<MRStatistics>) stats;
+		} else {
+			this.stats = new EnumDoubleMap<MRStatistics>(MRStatistics.class);
+			this.stats.putAll(stats);
+		}
 	}
 
 	/**
+	 * Set the cost factors. The input map is used directly if it is an
+	 * enum-indexed map of the profile, otherwise its contents are copied.
+	 * 
 	 * @param costs
 	 *            the cost factors to set
 	 */
 	public void setCostFactors(Map<MRCostFactors, Double> costs) {
-		this.costs = costs;
+		if (costs == null || costs instanceof EnumDoubleMap<?>) {
+			this.costs = (EnumDoubleMap<MRCostFactors>) costs;
+		} else {
+			this.costs = new EnumDoubleMap<MRCostFactors>(MRCostFactors.class);
+			this.costs.putAll(costs);
+		}
 	}
 
 	/* ***************************************************************
@@ -120,42 +149,102 @@ public abstract class MRExecProfile {
 	 * @param counter
 	 *            the counter to add
 	 * @param value
-	 *            the value of the counter
+	 *            the value of the counter (null removes the counter)
 	 */
 	public void addCounter(MRCounter counter, Long value) {
+		if (value == null) {
+			if (counters != null)
+				counters.remove(counter);
+			return;
+		}
+
 		if (counters == null) // Create on demand
-			counters = new EnumMap<MRCounter, Long>(MRCounter.class);
+			counters = new EnumLongMap<MRCounter>(MRCounter.class);
 		counters.put(counter, value);
 	}
 
+	/**
+	 * Add a counter without boxing the value
+	 * 
+	 * @param counter
+	 *            the counter to add
+	 * @param value
+	 *            the value of the counter
+	 */
+	public void addCounter(MRCounter counter, long value) {
+		if (counters == null) // Create on demand
+			counters = new EnumLongMap<MRCounter>(MRCounter.class);
+		counters.putLong(counter, value);
+	}
+
 	/**
 	 * Add a statistic
 	 * 
 	 * @param stat
 	 *            the statistic to add
 	 * @param value
-	 *            the value of the statistic
+	 *            the value of the statistic (null removes the statistic)
 	 */
 	public void addStatistic(MRStatistics stat, Double value) {
+		if (value == null) {
+			if (stats != null)
+				stats.remove(stat);
+			return;
+		}
+
 		if (stats == null) // Create on demand
-			stats = new EnumMap<MRStatistics, Double>(MRStatistics.class);
+			stats = new EnumDoubleMap<MRStatistics>(MRStatistics.class);
 		stats.put(stat, value);
 	}
 
+	/**
+	 * Add a statistic without boxing the value
+	 * 
+	 * @param stat
+	 *            the statistic to add
+	 * @param value
+	 *            the value of the statistic
+	 */
+	public void addStatistic(MRStatistics stat, double value) {
+		if (stats == null) // Create on demand
+			stats = new EnumDoubleMap<MRStatistics>(MRStatistics.class);
+		stats.putDouble(stat, value);
+	}
+
 	/**
 	 * Add a cost factor
 	 * 
 	 * @param cost
 	 *            the cost factor to add
 	 * @param value
-	 *            the value of the cost factor
+	 *            the value of the cost factor (null removes the cost factor)
 	 */
 	public void addCostFactor(MRCostFactors cost, Double value) {
+		if (value == null) {
+			if (costs != null)
+				costs.remove(cost);
+			return;
+		}
+
 		if (costs == null) // Create on demand
-			costs = new EnumMap<MRCostFactors, Double>(MRCostFactors.class);
+			costs = new EnumDoubleMap<MRCostFactors>(MRCostFactors.class);
 		costs.put(cost, value);
 	}
 
+	/**
+	 * Add a cost factor without boxing the value
+	 * 
+	 * @param cost
+	 *            the cost factor to add
+	 * @param value
+	 *            the value of the cost factor
+	 */
+	public void addCostFactor(MRCostFactors cost, double value) {
+		if (costs == null) // Create on demand
+			costs = new EnumDoubleMap<MRCostFactors>(MRCostFactors.class);
+		costs.putDouble(cost, value);
+	}
+
 	/**
 	 * Add all counters
 	 * 
@@ -164,7 +253,7 @@ public abstract class MRExecProfile {
 	 */
 	public void addCounters(Map<MRCounter, Long> counters) {
 		if (this.counters == null) // Create on demand
-			this.counters = new EnumMap<MRCounter, Long>(MRCounter.class);
+			this.counters = new EnumLongMap<MRCounter>(MRCounter.class);
 		this.counters.putAll(counters);
 	}
 
@@ -176,7 +265,7 @@ public abstract class MRExecProfile {
 	 */
 	public void addStatistics(Map<MRStatistics, Double> stats) {
 		if (this.stats == null) // Create on demand
-			this.stats = new EnumMap<MRStatistics, Double>(MRStatistics.class);
+			this.stats = new EnumDoubleMap<MRStatistics>(MRStatistics.class);
 		this.stats.putAll(stats);
 	}
 
@@ -188,7 +277,7 @@ public abstract class MRExecProfile {
 	 */
 	public void addCostFactors(Map<MRCostFactors, Double> costs) {
 		if (this.costs == null) // Create on demand
-			this.costs = new EnumMap<MRCostFactors, Double>(MRCostFactors.class);
+			this.costs = new EnumDoubleMap<MRCostFactors>(MRCostFactors.class);
 		this.costs.putAll(costs);
 	}
 
@@ -200,7 +289,7 @@ public abstract class MRExecProfile {
 	 * @return true if the counter exists
 	 */
 	public boolean containsCounter(MRCounter counter) {
-		return (counters != null && counters.containsKey(counter));
+		return (counters != null && counters.contains(counter));
 	}
 
 	/**
@@ -211,7 +300,7 @@ public abstract class MRExecProfile {
 	 * @return true if the statistic exists
 	 */
 	public boolean containsStatistic(MRStatistics stat) {
-		return (stats != null && stats.containsKey(stat));
+		return (stats != null && stats.contains(stat));
 	}
 
 	/**
@@ -222,7 +311,7 @@ public abstract class MRExecProfile {
 	 * @return true if the cost factor exists
 	 */
 	public boolean containsCostFactor(MRCostFactors cost) {
-		return (costs != null && costs.containsKey(cost));
+		return (costs != null && costs.contains(cost));
 	}
 
 	/**
@@ -246,10 +335,24 @@ public abstract class MRExecProfile {
 	 * @return the value of the counter
 	 */
 	public Long getCounter(MRCounter counter, Long defaultValue) {
-		if (counters == null || !counters.containsKey(counter))
+		if (counters == null || !counters.contains(counter))
 			return defaultValue;
 		else
-			return counters.get(counter);
+			return counters.getLong(counter, 0l);
+	}
+
+	/**
+	 * Get a counter as a primitive value, without any allocations
+	 * 
+	 * @param counter
+	 *            the counter to get
+	 * @param defaultValue
+	 *            the default value to get if the counter is not found
+	 * @return the value of the counter
+	 */
+	public long getCounterLong(MRCounter counter, long defaultValue) {
+		return counters == null ? defaultValue : counters.getLong(counter,
+				defaultValue);
 	}
 
 	/**
@@ -273,10 +376,24 @@ public abstract class MRExecProfile {
 	 * @return the value of the statistic
 	 */
 	public Double getStatistic(MRStatistics stat, Double defaultValue) {
-		if (stats == null || !stats.containsKey(stat))
+		if (stats == null || !stats.contains(stat))
 			return defaultValue;
 		else
-			return stats.get(stat);
+			return stats.getDouble(stat, 0d);
+	}
+
+	/**
+	 * Get a statistic as a primitive value, without any allocations
+	 * 
+	 * @param stat
+	 *            the statistic to get
+	 * @param defaultValue
+	 *            the default value to get if the statistic is not found
+	 * @return the value of the statistic
+	 */
+	public double getStatisticDouble(MRStatistics stat, double defaultValue) {
+		return stats == null ? defaultValue : stats.getDouble(stat,
+				defaultValue);
 	}
 
 	/**
@@ -300,10 +417,24 @@ public abstract class MRExecProfile {
 	 * @return the value of the cost factor
 	 */
 	public Double getCostFactor(MRCostFactors cost, Double defaultValue) {
-		if (costs == null || !costs.containsKey(cost))
+		if (costs == null || !costs.contains(cost))
 			return defaultValue;
 		else
-			return costs.get(cost);
+			return costs.getDouble(cost, 0d);
+	}
+
+	/**
+	 * Get a cost factor as a primitive value, without any allocations
+	 * 
+	 * @param cost
+	 *            the cost factor to get
+	 * @param defaultValue
+	 *            the default value to get if the cost factor is not found
+	 * @return the value of the cost factor
+	 */
+	public double getCostFactorDouble(MRCostFactors cost, double defaultValue) {
+		return costs == null ? defaultValue : costs.getDouble(cost,
+				defaultValue);
 	}
 
 	/**
@@ -3,7 +3,6 @@ package edu.duke.starfish.profile.profileinfo.execution.profile;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCostFactors;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
@@ -57,6 +56,12 @@ public class MRJobProfile extends MRExecProfile {
 	private static final MRStatistics[] missingReduceStats = {
 			MRStatistics.COMBINE_SIZE_SEL, MRStatistics.COMBINE_PAIRS_SEL };
 
+	// The enum keys, in ordinal order (values() copies them on each call)
+	private static final MRCounter[] COUNTERS = MRCounter.values();
+	private static final MRStatistics[] STATS = MRStatistics.values();
+	private static final MRCostFactors[] COSTS = MRCostFactors.values();
+	private static final MRTaskPhase[] PHASES = MRTaskPhase.values();
+
 	/**
 	 * Constructor
 	 * 
@@ -260,11 +265,12 @@ public class MRJobProfile extends MRExecProfile {
 		}
 
 		// Print out task statistics
-		out.println("\tTotal Mappers:\t" + getCounter(MRCounter.MAP_TASKS, 0l));
+		out.println("\tTotal Mappers:\t" + getCounterLong(
+				MRCounter.MAP_TASKS, 0l));
 		out.println("\tProfiled Mappers:\t"
 				+ ((mapProfiles == null) ? 0 : mapProfiles.size()));
 		out.println("\tTotal Reducers:\t"
-				+ getCounter(MRCounter.REDUCE_TASKS, 0l));
+				+ getCounterLong(MRCounter.REDUCE_TASKS, 0l));
 		out.println("\tProfiled Reducers:\t"
 				+ ((reduceProfiles == null) ? 0 : reduceProfiles.size()));
 		out.println("");
@@ -299,8 +305,8 @@ public class MRJobProfile extends MRExecProfile {
 	public void updateProfile() {
 
 		// Save the num of mappers and reducers
-		long numMappers = this.getCounter(MRCounter.MAP_TASKS, 0l);
-		long numReducers = this.getCounter(MRCounter.REDUCE_TASKS, 0l);
+		long numMappers = this.getCounterLong(MRCounter.MAP_TASKS, 0l);
+		long numReducers = this.getCounterLong(MRCounter.REDUCE_TASKS, 0l);
 
 		List<MRTaskProfile> allProfiles = new ArrayList<MRTaskProfile>();
 		if (mapProfiles != null)
@@ -313,8 +319,8 @@ public class MRJobProfile extends MRExecProfile {
 		if (reduceProfiles != null) {
 			for (MRReduceProfile redProfile : reduceProfiles) {
 				maxUniqueGroups += redProfile.getNumTasks()
-						* redProfile.getCounter(MRCounter.REDUCE_INPUT_GROUPS,
-								1l);
+						* redProfile.getCounterLong(
+								MRCounter.REDUCE_INPUT_GROUPS, 1l);
 			}
 		}
 		if (mapProfiles != null) {
@@ -448,33 +454,33 @@ public class MRJobProfile extends MRExecProfile {
 	/**
 	 * Average the task counters
 	 * 
-	 * @param counters
-	 *            the map to place in the averaged counters
+	 * @param profile
+	 *            the profile to place in the averaged counters
 	 * @param taskProfiles
 	 *            the list with the task profiles
 	 */
-	private void averageCounters(Map<MRCounter, Long> counters,
+	private void averageCounters(MRExecProfile profile,
 			List<? extends MRTaskProfile> taskProfiles) {
 
 		double sumValues;
 		int numValues;
 
 		// Average the value of each counter from all task profiles
-		for (MRCounter counter : MRCounter.values()) {
+		for (MRCounter counter : COUNTERS) {
 			sumValues = 0;
 			numValues = 0;
 
 			for (MRTaskProfile taskProfile : taskProfiles) {
 				if (taskProfile.containsCounter(counter)) {
 					sumValues += taskProfile.getNumTasks()
-							* taskProfile.getCounter(counter, 0l);
+							* taskProfile.getCounterLong(counter, 0l);
 					numValues += taskProfile.getNumTasks();
 				}
 			}
 
 			// Add the averaged counter
 			if (numValues != 0) {
-				counters.put(counter, (long) Math.round(sumValues / numValues));
+				profile.addCounter(counter, Math.round(sumValues / numValues));
 			}
 		}
 
@@ -483,33 +489,33 @@ public class MRJobProfile extends MRExecProfile {
 	/**
 	 * Average the task statistics
 	 * 
-	 * @param stats
-	 *            the map to place in the averaged statistics
+	 * @param profile
+	 *            the profile to place in the averaged statistics
 	 * @param taskProfiles
 	 *            the list with the task profiles
 	 */
-	private void averageStatistics(Map<MRStatistics, Double> stats,
+	private void averageStatistics(MRExecProfile profile,
 			List<? extends MRTaskProfile> taskProfiles) {
 
 		double sumValues;
 		int numValues;
 
 		// Average the values of each statistic from all task profiles
-		for (MRStatistics stat : MRStatistics.values()) {
+		for (MRStatistics stat : STATS) {
 			sumValues = 0;
 			numValues = 0;
 
 			for (MRTaskProfile taskProfile : taskProfiles) {
 				if (taskProfile.containsStatistic(stat)) {
 					sumValues += taskProfile.getNumTasks()
-							* taskProfile.getStatistic(stat, 0d);
+							* taskProfile.getStatisticDouble(stat, 0d);
 					numValues += taskProfile.getNumTasks();
 				}
 			}
 
 			// Add the averaged counter
 			if (numValues != 0) {
-				stats.put(stat, sumValues / numValues);
+				profile.addStatistic(stat, sumValues / numValues);
 			}
 		}
 
@@ -518,33 +524,33 @@ public class MRJobProfile extends MRExecProfile {
 	/**
 	 * Average the task cost factors
 	 * 
-	 * @param costs
-	 *            the map to place in the averaged cost factors
+	 * @param profile
+	 *            the profile to place in the averaged cost factors
 	 * @param taskProfiles
 	 *            the list with the task profiles
 	 */
-	private void averageCostFactors(Map<MRCostFactors, Double> costs,
+	private void averageCostFactors(MRExecProfile profile,
 			List<? extends MRTaskProfile> taskProfiles) {
 
 		double sumValues;
 		int numValues;
 
 		// Average the values of each cost factor from all task profiles
-		for (MRCostFactors cost : MRCostFactors.values()) {
+		for (MRCostFactors cost : COSTS) {
 			sumValues = 0;
 			numValues = 0;
 
 			for (MRTaskProfile taskProfile : taskProfiles) {
 				if (taskProfile.containsCostFactor(cost)) {
 					sumValues += taskProfile.getNumTasks()
-							* taskProfile.getCostFactor(cost, 0d);
+							* taskProfile.getCostFactorDouble(cost, 0d);
 					numValues += taskProfile.getNumTasks();
 				}
 			}
 
 			// Add the averaged counter
 			if (numValues != 0) {
-				costs.put(cost, sumValues / numValues);
+				profile.addCostFactor(cost, sumValues / numValues);
 			}
 		}
 
@@ -553,33 +559,33 @@ public class MRJobProfile extends MRExecProfile {
 	/**
 	 * Average the task phase timings
 	 * 
-	 * @param timings
-	 *            the map to place in the averaged timings
+	 * @param profile
+	 *            the profile to place in the averaged timings
 	 * @param taskProfiles
 	 *            the list with the map or reduce task profiles
 	 */
-	private void averageTimings(Map<MRTaskPhase, Double> timings,
+	private void averageTimings(MRTaskProfile profile,
 			List<? extends MRTaskProfile> taskProfiles) {
 
 		double sumValues;
 		int numValues;
 
 		// Average the values of each cost factor from all task profiles
-		for (MRTaskPhase phase : MRTaskPhase.values()) {
+		for (MRTaskPhase phase : PHASES) {
 			sumValues = 0;
 			numValues = 0;
 
 			for (MRTaskProfile taskProfile : taskProfiles) {
 				if (taskProfile.containsTiming(phase)) {
 					sumValues += taskProfile.getNumTasks()
-							* taskProfile.getTiming(phase, 0d);
+							* taskProfile.getTimingDouble(phase, 0d);
 					numValues += taskProfile.getNumTasks();
 				}
 			}
 
 			// Add the averaged counter
 			if (numValues != 0) {
-				timings.put(phase, sumValues / numValues);
+				profile.addTiming(phase, sumValues / numValues);
 			}
 		}
 	}
@@ -644,13 +650,16 @@ public class MRJobProfile extends MRExecProfile {
 	 */
 	private void updateExecProfile(MRExecProfile profile,
 			List<? extends MRTaskProfile> taskProfiles) {
-		// Clear all the existing values
+		// Clear all the existing values (the maps exist even if they are empty)
 		profile.clearProfile();
+		profile.getCounters();
+		profile.getStatistics();
+		profile.getCostFactors();
 
 		// Averages all the new values
-		averageCounters(profile.getCounters(), taskProfiles);
-		averageStatistics(profile.getStatistics(), taskProfiles);
-		averageCostFactors(profile.getCostFactors(), taskProfiles);
+		averageCounters(profile, taskProfiles);
+		averageStatistics(profile, taskProfiles);
+		averageCostFactors(profile, taskProfiles);
 	}
 
 	/**
@@ -667,7 +676,8 @@ public class MRJobProfile extends MRExecProfile {
 		// Averages all the new values
 		profile.clearProfile();
 		updateExecProfile(profile, taskProfiles);
-		averageTimings(profile.getTimings(), taskProfiles);
+		profile.getTimings();
+		averageTimings(profile, taskProfiles);
 
 		// Set the number of task this profile is applicable to
 		int numTasks = 0;
@@ -2,7 +2,6 @@ package edu.duke.starfish.profile.profileinfo.execution.profile;
 
 import java.io.PrintStream;
 import java.text.NumberFormat;
-import java.util.EnumMap;
 import java.util.Map;
 
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRTaskPhase;
@@ -22,7 +21,7 @@ public class MRTaskProfile extends MRExecProfile {
 	 */
 
 	private String taskId; // The task to profile
-	private Map<MRTaskPhase, Double> timings; // The phase timings
+	private EnumDoubleMap<MRTaskPhase> timings; // The phase timings
 	private int numTasks; // The number of tasks it is applicable to
 
 	/**
@@ -50,7 +49,7 @@ public class MRTaskProfile extends MRExecProfile {
 
 		this.taskId = other.taskId;
 		if (other.timings != null)
-			this.timings = new EnumMap<MRTaskPhase, Double>(other.timings);
+			this.timings = new EnumDoubleMap<MRTaskPhase>(other.timings);
 		this.numTasks = other.numTasks;
 	}
 
@@ -119,7 +118,7 @@ public class MRTaskProfile extends MRExecProfile {
 	 */
 	public Map<MRTaskPhase, Double> getTimings() {
 		if (timings == null) // Create on demand
-			timings = new EnumMap<MRTaskPhase, Double>(MRTaskPhase.class);
+			timings = new EnumDoubleMap<MRTaskPhase>(MRTaskPhase.class);
 		return timings;
 	}
 
@@ -157,14 +156,34 @@ public class MRTaskProfile extends MRExecProfile {
 	 * @param phase
 	 *            the phase timing to add
 	 * @param value
-	 *            the value of the phase timing
+	 *            the value of the phase timing (null removes the timing)
 	 */
 	public void addTiming(MRTaskPhase phase, Double value) {
+		if (value == null) {
+			if (timings != null)
+				timings.remove(phase);
+			return;
+		}
+
 		if (timings == null) // Create on demand
-			timings = new EnumMap<MRTaskPhase, Double>(MRTaskPhase.class);
+			timings = new EnumDoubleMap<MRTaskPhase>(MRTaskPhase.class);
 		timings.put(phase, value);
 	}
 
+	/**
+	 * Add a phase timing without boxing the value
+	 * 
+	 * @param phase
+	 *            the phase timing to add
+	 * @param value
+	 *            the value of the phase timing
+	 */
+	public void addTiming(MRTaskPhase phase, double value) {
+		if (timings == null) // Create on demand
+			timings = new EnumDoubleMap<MRTaskPhase>(MRTaskPhase.class);
+		timings.putDouble(phase, value);
+	}
+
 	/**
 	 * Add all phase timings
 	 * 
@@ -173,7 +192,7 @@ public class MRTaskProfile extends MRExecProfile {
 	 */
 	public void addTimings(Map<MRTaskPhase, Double> timings) {
 		if (this.timings == null) // Create on demand
-			this.timings = new EnumMap<MRTaskPhase, Double>(MRTaskPhase.class);
+			this.timings = new EnumDoubleMap<MRTaskPhase>(MRTaskPhase.class);
 		this.timings.putAll(timings);
 	}
 
@@ -185,7 +204,7 @@ public class MRTaskProfile extends MRExecProfile {
 	 * @return true if the phase timing exists
 	 */
 	public boolean containsTiming(MRTaskPhase phase) {
-		return (timings != null && timings.containsKey(phase));
+		return (timings != null && timings.contains(phase));
 	}
 
 	/**
@@ -198,10 +217,24 @@ public class MRTaskProfile extends MRExecProfile {
 	 * @return the value of the phase timing
 	 */
 	public Double getTiming(MRTaskPhase phase, Double defaultValue) {
-		if (timings == null || !timings.containsKey(phase))
+		if (timings == null || !timings.contains(phase))
 			return defaultValue;
 		else
-			return timings.get(phase);
+			return timings.getDouble(phase, 0d);
+	}
+
+	/**
+	 * Get a phase timing as a primitive value, without any allocations
+	 * 
+	 * @param phase
+	 *            the phase timing to get
+	 * @param defaultValue
+	 *            the default value to get if the phase timing is not found
+	 * @return the value of the phase timing
+	 */
+	public double getTimingDouble(MRTaskPhase phase, double defaultValue) {
+		return timings == null ? defaultValue : timings.getDouble(phase,
+				defaultValue);
 	}
 
 	/* ***************************************************************
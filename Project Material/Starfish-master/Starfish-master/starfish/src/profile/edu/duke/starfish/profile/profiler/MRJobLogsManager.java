@@ -2,6 +2,7 @@ package edu.duke.starfish.profile.profiler;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -10,6 +11,11 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,6 +32,7 @@ import edu.duke.starfish.profile.profiler.loaders.MRJobProfileLoader;
 import edu.duke.starfish.profile.profiler.loaders.MRTaskProfilesLoader;
 import edu.duke.starfish.profile.profiler.loaders.MRJobTransfersLoader;
 import edu.duke.starfish.profile.profiler.loaders.MRJobHistoryLoader;
+import edu.duke.starfish.profile.utils.ThreadPoolUtils;
 
 /**
  * A manager for MR job log files. Given the location of the history, userlogs,
@@ -38,6 +45,16 @@ import edu.duke.starfish.profile.profiler.loaders.MRJobHistoryLoader;
  * profiles. Alternatively, the profiles could be located in their own
  * directory.
  * 
+ * The job summaries are parsed from the history files concurrently, using
+ * "starfish.profiler.num.threads" threads (a system property, which defaults
+ * to the number of processors). The jobs are always returned sorted by their
+ * job ids, independently of the number of threads.
+ * 
+ * When a results directory is set, the job summaries are also kept in a
+ * {@link MRJobSummaryCatalog} in that directory, so that only the history
+ * files of new jobs are parsed when the directory is opened again. The jobs
+ * within a time interval are found using an index on the job start times.
+ * 
  * @author hero
  */
 public class MRJobLogsManager implements IMRInfoManager {
@@ -52,6 +69,9 @@ public class MRJobLogsManager implements IMRInfoManager {
 	private String jobProfilesDir; // The directory with the XML job profiles
 	private String taskProfilesDir; // The directory with the task profiles
 	private String transfersDir; // The directory with the transfers
+	private int numThreads; // The number of threads (0 for the defaults)
+	private MRJobSummaryCatalog catalog; // The job summary catalog, if any
+	private StartTimeIndex startIndex; // The index of the jobs by start time
 
 	private Map<String, MRJobHistoryLoader> jobHistories; // The job histories
 	private Map<String, MRJobProfileLoader> jobProfiles; // The XML job profiles
@@ -59,7 +79,11 @@ public class MRJobLogsManager implements IMRInfoManager {
 	private Map<String, MRJobTransfersLoader> jobTransfers; // The job transfers
 
 	// CONSTANTS
+	public static final String NUM_THREADS = "starfish.profiler.num.threads";
+	public static final String CATALOG_FILE = "history.catalog";
+
 	private static final String DOT_XML = ".xml";
+	private static final int CHUNKS_PER_THREAD = 4;
 	private static final Pattern NAME_PATTERN = Pattern
 			.compile(".*(job_[0-9]+_[0-9]+)_.*");
 
@@ -72,6 +96,9 @@ public class MRJobLogsManager implements IMRInfoManager {
 		this.jobProfilesDir = null;
 		this.taskProfilesDir = null;
 		this.transfersDir = null;
+		this.numThreads = Math.max(0, Integer.getInteger(NUM_THREADS, 0));
+		this.catalog = null;
+		this.startIndex = null;
 		this.jobHistories = new HashMap<String, MRJobHistoryLoader>();
 		this.jobProfiles = new HashMap<String, MRJobProfileLoader>();
 		this.taskProfiles = new HashMap<String, MRTaskProfilesLoader>();
@@ -86,6 +113,7 @@ public class MRJobLogsManager implements IMRInfoManager {
 	/**
 	 * The results directory is generated during profiling and could contain the
 	 * sub-directories: history, job_profiles, task_profiles, and transfers.
+	 * The job summary catalog is kept in the results directory.
 	 * 
 	 * @param resultsDir
 	 *            the results directory to set
@@ -100,6 +128,7 @@ public class MRJobLogsManager implements IMRInfoManager {
 		}
 
 		// Set any existing sub-directories
+		setCatalogFile(new File(resultsDir, CATALOG_FILE).getAbsolutePath());
 		File history = new File(resultsDir, "history");
 		if (history.exists())
 			setHistoryDir(history.getAbsolutePath());
@@ -126,6 +155,40 @@ public class MRJobLogsManager implements IMRInfoManager {
 		readHistoryDirectory();
 	}
 
+	/**
+	 * Set the file of the job summary catalog, which is used by the next
+	 * calls to get the jobs
+	 * 
+	 * @param catalogFile
+	 *            the catalog file (null for no catalog)
+	 */
+	public void setCatalogFile(String catalogFile) {
+		this.catalog = (catalogFile == null) ? null : new MRJobSummaryCatalog(
+				new File(catalogFile));
+	}
+
+	/**
+	 * Set the number of threads for parsing the history files and the task
+	 * profiles. If it is not set here or in "starfish.profiler.num.threads",
+	 * the history files are parsed with one thread per processor and the task
+	 * profiles are loaded serially (see {@link MRTaskProfilesLoader}).
+	 * 
+	 * @param numThreads
+	 *            the number of threads for parsing the history files and
+	 *            the task profiles
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	/**
+	 * @return the number of threads for parsing the history files and the
+	 *         task profiles, or 0 if the defaults are used
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
 	/**
 	 * @param jobProfilesDir
 	 *            the jobProfilesDir to set
@@ -157,13 +220,15 @@ public class MRJobLogsManager implements IMRInfoManager {
 
 	@Override
 	public List<MRJobInfo> getAllMRJobInfos() {
-		// Get all the jobs populated with their summaries
-		List<MRJobInfo> jobInfos = new ArrayList<MRJobInfo>();
-		for (MRJobHistoryLoader history : jobHistories.values()) {
-			jobInfos.add(history.getMRJobInfoWithSummary());
-		}
-
-		// Sort based on their execution ids
+		// Get all the jobs populated with their summaries, in job id order
+		Map<String, MRJobHistoryLoader> sorted =
+			new TreeMap<String, MRJobHistoryLoader>(jobHistories);
+		List<String> newJobIds = loadCatalogedSummaries(sorted);
+		List<MRJobInfo> jobInfos = loadMRJobSummaries(
+				new ArrayList<MRJobHistoryLoader>(sorted.values()));
+		updateCatalog(newJobIds);
+
+		// Sort based on their execution ids (the sort is stable)
 		Collections.sort(jobInfos, new Comparator<MRJobInfo>() {
 			public int compare(MRJobInfo o1, MRJobInfo o2) {
 				return o1.getExecId().compareTo(o2.getExecId());
@@ -175,16 +240,10 @@ public class MRJobLogsManager implements IMRInfoManager {
 
 	@Override
 	public List<MRJobInfo> getAllMRJobInfos(Date start, Date end) {
-		List<MRJobInfo> allJobs = new ArrayList<MRJobInfo>();
-
 		// Get all the jobs within the interval
-		for (MRJobInfo job : getAllMRJobInfos()) {
-			if (start.before(job.getStartTime()) && end.after(job.getEndTime())) {
-				allJobs.add(job);
-			}
-		}
-
-		return allJobs;
+		if (startIndex == null)
+			startIndex = new StartTimeIndex(getAllMRJobInfos());
+		return startIndex.getMRJobInfos(start, end);
 	}
 
 	@Override
@@ -283,8 +342,11 @@ public class MRJobLogsManager implements IMRInfoManager {
 		if (taskProfilesDir != null) {
 			if (!taskProfiles.containsKey(mrJobId)) {
 				// If this is the first time, create the profile loader
-				taskProfiles.put(mrJobId, new MRTaskProfilesLoader(mrJob,
-						getHadoopConfiguration(mrJobId), taskProfilesDir));
+				MRTaskProfilesLoader loader = new MRTaskProfilesLoader(mrJob,
+						getHadoopConfiguration(mrJobId), taskProfilesDir);
+				if (numThreads > 0)
+					loader.setNumThreads(numThreads);
+				taskProfiles.put(mrJobId, loader);
 			}
 
 			// Load the task profiles
@@ -299,6 +361,114 @@ public class MRJobLogsManager implements IMRInfoManager {
 	 * ***************************************************************
 	 */
 
+	/**
+	 * Set the summaries of the jobs found in the catalog, if any
+	 * 
+	 * @param histories
+	 *            the job histories by job id
+	 * @return the ids of the jobs whose summaries must be parsed
+	 */
+	private List<String> loadCatalogedSummaries(
+			Map<String, MRJobHistoryLoader> histories) {
+		List<String> jobIds = new ArrayList<String>();
+		if (catalog == null)
+			return jobIds;
+
+		for (Entry<String, MRJobHistoryLoader> entry : histories.entrySet()) {
+			MRJobHistoryLoader history = entry.getValue();
+			if (history.isMRJobInfoSummaryLoaded())
+				continue;
+
+			MRJobInfo summary = catalog.getMRJobInfoSummary(entry.getKey(),
+					new File(history.getJobStatFile()));
+			if (summary != null)
+				history.setMRJobInfoSummary(summary);
+			else
+				jobIds.add(entry.getKey());
+		}
+
+		return jobIds;
+	}
+
+	/**
+	 * Add the parsed job summaries to the catalog, if any, and save it
+	 * 
+	 * @param jobIds
+	 *            the ids of the jobs whose summaries were parsed
+	 */
+	private void updateCatalog(List<String> jobIds) {
+		if (catalog == null)
+			return;
+
+		for (String jobId : jobIds) {
+			MRJobHistoryLoader history = jobHistories.get(jobId);
+			if (history.isMRJobInfoSummaryLoaded())
+				catalog.putMRJobInfoSummary(jobId, new File(history
+						.getJobStatFile()), history.getMRJobInfoWithSummary());
+		}
+		catalog.retainAll(jobHistories.keySet());
+
+		if (catalog.isModified()) {
+			try {
+				catalog.save();
+			} catch (IOException e) {
+				System.err.println("Unable to save the job summary catalog "
+						+ catalog.getFile() + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Load the job summaries from the history files. The files are parsed
+	 * concurrently if more than one thread is used, with each thread
+	 * parsing consecutive chunks of histories.
+	 * 
+	 * @param histories
+	 *            the job histories
+	 * @return the jobs populated with their summaries, in the histories order
+	 */
+	private List<MRJobInfo> loadMRJobSummaries(
+			final List<MRJobHistoryLoader> histories) {
+
+		final MRJobInfo[] jobInfos = new MRJobInfo[histories.size()];
+		int threads = Math.min((numThreads > 0) ? numThreads : Runtime
+				.getRuntime().availableProcessors(), histories.size());
+		if (threads <= 1) {
+			for (int i = 0; i < jobInfos.length; ++i)
+				jobInfos[i] = histories.get(i).getMRJobInfoWithSummary();
+			return new ArrayList<MRJobInfo>(Arrays.asList(jobInfos));
+		}
+
+		ExecutorService executor = ThreadPoolUtils.newThreadPool(
+				"history-loader", threads);
+
+		try {
+			// Each history is parsed by a single thread
+			int chunk = (jobInfos.length + threads * CHUNKS_PER_THREAD - 1)
+					/ (threads * CHUNKS_PER_THREAD);
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for (int start = 0; start < jobInfos.length; start += chunk) {
+				final int from = start;
+				final int to = Math.min(start + chunk, jobInfos.length);
+				futures.add(executor.submit(new Callable<Object>() {
+					@Override
+					public Object call() {
+						for (int i = from; i < to; ++i)
+							jobInfos[i] = histories.get(i)
+									.getMRJobInfoWithSummary();
+						return null;
+					}
+				}));
+			}
+
+			ThreadPoolUtils.getResults(futures);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return new ArrayList<MRJobInfo>(Arrays.asList(jobInfos));
+	}
+
 	/**
 	 * Read the files in the history directory and populate the map with the job
 	 * histories. Note that the data in the files are not loaded at this time.
@@ -306,6 +476,7 @@ public class MRJobLogsManager implements IMRInfoManager {
 	 * particular job.
 	 */
 	private void readHistoryDirectory() {
+		startIndex = null;
 		if (historyDir == null)
 			return;
 
@@ -383,4 +554,98 @@ public class MRJobLogsManager implements IMRInfoManager {
 		}
 	}
 
+	/* ***************************************************************
+	 * PRIVATE CLASSES
+	 * ***************************************************************
+	 */
+
+	/**
+	 * An index of the jobs by their start times, for finding the jobs that
+	 * ran within a time interval without checking all the jobs
+	 */
+	private static class StartTimeIndex {
+
+		private List<MRJobInfo> jobs; // The jobs sorted by job id
+		private long[] startTimes; // The sorted start times of the jobs
+		private int[] positions; // The job positions in start time order
+		private long minDuration; // The min duration of the jobs
+
+		/**
+		 * Constructor. Jobs without start or end times are not indexed.
+		 * 
+		 * @param jobs
+		 *            the jobs sorted by job id
+		 */
+		public StartTimeIndex(final List<MRJobInfo> jobs) {
+			this.jobs = jobs;
+
+			List<Integer> sorted = new ArrayList<Integer>(jobs.size());
+			for (int i = 0; i < jobs.size(); ++i) {
+				MRJobInfo job = jobs.get(i);
+				if (job != null && job.getStartTime() != null
+						&& job.getEndTime() != null)
+					sorted.add(i);
+			}
+
+			// Stable sort, so equal start times keep the job id order
+			Collections.sort(sorted, new Comparator<Integer>() {
+				public int compare(Integer o1, Integer o2) {
+					return jobs.get(o1).getStartTime().compareTo(
+							jobs.get(o2).getStartTime());
+				}
+			});
+
+			this.startTimes = new long[sorted.size()];
+			this.positions = new int[sorted.size()];
+			this.minDuration = Long.MAX_VALUE;
+			for (int i = 0; i < positions.length; ++i) {
+				MRJobInfo job = jobs.get(sorted.get(i));
+				positions[i] = sorted.get(i);
+				startTimes[i] = job.getStartTime().getTime();
+				minDuration = Math.min(minDuration, job.getEndTime().getTime()
+						- startTimes[i]);
+			}
+		}
+
+		/**
+		 * @param start
+		 *            the start of the interval (exclusive)
+		 * @param end
+		 *            the end of the interval (exclusive)
+		 * @return the jobs that started and finished within the interval,
+		 *         sorted by job id
+		 */
+		public List<MRJobInfo> getMRJobInfos(Date start, Date end) {
+
+			// Find the first job that started after the start of the interval
+			int low = 0;
+			int high = startTimes.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (startTimes[mid] <= start.getTime())
+					low = mid + 1;
+				else
+					high = mid;
+			}
+
+			// A job that finished before the end must have started before
+			// the end minus the min duration
+			int[] found = new int[startTimes.length - low];
+			int numFound = 0;
+			for (int i = low; i < startTimes.length
+					&& startTimes[i] < end.getTime() - minDuration; ++i) {
+				if (end.after(jobs.get(positions[i]).getEndTime()))
+					found[numFound++] = positions[i];
+			}
+
+			// Return the jobs in job id order
+			Arrays.sort(found, 0, numFound);
+			List<MRJobInfo> result = new ArrayList<MRJobInfo>(numFound);
+			for (int i = 0; i < numFound; ++i)
+				result.add(jobs.get(found[i]));
+
+			return result;
+		}
+	}
+
 }
@@ -0,0 +1,360 @@
+package edu.duke.starfish.profile.profiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.hadoop.io.WritableUtils;
+
+import edu.duke.starfish.profile.profileinfo.execution.MRExecutionStatus;
+import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
+
+/**
+ * A persistent catalog of job summaries (i.e., the job attributes found in
+ * the history files), so that the history files of a job are only parsed
+ * the first time a results directory is opened.
+ * 
+ * The history file of a job is immutable once the job finishes, so only the
+ * summaries of finished jobs are kept. A summary is used only if the name,
+ * the modification time, and the length of the statistics file still match
+ * the ones recorded with the summary. Otherwise, the statistics file is
+ * parsed again and the summary is replaced.
+ * 
+ * The catalog is kept in a compact binary file, which is written to a
+ * temporary file first and then renamed, so a crash while saving keeps the
+ * previous catalog. A catalog file that cannot be read is ignored and
+ * rebuilt.
+ * 
+ * @author hero
+ */
+public class MRJobSummaryCatalog {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private File file; // The catalog file
+	private Map<String, CatalogEntry> entries; // The summaries by job id
+	private boolean modified; // Whether the catalog has unsaved changes
+
+	// CONSTANTS
+	private static final int MAGIC = 0x53464a43; // "SFJC"
+	private static final int VERSION = 1;
+	private static final String DOT_TMP = ".tmp";
+
+	/**
+	 * Constructor. Loads the summaries of an existing catalog file.
+	 * 
+	 * @param file
+	 *            the catalog file
+	 */
+	public MRJobSummaryCatalog(File file) {
+		this.file = file;
+		this.entries = new HashMap<String, CatalogEntry>();
+		this.modified = false;
+
+		if (file.isFile())
+			load();
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @return the catalog file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the number of summaries in the catalog
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return true if the catalog has changed since it was last saved
+	 */
+	public boolean isModified() {
+		return modified;
+	}
+
+	/**
+	 * Get the summary of a job, if the statistics file has not changed since
+	 * the summary was added
+	 * 
+	 * @param jobId
+	 *            the job id
+	 * @param statFile
+	 *            the statistics (history) file of the job
+	 * @return the job populated with its summary, or null if there is no
+	 *         valid summary
+	 */
+	public MRJobInfo getMRJobInfoSummary(String jobId, File statFile) {
+		CatalogEntry entry = entries.get(jobId);
+		if (entry == null || !entry.matches(statFile))
+			return null;
+
+		MRJobInfo job = new MRJobInfo();
+		job.setExecId(entry.execId);
+		job.setName(entry.name);
+		job.setUser(entry.user);
+		job.setStartTime(toDate(entry.startTime));
+		job.setEndTime(toDate(entry.endTime));
+		job.setStatus(entry.status);
+		job.setErrorMsg(entry.errorMsg);
+		return job;
+	}
+
+	/**
+	 * Add the summary of a job. The summaries of jobs that have not finished
+	 * yet are not added, since their statistics files are still growing.
+	 * 
+	 * @param jobId
+	 *            the job id
+	 * @param statFile
+	 *            the statistics (history) file of the job
+	 * @param job
+	 *            the job populated with its summary
+	 * @return true if the summary was added
+	 */
+	public boolean putMRJobInfoSummary(String jobId, File statFile,
+			MRJobInfo job) {
+		if (job == null || !isFinished(job.getStatus()))
+			return false;
+
+		CatalogEntry entry = new CatalogEntry();
+		entry.statFileName = statFile.getName();
+		entry.modTime = statFile.lastModified();
+		entry.length = statFile.length();
+		entry.execId = job.getExecId();
+		entry.name = job.getName();
+		entry.user = job.getUser();
+		entry.startTime = toTime(job.getStartTime());
+		entry.endTime = toTime(job.getEndTime());
+		entry.status = job.getStatus();
+		entry.errorMsg = job.getErrorMsg();
+
+		entries.put(jobId, entry);
+		modified = true;
+		return true;
+	}
+
+	/**
+	 * Remove the summaries of the jobs not in the provided collection (e.g.,
+	 * jobs whose history files were deleted)
+	 * 
+	 * @param jobIds
+	 *            the ids of the jobs to keep
+	 */
+	public void retainAll(Collection<String> jobIds) {
+		if (entries.keySet().retainAll(jobIds))
+			modified = true;
+	}
+
+	/**
+	 * Save the catalog to the catalog file
+	 * 
+	 * @throws IOException
+	 */
+	public void save() throws IOException {
+
+		File tmpFile = new File(file.getAbsolutePath() + DOT_TMP);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(tmpFile)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(entries.size());
+
+			// Write the entries in job id order
+			Map<String, CatalogEntry> sorted =
+				new TreeMap<String, CatalogEntry>(entries);
+			for (Map.Entry<String, CatalogEntry> entry : sorted.entrySet()) {
+				WritableUtils.writeString(out, entry.getKey());
+				entry.getValue().write(out);
+			}
+		} finally {
+			out.close();
+		}
+
+		if (!tmpFile.renameTo(file)) {
+			// Some platforms cannot rename over an existing file
+			file.delete();
+			if (!tmpFile.renameTo(file)) {
+				tmpFile.delete();
+				throw new IOException("Unable to rename " + tmpFile + " to "
+						+ file);
+			}
+		}
+
+		modified = false;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Load the summaries from the catalog file. A file that cannot be read is
+	 * ignored.
+	 */
+	private void load() {
+		Map<String, CatalogEntry> loaded = new HashMap<String, CatalogEntry>();
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+			try {
+				if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+					System.err.println("Ignoring the job summary catalog "
+							+ file + ": unknown format");
+					return;
+				}
+
+				int numEntries = in.readInt();
+				for (int i = 0; i < numEntries; ++i) {
+					String jobId = WritableUtils.readString(in);
+					CatalogEntry entry = new CatalogEntry();
+					entry.readFields(in);
+					loaded.put(jobId, entry);
+				}
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			System.err.println("Ignoring the job summary catalog " + file
+					+ ": " + e);
+			return;
+		} catch (IllegalArgumentException e) {
+			System.err.println("Ignoring the job summary catalog " + file
+					+ ": " + e);
+			return;
+		}
+
+		entries.putAll(loaded);
+	}
+
+	/**
+	 * @param status
+	 *            the execution status of a job
+	 * @return true if the job has finished
+	 */
+	private static boolean isFinished(MRExecutionStatus status) {
+		return status == MRExecutionStatus.SUCCESS
+				|| status == MRExecutionStatus.FAILED
+				|| status == MRExecutionStatus.KILLED;
+	}
+
+	/**
+	 * @param date
+	 *            a date, possibly null
+	 * @return the time of the date in ms, or -1 for null
+	 */
+	private static long toTime(Date date) {
+		return (date == null) ? -1l : date.getTime();
+	}
+
+	/**
+	 * @param time
+	 *            a time in ms, or -1
+	 * @return the date, or null for -1
+	 */
+	private static Date toDate(long time) {
+		return (time == -1l) ? null : new Date(time);
+	}
+
+	/* ***************************************************************
+	 * PRIVATE CLASSES
+	 * ***************************************************************
+	 */
+
+	/**
+	 * The summary of a job along with the state of its statistics file
+	 */
+	private static class CatalogEntry {
+
+		private String statFileName; // The name of the statistics file
+		private long modTime; // The modification time of the statistics file
+		private long length; // The length of the statistics file
+
+		private String execId; // The execution id
+		private String name; // The job name
+		private String user; // The user
+		private long startTime; // The start time (-1 if not set)
+		private long endTime; // The end time (-1 if not set)
+		private MRExecutionStatus status; // The execution status
+		private String errorMsg; // The error message
+
+		/**
+		 * @param statFile
+		 *            the statistics file of the job
+		 * @return true if the statistics file has not changed
+		 */
+		public boolean matches(File statFile) {
+			return statFileName.equals(statFile.getName())
+					&& length == statFile.length()
+					&& modTime == statFile.lastModified();
+		}
+
+		/**
+		 * @param out
+		 *            the output
+		 * @throws IOException
+		 */
+		public void write(DataOutputStream out) throws IOException {
+			WritableUtils.writeString(out, statFileName);
+			WritableUtils.writeVLong(out, modTime);
+			WritableUtils.writeVLong(out, length);
+
+			WritableUtils.writeString(out, execId);
+			WritableUtils.writeString(out, name);
+			WritableUtils.writeString(out, user);
+			WritableUtils.writeVLong(out, startTime);
+			WritableUtils.writeVLong(out, endTime);
+			WritableUtils.writeString(out, status == null ? null : status
+					.name());
+			WritableUtils.writeString(out, errorMsg);
+		}
+
+		/**
+		 * @param in
+		 *            the input
+		 * @throws IOException
+		 */
+		public void readFields(DataInputStream in) throws IOException {
+			statFileName = WritableUtils.readString(in);
+			modTime = WritableUtils.readVLong(in);
+			length = WritableUtils.readVLong(in);
+
+			execId = WritableUtils.readString(in);
+			name = WritableUtils.readString(in);
+			user = WritableUtils.readString(in);
+			startTime = WritableUtils.readVLong(in);
+			endTime = WritableUtils.readVLong(in);
+			String statusName = WritableUtils.readString(in);
+			status = (statusName == null) ? null : MRExecutionStatus
+					.valueOf(statusName);
+			errorMsg = WritableUtils.readString(in);
+
+			if (statFileName == null)
+				throw new IOException("Missing statistics file name");
+		}
+	}
+
+}
@@ -22,6 +22,7 @@ import edu.duke.starfish.profile.profileinfo.execution.mrtaskattempts.MRReduceAt
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
 import edu.duke.starfish.profile.profileinfo.metrics.DataTransfer;
 import edu.duke.starfish.profile.profiler.loaders.SysStatsLoader;
+import edu.duke.starfish.profile.utils.BinaryProfileParser;
 import edu.duke.starfish.profile.utils.GeneralUtils;
 import edu.duke.starfish.profile.utils.ProfileUtils;
 import edu.duke.starfish.profile.utils.XMLProfileParser;
@@ -60,6 +61,8 @@ import edu.duke.starfish.profile.utils.XMLProfileParser;
  *   -mode iostats   -monitor &lt;dir&gt; -node <node_name> 
  *     [-job &lt;job_id&gt; -results &lt;dir&gt;] [-output &lt;file&gt;]
  * 
+ *   -mode convert   -profile &lt;file&gt; -output &lt;file&gt;
+ * 
  * Description of execution modes:
  *   list_all      List all available jobs
  *   list_stats    List stats for all available jobs
@@ -77,6 +80,7 @@ import edu.duke.starfish.profile.utils.XMLProfileParser;
  *   cpustats      Display CPU stats of a node
  *   memstats      Display Memory stats of a node
  *   iostats       Display I/O stats of a node
+ *   convert       Convert a job profile between the XML and binary formats
  * 
  * Description of parameter flags:
  *   -mode &lt;option&gt;    The execution mode
@@ -86,6 +90,7 @@ import edu.duke.starfish.profile.utils.XMLProfileParser;
  *   -node &lt;node_name$gt; The node name of interest (for monitor info)
  *   -job1 &lt;job_id&gt;    The job id for job run without compression
  *   -job2 &lt;job_id&gt;    The job id for job run with compression
+ *   -profile &lt;file&gt;   A job profile file (XML or binary)
  *   -output &lt;file&gt;    An optional file to write the output to
  *   -help                   Display detailed instructions
  * 
@@ -108,6 +113,7 @@ public class ProfilerDriver {
 	private static String NODE = "node";
 	private static String JOB1 = "job1";
 	private static String JOB2 = "job2";
+	private static String PROFILE_FILE = "profile";
 	private static String OUTPUT = "output";
 	private static String HELP = "help";
 
@@ -128,6 +134,7 @@ public class ProfilerDriver {
 	private static String CPU_STATS = "cpustats";
 	private static String MEM_STATS = "memstats";
 	private static String IO_STATS = "iostats";
+	private static String CONVERT = "convert";
 
 	// Other constants
 	private static String TAB = "\t";
@@ -400,6 +407,22 @@ public class ProfilerDriver {
 				System.err.println("Unable to export the I/O stats");
 				System.exit(-1);
 			}
+
+		} else if (mode.equals(CONVERT)) {
+			// Convert the profile to the other format
+			File profFile = new File(line.getOptionValue(PROFILE_FILE));
+			boolean isBinary = BinaryProfileParser.isBinaryProfile(profFile);
+			MRJobProfile profile = ProfileUtils.importJobProfile(profFile);
+			if (profile == null) {
+				System.err.println("Unable to load the profile from "
+						+ profFile.getAbsolutePath());
+				System.exit(-1);
+			}
+
+			if (isBinary)
+				XMLProfileParser.exportJobProfile(profile, out);
+			else
+				BinaryProfileParser.exportJobProfile(profile, out);
 		}
 
 		out.close();
@@ -438,6 +461,9 @@ public class ProfilerDriver {
 		Option nodeOption = OptionBuilder.withArgName("node_name").hasArg()
 				.withDescription("The node name of interest").create(NODE);
 
+		Option profileOption = OptionBuilder.withArgName("filepath").hasArg()
+				.withDescription("A job profile file").create(PROFILE_FILE);
+
 		Option outputOption = OptionBuilder.withArgName("filepath").hasArg()
 				.withDescription("An output file to print to").create(OUTPUT);
 		Option helpOption = OptionBuilder.withArgName("help").create(HELP);
@@ -451,6 +477,7 @@ public class ProfilerDriver {
 		opts.addOption(nodeOption);
 		opts.addOption(job1Option);
 		opts.addOption(job2Option);
+		opts.addOption(profileOption);
 		opts.addOption(outputOption);
 		opts.addOption(helpOption);
 
@@ -665,6 +692,19 @@ public class ProfilerDriver {
 				printUsage(System.err);
 				System.exit(-1);
 			}
+		}
+		// -mode convert -profile <file> -output <file>
+		else if (mode.equals(CONVERT)) {
+			if (!line.hasOption(PROFILE_FILE)) {
+				System.err.println("The 'profile' option is required");
+				printUsage(System.err);
+				System.exit(-1);
+			}
+			if (!line.hasOption(OUTPUT)) {
+				System.err.println("The 'output' option is required");
+				printUsage(System.err);
+				System.exit(-1);
+			}
 		} else {
 			System.err.println("The mode option is not supported: " + mode);
 			printUsage(System.err);
@@ -810,7 +850,7 @@ public class ProfilerDriver {
 		out.println("  bin/hadoop jar starfish_profiler.jar <parameters>");
 		out.println();
 		out.println("The profiler parameters must be "
-				+ "one of the following six cases:");
+				+ "one of the following seven cases:");
 		out.println("  -mode {list_all|list_stats}");
 		out.println("    -results <dir> [-ouput <file>]");
 		out.println();
@@ -830,6 +870,9 @@ public class ProfilerDriver {
 		out.println("    -monitor <dir> -node <node_name> ");
 		out.println("    [-job <job_id> -results <dir>] [-output <file>]");
 		out.println();
+		out.println("  -mode convert");
+		out.println("    -profile <file> -output <file>");
+		out.println();
 		out.println("  -help");
 		out.println();
 	}
@@ -876,6 +919,8 @@ public class ProfilerDriver {
 		out.println("  -mode iostats   -monitor <dir> -node <node_name> ");
 		out.println("     [-job <job_id> -results <dir>] [-output <file>]");
 		out.println();
+		out.println("  -mode convert   -profile <file> -output <file>");
+		out.println();
 		out.println("Description of execution modes:");
 		out.println("  list_all     List all available jobs");
 		out.println("  list_stats   List stats for all available jobs");
@@ -896,6 +941,8 @@ public class ProfilerDriver {
 		out.println("  cpustats     Display CPU stats of a node");
 		out.println("  memstats     Display Memory stats of a node");
 		out.println("  iostats      Display I/O stats of a node");
+		out.println("  convert      "
+				+ "Convert a profile between XML and binary formats");
 		out.println();
 		out.println("Description of parameter flags:");
 		out.println("  -mode <option>    The execution mode");
@@ -910,6 +957,8 @@ public class ProfilerDriver {
 				+ "The job id for job run with compression");
 		out.println("  -node <node_name> "
 				+ "The node name of interest (for monitor info)");
+		out.println("  -profile <file>   "
+				+ "A job profile file (XML or binary)");
 		out.println("  -output <file>    "
 				+ "An optional file to write the output to");
 		out.println("  -help             Display detailed instructions");
@@ -186,6 +186,42 @@ public class MRJobHistoryLoader {
 		return hadoopConf;
 	}
 
+	/**
+	 * @return the path to the job statistics (history) file
+	 */
+	public String getJobStatFile() {
+		return jobStatFile;
+	}
+
+	/**
+	 * @return true if the job's attributes have been loaded
+	 */
+	public boolean isMRJobInfoSummaryLoaded() {
+		return summaryDataLoaded;
+	}
+
+	/**
+	 * Sets the job's attributes (no task data) from a summary loaded earlier,
+	 * e.g., from a job summary catalog, so that the statistics file is not
+	 * parsed for the summary. The task data can still be loaded later.
+	 * 
+	 * @param summary
+	 *            the job with the attributes to set
+	 */
+	public void setMRJobInfoSummary(MRJobInfo summary) {
+		if (summaryDataLoaded == true)
+			return;
+
+		mrJobInfo.setExecId(summary.getExecId());
+		mrJobInfo.setName(summary.getName());
+		mrJobInfo.setUser(summary.getUser());
+		mrJobInfo.setStartTime(summary.getStartTime());
+		mrJobInfo.setEndTime(summary.getEndTime());
+		mrJobInfo.setStatus(summary.getStatus());
+		mrJobInfo.setErrorMsg(summary.getErrorMsg());
+		summaryDataLoaded = true;
+	}
+
 	/**
 	 * Load the cluster configuration from the files into the input object
 	 * 
@@ -1,26 +1,39 @@
 package edu.duke.starfish.profile.profiler.loaders;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.hadoop.conf.Configuration;
 
 import edu.duke.starfish.profile.profileinfo.execution.MRExecutionStatus;
 import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
 import edu.duke.starfish.profile.profileinfo.execution.mrtaskattempts.MRMapAttemptInfo;
-import edu.duke.starfish.profile.profileinfo.execution.mrtaskattempts.MRReduceAttemptInfo;
 import edu.duke.starfish.profile.profileinfo.execution.mrtaskattempts.MRTaskAttemptInfo;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRMapProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRReduceProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
+import edu.duke.starfish.profile.profiler.MRJobLogsManager;
 import edu.duke.starfish.profile.profiler.loaders.tasks.MRMapProfileLoader;
 import edu.duke.starfish.profile.profiler.loaders.tasks.MRReduceProfileLoader;
 import edu.duke.starfish.profile.utils.ProfileUtils;
+import edu.duke.starfish.profile.utils.ThreadPoolUtils;
 
 /**
  * This class is responsible for parsing the BTrace profile files for all the
  * job's tasks and calculating all the profile information.
  * 
+ * The profile files of the tasks are independent, so they are parsed and
+ * the task profiles are calculated concurrently if more than one thread is
+ * used. The task profiles are then added to the job profile by the calling
+ * thread in the order of the tasks, so the job profile is the same for any
+ * number of threads. By default, the tasks are loaded serially, unless the
+ * "starfish.profiler.num.threads" system property is set.
+ * 
  * @author hero
  */
 public class MRTaskProfilesLoader {
@@ -34,12 +47,14 @@ public class MRTaskProfilesLoader {
 	private MRJobInfo mrJob; // The MR job
 	private Configuration conf; // The hadoop configuration
 	private String inputDir; // the profiles or userlogs directory
+	private int numThreads; // The number of threads for loading the tasks
 
 	private boolean loaded; // Whether the files are loaded or not
 
 	// CONSTANTS
 	private static String PROFILE_OUT = "profile.out";
 	private static String DOT_PROFILE = ".profile";
+	private static final int CHUNKS_PER_THREAD = 4;
 
 	/**
 	 * Constructor
@@ -59,6 +74,8 @@ public class MRTaskProfilesLoader {
 		this.mrJob = mrJob;
 		this.conf = conf;
 		this.inputDir = inputDir;
+		this.numThreads = Math.max(1, Integer.getInteger(
+				MRJobLogsManager.NUM_THREADS, 1));
 		this.loaded = false;
 	}
 
@@ -91,6 +108,22 @@ public class MRTaskProfilesLoader {
 		return inputDir;
 	}
 
+	/**
+	 * @param numThreads
+	 *            the number of threads for loading the task profiles (1 to
+	 *            load them serially, the default)
+	 */
+	public void setNumThreads(int numThreads) {
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	/**
+	 * @return the number of threads for loading the task profiles
+	 */
+	public int getNumThreads() {
+		return numThreads;
+	}
+
 	/**
 	 * Load the execution profiles for all the tasks in this job (for the tasks
 	 * a profile file exists) and aggregates the job's profile
@@ -117,22 +150,25 @@ public class MRTaskProfilesLoader {
 			return false;
 		}
 
-		// Set the input paths
+		// Load the map and reduce profiles
+		List<MRTaskAttemptInfo> tasks = new ArrayList<MRTaskAttemptInfo>();
+		tasks.addAll(mrJob.getMapAttempts(MRExecutionStatus.SUCCESS));
+		tasks.addAll(mrJob.getReduceAttempts(MRExecutionStatus.SUCCESS));
+		boolean[] loadedTasks = loadTaskExecutionProfiles(filesDir, tasks);
+
+		// Add the loaded profiles to the job profile
 		MRJobProfile profile = new MRJobProfile(mrJob.getExecId());
 		boolean success = false;
+		for (int i = 0; i < loadedTasks.length; ++i) {
+			if (!loadedTasks[i])
+				continue;
 
-		// Load the map profiles
-		for (MRMapAttemptInfo mrMap : mrJob
-				.getMapAttempts(MRExecutionStatus.SUCCESS)) {
-			success = loadTaskExecutionProfile(profile, filesDir, mrMap, true)
-					|| success;
-		}
-
-		// Load the reduce profiles
-		for (MRReduceAttemptInfo mrReduce : mrJob
-				.getReduceAttempts(MRExecutionStatus.SUCCESS)) {
-			success = loadTaskExecutionProfile(profile, filesDir, mrReduce,
-					false) || success;
+			MRTaskAttemptInfo task = tasks.get(i);
+			if (task instanceof MRMapAttemptInfo)
+				profile.addMapProfile((MRMapProfile) task.getProfile());
+			else
+				profile.addReduceProfile((MRReduceProfile) task.getProfile());
+			success = true;
 		}
 
 		if (success) {
@@ -165,6 +201,59 @@ public class MRTaskProfilesLoader {
 	 * ***************************************************************
 	 */
 
+	/**
+	 * Loads the execution profiles for the tasks. The tasks are loaded
+	 * concurrently if more than one thread is used, with each thread loading
+	 * consecutive chunks of tasks.
+	 * 
+	 * @param filesDir
+	 *            the profiles or userlogs directory
+	 * @param tasks
+	 *            the tasks to profile
+	 * @return whether the profile of each task was loaded successfully
+	 */
+	private boolean[] loadTaskExecutionProfiles(final File filesDir,
+			final List<MRTaskAttemptInfo> tasks) {
+
+		final boolean[] loadedTasks = new boolean[tasks.size()];
+		int threads = Math.min(numThreads, tasks.size());
+		if (threads <= 1) {
+			for (int i = 0; i < loadedTasks.length; ++i)
+				loadedTasks[i] = loadTaskExecutionProfile(filesDir, tasks
+						.get(i));
+			return loadedTasks;
+		}
+
+		ExecutorService executor = ThreadPoolUtils.newThreadPool(
+				"profile-loader", threads);
+
+		try {
+			// Each task is loaded by a single thread
+			int chunk = (loadedTasks.length + threads * CHUNKS_PER_THREAD - 1)
+					/ (threads * CHUNKS_PER_THREAD);
+			List<Future<Object>> futures = new ArrayList<Future<Object>>();
+			for (int start = 0; start < loadedTasks.length; start += chunk) {
+				final int from = start;
+				final int to = Math.min(start + chunk, loadedTasks.length);
+				futures.add(executor.submit(new Callable<Object>() {
+					@Override
+					public Object call() {
+						for (int i = from; i < to; ++i)
+							loadedTasks[i] = loadTaskExecutionProfile(
+									filesDir, tasks.get(i));
+						return null;
+					}
+				}));
+			}
+
+			ThreadPoolUtils.getResults(futures);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return loadedTasks;
+	}
+
 	/**
 	 * Loads the execution profile for a task (for which a profile file exists).
 	 * 
@@ -172,12 +261,10 @@ public class MRTaskProfilesLoader {
 	 *            the profiles or userlogs directory
 	 * @param task
 	 *            the task to profile
-	 * @param isMapTask
-	 *            if the task is map or reduce
-	 * @return true if all task profiles were loaded successfully
+	 * @return true if the task profile was loaded successfully
 	 */
-	private boolean loadTaskExecutionProfile(MRJobProfile profile,
-			File filesDir, MRTaskAttemptInfo task, boolean isMapTask) {
+	private boolean loadTaskExecutionProfile(File filesDir,
+			MRTaskAttemptInfo task) {
 
 		// Build the profile file path, which will be one of two options:
 		// (a) filesDir/attemptDir/profile.out
@@ -194,24 +281,17 @@ public class MRTaskProfilesLoader {
 			return false;
 
 		// Load the profile for the task
-		if (isMapTask) {
+		if (task instanceof MRMapAttemptInfo) {
 			MRMapProfile mapProfile = (MRMapProfile) task.getProfile();
 			MRMapProfileLoader loader = new MRMapProfileLoader(mapProfile,
 					conf, profileFile.getAbsolutePath());
-			if (loader.loadExecutionProfile(mapProfile)) {
-				profile.addMapProfile(mapProfile);
-				return true;
-			}
+			return loader.loadExecutionProfile(mapProfile);
 		} else {
 			MRReduceProfile reduceProfile = (MRReduceProfile) task.getProfile();
 			MRReduceProfileLoader loader = new MRReduceProfileLoader(
 					reduceProfile, conf, profileFile.getAbsolutePath());
-			if (loader.loadExecutionProfile(reduceProfile)) {
-				profile.addReduceProfile(reduceProfile);
-				return true;
-			}
+			return loader.loadExecutionProfile(reduceProfile);
 		}
-		return false;
 	}
 
 }
@@ -0,0 +1,424 @@
+package edu.duke.starfish.profile.profiler.loaders.tasks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.util.EnumMap;
+import java.util.Map.Entry;
+
+import edu.duke.starfish.profile.profiler.loaders.tasks.MRTaskProfileLoader.ProfileFormatException;
+import edu.duke.starfish.profile.profiler.loaders.tasks.MRTaskProfileLoader.ProfileToken;
+
+/**
+ * A parser for the BTrace task profile files, which contain one profile
+ * record per line in the form "token TAB process TAB value".
+ * 
+ * The file is memory-mapped (or read at once, if small) and scanned once
+ * for the tabs and the line terminators. The tokens are matched against the
+ * bytes of the token names, the values are parsed directly from the bytes,
+ * and the process names are decoded only the first time they are found in a
+ * file. Each record is added directly to the {@link ProfileRecordGroups}
+ * of its token, so no strings or records are created per line. The records
+ * are produced exactly as by reading the file line by line and splitting
+ * each line on tabs.
+ * 
+ * @author hero
+ */
+public class BTraceProfileParser {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private ByteBuffer buffer; // The file contents
+	private Charset charset; // The charset of the file
+	private ProfileRecordGroups[] groups; // The record groups by token
+	private String[] names; // The process names by hash (open addressing)
+	private int[] nameStarts; // The start positions of the process names
+	private int[] nameEnds; // The end positions of the process names
+	private int numNames; // The number of process names
+	private int[] fieldEnds; // The ends of the fields in the current line
+
+	// CONSTANTS
+	private static final long MAP_THRESHOLD = 1l << 16;
+	private static final byte TAB = '\t';
+	private static final byte LF = '\n';
+	private static final byte CR = '\r';
+	private static final ProfileToken[] TOKENS = ProfileToken.values();
+	private static final byte[][] TOKEN_NAMES = new byte[TOKENS.length][];
+	private static final byte[] SETUP = MRTaskProfileLoader.SETUP.getBytes();
+
+	static {
+		for (int i = 0; i < TOKENS.length; ++i)
+			TOKEN_NAMES[i] = TOKENS[i].name().getBytes();
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param buffer
+	 *            the file contents
+	 * @param charset
+	 *            the charset of the file
+	 * @param groups
+	 *            the record groups of the tokens of interest
+	 */
+	private BTraceProfileParser(ByteBuffer buffer, Charset charset,
+			EnumMap<ProfileToken, ? extends ProfileRecordGroups> groups) {
+		this.buffer = buffer;
+		this.charset = charset;
+		this.groups = new ProfileRecordGroups[TOKENS.length];
+		for (Entry<ProfileToken, ? extends ProfileRecordGroups> entry : groups
+				.entrySet())
+			this.groups[entry.getKey().ordinal()] = entry.getValue();
+		this.names = new String[64];
+		this.nameStarts = new int[64];
+		this.nameEnds = new int[64];
+		this.numNames = 0;
+		this.fieldEnds = new int[3];
+	}
+
+	/* ***************************************************************
+	 * PUBLIC STATIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Parses a BTrace profile file and adds each profile record to the record
+	 * groups of its token. The records of the other tokens are validated but
+	 * not kept. Lines with invalid tokens are reported and skipped.
+	 * 
+	 * @param profileFile
+	 *            the path to the profile file
+	 * @param groups
+	 *            the record groups of the tokens of interest
+	 * @return false if the file is a memory profile or cannot be read
+	 * @throws ProfileFormatException
+	 *             if the file is not correctly formatted
+	 */
+	public static boolean parse(String profileFile,
+			EnumMap<ProfileToken, ? extends ProfileRecordGroups> groups)
+			throws ProfileFormatException {
+
+		// Map the file in memory
+		FileInputStream in;
+		try {
+			in = new FileInputStream(new File(profileFile));
+		} catch (FileNotFoundException e) {
+			System.err.println("Unable to find file: " + profileFile);
+			return false;
+		}
+
+		try {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("Profile file too large: " + profileFile);
+
+			// Small files are cheaper to read than to map
+			ByteBuffer buffer;
+			if (size < MAP_THRESHOLD) {
+				buffer = ByteBuffer.allocate((int) size);
+				while (buffer.hasRemaining() && channel.read(buffer) != -1)
+					;
+				buffer.flip();
+			} else {
+				buffer = channel.map(MapMode.READ_ONLY, 0, size);
+			}
+
+			return parse(buffer, Charset.defaultCharset(), groups);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return false;
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Parses the contents of a BTrace profile file and adds each profile
+	 * record to the record groups of its token. The records of the other
+	 * tokens are validated but not kept. Lines with invalid tokens are
+	 * reported and skipped.
+	 * 
+	 * @param buffer
+	 *            the file contents (from the position to the limit)
+	 * @param charset
+	 *            the charset of the file
+	 * @param groups
+	 *            the record groups of the tokens of interest
+	 * @return false if the file is a memory profile
+	 * @throws ProfileFormatException
+	 *             if the file is not correctly formatted
+	 */
+	public static boolean parse(ByteBuffer buffer, Charset charset,
+			EnumMap<ProfileToken, ? extends ProfileRecordGroups> groups)
+			throws ProfileFormatException {
+		return new BTraceProfileParser(buffer, charset, groups).parseRecords();
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Parses the profile records, one line at a time
+	 * 
+	 * @return false if the file is a memory profile
+	 * @throws ProfileFormatException
+	 *             if the file is not correctly formatted
+	 */
+	private boolean parseRecords() throws ProfileFormatException {
+
+		int limit = buffer.limit();
+		int start = buffer.position();
+		while (start < limit) {
+
+			// Find the end of the line (like BufferedReader.readLine) and
+			// the ends of the token, process, and value fields
+			int end = start;
+			int numTabs = 0;
+			int[] tabs = fieldEnds;
+			byte b = 0;
+			for (; end < limit; ++end) {
+				b = buffer.get(end);
+				if (b == LF || b == CR)
+					break;
+				if (b == TAB && numTabs < tabs.length)
+					tabs[numTabs++] = end;
+			}
+			for (int i = numTabs; i < tabs.length; ++i)
+				tabs[i] = end;
+			int tokenEnd = tabs[0];
+
+			// Check for and ignore a memory profile
+			if (equalsBytes(start, tokenEnd, SETUP))
+				return false;
+
+			ProfileToken token = findToken(start, tokenEnd);
+			if (token == null) {
+				// Output error and skip invalid lines
+				System.err.println("Invalid profile line: "
+						+ decode(start, end));
+			} else if (!parseRecord(groups[token.ordinal()], tokenEnd,
+					tabs[1], tabs[2], end)) {
+				throw new ProfileFormatException("Invalid profile line: "
+						+ decode(start, end));
+			}
+
+			// Move to the next line
+			if (b == CR && end + 1 < limit && buffer.get(end + 1) == LF)
+				start = end + 2;
+			else
+				start = end + 1;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Parses the process and the value of a profile record and adds the
+	 * record to the record groups of its token
+	 * 
+	 * @param records
+	 *            the record groups of the token (null to skip the record)
+	 * @param tokenEnd
+	 *            the end of the token
+	 * @param processEnd
+	 *            the end of the process
+	 * @param valueEnd
+	 *            the end of the value
+	 * @param end
+	 *            the end of the line
+	 * @return false if the process or the value is missing or the value is
+	 *         not a valid long
+	 */
+	private boolean parseRecord(ProfileRecordGroups records, int tokenEnd,
+			int processEnd, int valueEnd, int end) {
+
+		if (tokenEnd >= end || processEnd >= end)
+			return false;
+
+		// Parse the value like Long.parseLong (accumulating negatively)
+		int pos = processEnd + 1;
+		if (pos >= valueEnd)
+			return false;
+
+		boolean negative = false;
+		long limit = -Long.MAX_VALUE;
+		byte first = buffer.get(pos);
+		if (first == '-' || first == '+') {
+			negative = (first == '-');
+			if (negative)
+				limit = Long.MIN_VALUE;
+			if (++pos == valueEnd)
+				return false;
+		}
+
+		long multLimit = limit / 10;
+		long result = 0l;
+		for (; pos < valueEnd; ++pos) {
+			int digit = buffer.get(pos) - '0';
+			if (digit < 0 || digit > 9 || result < multLimit)
+				return false;
+			result *= 10;
+			if (result < limit + digit)
+				return false;
+			result -= digit;
+		}
+
+		if (records != null)
+			records.addRecord(getProcessName(tokenEnd + 1, processEnd),
+					negative ? result : -result);
+		return true;
+	}
+
+	/**
+	 * @param start
+	 *            the start position
+	 * @param end
+	 *            the end position
+	 * @param bytes
+	 *            the bytes to compare with
+	 * @return true if the bytes in [start, end) are equal to the given bytes
+	 */
+	private boolean equalsBytes(int start, int end, byte[] bytes) {
+		if (end - start != bytes.length)
+			return false;
+		for (int i = 0; i < bytes.length; ++i) {
+			if (buffer.get(start + i) != bytes[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @param start
+	 *            the start position
+	 * @param end
+	 *            the end position
+	 * @return the profile token with the name in [start, end), or null
+	 */
+	private ProfileToken findToken(int start, int end) {
+		for (int i = 0; i < TOKENS.length; ++i) {
+			if (equalsBytes(start, end, TOKEN_NAMES[i]))
+				return TOKENS[i];
+		}
+		return null;
+	}
+
+	/**
+	 * Get the process name in [start, end). A name is decoded only the first
+	 * time it is found, and the same string is returned afterwards.
+	 * 
+	 * @param start
+	 *            the start position
+	 * @param end
+	 *            the end position
+	 * @return the process name
+	 */
+	private String getProcessName(int start, int end) {
+
+		int mask = names.length - 1;
+		int slot = hash(start, end) & mask;
+		while (names[slot] != null) {
+			if (equalsBytes(start, end, nameStarts[slot], nameEnds[slot]))
+				return names[slot];
+			slot = (slot + 1) & mask;
+		}
+
+		String name = decode(start, end);
+		names[slot] = name;
+		nameStarts[slot] = start;
+		nameEnds[slot] = end;
+		if (++numNames > names.length / 2)
+			rehash();
+		return name;
+	}
+
+	/**
+	 * @param start1
+	 *            the start of the first range
+	 * @param end1
+	 *            the end of the first range
+	 * @param start2
+	 *            the start of the second range
+	 * @param end2
+	 *            the end of the second range
+	 * @return true if the bytes in the two ranges are equal
+	 */
+	private boolean equalsBytes(int start1, int end1, int start2, int end2) {
+		if (end1 - start1 != end2 - start2)
+			return false;
+		for (int i = 0; i < end1 - start1; ++i) {
+			if (buffer.get(start1 + i) != buffer.get(start2 + i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Double the size of the process names table
+	 */
+	private void rehash() {
+		String[] oldNames = names;
+		int[] oldStarts = nameStarts;
+		int[] oldEnds = nameEnds;
+		names = new String[oldNames.length * 2];
+		nameStarts = new int[oldNames.length * 2];
+		nameEnds = new int[oldNames.length * 2];
+
+		int mask = names.length - 1;
+		for (int i = 0; i < oldNames.length; ++i) {
+			if (oldNames[i] == null)
+				continue;
+
+			int slot = hash(oldStarts[i], oldEnds[i]) & mask;
+			while (names[slot] != null)
+				slot = (slot + 1) & mask;
+			names[slot] = oldNames[i];
+			nameStarts[slot] = oldStarts[i];
+			nameEnds[slot] = oldEnds[i];
+		}
+	}
+
+	/**
+	 * @param start
+	 *            the start position
+	 * @param end
+	 *            the end position
+	 * @return the hash code of the bytes in [start, end)
+	 */
+	private int hash(int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; ++i)
+			hash = 31 * hash + buffer.get(i);
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * @param start
+	 *            the start position
+	 * @param end
+	 *            the end position
+	 * @return the string decoded from the bytes in [start, end)
+	 */
+	private String decode(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; ++i)
+			bytes[i] = buffer.get(start + i);
+		return new String(bytes, charset);
+	}
+
+}
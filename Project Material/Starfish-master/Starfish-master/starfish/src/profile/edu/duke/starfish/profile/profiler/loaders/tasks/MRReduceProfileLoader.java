@@ -10,7 +10,7 @@ import static edu.duke.starfish.profile.utils.Constants.MR_TOF;
 import static edu.duke.starfish.profile.utils.Constants.MR_TSOF;
 import static edu.duke.starfish.profile.utils.Constants.PIG_POF;
 
-import java.util.List;
+import java.util.EnumMap;
 
 import org.apache.hadoop.conf.Configuration;
 
@@ -23,8 +23,8 @@ import edu.duke.starfish.profile.utils.ProfileUtils;
 
 /**
  * This class represents the profile for a single reduce attempt. It contains
- * all the logic for calculating the task's statistics and costs given lists of
- * profile records.
+ * all the logic for calculating the task's statistics and costs given the
+ * groups of profile records.
  * 
  * @author hero
  */
@@ -35,11 +35,11 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 	 * ***************************************************************
 	 */
 
-	// Lists with the records from the profile file
-	private List<ProfileRecord> shuffleRecords;
-	private List<ProfileRecord> reduceRecords;
-	private List<ProfileRecord> sortRecords;
-	private List<ProfileRecord> mergeRecords;
+	// Groups with the records from the profile file
+	private ShuffleRecordGroups shuffleRecords;
+	private ProfileRecordGroups reduceRecords;
+	private ProfileRecordGroups sortRecords;
+	private ProfileRecordGroups mergeRecords;
 
 	// CONSTANTS FOR THE SHUFFLE PHASE
 	private static final int NUM_SHUFFLE_PHASES = 4;
@@ -98,12 +98,6 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 	public MRReduceProfileLoader(MRReduceProfile profile, Configuration conf,
 			String profileFile) {
 		super(profile, conf, profileFile);
-
-		// Initialize all records to be empty
-		shuffleRecords = EMPTY_RECORDS;
-		reduceRecords = EMPTY_RECORDS;
-		sortRecords = EMPTY_RECORDS;
-		mergeRecords = EMPTY_RECORDS;
 	}
 
 	/* ***************************************************************
@@ -111,6 +105,22 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 	 * ***************************************************************
 	 */
 
+	@Override
+	protected EnumMap<ProfileToken, ProfileRecordGroups> createRecordGroups() {
+		shuffleRecords = new ShuffleRecordGroups();
+		reduceRecords = new ProfileRecordGroups(NUM_REDUCE_PHASES);
+		sortRecords = new ProfileRecordGroups(NUM_SORT_PHASES);
+		mergeRecords = new ProfileRecordGroups(NUM_MERGE_PHASES);
+
+		EnumMap<ProfileToken, ProfileRecordGroups> groups =
+			new EnumMap<ProfileToken, ProfileRecordGroups>(ProfileToken.class);
+		groups.put(ProfileToken.SHUFFLE, shuffleRecords);
+		groups.put(ProfileToken.REDUCE, reduceRecords);
+		groups.put(ProfileToken.SORT, sortRecords);
+		groups.put(ProfileToken.MERGE, mergeRecords);
+		return groups;
+	}
+
 	@Override
 	protected boolean loadExecutionProfile() throws ProfileFormatException {
 		// Get and validate the profile records
@@ -148,13 +158,13 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 				MRCounter.REDUCE_OUTPUT_RECORDS, 0l);
 
 		// Calculate the number of shuffle bytes
-		long shuffleBytes = aggregateRecordValues(shuffleRecords,
-				NUM_SHUFFLE_PHASES, POS_SHUFFLE_COMPR_BYTE_COUNT);
+		long shuffleBytes = shuffleRecords
+				.getSum(POS_SHUFFLE_COMPR_BYTE_COUNT);
 		profile.addCounter(MRCounter.REDUCE_SHUFFLE_BYTES, shuffleBytes);
 
 		// Calculate the number of reduce input bytes
-		long reduceInputBytes = aggregateRecordValues(shuffleRecords,
-				NUM_SHUFFLE_PHASES, POS_SHUFFLE_UNCOMPR_BYTE_COUNT);
+		long reduceInputBytes = shuffleRecords
+				.getSum(POS_SHUFFLE_UNCOMPR_BYTE_COUNT);
 		profile.addCounter(MRCounter.REDUCE_INPUT_BYTES, reduceInputBytes);
 
 		// Calculate the number of reduce output bytes
@@ -165,22 +175,22 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 				|| outputFormat.equals(MR_TSOF)
 				|| outputFormat.equals(MR_SFTOF)) {
 			// Equals keys + values + separator + newline
-			reduceOutputBytes = reduceRecords.get(POS_REDUCE_KEY_BYTE_COUNT)
-					.getValue()
-					+ reduceRecords.get(POS_REDUCE_VALUE_BYTE_COUNT).getValue()
+			reduceOutputBytes = reduceRecords
+					.getValue(POS_REDUCE_KEY_BYTE_COUNT)
+					+ reduceRecords.getValue(POS_REDUCE_VALUE_BYTE_COUNT)
 					+ 2 * reduceOutputPairs;
 		} else if (outputFormat.equals(MR_TBOF)) {
 			// Equals keys + values
-			reduceOutputBytes = reduceRecords.get(POS_REDUCE_KEY_BYTE_COUNT)
-					.getValue()
-					+ reduceRecords.get(POS_REDUCE_VALUE_BYTE_COUNT).getValue();
+			reduceOutputBytes = reduceRecords
+					.getValue(POS_REDUCE_KEY_BYTE_COUNT)
+					+ reduceRecords.getValue(POS_REDUCE_VALUE_BYTE_COUNT);
 
 			// Might not need this...
 			profile.addCounter(MRCounter.HDFS_BYTES_WRITTEN, reduceOutputBytes);
 		} else if (outputFormat.equals(PIG_POF)) {
 			// Equals values
-			reduceOutputBytes = reduceRecords.get(POS_REDUCE_VALUE_BYTE_COUNT)
-					.getValue();
+			reduceOutputBytes = reduceRecords
+					.getValue(POS_REDUCE_VALUE_BYTE_COUNT);
 		} else {
 			// Equals HDFS output (without compression)
 			reduceOutputBytes = isOutputCompressed() ? (long) (hdfsBytesWritten / DEFAULT_COMPR_RATIO)
@@ -189,30 +199,21 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 		profile.addCounter(MRCounter.REDUCE_OUTPUT_BYTES, reduceOutputBytes);
 
 		// Calculate and set the network cost
-		if (shuffleRecords.size() > 0)
-			profile.addCostFactor(
-					MRCostFactors.NETWORK_COST,
-					averageProfileValueDiffRatios(shuffleRecords,
-							NUM_SHUFFLE_PHASES, POS_SHUFFLE_COPY_MAP_OUTPUT,
-							POS_SHUFFLE_UNCOMPRESS,
-							POS_SHUFFLE_COMPR_BYTE_COUNT));
+		if (shuffleRecords.getNumGroups() > 0)
+			profile.addCostFactor(MRCostFactors.NETWORK_COST, shuffleRecords
+					.getAverageNetworkCost());
 
 		// Calculate and set the intermediate compression ratio and cost
 		double comprRatio = 1;
 		if (conf.getBoolean(MR_COMPRESS_MAP_OUT, false) == true) {
-			if (shuffleRecords.size() > 0) {
-				comprRatio = averageRecordValueRatios(shuffleRecords,
-						NUM_SHUFFLE_PHASES, POS_SHUFFLE_COMPR_BYTE_COUNT,
-						POS_SHUFFLE_UNCOMPR_BYTE_COUNT);
+			if (shuffleRecords.getNumGroups() > 0) {
+				comprRatio = shuffleRecords.getAverageCompressRatio();
 				profile.addStatistic(MRStatistics.INTERM_COMPRESS_RATIO,
 						comprRatio);
 
 				// Uncompress cost = time to uncompress / compressed size
-				profile.addCostFactor(
-						MRCostFactors.INTERM_UNCOMPRESS_CPU_COST,
-						averageRecordValueRatios(shuffleRecords,
-								NUM_SHUFFLE_PHASES, POS_SHUFFLE_UNCOMPRESS,
-								POS_SHUFFLE_COMPR_BYTE_COUNT));
+				profile.addCostFactor(MRCostFactors.INTERM_UNCOMPRESS_CPU_COST,
+						shuffleRecords.getAverageUncompressCost());
 			}
 
 			// Compress cost = time to compress / uncompressed size
@@ -221,11 +222,9 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 			if (spilledPairs != 0 && reduceInputPairs != 0) {
 				double readBytes = spilledPairs * reduceInputBytes
 						/ reduceInputPairs;
-				long compressTime = sortRecords.get(POS_SORT_COMPRESS)
-						.getValue();
-				if (mergeRecords != EMPTY_RECORDS)
-					compressTime += aggregateRecordValues(mergeRecords,
-							NUM_MERGE_PHASES, POS_MERGE_COMPRESS);
+				long compressTime = sortRecords.getValue(POS_SORT_COMPRESS);
+				if (mergeRecords.size() != 0)
+					compressTime += mergeRecords.getSum(POS_MERGE_COMPRESS);
 
 				if (readBytes != 0 && compressTime != 0) {
 					profile.addCostFactor(
@@ -254,8 +253,8 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 			// Cost = pure reduce time / number of input records
 			profile.addCostFactor(
 					MRCostFactors.REDUCE_CPU_COST,
-					(reduceRecords.get(POS_REDUCE_REDUCE).getValue() - reduceRecords
-							.get(POS_REDUCE_WRITE).getValue())
+					(reduceRecords.getValue(POS_REDUCE_REDUCE) - reduceRecords
+							.getValue(POS_REDUCE_WRITE))
 							/ (double) reduceInputPairs);
 		}
 
@@ -268,8 +267,9 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 				// Cost = time to compress / uncompressed size
 				profile.addCostFactor(
 						MRCostFactors.OUTPUT_COMPRESS_CPU_COST,
-						(reduceRecords.get(POS_REDUCE_COMPRESS).getValue() + reduceRecords
-								.get(POS_REDUCE_FINAL_COMPRESS).getValue())
+						(reduceRecords.getValue(POS_REDUCE_COMPRESS)
+								+ reduceRecords
+										.getValue(POS_REDUCE_FINAL_COMPRESS))
 								/ (double) reduceOutputBytes);
 			}
 		}
@@ -277,7 +277,7 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 		// Calculate and set the local read I/O cost
 		if (reduceInputBytes != 0) {
 			profile.addCostFactor(MRCostFactors.READ_LOCAL_IO_COST,
-					reduceRecords.get(POS_REDUCE_READ).getValue()
+					reduceRecords.getValue(POS_REDUCE_READ)
 							/ (comprRatio * reduceInputBytes));
 		}
 
@@ -285,24 +285,22 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 		long fileBytesWritten = profile.getCounter(
 				MRCounter.FILE_BYTES_WRITTEN, 0l);
 		if (fileBytesWritten != 0l
-				&& sortRecords.get(POS_SORT_READ_WRITE_COUNT).getValue() <= 1l) {
+				&& sortRecords.getValue(POS_SORT_READ_WRITE_COUNT) <= 1l) {
 
-			long writeTime = sortRecords.get(POS_SORT_READ_WRITE).getValue()
-					- sortRecords.get(POS_SORT_COMPRESS).getValue();
-			if (mergeRecords != EMPTY_RECORDS)
-				writeTime += aggregateRecordValues(mergeRecords,
-						NUM_MERGE_PHASES, POS_MERGE_READ_WRITE)
-						- aggregateRecordValues(mergeRecords, NUM_MERGE_PHASES,
-								POS_MERGE_COMPRESS);
+			long writeTime = sortRecords.getValue(POS_SORT_READ_WRITE)
+					- sortRecords.getValue(POS_SORT_COMPRESS);
+			if (mergeRecords.size() != 0)
+				writeTime += mergeRecords.getSum(POS_MERGE_READ_WRITE)
+						- mergeRecords.getSum(POS_MERGE_COMPRESS);
 
 			profile.addCostFactor(MRCostFactors.WRITE_LOCAL_IO_COST, writeTime
 					/ (double) fileBytesWritten);
 		}
 
-		double writeTime = (reduceRecords.get(POS_REDUCE_WRITE).getValue()
-				+ reduceRecords.get(POS_REDUCE_FINAL_WRITE).getValue()
-				- reduceRecords.get(POS_REDUCE_COMPRESS).getValue() - reduceRecords
-				.get(POS_REDUCE_FINAL_COMPRESS).getValue());
+		double writeTime = (reduceRecords.getValue(POS_REDUCE_WRITE)
+				+ reduceRecords.getValue(POS_REDUCE_FINAL_WRITE)
+				- reduceRecords.getValue(POS_REDUCE_COMPRESS) - reduceRecords
+				.getValue(POS_REDUCE_FINAL_COMPRESS));
 
 		// Calculate and set the HDFS write I/O cost
 		if (hdfsBytesWritten != 0) {
@@ -333,13 +331,11 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 		long spilledPairs = profile.getCounter(MRCounter.SPILLED_RECORDS,
 				reduceInputPairs);
 		if (spilledPairs > 0) {
-			long mergeTime = sortRecords.get(POS_SORT_MERGE).getValue()
-					- sortRecords.get(POS_SORT_READ_WRITE).getValue();
-			if (mergeRecords != EMPTY_RECORDS)
-				mergeTime += aggregateRecordValues(mergeRecords,
-						NUM_MERGE_PHASES, POS_MERGE_MERGE)
-						- aggregateRecordValues(mergeRecords, NUM_MERGE_PHASES,
-								POS_MERGE_READ_WRITE);
+			long mergeTime = sortRecords.getValue(POS_SORT_MERGE)
+					- sortRecords.getValue(POS_SORT_READ_WRITE);
+			if (mergeRecords.size() != 0)
+				mergeTime += mergeRecords.getSum(POS_MERGE_MERGE)
+						- mergeRecords.getSum(POS_MERGE_READ_WRITE);
 
 			profile.addCostFactor(MRCostFactors.MERGE_CPU_COST, mergeTime
 					/ (double) spilledPairs);
@@ -347,20 +343,20 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 
 		// Set the setup and cleanup costs
 		profile.addCostFactor(MRCostFactors.SETUP_CPU_COST,
-				(double) reduceRecords.get(POS_REDUCE_SETUP).getValue());
+				(double) reduceRecords.getValue(POS_REDUCE_SETUP));
 		profile.addCostFactor(MRCostFactors.CLEANUP_CPU_COST,
-				(double) reduceRecords.get(POS_REDUCE_CLEANUP).getValue());
+				(double) reduceRecords.getValue(POS_REDUCE_CLEANUP));
 
 		// Calculate and set the memory statistics
-		long startup_mem = reduceRecords.get(POS_REDUCE_STARTUP_MEM).getValue();
-		long setup_mem = reduceRecords.get(POS_REDUCE_SETUP_MEM).getValue()
-				- reduceRecords.get(POS_REDUCE_STARTUP_MEM).getValue();
+		long startup_mem = reduceRecords.getValue(POS_REDUCE_STARTUP_MEM);
+		long setup_mem = reduceRecords.getValue(POS_REDUCE_SETUP_MEM)
+				- reduceRecords.getValue(POS_REDUCE_STARTUP_MEM);
 		setup_mem = (setup_mem < 0l) ? 0l : setup_mem;
-		long reduce_mem = reduceRecords.get(POS_REDUCE_MEM).getValue()
-				- reduceRecords.get(POS_REDUCE_SETUP_MEM).getValue();
+		long reduce_mem = reduceRecords.getValue(POS_REDUCE_MEM)
+				- reduceRecords.getValue(POS_REDUCE_SETUP_MEM);
 		reduce_mem = (reduce_mem < 0l) ? 0l : reduce_mem;
-		long cleanup_mem = reduceRecords.get(POS_REDUCE_CLEANUP_MEM).getValue()
-				- reduceRecords.get(POS_REDUCE_MEM).getValue();
+		long cleanup_mem = reduceRecords.getValue(POS_REDUCE_CLEANUP_MEM)
+				- reduceRecords.getValue(POS_REDUCE_MEM);
 		cleanup_mem = (cleanup_mem < 0l) ? 0l : cleanup_mem;
 
 		profile.addStatistic(MRStatistics.STARTUP_MEM, (double) startup_mem);
@@ -381,59 +377,54 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 	private void calculateTimings() {
 
 		// Calculate the shuffle timings
-		double timeShuffle = aggregateRecordValues(shuffleRecords,
-				NUM_SHUFFLE_PHASES, POS_SHUFFLE_COPY_MAP_OUTPUT);
-		if (mergeRecords != EMPTY_RECORDS)
-			timeShuffle += aggregateRecordValues(mergeRecords,
-					NUM_MERGE_PHASES, POS_MERGE_MERGE);
+		double timeShuffle = shuffleRecords
+				.getSum(POS_SHUFFLE_COPY_MAP_OUTPUT);
+		if (mergeRecords.size() != 0)
+			timeShuffle += mergeRecords.getSum(POS_MERGE_MERGE);
 
 		profile.addTiming(MRTaskPhase.SHUFFLE, timeShuffle / NS_PER_MS);
 
 		// Calculate the sort timings
-		double timeSort = sortRecords.get(POS_SORT_MERGE).getValue();
+		double timeSort = sortRecords.getValue(POS_SORT_MERGE);
 		profile.addTiming(MRTaskPhase.SORT, timeSort / NS_PER_MS);
 
 		// Calculate the reduce timings
 		profile.addTiming(MRTaskPhase.SETUP, reduceRecords
-				.get(POS_REDUCE_SETUP).getValue() / NS_PER_MS);
+				.getValue(POS_REDUCE_SETUP) / NS_PER_MS);
 
 		profile.addTiming(
 				MRTaskPhase.REDUCE,
-				(reduceRecords.get(POS_REDUCE_READ).getValue()
-						+ reduceRecords.get(POS_REDUCE_REDUCE).getValue() - reduceRecords
-						.get(POS_REDUCE_WRITE).getValue()) / NS_PER_MS);
+				(reduceRecords.getValue(POS_REDUCE_READ)
+						+ reduceRecords.getValue(POS_REDUCE_REDUCE)
+						- reduceRecords.getValue(POS_REDUCE_WRITE))
+						/ NS_PER_MS);
 
 		profile.addTiming(MRTaskPhase.WRITE,
-				(reduceRecords.get(POS_REDUCE_WRITE).getValue() + reduceRecords
-						.get(POS_REDUCE_FINAL_WRITE).getValue()) / NS_PER_MS);
+				(reduceRecords.getValue(POS_REDUCE_WRITE) + reduceRecords
+						.getValue(POS_REDUCE_FINAL_WRITE)) / NS_PER_MS);
 
 		profile.addTiming(MRTaskPhase.CLEANUP,
-				reduceRecords.get(POS_REDUCE_CLEANUP).getValue() / NS_PER_MS);
+				reduceRecords.getValue(POS_REDUCE_CLEANUP) / NS_PER_MS);
 	}
 
 	/**
-	 * Populates and validates the list with the profile records
+	 * Validates the groups with the profile records
 	 */
 	private boolean getAndValidateProfileRecords()
 			throws ProfileFormatException {
-		shuffleRecords = getProfileRecords(ProfileToken.SHUFFLE);
 		if (!validateShuffleRecords(shuffleRecords))
 			return false;
 
-		reduceRecords = getProfileRecords(ProfileToken.REDUCE);
 		if (!validateReduceRecords(reduceRecords))
 			return false;
 
-		sortRecords = getProfileRecords(ProfileToken.SORT);
 		if (!validateSortRecords(sortRecords))
 			return false;
 
-		mergeRecords = getProfileRecords(ProfileToken.MERGE);
-		if (mergeRecords != null) {
+		if (mergeRecords.size() != 0) {
 			if (!validateMergeRecords(mergeRecords))
 				return false;
-		} else
-			mergeRecords = EMPTY_RECORDS;
+		}
 
 		return true;
 	}
@@ -446,8 +437,8 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 	 */
 	private boolean isOutputCompressed() {
 
-		return reduceRecords.get(POS_REDUCE_COMPRESS).getValue() != 0
-				|| reduceRecords.get(POS_REDUCE_FINAL_COMPRESS).getValue() != 0
+		return reduceRecords.getValue(POS_REDUCE_COMPRESS) != 0
+				|| reduceRecords.getValue(POS_REDUCE_FINAL_COMPRESS) != 0
 				|| ProfileUtils.isMROutputCompressionOn(conf);
 	}
 
@@ -460,9 +451,9 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 	 * @return true if the profile records are accurate
 	 * @throws ProfileFormatException
 	 */
-	private boolean validateShuffleRecords(List<ProfileRecord> records)
+	private boolean validateShuffleRecords(ProfileRecordGroups records)
 			throws ProfileFormatException {
-		if (records == null)
+		if (records.size() == 0)
 			return false;
 
 		if (records.size() % NUM_SHUFFLE_PHASES != 0) {
@@ -472,34 +463,11 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 					+ this.profile.getTaskId());
 		}
 
-		int count = 0;
-		for (int i = 0; i < records.size(); i += NUM_SHUFFLE_PHASES) {
-			count += records.get(i + POS_SHUFFLE_UNCOMPR_BYTE_COUNT)
-					.getProcess().equals(UNCOMPRESS_BYTE_COUNT) ? 0 : 1;
-			count += records.get(i + POS_SHUFFLE_COMPR_BYTE_COUNT).getProcess()
-					.equals(COMPRESS_BYTE_COUNT) ? 0 : 1;
-			count += records.get(i + POS_SHUFFLE_COPY_MAP_OUTPUT).getProcess()
-					.equals(COPY_MAP_DATA) ? 0 : 1;
-			count += records.get(i + POS_SHUFFLE_UNCOMPRESS).getProcess()
-					.equals(UNCOMPRESS) ? 0 : 1;
-		}
-
-		if (count != 0)
+		if (records.getNumMismatches() != 0)
 			throw new ProfileFormatException(
 					"Incorrect sequence of records in SHUFFLE phase for "
 							+ this.profile.getTaskId());
 
-		// Remove the empty map outputs
-		for (int i = 0; i < records.size(); i += NUM_SHUFFLE_PHASES) {
-			if (records.get(i + POS_SHUFFLE_UNCOMPR_BYTE_COUNT).getValue() == 2) {
-				// Remove all processes of this shuffle
-				for (int j = 0; j < NUM_SHUFFLE_PHASES; ++j) {
-					records.remove(i);
-				}
-				i -= NUM_SHUFFLE_PHASES;
-			}
-		}
-
 		return true;
 	}
 
@@ -512,12 +480,12 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 	 * @return true if the profile records are accurate
 	 * @throws ProfileFormatException
 	 */
-	private boolean validateMergeRecords(List<ProfileRecord> records)
+	private boolean validateMergeRecords(ProfileRecordGroups records)
 			throws ProfileFormatException {
-		if (records == null)
+		if (records.size() == 0)
 			return false;
 
-		if (records == null || records.size() % NUM_MERGE_PHASES != 0) {
+		if (records.size() % NUM_MERGE_PHASES != 0) {
 			throw new ProfileFormatException("Expected groups of "
 					+ NUM_MERGE_PHASES + " records for the MERGE phase for "
 					+ this.profile.getTaskId());
@@ -525,20 +493,20 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 
 		int count = 0;
 		for (int i = 0; i < records.size(); i += NUM_MERGE_PHASES) {
-			count += (records.get(POS_MERGE_MERGE).getProcess()
-					.equals(MERGE_IN_MEMORY) || records.get(POS_MERGE_MERGE)
-					.getProcess().equals(MERGE_TO_DISK)) ? 0 : 1;
-			count += records.get(POS_MERGE_READ_WRITE).getProcess()
+			count += (records.getProcess(POS_MERGE_MERGE)
+					.equals(MERGE_IN_MEMORY) || records.getProcess(
+					POS_MERGE_MERGE).equals(MERGE_TO_DISK)) ? 0 : 1;
+			count += records.getProcess(POS_MERGE_READ_WRITE)
 					.equals(READ_WRITE) ? 0 : 1;
-			count += records.get(POS_MERGE_READ_WRITE_COUNT).getProcess()
+			count += records.getProcess(POS_MERGE_READ_WRITE_COUNT)
 					.equals(READ_WRITE_COUNT) ? 0 : 1;
-			count += records.get(POS_MERGE_COMBINE).getProcess()
+			count += records.getProcess(POS_MERGE_COMBINE)
 					.equals(COMBINE) ? 0 : 1;
-			count += records.get(POS_MERGE_WRITE).getProcess().equals(WRITE) ? 0
+			count += records.getProcess(POS_MERGE_WRITE).equals(WRITE) ? 0
 					: 1;
-			count += records.get(POS_MERGE_UNCOMPRESS).getProcess()
+			count += records.getProcess(POS_MERGE_UNCOMPRESS)
 					.equals(UNCOMPRESS) ? 0 : 1;
-			count += records.get(POS_MERGE_COMPRESS).getProcess()
+			count += records.getProcess(POS_MERGE_COMPRESS)
 					.equals(COMPRESS) ? 0 : 1;
 		}
 
@@ -559,27 +527,27 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 	 * @return true if the profile records are accurate
 	 * @throws ProfileFormatException
 	 */
-	private boolean validateSortRecords(List<ProfileRecord> records)
+	private boolean validateSortRecords(ProfileRecordGroups records)
 			throws ProfileFormatException {
-		if (records == null)
+		if (records.size() == 0)
 			return false;
 
-		if (records == null || records.size() != NUM_SORT_PHASES) {
+		if (records.size() != NUM_SORT_PHASES) {
 			throw new ProfileFormatException("Expected " + NUM_SORT_PHASES
 					+ " records for the SORT phase for "
 					+ this.profile.getTaskId());
 		}
 
 		int count = 0;
-		count += records.get(POS_SORT_MERGE).getProcess()
+		count += records.getProcess(POS_SORT_MERGE)
 				.equals(MERGE_MAP_DATA) ? 0 : 1;
-		count += records.get(POS_SORT_READ_WRITE).getProcess()
+		count += records.getProcess(POS_SORT_READ_WRITE)
 				.equals(READ_WRITE) ? 0 : 1;
-		count += records.get(POS_SORT_READ_WRITE_COUNT).getProcess()
+		count += records.getProcess(POS_SORT_READ_WRITE_COUNT)
 				.equals(READ_WRITE_COUNT) ? 0 : 1;
-		count += records.get(POS_SORT_UNCOMPRESS).getProcess()
+		count += records.getProcess(POS_SORT_UNCOMPRESS)
 				.equals(UNCOMPRESS) ? 0 : 1;
-		count += records.get(POS_SORT_COMPRESS).getProcess().equals(COMPRESS) ? 0
+		count += records.getProcess(POS_SORT_COMPRESS).equals(COMPRESS) ? 0
 				: 1;
 
 		if (count != 0)
@@ -599,48 +567,48 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 	 * @return true if the profile records are accurate
 	 * @throws ProfileFormatException
 	 */
-	private boolean validateReduceRecords(List<ProfileRecord> records)
+	private boolean validateReduceRecords(ProfileRecordGroups records)
 			throws ProfileFormatException {
-		if (records == null)
+		if (records.size() == 0)
 			return false;
 
-		if (records == null || records.size() != NUM_REDUCE_PHASES) {
+		if (records.size() != NUM_REDUCE_PHASES) {
 			throw new ProfileFormatException("Expected " + NUM_REDUCE_PHASES
 					+ " records for the REDUCE phase for "
 					+ this.profile.getTaskId());
 		}
 
 		int count = 0;
-		count += records.get(POS_REDUCE_STARTUP_MEM).getProcess()
+		count += records.getProcess(POS_REDUCE_STARTUP_MEM)
 				.equals(STARTUP_MEM) ? 0 : 1;
-		count += records.get(POS_REDUCE_SETUP).getProcess().equals(SETUP) ? 0
+		count += records.getProcess(POS_REDUCE_SETUP).equals(SETUP) ? 0
 				: 1;
-		count += records.get(POS_REDUCE_SETUP_MEM).getProcess()
+		count += records.getProcess(POS_REDUCE_SETUP_MEM)
 				.equals(SETUP_MEM) ? 0 : 1;
-		count += records.get(POS_REDUCE_CLEANUP).getProcess().equals(CLEANUP) ? 0
+		count += records.getProcess(POS_REDUCE_CLEANUP).equals(CLEANUP) ? 0
 				: 1;
-		count += records.get(POS_REDUCE_CLEANUP_MEM).getProcess()
+		count += records.getProcess(POS_REDUCE_CLEANUP_MEM)
 				.equals(CLEANUP_MEM) ? 0 : 1;
-		count += records.get(POS_REDUCE_TOTAL_RUN).getProcess()
+		count += records.getProcess(POS_REDUCE_TOTAL_RUN)
 				.equals(TOTAL_RUN) ? 0 : 1;
-		count += records.get(POS_REDUCE_READ).getProcess().equals(READ) ? 0 : 1;
-		count += records.get(POS_REDUCE_UNCOMPRESS).getProcess()
+		count += records.getProcess(POS_REDUCE_READ).equals(READ) ? 0 : 1;
+		count += records.getProcess(POS_REDUCE_UNCOMPRESS)
 				.equals(UNCOMPRESS) ? 0 : 1;
-		count += records.get(POS_REDUCE_REDUCE).getProcess().equals(REDUCE) ? 0
+		count += records.getProcess(POS_REDUCE_REDUCE).equals(REDUCE) ? 0
 				: 1;
-		count += records.get(POS_REDUCE_WRITE).getProcess().equals(WRITE) ? 0
+		count += records.getProcess(POS_REDUCE_WRITE).equals(WRITE) ? 0
 				: 1;
-		count += records.get(POS_REDUCE_COMPRESS).getProcess().equals(COMPRESS) ? 0
+		count += records.getProcess(POS_REDUCE_COMPRESS).equals(COMPRESS) ? 0
 				: 1;
-		count += records.get(POS_REDUCE_KEY_BYTE_COUNT).getProcess()
+		count += records.getProcess(POS_REDUCE_KEY_BYTE_COUNT)
 				.equals(KEY_BYTE_COUNT) ? 0 : 1;
-		count += records.get(POS_REDUCE_VALUE_BYTE_COUNT).getProcess()
+		count += records.getProcess(POS_REDUCE_VALUE_BYTE_COUNT)
 				.equals(VALUE_BYTE_COUNT) ? 0 : 1;
-		count += records.get(POS_REDUCE_MEM).getProcess().equals(REDUCE_MEM) ? 0
+		count += records.getProcess(POS_REDUCE_MEM).equals(REDUCE_MEM) ? 0
 				: 1;
-		count += records.get(POS_REDUCE_FINAL_WRITE).getProcess().equals(WRITE) ? 0
+		count += records.getProcess(POS_REDUCE_FINAL_WRITE).equals(WRITE) ? 0
 				: 1;
-		count += records.get(POS_REDUCE_FINAL_COMPRESS).getProcess()
+		count += records.getProcess(POS_REDUCE_FINAL_COMPRESS)
 				.equals(COMPRESS) ? 0 : 1;
 
 		if (count != 0)
@@ -651,4 +619,70 @@ public class MRReduceProfileLoader extends MRTaskProfileLoader {
 		return true;
 	}
 
+	/* ***************************************************************
+	 * HELPER CLASSES
+	 * ***************************************************************
+	 */
+
+	/**
+	 * The groups of the SHUFFLE records, one group per copied map output.
+	 * The groups of the empty map outputs are ignored. Along with the sums
+	 * of the values, it accumulates the ratios that are averaged over all
+	 * the copied map outputs.
+	 * 
+	 * @author hero
+	 */
+	private static class ShuffleRecordGroups extends ProfileRecordGroups {
+
+		private double sumNetworkCosts; // (copy - uncompress) / compr size
+		private double sumCompressRatios; // compressed / uncompressed size
+		private double sumUncompressCosts; // uncompress / compressed size
+
+		/**
+		 * Default constructor
+		 */
+		public ShuffleRecordGroups() {
+			super(NUM_SHUFFLE_PHASES, UNCOMPRESS_BYTE_COUNT,
+					COMPRESS_BYTE_COUNT, COPY_MAP_DATA, UNCOMPRESS);
+		}
+
+		@Override
+		protected boolean acceptGroup(long[] values) {
+			// Ignore the empty map outputs
+			return values[POS_SHUFFLE_UNCOMPR_BYTE_COUNT] != 2;
+		}
+
+		@Override
+		protected void addGroup(long[] values) {
+			sumNetworkCosts += (values[POS_SHUFFLE_COPY_MAP_OUTPUT]
+					- values[POS_SHUFFLE_UNCOMPRESS])
+					/ (double) values[POS_SHUFFLE_COMPR_BYTE_COUNT];
+			sumCompressRatios += values[POS_SHUFFLE_COMPR_BYTE_COUNT]
+					/ (double) values[POS_SHUFFLE_UNCOMPR_BYTE_COUNT];
+			sumUncompressCosts += values[POS_SHUFFLE_UNCOMPRESS]
+					/ (double) values[POS_SHUFFLE_COMPR_BYTE_COUNT];
+		}
+
+		/**
+		 * @return the average network cost over the map outputs
+		 */
+		public double getAverageNetworkCost() {
+			return sumNetworkCosts / getNumGroups();
+		}
+
+		/**
+		 * @return the average compression ratio over the map outputs
+		 */
+		public double getAverageCompressRatio() {
+			return sumCompressRatios / getNumGroups();
+		}
+
+		/**
+		 * @return the average uncompression CPU cost over the map outputs
+		 */
+		public double getAverageUncompressCost() {
+			return sumUncompressCosts / getNumGroups();
+		}
+	}
+
 }
@@ -1,13 +1,6 @@
 package edu.duke.starfish.profile.profiler.loaders.tasks;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.EnumMap;
-import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 
@@ -17,9 +10,11 @@ import edu.duke.starfish.profile.profileinfo.execution.profile.MRTaskProfile;
  * Base class for a task profile. This class is responsible for parsing the
  * BTrace profile files and calculating all the profile information for a task.
  * 
- * The subclasses must implement the method "loadExecutionProfile" which is
- * meant to calculate the job's statistics, cost factors, and phase timings
- * based on the listing of all the profile records from the BTrace profile file.
+ * The subclasses must implement the method "createRecordGroups" which
+ * creates the groups that accumulate the profile records of each token of
+ * interest while the BTrace profile file is parsed, and the method
+ * "loadExecutionProfile" which is meant to calculate the job's statistics,
+ * cost factors, and phase timings based on the accumulated records.
  * 
  * @author hero
  */
@@ -35,12 +30,9 @@ public abstract class MRTaskProfileLoader {
 	protected Configuration conf; // The hadoop configuration
 	protected String profileFile; // the path to the profile file
 
-	private EnumMap<ProfileToken, ArrayList<ProfileRecord>> records;
 	private boolean loaded; // Whether the file is loaded or not
 
 	// CONSTANTS
-	protected static final List<ProfileRecord> EMPTY_RECORDS = new ArrayList<ProfileRecord>(
-			0);
 	protected static final String TAB = "\t";
 	protected static final double DEFAULT_COMPR_RATIO = 0.3;
 	protected static final double NS_PER_MS = 1000000d;
@@ -94,8 +86,6 @@ public abstract class MRTaskProfileLoader {
 		this.profile = profile;
 		this.conf = conf;
 		this.profileFile = profileFile;
-		this.records = new EnumMap<ProfileToken, ArrayList<ProfileRecord>>(
-				ProfileToken.class);
 		this.loaded = false;
 	}
 
@@ -166,137 +156,22 @@ public abstract class MRTaskProfileLoader {
 	 */
 
 	/**
-	 * Load the execution profile
-	 * 
-	 * @throws ProfileFormatException
-	 */
-	protected abstract boolean loadExecutionProfile()
-			throws ProfileFormatException;
-
-	/* ***************************************************************
-	 * PROTECTED METHODS
-	 * ***************************************************************
-	 */
-
-	/**
-	 * Find and return the profile records for this particular token.
+	 * Create the record groups that accumulate the profile records of each
+	 * token of interest. Called before each parsing of the profile file. The
+	 * records of the tokens without groups are ignored.
 	 * 
-	 * @param token
-	 *            the profile token of interest
-	 * @return a list of profile records
+	 * @return the record groups of the tokens of interest
 	 */
-	protected List<ProfileRecord> getProfileRecords(ProfileToken token) {
-		return records.get(token);
-	}
+	protected abstract EnumMap<ProfileToken, ProfileRecordGroups>
+			createRecordGroups();
 
 	/**
-	 * This method is for records that come in groups. It aggregates the values
-	 * of the profile records for a particular position in each group.
-	 * 
-	 * @param records
-	 *            the profile records
-	 * @param groupSize
-	 *            the number of records in each group
-	 * @param pos
-	 *            the position in the group
-	 * @return the aggregate value
-	 */
-	protected long aggregateRecordValues(List<ProfileRecord> records,
-			int groupSize, int pos) {
-		long aggr = 0l;
-
-		for (int i = pos; i < records.size(); i += groupSize) {
-			aggr += records.get(i).getValue();
-		}
-
-		return aggr;
-	}
-
-	/**
-	 * This method is for records that come in groups. It averages the values of
-	 * the profile records for a particular position in each group.
-	 * 
-	 * @param records
-	 *            the profile records
-	 * @param groupSize
-	 *            the number of records in each group
-	 * @param pos
-	 *            the position in the group
-	 * @return the aggregate value
-	 */
-	protected double averageRecordValues(List<ProfileRecord> records,
-			int groupSize, int pos) {
-		double aggr = 0d;
-		int numGroups = 0;
-
-		for (int i = pos; i < records.size(); i += groupSize) {
-			aggr += records.get(i).getValue();
-			++numGroups;
-		}
-
-		return aggr / numGroups;
-	}
-
-	/**
-	 * This method is for records that come in groups. It calculates the average
-	 * of the ratios (records[pos1] / records[pos2]) that occur in the groups of
-	 * the records.
-	 * 
-	 * @param records
-	 *            the profile records
-	 * @param groupSize
-	 *            the number of records in each group
-	 * @param pos1
-	 *            the numerator position
-	 * @param pos2
-	 *            the denominator position
-	 * @return the average of the ratios
-	 */
-	protected double averageRecordValueRatios(List<ProfileRecord> records,
-			int groupSize, int pos1, int pos2) {
-		double sumRatios = 0d;
-		int numGroups = 0;
-
-		for (int i = 0; i < records.size(); i += groupSize) {
-			sumRatios += records.get(i + pos1).getValue()
-					/ (double) records.get(i + pos2).getValue();
-			++numGroups;
-		}
-
-		return sumRatios / numGroups;
-	}
-
-	/**
-	 * This method is for records that come in groups. It calculates the average
-	 * of the ratios ((records[pos1] - records[pos2]) / records[pos2]) that
-	 * occur in the groups of the records.
+	 * Load the execution profile
 	 * 
-	 * @param records
-	 *            the profile records
-	 * @param groupSize
-	 *            the number of records in each group
-	 * @param pos1
-	 *            the first numerator position
-	 * @param pos2
-	 *            the second numerator position to subtract
-	 * @param pos3
-	 *            the denominator position
-	 * @return the average of the ratios
+	 * @throws ProfileFormatException
 	 */
-	protected double averageProfileValueDiffRatios(List<ProfileRecord> records,
-			int groupSize, int pos1, int pos2, int pos3) {
-		double sumRatios = 0d;
-		int numGroups = 0;
-
-		for (int i = 0; i < records.size(); i += groupSize) {
-			sumRatios += (records.get(i + pos1).getValue() - records.get(
-					i + pos2).getValue())
-					/ (double) records.get(i + pos3).getValue();
-			++numGroups;
-		}
-
-		return sumRatios / numGroups;
-	}
+	protected abstract boolean loadExecutionProfile()
+			throws ProfileFormatException;
 
 	/* ***************************************************************
 	 * PRIVATE METHODS
@@ -304,59 +179,15 @@ public abstract class MRTaskProfileLoader {
 	 */
 
 	/**
-	 * Parses the profile file and creates a list of all the profile records
-	 * grouped based on the profile tokens
+	 * Parses the profile file and accumulates the profile records in the
+	 * record groups of their tokens (see {@link BTraceProfileParser})
 	 * 
 	 * @return true if successful
 	 * @throws ProfileFormatException
 	 *             if the file is not correctly formatted
 	 */
 	private boolean parseProfileFile() throws ProfileFormatException {
-
-		// Open the file for reading
-		BufferedReader br;
-		try {
-			br = new BufferedReader(new FileReader(new File(profileFile)));
-		} catch (FileNotFoundException e) {
-			System.err.println("Unable to find file: " + profileFile);
-			return false;
-		}
-
-		// Parse the log line-by-line and gather the profile records
-		String line = "";
-		String[] tokens;
-		ProfileToken token;
-		try {
-			while ((line = br.readLine()) != null) {
-
-				// Check for and ignore a memory profile
-				tokens = line.split(TAB);
-				if (tokens[0].equals(SETUP))
-					return false;
-
-				if (!ProfileToken.isValid(tokens[0])) {
-					// Output error and skip invalid lines
-					System.err.println("Invalid profile line: " + line);
-					continue;
-				}
-
-				// Create the profile records
-				token = ProfileToken.valueOf(tokens[0]);
-				if (!records.containsKey(token))
-					records.put(token, new ArrayList<ProfileRecord>());
-
-				records.get(token).add(
-						new ProfileRecord(token, tokens[1], Long
-								.parseLong(tokens[2])));
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
-			return false;
-		} catch (RuntimeException e) {
-			throw new ProfileFormatException("Invalid profile line: " + line, e);
-		}
-
-		return true;
+		return BTraceProfileParser.parse(profileFile, createRecordGroups());
 	}
 
 	/* ***************************************************************
@@ -364,102 +195,6 @@ public abstract class MRTaskProfileLoader {
 	 * ***************************************************************
 	 */
 
-	/**
-	 * Represent a profiling record of the form <Token Process Value>. A typical
-	 * example is a timing for a task phase. eg. <MAPPER CLEANUP 28635>. The
-	 * timing is in terms of nanoseconds.
-	 * 
-	 * The natural order of profile records is based only on the token. Hence,
-	 * when a list of ProfileRecord objects is sorted, the elements are
-	 * essentially grouped together based on the tokens.
-	 * 
-	 * @author hero
-	 */
-	public static class ProfileRecord implements Comparable<ProfileRecord> {
-
-		/* ***************************************************************
-		 * DATA MEMBERS
-		 * ***************************************************************
-		 */
-
-		private ProfileToken token;
-		private String process;
-		private long value;
-
-		/**
-		 * Constructor
-		 * 
-		 * @param phase
-		 * @param process
-		 * @param value
-		 */
-		public ProfileRecord(ProfileToken phase, String process, long value) {
-			this.token = phase;
-			this.process = process;
-			this.value = value;
-		}
-
-		/* ***************************************************************
-		 * OVERRIDEN METHODS
-		 * ***************************************************************
-		 */
-
-		@Override
-		public int compareTo(ProfileRecord other) {
-			return this.token.compareTo(other.token);
-		}
-
-		@Override
-		public int hashCode() {
-			return token.hashCode();
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (!(obj instanceof ProfileRecord))
-				return false;
-			ProfileRecord other = (ProfileRecord) obj;
-			return token.equals(other.getPhase());
-		}
-
-		@Override
-		public String toString() {
-			return "ProfileRecord [token=" + token + ", process=" + process
-					+ ", value=" + value + "]";
-		}
-
-		/* ***************************************************************
-		 * PUBLIC METHODS
-		 * ***************************************************************
-		 */
-
-		/**
-		 * @return the token
-		 */
-		public ProfileToken getPhase() {
-			return token;
-		}
-
-		/**
-		 * @return the process
-		 */
-		public String getProcess() {
-			return process;
-		}
-
-		/**
-		 * @return the value
-		 */
-		public long getValue() {
-			return value;
-		}
-
-	}
-
 	/**
 	 * Enumerates the different tokens used in the profile records as produces
 	 * by the btrace scripts. They loosely correspond to MR task sub-phases.
@@ -476,24 +211,6 @@ public abstract class MRTaskProfileLoader {
 		SORT, // The sort phase in the reduce task
 		REDUCE, // The reduce phase in the reduce task
 		MEMORY; // The memory traces
-
-		/**
-		 * Check if input token is a valid ProfileToken
-		 * 
-		 * @param token
-		 *            the profile token
-		 * @return true if it is a valid token
-		 */
-		private static boolean isValid(String token) {
-
-			try {
-				ProfileToken.valueOf(token);
-			} catch (RuntimeException e) {
-				return false;
-			}
-
-			return true;
-		}
 	}
 
 	/**
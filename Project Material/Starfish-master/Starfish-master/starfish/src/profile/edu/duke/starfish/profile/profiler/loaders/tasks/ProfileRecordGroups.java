@@ -0,0 +1,193 @@
+package edu.duke.starfish.profile.profiler.loaders.tasks;
+
+/**
+ * Accumulates the profile records of one profile token while a BTrace
+ * profile file is parsed. The records of a token come in groups of a fixed
+ * size (e.g., one group of SPILL records for each spill), where each
+ * position in a group corresponds to a particular process.
+ * 
+ * The records are not kept. Instead, this class keeps the processes and the
+ * values of the first group, the sums of the values at each position over
+ * all the groups, and the number of records whose process is not the
+ * expected one for their position. Subclasses can accept or reject each
+ * group and accumulate more statistics from the groups.
+ * 
+ * @author hero
+ */
+public class ProfileRecordGroups {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private int groupSize; // The number of records in each group
+	private String[] expected; // The expected processes (null to skip)
+
+	private String[] firstProcesses; // The processes of the first group
+	private long[] firstValues; // The values of the first group
+	private long[] values; // The values of the current group
+	private long[] sums; // The sums of the values of the accepted groups
+	private double[] doubleSums; // The same sums accumulated as doubles
+
+	private int numRecords; // The number of records
+	private int numGroups; // The number of accepted groups
+	private int numMismatches; // The number of unexpected processes
+
+	/**
+	 * Constructor for groups of records whose processes are not checked
+	 * 
+	 * @param groupSize
+	 *            the number of records in each group
+	 */
+	public ProfileRecordGroups(int groupSize) {
+		this(groupSize, (String[]) null);
+	}
+
+	/**
+	 * Constructor for groups of records whose processes are checked against
+	 * the expected ones, in each group
+	 * 
+	 * @param groupSize
+	 *            the number of records in each group
+	 * @param expected
+	 *            the expected process for each position in a group
+	 */
+	public ProfileRecordGroups(int groupSize, String... expected) {
+		this.groupSize = groupSize;
+		this.expected = expected;
+		this.firstProcesses = new String[groupSize];
+		this.firstValues = new long[groupSize];
+		this.values = new long[groupSize];
+		this.sums = new long[groupSize];
+		this.doubleSums = new double[groupSize];
+		this.numRecords = 0;
+		this.numGroups = 0;
+		this.numMismatches = 0;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Add the next profile record of the token. The statistics of a group are
+	 * accumulated when its last record is added.
+	 * 
+	 * @param process
+	 *            the process of the record
+	 * @param value
+	 *            the value of the record
+	 */
+	public void addRecord(String process, long value) {
+
+		int pos = numRecords % groupSize;
+		if (numRecords < groupSize) {
+			firstProcesses[pos] = process;
+			firstValues[pos] = value;
+		}
+		if (expected != null && !process.equals(expected[pos]))
+			++numMismatches;
+
+		values[pos] = value;
+		++numRecords;
+
+		if (pos == groupSize - 1 && acceptGroup(values)) {
+			for (int i = 0; i < groupSize; ++i) {
+				sums[i] += values[i];
+				doubleSums[i] += values[i];
+			}
+			++numGroups;
+			addGroup(values);
+		}
+	}
+
+	/**
+	 * @return the number of records, including the records of the rejected
+	 *         groups
+	 */
+	public int size() {
+		return numRecords;
+	}
+
+	/**
+	 * @return the number of accepted groups
+	 */
+	public int getNumGroups() {
+		return numGroups;
+	}
+
+	/**
+	 * @return the number of records (in all the groups) whose process is not
+	 *         the expected one for their position
+	 */
+	public int getNumMismatches() {
+		return numMismatches;
+	}
+
+	/**
+	 * @param pos
+	 *            the position in the group
+	 * @return the process of the record at this position in the first group
+	 */
+	public String getProcess(int pos) {
+		return firstProcesses[pos];
+	}
+
+	/**
+	 * @param pos
+	 *            the position in the group
+	 * @return the value of the record at this position in the first group
+	 */
+	public long getValue(int pos) {
+		return firstValues[pos];
+	}
+
+	/**
+	 * @param pos
+	 *            the position in the group
+	 * @return the sum of the values at this position in the accepted groups
+	 */
+	public long getSum(int pos) {
+		return sums[pos];
+	}
+
+	/**
+	 * @param pos
+	 *            the position in the group
+	 * @return the average of the values at this position in the accepted
+	 *         groups
+	 */
+	public double getAverage(int pos) {
+		return doubleSums[pos] / numGroups;
+	}
+
+	/* ***************************************************************
+	 * PROTECTED METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Decide whether a complete group is accumulated in the statistics. By
+	 * default, all groups are accepted.
+	 * 
+	 * @param values
+	 *            the values of the group (must not be modified)
+	 * @return true to accept the group
+	 */
+	protected boolean acceptGroup(long[] values) {
+		return true;
+	}
+
+	/**
+	 * Accumulate more statistics from an accepted group. Does nothing by
+	 * default.
+	 * 
+	 * @param values
+	 *            the values of the group (must not be modified)
+	 */
+	protected void addGroup(long[] values) {
+	}
+
+}
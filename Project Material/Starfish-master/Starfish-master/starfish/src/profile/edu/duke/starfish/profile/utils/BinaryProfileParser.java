@@ -0,0 +1,565 @@
+package edu.duke.starfish.profile.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRMapProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRReduceProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRTaskProfile;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCostFactors;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRStatistics;
+import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRTaskPhase;
+
+/**
+ * A parser for creating and reading compact binary profile files. The binary
+ * files contain exactly the same information as the XML profile files (see
+ * {@link XMLProfileParser}), so a profile imported from either format is the
+ * same, but they are read without building a DOM.
+ * 
+ * The file starts with a magic number and a version, followed by the job
+ * attributes and inputs. Then, the names of the counters, statistics, cost
+ * factors, and timings are listed once, in the ordinal order of the enums
+ * that wrote the file. Finally, each task profile holds its counters,
+ * statistics, cost factors, and timings as arrays of (ordinal, value) pairs,
+ * where each ordinal is an index into the corresponding list of names. Hence,
+ * files remain readable after keys are added to or reordered in the enums,
+ * while lists that match the current enums are used without decoding them.
+ * 
+ * A file is read into memory at once and decoded from a byte buffer, rather
+ * than one byte at a time through an input stream.
+ * 
+ * @author hero
+ */
+public class BinaryProfileParser {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	// Constants - file header
+	private static final int MAGIC = 0x53464a50; // "SFJP"
+	private static final int VERSION = 1;
+
+	// Constants - task profile types
+	private static final byte NO_PROFILE = 0;
+	private static final byte MAP_PROFILE = 1;
+	private static final byte REDUCE_PROFILE = 2;
+
+	// Constants - the encoded names of the current enum keys
+	private static final byte[] COUNTER_KEYS = encodeKeys(MRCounter.values());
+	private static final byte[] STATS_KEYS = encodeKeys(MRStatistics.values());
+	private static final byte[] FACTOR_KEYS = encodeKeys(MRCostFactors
+			.values());
+	private static final byte[] TIMING_KEYS = encodeKeys(MRTaskPhase.values());
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Check whether a file is a binary profile file, based on its header
+	 * 
+	 * @param file
+	 *            the file
+	 * @return true if the file starts with the magic number of binary profiles
+	 */
+	public static boolean isBinaryProfile(File file) {
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new FileInputStream(file));
+			return in.readInt() == MAGIC;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			try {
+				if (in != null)
+					in.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Load a job profile from the binary file
+	 * 
+	 * @param inputFile
+	 *            the input file to read from
+	 * @return the job profile
+	 */
+	public static MRJobProfile importJobProfile(File inputFile) {
+		InputStream in = null;
+		try {
+			in = new FileInputStream(inputFile);
+			return importJobProfile(in);
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+			return null;
+		} finally {
+			try {
+				if (in != null)
+					in.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Load a job profile from the binary representation
+	 * 
+	 * @param in
+	 *            the input stream to read from
+	 * @return the job profile
+	 */
+	public static MRJobProfile importJobProfile(InputStream in) {
+
+		try {
+			ByteBuffer data = ByteBuffer.wrap(readBytes(in));
+
+			// Check the header
+			if (data.getInt() != MAGIC)
+				throw new RuntimeException(
+						"ERROR: Bad binary profile: unknown file format");
+			int version = data.getInt();
+			if (version != VERSION)
+				throw new RuntimeException(
+						"ERROR: Bad binary profile: unsupported version "
+								+ version);
+
+			// Get the profile attributes
+			MRJobProfile jobProfile = new MRJobProfile(readString(data));
+			jobProfile.addCounter(MRCounter.MAP_TASKS, readVLong(data));
+			jobProfile.addCounter(MRCounter.REDUCE_TASKS, readVLong(data));
+
+			String clusterName = readString(data);
+			if (clusterName != null && !clusterName.equals("")) {
+				jobProfile.setClusterName(clusterName);
+			}
+
+			// Get the profile inputs
+			String[] inputs = new String[readVInt(data)];
+			for (int i = 0; i < inputs.length; ++i)
+				inputs[i] = readString(data);
+			jobProfile.setJobInputs(inputs);
+
+			// Get the enum keys in the order they were written
+			MRCounter[] counters = readKeys(data, MRCounter.class,
+					COUNTER_KEYS);
+			MRStatistics[] stats = readKeys(data, MRStatistics.class,
+					STATS_KEYS);
+			MRCostFactors[] factors = readKeys(data, MRCostFactors.class,
+					FACTOR_KEYS);
+			MRTaskPhase[] timings = readKeys(data, MRTaskPhase.class,
+					TIMING_KEYS);
+
+			// Get the map and reduce profiles
+			byte type;
+			while ((type = data.get()) != NO_PROFILE) {
+				if (type == MAP_PROFILE) {
+					MRMapProfile mapProf = new MRMapProfile(readString(data));
+					mapProf.setInputIndex(readVInt(data));
+					mapProf.setNumTasks(readVInt(data));
+					readTaskProfile(data, mapProf, counters, stats, factors,
+							timings);
+					jobProfile.addMapProfile(mapProf);
+
+				} else if (type == REDUCE_PROFILE) {
+					MRReduceProfile redProf = new MRReduceProfile(
+							readString(data));
+					redProf.setNumTasks(readVInt(data));
+					readTaskProfile(data, redProf, counters, stats, factors,
+							timings);
+					jobProfile.addReduceProfile(redProf);
+
+				} else {
+					throw new RuntimeException(
+							"ERROR: Bad binary profile: unknown profile type "
+									+ type);
+				}
+			}
+
+			// Update the profile to calculate the average task profiles
+			jobProfile.updateProfile();
+			return jobProfile;
+
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} catch (BufferUnderflowException e) {
+			// The file is truncated
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Write the job profile in the binary format to the provided output file
+	 * 
+	 * @param jobProfile
+	 *            the job profile
+	 * @param outFile
+	 *            the output file
+	 */
+	public static void exportJobProfile(MRJobProfile jobProfile, File outFile) {
+		OutputStream out = null;
+		try {
+			out = new FileOutputStream(outFile);
+			exportJobProfile(jobProfile, out);
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+		} finally {
+			try {
+				if (out != null)
+					out.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Write the job profile in the binary format to the provided output stream
+	 * 
+	 * @param jobProfile
+	 *            the job profile
+	 * @param out
+	 *            the output stream
+	 */
+	public static void exportJobProfile(MRJobProfile jobProfile,
+			OutputStream out) {
+
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(
+				out));
+		try {
+			data.writeInt(MAGIC);
+			data.writeInt(VERSION);
+
+			// Write the job properties
+			WritableUtils.writeString(data, jobProfile.getJobId());
+			WritableUtils.writeVLong(data, jobProfile.getCounter(
+					MRCounter.MAP_TASKS, 0l));
+			WritableUtils.writeVLong(data, jobProfile.getCounter(
+					MRCounter.REDUCE_TASKS, 0l));
+			WritableUtils.writeString(data, jobProfile.getClusterName());
+
+			// Write the job inputs
+			String[] inputs = jobProfile.getJobInputs();
+			WritableUtils.writeVInt(data, inputs.length);
+			for (String input : inputs)
+				WritableUtils.writeString(data, input);
+
+			// Write the enum keys
+			writeKeys(data, MRCounter.values().length, COUNTER_KEYS);
+			writeKeys(data, MRStatistics.values().length, STATS_KEYS);
+			writeKeys(data, MRCostFactors.values().length, FACTOR_KEYS);
+			writeKeys(data, MRTaskPhase.values().length, TIMING_KEYS);
+
+			// Write the map profiles
+			for (MRMapProfile mapProfile : jobProfile.getAvgMapProfiles()) {
+				data.writeByte(MAP_PROFILE);
+				WritableUtils.writeString(data, mapProfile.getTaskId());
+				WritableUtils.writeVInt(data, mapProfile.getInputIndex());
+				WritableUtils.writeVInt(data, mapProfile.getNumTasks());
+				writeTaskProfile(data, mapProfile);
+			}
+
+			// Write the reduce profile
+			MRReduceProfile redProfile = jobProfile.getAvgReduceProfile();
+			if (!redProfile.isEmpty()) {
+				data.writeByte(REDUCE_PROFILE);
+				WritableUtils.writeString(data, redProfile.getTaskId());
+				WritableUtils.writeVInt(data, redProfile.getNumTasks());
+				writeTaskProfile(data, redProfile);
+			}
+
+			data.writeByte(NO_PROFILE);
+			data.flush();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Encode the names of the enum keys in ordinal order
+	 * 
+	 * @param keys
+	 *            the enum keys
+	 * @return the encoded names
+	 */
+	private static byte[] encodeKeys(Enum<?>[] keys) {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(baos);
+		try {
+			for (Enum<?> key : keys)
+				data.writeUTF(key.name());
+			data.flush();
+		} catch (IOException e) {
+			throw new RuntimeException("ERROR: Unable to encode the enum keys",
+					e);
+		}
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Write the number of enum keys followed by their encoded names
+	 * 
+	 * @param data
+	 *            the output
+	 * @param numKeys
+	 *            the number of enum keys
+	 * @param encoded
+	 *            the encoded names of the keys
+	 * @throws IOException
+	 */
+	private static void writeKeys(DataOutputStream data, int numKeys,
+			byte[] encoded) throws IOException {
+		WritableUtils.writeVInt(data, numKeys);
+		WritableUtils.writeVInt(data, encoded.length);
+		data.write(encoded);
+	}
+
+	/**
+	 * Read the names of the enum keys and find the corresponding enums. If the
+	 * names match the current enum keys, the names are not decoded.
+	 * 
+	 * @param data
+	 *            the input
+	 * @param keyType
+	 *            the enum type of the keys
+	 * @param current
+	 *            the encoded names of the current enum keys
+	 * @return the enum keys indexed by their ordinals in the file
+	 * @throws IOException
+	 */
+	@SuppressWarnings("unchecked")
+	private static <K extends Enum<K>> K[] readKeys(ByteBuffer data,
+			Class<K> keyType, byte[] current) throws IOException {
+		int numKeys = readVInt(data);
+		byte[] encoded = new byte[readVInt(data)];
+		data.get(encoded);
+
+		K[] values = keyType.getEnumConstants();
+		if (numKeys == values.length && Arrays.equals(encoded, current))
+			return values;
+
+		DataInputStream names = new DataInputStream(new ByteArrayInputStream(
+				encoded));
+		K[] keys = (K[]) Array.newInstance(keyType, numKeys);
+		for (int i = 0; i < keys.length; ++i)
+			keys[i] = Enum.valueOf(keyType, names.readUTF());
+		return keys;
+	}
+
+	/**
+	 * Write the counters, statistics, cost factors, and timings of a task
+	 * profile
+	 * 
+	 * @param data
+	 *            the output
+	 * @param taskProfile
+	 *            the task profile
+	 * @throws IOException
+	 */
+	private static void writeTaskProfile(DataOutputStream data,
+			MRTaskProfile taskProfile) throws IOException {
+
+		Map<MRCounter, Long> counters = taskProfile.getCounters();
+		WritableUtils.writeVInt(data, counters.size());
+		for (Entry<MRCounter, Long> e : counters.entrySet()) {
+			WritableUtils.writeVInt(data, e.getKey().ordinal());
+			WritableUtils.writeVLong(data, e.getValue());
+		}
+
+		writeDoubles(data, taskProfile.getStatistics());
+		writeDoubles(data, taskProfile.getCostFactors());
+		writeDoubles(data, taskProfile.getTimings());
+	}
+
+	/**
+	 * Write a map from enum keys to double values
+	 * 
+	 * @param data
+	 *            the output
+	 * @param map
+	 *            the map of enum to double
+	 * @throws IOException
+	 */
+	private static void writeDoubles(DataOutputStream data,
+			Map<? extends Enum<?>, Double> map) throws IOException {
+		WritableUtils.writeVInt(data, map.size());
+		for (Entry<? extends Enum<?>, Double> e : map.entrySet()) {
+			WritableUtils.writeVInt(data, e.getKey().ordinal());
+			data.writeDouble(e.getValue());
+		}
+	}
+
+	/**
+	 * Read the counters, statistics, cost factors, and timings of a task
+	 * profile
+	 * 
+	 * @param data
+	 *            the input
+	 * @param taskProf
+	 *            the task profile
+	 * @param counters
+	 *            the counters indexed by their ordinals in the file
+	 * @param stats
+	 *            the statistics indexed by their ordinals in the file
+	 * @param factors
+	 *            the cost factors indexed by their ordinals in the file
+	 * @param timings
+	 *            the timings indexed by their ordinals in the file
+	 * @throws IOException
+	 */
+	private static void readTaskProfile(ByteBuffer data,
+			MRTaskProfile taskProf, MRCounter[] counters,
+			MRStatistics[] stats, MRCostFactors[] factors,
+			MRTaskPhase[] timings) throws IOException {
+
+		int size = readVInt(data);
+		for (int i = 0; i < size; ++i) {
+			MRCounter counter = getKey(counters, readVInt(data));
+			taskProf.addCounter(counter, readVLong(data));
+		}
+
+		size = readVInt(data);
+		for (int i = 0; i < size; ++i) {
+			MRStatistics stat = getKey(stats, readVInt(data));
+			taskProf.addStatistic(stat, data.getDouble());
+		}
+
+		size = readVInt(data);
+		for (int i = 0; i < size; ++i) {
+			MRCostFactors factor = getKey(factors, readVInt(data));
+			taskProf.addCostFactor(factor, data.getDouble());
+		}
+
+		size = readVInt(data);
+		for (int i = 0; i < size; ++i) {
+			MRTaskPhase timing = getKey(timings, readVInt(data));
+			taskProf.addTiming(timing, data.getDouble());
+		}
+	}
+
+	/**
+	 * @param keys
+	 *            the enum keys indexed by their ordinals in the file
+	 * @param ordinal
+	 *            an ordinal in the file
+	 * @return the enum key
+	 * @throws IOException
+	 *             if the ordinal is out of range
+	 */
+	private static <K> K getKey(K[] keys, int ordinal) throws IOException {
+		if (ordinal < 0 || ordinal >= keys.length)
+			throw new IOException("Invalid key ordinal " + ordinal);
+		return keys[ordinal];
+	}
+
+	/**
+	 * Read all the bytes of the input stream
+	 * 
+	 * @param in
+	 *            the input stream
+	 * @return the bytes
+	 * @throws IOException
+	 */
+	private static byte[] readBytes(InputStream in) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(Math.max(in
+				.available(), 32));
+		byte[] buffer = new byte[4096];
+		int length;
+		while ((length = in.read(buffer)) != -1)
+			baos.write(buffer, 0, length);
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Read a long in the variable-length format of
+	 * {@link WritableUtils#writeVLong(java.io.DataOutput, long)}
+	 * 
+	 * @param data
+	 *            the input
+	 * @return the long
+	 */
+	private static long readVLong(ByteBuffer data) {
+		byte firstByte = data.get();
+		int length = WritableUtils.decodeVIntSize(firstByte);
+		if (length == 1)
+			return firstByte;
+
+		long value = 0;
+		for (int i = 1; i < length; ++i)
+			value = (value << 8) | (data.get() & 0xFF);
+		return WritableUtils.isNegativeVInt(firstByte) ? ~value : value;
+	}
+
+	/**
+	 * Read an integer in the variable-length format of
+	 * {@link WritableUtils#writeVInt(java.io.DataOutput, int)}
+	 * 
+	 * @param data
+	 *            the input
+	 * @return the integer
+	 * @throws IOException
+	 *             if the value does not fit in an integer
+	 */
+	private static int readVInt(ByteBuffer data) throws IOException {
+		long value = readVLong(data);
+		if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE)
+			throw new IOException("Value too long to fit in integer");
+		return (int) value;
+	}
+
+	/**
+	 * Read a string in the format of
+	 * {@link WritableUtils#writeString(java.io.DataOutput, String)}
+	 * 
+	 * @param data
+	 *            the input (backed by an array)
+	 * @return the string, or null
+	 * @throws IOException
+	 *             if the string is not valid
+	 */
+	private static String readString(ByteBuffer data) throws IOException {
+		int length = data.getInt();
+		if (length == -1)
+			return null;
+		if (length < 0 || length > data.remaining())
+			throw new BufferUnderflowException();
+
+		int start = data.position();
+		data.position(start + length);
+		return Text.decode(data.array(), data.arrayOffset() + start, length);
+	}
+
+}
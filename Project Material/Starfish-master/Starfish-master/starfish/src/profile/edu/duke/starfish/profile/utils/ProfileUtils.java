@@ -385,6 +385,26 @@ public class ProfileUtils {
 		if (conf.getBoolean(MR_COMPRESS_OUT, false) == true)
 			return true;
 
+		return isMROutputPathCompressionOn(conf, outPaths);
+	}
+
+	/**
+	 * Determine whether the MapReduce output compression is on based only on
+	 * the extension of the output paths (or the Pig settings for Pig temporary
+	 * paths), ignoring the official Hadoop compression parameter.
+	 * 
+	 * Note: if no output paths are provided, this method will access the conf
+	 * to get the output paths
+	 * 
+	 * @param conf
+	 *            the configuration
+	 * @param outPaths
+	 *            the output paths
+	 * @return true if the output paths imply compression
+	 */
+	public static boolean isMROutputPathCompressionOn(Configuration conf,
+			String... outPaths) {
+
 		if (outPaths == null || outPaths.length == 0)
 			outPaths = ProfileUtils.getOutputDirs(conf);
 
@@ -423,6 +443,21 @@ public class ProfileUtils {
 			return false;
 	}
 
+	/**
+	 * Load a job profile from a file in either the XML or the binary format
+	 * (see {@link XMLProfileParser} and {@link BinaryProfileParser})
+	 * 
+	 * @param profFile
+	 *            the profile file
+	 * @return the job profile
+	 */
+	public static MRJobProfile importJobProfile(File profFile) {
+		if (BinaryProfileParser.isBinaryProfile(profFile))
+			return BinaryProfileParser.importJobProfile(profFile);
+		else
+			return XMLProfileParser.importJobProfile(profFile);
+	}
+
 	/**
 	 * Finds and loads the source profile based on either a job profile id or a
 	 * profile file path.
@@ -444,7 +479,7 @@ public class ProfileUtils {
 		File profFile = new File(profileIdOrFile);
 		if (profFile.exists()) {
 			// profileIdOrFile is a file
-			return XMLProfileParser.importJobProfile(profFile);
+			return importJobProfile(profFile);
 		} else {
 			// profileIdOrFile is a job id
 			MRJobLogsManager manager = new MRJobLogsManager();
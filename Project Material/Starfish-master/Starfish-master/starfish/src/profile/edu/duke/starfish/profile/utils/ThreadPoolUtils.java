@@ -0,0 +1,105 @@
+package edu.duke.starfish.profile.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Static methods for running tasks in thread pools. The pools use daemon
+ * threads, so that a pool that is not shut down never keeps the JVM alive,
+ * and a task that fails rethrows its exception in the thread that waits for
+ * its result.
+ * 
+ * @author hero
+ */
+public class ThreadPoolUtils {
+
+	/* ***************************************************************
+	 * PUBLIC STATIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Create a fixed-size pool of daemon threads, named with the provided
+	 * prefix followed by the number of the thread (e.g., "rrs-chain-0")
+	 * 
+	 * @param namePrefix
+	 *            the prefix of the thread names
+	 * @param numThreads
+	 *            the number of threads
+	 * @return the thread pool
+	 */
+	public static ExecutorService newThreadPool(final String namePrefix,
+			int numThreads) {
+
+		return Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+			private int count = 0;
+
+			@Override
+			public synchronized Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, namePrefix + "-" + (count++));
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Run all the tasks in the thread pool and wait for their results
+	 * 
+	 * @param executor
+	 *            the thread pool
+	 * @param tasks
+	 *            the tasks to run
+	 * @return the results of the tasks, in the order of the tasks
+	 */
+	public static <T> List<T> invokeAll(ExecutorService executor,
+			Collection<? extends Callable<T>> tasks) {
+
+		try {
+			return getResults(executor.invokeAll(tasks));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Wait for the tasks submitted to a thread pool to finish and get their
+	 * results. If a task failed, its exception is rethrown (wrapped in a
+	 * RuntimeException if it is a checked exception).
+	 * 
+	 * @param futures
+	 *            the futures of the tasks
+	 * @return the results of the tasks, in the order of the futures
+	 */
+	public static <T> List<T> getResults(
+			List<? extends Future<? extends T>> futures) {
+
+		List<T> results = new ArrayList<T>(futures.size());
+		for (Future<? extends T> future : futures) {
+			try {
+				results.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				throw new RuntimeException(cause);
+			}
+		}
+
+		return results;
+	}
+
+}
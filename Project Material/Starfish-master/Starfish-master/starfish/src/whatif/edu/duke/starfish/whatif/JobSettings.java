@@ -0,0 +1,489 @@
+package edu.duke.starfish.whatif;
+
+import static edu.duke.starfish.profile.utils.Constants.*;
+
+import org.apache.hadoop.conf.Configuration;
+
+import edu.duke.starfish.profile.utils.ProfileUtils;
+
+/**
+ * A compiled, typed view of the job configuration settings that are read by
+ * the What-if Engine (i.e., the profile oracles, the data models, and the
+ * schedulers).
+ * 
+ * The settings are parsed from a {@link Configuration} once, when the object
+ * is created. Afterwards, the tunable settings can be modified directly via
+ * the setters without any string conversions, which makes it cheap to ask
+ * many what-if questions for the same job. The settings that are not tunable
+ * (e.g., the input directories or the task memory) are derived from the base
+ * configuration and never change.
+ * 
+ * The getters return the same types and default values as the corresponding
+ * {@link Configuration} getters, so that the predictions are identical to the
+ * ones based directly on the configuration.
+ * 
+ * @author hero
+ */
+public class JobSettings {
+
+	/* ***************************************************************
+	 * DATA MEMBERS
+	 * ***************************************************************
+	 */
+
+	private Configuration conf; // The base configuration
+
+	// Map-side settings
+	private int sortMB;
+	private float spillPerc;
+	private float sortRecPerc;
+	private int sortFactor;
+	private int numSpillsForCombine;
+
+	// Reduce-side settings
+	private int numReducers;
+	private long inMemMergeThr;
+	private float shuffleInBuffPerc;
+	private float shuffleMergePerc;
+	private float redInBuffPerc;
+	private float redSlowstartMaps;
+
+	// Combiner and compression settings
+	private boolean useCombiner;
+	private boolean compressMapOutput;
+	private boolean compressOutput;
+
+	// Settings derived from the base configuration only
+	private boolean hasCombiner;
+	private boolean outputPathCompression;
+	private long taskMemory;
+	private String[] inputDirs;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param conf
+	 *            the base configuration
+	 */
+	public JobSettings(Configuration conf) {
+		this.conf = conf;
+
+		this.sortMB = conf.getInt(MR_SORT_MB, DEF_SORT_MB);
+		this.spillPerc = conf.getFloat(MR_SPILL_PERC, DEF_SPILL_PERC);
+		this.sortRecPerc = conf.getFloat(MR_SORT_REC_PERC, DEF_SORT_REC_PERC);
+		this.sortFactor = conf.getInt(MR_SORT_FACTOR, DEF_SORT_FACTOR);
+		this.numSpillsForCombine = conf.getInt(MR_NUM_SPILLS_COMBINE,
+				DEF_NUM_SPILLS_FOR_COMB);
+
+		this.numReducers = conf.getInt(MR_RED_TASKS, 1);
+		this.inMemMergeThr = conf.getLong(MR_INMEM_MERGE, DEF_INMEM_MERGE);
+		this.shuffleInBuffPerc = conf.getFloat(MR_SHUFFLE_IN_BUFF_PERC,
+				DEF_SHUFFLE_IN_BUFF_PERC);
+		this.shuffleMergePerc = conf.getFloat(MR_SHUFFLE_MERGE_PERC,
+				DEF_SHUFFLE_MERGE_PERC);
+		this.redInBuffPerc = conf.getFloat(MR_RED_IN_BUFF_PERC,
+				DEF_RED_IN_BUFF_PERC);
+		this.redSlowstartMaps = conf.getFloat(MR_RED_SLOWSTART_MAPS,
+				DEF_RED_SLOWSTART_MAPS);
+
+		this.useCombiner = conf.getBoolean(STARFISH_USE_COMBINER, true);
+		this.compressMapOutput = conf.getBoolean(MR_COMPRESS_MAP_OUT, false);
+		this.compressOutput = conf.getBoolean(MR_COMPRESS_OUT, false);
+
+		this.hasCombiner = conf.get(MR_COMBINE_CLASS) != null;
+		this.outputPathCompression = ProfileUtils
+				.isMROutputPathCompressionOn(conf);
+		this.taskMemory = ProfileUtils.getTaskMemory(conf);
+		this.inputDirs = ProfileUtils.getInputDirs(conf);
+	}
+
+	/**
+	 * Copy constructor
+	 * 
+	 * @param other
+	 *            the job settings to copy
+	 */
+	public JobSettings(JobSettings other) {
+		this.conf = other.conf;
+		this.hasCombiner = other.hasCombiner;
+		this.outputPathCompression = other.outputPathCompression;
+		this.taskMemory = other.taskMemory;
+		this.inputDirs = other.inputDirs;
+		copyFrom(other);
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Copy the tunable settings from the other job settings. The other
+	 * settings must have been compiled from the same base configuration.
+	 * 
+	 * @param other
+	 *            the job settings to copy from
+	 */
+	public void copyFrom(JobSettings other) {
+		this.sortMB = other.sortMB;
+		this.spillPerc = other.spillPerc;
+		this.sortRecPerc = other.sortRecPerc;
+		this.sortFactor = other.sortFactor;
+		this.numSpillsForCombine = other.numSpillsForCombine;
+
+		this.numReducers = other.numReducers;
+		this.inMemMergeThr = other.inMemMergeThr;
+		this.shuffleInBuffPerc = other.shuffleInBuffPerc;
+		this.shuffleMergePerc = other.shuffleMergePerc;
+		this.redInBuffPerc = other.redInBuffPerc;
+		this.redSlowstartMaps = other.redSlowstartMaps;
+
+		this.useCombiner = other.useCombiner;
+		this.compressMapOutput = other.compressMapOutput;
+		this.compressOutput = other.compressOutput;
+	}
+
+	/**
+	 * Returns true if the two job settings lead to the same map task
+	 * predictions, i.e., they were compiled from the same base configuration
+	 * and all the settings read by the map profile oracle are equal.
+	 * 
+	 * Note that the number of reducers effects the map tasks as well (it
+	 * determines whether the job is map-only and the records per partition).
+	 * 
+	 * @param other
+	 *            the other job settings
+	 * @return true if the map-side settings are equal
+	 */
+	public boolean equalsMapSettings(JobSettings other) {
+		if (!equalsBaseSettings(other))
+			return false;
+
+		if (numReducers == 0 && compressOutput != other.compressOutput)
+			return false;
+
+		return sortMB == other.sortMB
+				&& Float.floatToIntBits(spillPerc) == Float
+						.floatToIntBits(other.spillPerc)
+				&& Float.floatToIntBits(sortRecPerc) == Float
+						.floatToIntBits(other.sortRecPerc)
+				&& sortFactor == other.sortFactor
+				&& numSpillsForCombine == other.numSpillsForCombine
+				&& numReducers == other.numReducers
+				&& useCombiner == other.useCombiner
+				&& compressMapOutput == other.compressMapOutput;
+	}
+
+	/**
+	 * Returns true if the two job settings lead to the same reduce task
+	 * predictions for the same shuffle specifications, i.e., they were
+	 * compiled from the same base configuration and all the settings read by
+	 * the reduce profile oracle are equal.
+	 * 
+	 * Note that the number of reducers is captured by the shuffle
+	 * specifications, while the reduce slowstart only effects scheduling.
+	 * 
+	 * @param other
+	 *            the other job settings
+	 * @return true if the reduce-side settings are equal
+	 */
+	public boolean equalsReduceSettings(JobSettings other) {
+		if (!equalsBaseSettings(other))
+			return false;
+
+		return inMemMergeThr == other.inMemMergeThr
+				&& Float.floatToIntBits(shuffleInBuffPerc) == Float
+						.floatToIntBits(other.shuffleInBuffPerc)
+				&& Float.floatToIntBits(shuffleMergePerc) == Float
+						.floatToIntBits(other.shuffleMergePerc)
+				&& Float.floatToIntBits(redInBuffPerc) == Float
+						.floatToIntBits(other.redInBuffPerc)
+				&& sortFactor == other.sortFactor
+				&& useCombiner == other.useCombiner
+				&& compressMapOutput == other.compressMapOutput
+				&& compressOutput == other.compressOutput;
+	}
+
+	/**
+	 * @return the base configuration the settings were compiled from
+	 */
+	public Configuration getConfiguration() {
+		return conf;
+	}
+
+	/**
+	 * @return the input directories
+	 */
+	public String[] getInputDirs() {
+		return inputDirs;
+	}
+
+	/**
+	 * @return the task memory (in bytes)
+	 */
+	public long getTaskMemory() {
+		return taskMemory;
+	}
+
+	/**
+	 * @return true if the job has a combiner and the combiner is enabled
+	 */
+	public boolean isCombinerOn() {
+		return hasCombiner && useCombiner;
+	}
+
+	/**
+	 * @return true if the job output is compressed
+	 */
+	public boolean isOutputCompressionOn() {
+		return compressOutput || outputPathCompression;
+	}
+
+	/**
+	 * @return the sort buffer size (in MB)
+	 */
+	public int getSortMB() {
+		return sortMB;
+	}
+
+	/**
+	 * @param sortMB
+	 *            the sort buffer size (in MB)
+	 */
+	public void setSortMB(int sortMB) {
+		this.sortMB = sortMB;
+	}
+
+	/**
+	 * @return the spill percentage
+	 */
+	public float getSpillPerc() {
+		return spillPerc;
+	}
+
+	/**
+	 * @param spillPerc
+	 *            the spill percentage
+	 */
+	public void setSpillPerc(float spillPerc) {
+		this.spillPerc = spillPerc;
+	}
+
+	/**
+	 * @return the sort record percentage
+	 */
+	public float getSortRecPerc() {
+		return sortRecPerc;
+	}
+
+	/**
+	 * @param sortRecPerc
+	 *            the sort record percentage
+	 */
+	public void setSortRecPerc(float sortRecPerc) {
+		this.sortRecPerc = sortRecPerc;
+	}
+
+	/**
+	 * @return the sort factor
+	 */
+	public int getSortFactor() {
+		return sortFactor;
+	}
+
+	/**
+	 * @param sortFactor
+	 *            the sort factor
+	 */
+	public void setSortFactor(int sortFactor) {
+		this.sortFactor = sortFactor;
+	}
+
+	/**
+	 * @return the minimum number of spills for using the combiner
+	 */
+	public int getNumSpillsForCombine() {
+		return numSpillsForCombine;
+	}
+
+	/**
+	 * @param numSpillsForCombine
+	 *            the minimum number of spills for using the combiner
+	 */
+	public void setNumSpillsForCombine(int numSpillsForCombine) {
+		this.numSpillsForCombine = numSpillsForCombine;
+	}
+
+	/**
+	 * @return the number of reduce tasks
+	 */
+	public int getNumReducers() {
+		return numReducers;
+	}
+
+	/**
+	 * @param numReducers
+	 *            the number of reduce tasks
+	 */
+	public void setNumReducers(int numReducers) {
+		this.numReducers = numReducers;
+	}
+
+	/**
+	 * @return the in-memory merge threshold
+	 */
+	public long getInMemMergeThr() {
+		return inMemMergeThr;
+	}
+
+	/**
+	 * @param inMemMergeThr
+	 *            the in-memory merge threshold
+	 */
+	public void setInMemMergeThr(long inMemMergeThr) {
+		this.inMemMergeThr = inMemMergeThr;
+	}
+
+	/**
+	 * @return the shuffle input buffer percentage
+	 */
+	public float getShuffleInBuffPerc() {
+		return shuffleInBuffPerc;
+	}
+
+	/**
+	 * @param shuffleInBuffPerc
+	 *            the shuffle input buffer percentage
+	 */
+	public void setShuffleInBuffPerc(float shuffleInBuffPerc) {
+		this.shuffleInBuffPerc = shuffleInBuffPerc;
+	}
+
+	/**
+	 * @return the shuffle merge percentage
+	 */
+	public float getShuffleMergePerc() {
+		return shuffleMergePerc;
+	}
+
+	/**
+	 * @param shuffleMergePerc
+	 *            the shuffle merge percentage
+	 */
+	public void setShuffleMergePerc(float shuffleMergePerc) {
+		this.shuffleMergePerc = shuffleMergePerc;
+	}
+
+	/**
+	 * @return the reduce input buffer percentage
+	 */
+	public float getRedInBuffPerc() {
+		return redInBuffPerc;
+	}
+
+	/**
+	 * @param redInBuffPerc
+	 *            the reduce input buffer percentage
+	 */
+	public void setRedInBuffPerc(float redInBuffPerc) {
+		this.redInBuffPerc = redInBuffPerc;
+	}
+
+	/**
+	 * @return the fraction of maps to complete before scheduling reducers
+	 */
+	public float getRedSlowstartMaps() {
+		return redSlowstartMaps;
+	}
+
+	/**
+	 * @param redSlowstartMaps
+	 *            the fraction of maps to complete before scheduling reducers
+	 */
+	public void setRedSlowstartMaps(float redSlowstartMaps) {
+		this.redSlowstartMaps = redSlowstartMaps;
+	}
+
+	/**
+	 * @return the Starfish flag for using the combiner
+	 */
+	public boolean getUseCombiner() {
+		return useCombiner;
+	}
+
+	/**
+	 * @param useCombiner
+	 *            the Starfish flag for using the combiner
+	 */
+	public void setUseCombiner(boolean useCombiner) {
+		this.useCombiner = useCombiner;
+	}
+
+	/**
+	 * @return true if the map output is compressed
+	 */
+	public boolean getCompressMapOutput() {
+		return compressMapOutput;
+	}
+
+	/**
+	 * @param compressMapOutput
+	 *            the flag for compressing the map output
+	 */
+	public void setCompressMapOutput(boolean compressMapOutput) {
+		this.compressMapOutput = compressMapOutput;
+	}
+
+	/**
+	 * @return the flag for compressing the job output
+	 */
+	public boolean getCompressOutput() {
+		return compressOutput;
+	}
+
+	/**
+	 * @param compressOutput
+	 *            the flag for compressing the job output
+	 */
+	public void setCompressOutput(boolean compressOutput) {
+		this.compressOutput = compressOutput;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "JobSettings [sortMB=" + sortMB + ", spillPerc=" + spillPerc
+				+ ", sortRecPerc=" + sortRecPerc + ", sortFactor=" + sortFactor
+				+ ", numSpillsForCombine=" + numSpillsForCombine
+				+ ", numReducers=" + numReducers + ", inMemMergeThr="
+				+ inMemMergeThr + ", shuffleInBuffPerc=" + shuffleInBuffPerc
+				+ ", shuffleMergePerc=" + shuffleMergePerc
+				+ ", redInBuffPerc=" + redInBuffPerc + ", redSlowstartMaps="
+				+ redSlowstartMaps + ", useCombiner=" + useCombiner
+				+ ", compressMapOutput=" + compressMapOutput
+				+ ", compressOutput=" + compressOutput + "]";
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * @param other
+	 *            the other job settings
+	 * @return true if both settings were compiled from the same base
+	 *         configuration
+	 */
+	private boolean equalsBaseSettings(JobSettings other) {
+		return other != null && conf == other.conf
+				&& hasCombiner == other.hasCombiner
+				&& outputPathCompression == other.outputPathCompression
+				&& taskMemory == other.taskMemory
+				&& inputDirs == other.inputDirs;
+	}
+}
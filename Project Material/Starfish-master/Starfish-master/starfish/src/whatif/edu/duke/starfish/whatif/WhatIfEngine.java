@@ -151,6 +151,24 @@ public class WhatIfEngine {
 		return scheduler.scheduleJobGetTime(submissionTime, jobProf, conf);
 	}
 
+	/**
+	 * Returns the job execution time if these particular job settings are
+	 * used. This method avoids the string conversions of the configuration
+	 * and is meant for asking many what-if questions for the same job.
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param settings
+	 *            the compiled job settings
+	 * @return the job execution time (in ms)
+	 */
+	public double whatIfJobSettingsGetTime(Date submissionTime,
+			JobSettings settings) {
+
+		MRJobProfile jobProf = jobOracle.whatif(settings, dataModel);
+		return scheduler.scheduleJobGetTime(submissionTime, jobProf, settings);
+	}
+
 	/**
 	 * Returns the job representation if this particular job configuration is
 	 * used.
@@ -189,6 +207,25 @@ public class WhatIfEngine {
 		return scheduler.scheduleJobGetJobInfo(submissionTime, jobProf, conf);
 	}
 
+	/**
+	 * Returns the job representation if these particular job settings are
+	 * used. Like {@link #whatIfJobSettingsGetTime(Date, JobSettings)}, this
+	 * method avoids the string conversions of the configuration.
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param settings
+	 *            the compiled job settings
+	 * @return the job info
+	 */
+	public MRJobInfo whatIfJobSettingsGetJobInfo(Date submissionTime,
+			JobSettings settings) {
+
+		MRJobProfile jobProf = jobOracle.whatif(settings, dataModel);
+		return scheduler.scheduleJobGetJobInfo(submissionTime, jobProf,
+				settings);
+	}
+
 	/* ***************************************************************
 	 * PUBLIC STATIC METHODS
 	 * ***************************************************************
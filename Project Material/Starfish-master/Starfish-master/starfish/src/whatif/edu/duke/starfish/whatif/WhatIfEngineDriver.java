@@ -17,8 +17,8 @@ import org.apache.hadoop.fs.Path;
 
 import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.utils.ProfileUtils;
 import edu.duke.starfish.profile.utils.XMLClusterParser;
-import edu.duke.starfish.profile.utils.XMLProfileParser;
 import edu.duke.starfish.whatif.WhatIfEngine.WhatIfQuestion;
 import edu.duke.starfish.whatif.data.DataSetModel;
 import edu.duke.starfish.whatif.data.FixedInputSpecsDataSetModel;
@@ -61,7 +61,7 @@ import edu.duke.starfish.whatif.data.XMLInputSpecsParser;
  * 
  * Description of parameter flags:
  *   -mode &lt;option&gt;   The execution mode
- *   -profile &lt;file&gt;  The job profile (XML file)
+ *   -profile &lt;file&gt;  The job profile (XML or binary file)
  *   -conf &lt;file&gt;     The job configuration file (XML file)
  *   -input &lt;file&gt;    The input specifications file (XML file)
  *   -cluster &lt;file&gt;  The cluster specifications file (XML file)
@@ -188,8 +188,8 @@ public class WhatIfEngineDriver {
 		}
 
 		// Get the job profile
-		MRJobProfile sourceProf = XMLProfileParser.importJobProfile(new File(
-				line.getOptionValue(PROFILE)));
+		MRJobProfile sourceProf = ProfileUtils.importJobProfile(new File(line
+				.getOptionValue(PROFILE)));
 
 		// Answer the what-if question
 		WhatIfEngine.answerWhatIfQuestion(WhatIfQuestion.getQuestion(mode),
@@ -426,7 +426,8 @@ public class WhatIfEngineDriver {
 		out.println("");
 		out.println("Description of parameter flags:");
 		out.println("  -mode <option>   " + "The execution mode");
-		out.println("  -profile <file>  " + "The job profile (XML file)");
+		out.println("  -profile <file>  "
+				+ "The job profile (XML or binary file)");
 		out.println("  -conf <file>     "
 				+ "The job configuration file (XML file)");
 		out.println("  -input <file>    "
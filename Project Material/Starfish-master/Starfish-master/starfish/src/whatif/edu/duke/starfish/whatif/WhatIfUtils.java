@@ -45,9 +45,9 @@ public class WhatIfUtils {
 
 			MRMapProfile mapProf = (MRMapProfile) attempt.getProfile();
 			int inputIndex = mapProf.getInputIndex();
-			long size = mapProf.getCounter(MRCounter.HDFS_BYTES_READ,
-					mapProf.getCounter(MRCounter.S3N_BYTES_READ, 0l));
-			boolean isCompressed = mapProf.getStatistic(
+			long size = mapProf.getCounterLong(MRCounter.HDFS_BYTES_READ,
+					mapProf.getCounterLong(MRCounter.S3N_BYTES_READ, 0l));
+			boolean isCompressed = mapProf.getStatisticDouble(
 					MRStatistics.INPUT_COMPRESS_RATIO, 1d) != 1d;
 			MapInputSpecs spec = new MapInputSpecs(inputIndex, 1, size,
 					isCompressed, DataLocality.DATA_LOCAL);
@@ -123,12 +123,14 @@ public class WhatIfUtils {
 		if (mapProfile == null)
 			return 0l;
 
-		double memory = mapProfile.getStatistic(MRStatistics.STARTUP_MEM, 0d)
-				+ mapProfile.getStatistic(MRStatistics.SETUP_MEM, 0d)
-				+ mapProfile.getStatistic(MRStatistics.CLEANUP_MEM, 0d);
+		double memory = mapProfile.getStatisticDouble(
+				MRStatistics.STARTUP_MEM, 0d)
+				+ mapProfile.getStatisticDouble(MRStatistics.SETUP_MEM, 0d)
+				+ mapProfile.getStatisticDouble(MRStatistics.CLEANUP_MEM, 0d);
 
-		memory += mapProfile.getStatistic(MRStatistics.MAP_MEM_PER_RECORD, 0d)
-				* mapProfile.getCounter(MRCounter.MAP_INPUT_RECORDS, 0l);
+		memory += mapProfile.getStatisticDouble(
+				MRStatistics.MAP_MEM_PER_RECORD, 0d)
+				* mapProfile.getCounterLong(MRCounter.MAP_INPUT_RECORDS, 0l);
 
 		return Math.round(memory);
 	}
@@ -145,12 +147,14 @@ public class WhatIfUtils {
 		if (redProfile == null || redProfile.isEmpty())
 			return 0l;
 
-		double memory = redProfile.getStatistic(MRStatistics.STARTUP_MEM, 0d)
-				+ redProfile.getStatistic(MRStatistics.SETUP_MEM, 0d)
-				+ redProfile.getStatistic(MRStatistics.CLEANUP_MEM, 0d);
+		double memory = redProfile.getStatisticDouble(
+				MRStatistics.STARTUP_MEM, 0d)
+				+ redProfile.getStatisticDouble(MRStatistics.SETUP_MEM, 0d)
+				+ redProfile.getStatisticDouble(MRStatistics.CLEANUP_MEM, 0d);
 
-		memory += redProfile.getStatistic(MRStatistics.REDUCE_MEM_PER_RECORD,
-				0d) * redProfile.getCounter(MRCounter.REDUCE_INPUT_RECORDS, 0l);
+		memory += redProfile.getStatisticDouble(
+				MRStatistics.REDUCE_MEM_PER_RECORD, 0d)
+				* redProfile.getCounterLong(MRCounter.REDUCE_INPUT_RECORDS, 0l);
 
 		return Math.round(memory);
 	}
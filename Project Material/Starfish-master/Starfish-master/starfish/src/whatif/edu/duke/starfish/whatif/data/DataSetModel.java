@@ -1,7 +1,5 @@
 package edu.duke.starfish.whatif.data;
 
-import static edu.duke.starfish.profile.utils.Constants.*;
-
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,6 +10,7 @@ import edu.duke.starfish.profile.profileinfo.execution.profile.MRMapProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRReduceProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRStatistics;
+import edu.duke.starfish.whatif.JobSettings;
 
 /**
  * The base class for the Dataset Model, which is responsible for reasoning
@@ -43,23 +42,38 @@ public abstract class DataSetModel {
 	 */
 	public List<ReduceShuffleSpecs> generateReduceShuffleSpecs(
 			Configuration conf, List<MRMapProfile> mapProfiles) {
+		return generateReduceShuffleSpecs(new JobSettings(conf), mapProfiles);
+	}
+
+	/**
+	 * Generate the reduce shuffle specifications
+	 * 
+	 * @param settings
+	 *            the compiled job settings
+	 * @param mapProfiles
+	 *            the map profiles
+	 * @return the shuffle specifications
+	 */
+	public List<ReduceShuffleSpecs> generateReduceShuffleSpecs(
+			JobSettings settings, List<MRMapProfile> mapProfiles) {
 		double shuffleSize = 0l;
 		double shuffleRecs = 0l;
 		int numMappers = 0;
-		int numReducers = conf.getInt(MR_RED_TASKS, 1);
+		int numReducers = settings.getNumReducers();
 
 		for (MRMapProfile mapProf : mapProfiles) {
 			// Add up the total shuffle size
 			shuffleSize += mapProf.getNumTasks()
-					* mapProf.getCounter(
+					* mapProf.getCounterLong(
 							MRCounter.MAP_OUTPUT_MATERIALIZED_BYTES, 0l);
 
 			// Add up the total number of records
 			shuffleRecs += mapProf.getNumTasks()
-					* (mapProf.getCounter(MRCounter.COMBINE_OUTPUT_RECORDS, 0l)
-							+ mapProf.getCounter(MRCounter.MAP_OUTPUT_RECORDS,
-									0l) - mapProf.getCounter(
-							MRCounter.COMBINE_INPUT_RECORDS, 0l));
+					* (mapProf.getCounterLong(
+							MRCounter.COMBINE_OUTPUT_RECORDS, 0l)
+							+ mapProf.getCounterLong(
+									MRCounter.MAP_OUTPUT_RECORDS, 0l) - mapProf
+							.getCounterLong(MRCounter.COMBINE_INPUT_RECORDS, 0l));
 
 			// Add up the total number of mappers
 			numMappers += mapProf.getNumTasks();
@@ -94,12 +108,13 @@ public abstract class DataSetModel {
 			List<MRMapProfile> mapProfiles = jobProfile.getMapProfiles();
 			outputSpecs = new ArrayList<JobOutputSpecs>(mapProfiles.size());
 			for (MRMapProfile prof : mapProfiles) {
-				boolean isCompr = prof.getStatistic(
+				boolean isCompr = prof.getStatisticDouble(
 						MRStatistics.OUT_COMPRESS_RATIO, 1d) != 1d;
 				outputSpecs.add(new JobOutputSpecs(prof.getNumTasks(), prof
-						.getCounter(MRCounter.HDFS_BYTES_WRITTEN, prof
-								.getCounter(MRCounter.S3N_BYTES_WRITTEN, 0l)),
-						prof.getCounter(MRCounter.MAP_OUTPUT_RECORDS, 0l),
+						.getCounterLong(MRCounter.HDFS_BYTES_WRITTEN, prof
+								.getCounterLong(
+										MRCounter.S3N_BYTES_WRITTEN, 0l)),
+						prof.getCounterLong(MRCounter.MAP_OUTPUT_RECORDS, 0l),
 						isCompr));
 			}
 		} else {
@@ -107,13 +122,14 @@ public abstract class DataSetModel {
 			List<MRReduceProfile> redProfiles = jobProfile.getReduceProfiles();
 			outputSpecs = new ArrayList<JobOutputSpecs>(redProfiles.size());
 			for (MRReduceProfile prof : redProfiles) {
-				boolean isCompr = prof.getStatistic(
+				boolean isCompr = prof.getStatisticDouble(
 						MRStatistics.OUT_COMPRESS_RATIO, 1d) != 1d;
 				outputSpecs.add(new JobOutputSpecs(prof.getNumTasks(), prof
-						.getCounter(MRCounter.HDFS_BYTES_WRITTEN, prof
-								.getCounter(MRCounter.S3N_BYTES_WRITTEN, 0l)),
-						prof.getCounter(MRCounter.REDUCE_OUTPUT_RECORDS, 0l),
-						isCompr));
+						.getCounterLong(MRCounter.HDFS_BYTES_WRITTEN, prof
+								.getCounterLong(
+										MRCounter.S3N_BYTES_WRITTEN, 0l)),
+						prof.getCounterLong(
+								MRCounter.REDUCE_OUTPUT_RECORDS, 0l), isCompr));
 			}
 		}
 
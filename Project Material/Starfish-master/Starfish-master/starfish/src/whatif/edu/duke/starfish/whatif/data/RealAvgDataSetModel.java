@@ -58,10 +58,14 @@ public class RealAvgDataSetModel extends DataSetModel {
 	 */
 
 	/**
+	 * The method is synchronized because the cache is populated lazily and the
+	 * job optimizers may ask what-if questions from multiple threads.
+	 * 
 	 * @see DataSetModel#generateMapInputSpecs(Configuration)
 	 */
 	@Override
-	public List<MapInputSpecs> generateMapInputSpecs(Configuration conf) {
+	public synchronized List<MapInputSpecs> generateMapInputSpecs(
+			Configuration conf) {
 
 		// Check the cache first
 		if (inputSpecsCache != null)
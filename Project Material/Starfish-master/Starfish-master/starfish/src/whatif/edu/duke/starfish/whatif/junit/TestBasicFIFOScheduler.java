@@ -0,0 +1,139 @@
+package edu.duke.starfish.whatif.junit;
+
+import java.util.Date;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Test;
+
+import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
+import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.profile.utils.Constants;
+import edu.duke.starfish.whatif.oracle.JobProfileOracle;
+import edu.duke.starfish.whatif.scheduler.BasicFIFOScheduler;
+import edu.duke.starfish.whatif.scheduler.IWhatIfScheduler;
+
+/**
+ * Test the BasicFIFOScheduler
+ *
+ * @author hero
+ */
+public class TestBasicFIFOScheduler extends TestCase {
+
+	/**
+	 * Test that the time-only simulation returns the same durations as the full
+	 * simulation, even when multiple jobs are scheduled back to back
+	 */
+	@Test
+	public void testScheduleJobGetTime() {
+		// Common elements
+		ClusterConfiguration cluster = SampleProfiles.getClusterConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+		Date submissionTime = new Date();
+
+		BasicFIFOScheduler fullScheduler = new BasicFIFOScheduler(cluster);
+		IWhatIfScheduler timeScheduler = fullScheduler.duplicate();
+
+		JobProfileOracle tsOracle = new JobProfileOracle(SampleProfiles
+				.getTeraSortJobProfile());
+		JobProfileOracle wcOracle = new JobProfileOracle(SampleProfiles
+				.getWordCountJobProfile());
+
+		int[] numMappers = { 1, 5, 43, 200 };
+		int[] numReducers = { 1, 7, 30, 45 };
+		float[] slowStarts = { 0.05f, 0.5f, 0.8f, 1.0f };
+
+		for (int i = 0; i < numMappers.length; ++i) {
+			for (int j = 0; j < numReducers.length; ++j) {
+
+				// TeraSort ---------------------------------------------------
+				Configuration tsConf = SampleProfiles.getTeraSortConfiguration();
+				tsConf.setInt(SampleDataSetModel.NUM_MAPPERS, numMappers[i]);
+				tsConf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+				tsConf.setBoolean(SampleDataSetModel.USE_AVG_PROFILE, i % 2 == 0);
+				tsConf.setInt(Constants.MR_RED_TASKS, numReducers[j]);
+				tsConf.setFloat(Constants.MR_RED_SLOWSTART_MAPS, slowStarts[j]);
+
+				MRJobProfile tsProf = tsOracle.whatif(tsConf, model);
+				assertEquals(fullScheduler.scheduleJobGetJobInfo(
+						submissionTime, tsProf, tsConf).getDuration(),
+						timeScheduler.scheduleJobGetTime(submissionTime,
+								tsProf, tsConf), 0d);
+
+				// WordCount ---------------------------------------------------
+				Configuration wcConf = SampleProfiles
+						.getWordCountConfiguration();
+				wcConf.setInt(SampleDataSetModel.NUM_MAPPERS, numMappers[i]);
+				wcConf.setLong(SampleDataSetModel.INPUT_SIZE, 21252750l);
+				wcConf.setInt(Constants.MR_RED_TASKS, numReducers[j]);
+				wcConf.setFloat(Constants.MR_RED_SLOWSTART_MAPS, slowStarts[i]);
+
+				MRJobProfile wcProf = wcOracle.whatif(wcConf, model);
+				assertEquals(fullScheduler.scheduleJobGetJobInfo(
+						submissionTime, wcProf, wcConf).getDuration(),
+						timeScheduler.scheduleJobGetTime(submissionTime,
+								wcProf, wcConf), 0d);
+			}
+		}
+
+		// Map-only simulations
+		fullScheduler.setIgnoreReducers(true);
+		timeScheduler.setIgnoreReducers(true);
+		for (int i = 0; i < numMappers.length; ++i) {
+			Configuration tsConf = SampleProfiles.getTeraSortConfiguration();
+			tsConf.setInt(SampleDataSetModel.NUM_MAPPERS, numMappers[i]);
+			tsConf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+
+			MRJobProfile tsProf = tsOracle.whatif(tsConf, model);
+			assertEquals(fullScheduler.scheduleJobGetJobInfo(submissionTime,
+					tsProf, tsConf).getDuration(), timeScheduler
+					.scheduleJobGetTime(submissionTime, tsProf, tsConf), 0d);
+		}
+	}
+
+	/**
+	 * Test that scheduling the tasks in waves returns the same durations as
+	 * scheduling one task at a time, for large jobs scheduled back to back on
+	 * a large cluster (so that the slots end up in many different states)
+	 */
+	@Test
+	public void testScheduleJobGetTimeWaves() {
+		ClusterConfiguration cluster = ClusterConfiguration
+				.createClusterConfiguration("large", 10, 20, 3, 2, 200l << 20);
+		SampleDataSetModel model = new SampleDataSetModel();
+		Date submissionTime = new Date();
+
+		BasicFIFOScheduler waveScheduler = new BasicFIFOScheduler(cluster);
+		BasicFIFOScheduler taskScheduler = new BasicFIFOScheduler(cluster);
+		taskScheduler.setWaveScheduling(false);
+
+		JobProfileOracle tsOracle = new JobProfileOracle(SampleProfiles
+				.getTeraSortJobProfile());
+
+		int[] numMappers = { 1, 599, 600, 601, 5000, 12345 };
+		int[] numReducers = { 1, 399, 400, 1000 };
+		float[] slowStarts = { 0.05f, 0.5f, 0.8f, 1.0f };
+
+		for (int i = 0; i < numMappers.length; ++i) {
+			for (int j = 0; j < numReducers.length; ++j) {
+				Configuration tsConf = SampleProfiles.getTeraSortConfiguration();
+				tsConf.setInt(SampleDataSetModel.NUM_MAPPERS, numMappers[i]);
+				tsConf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+				tsConf.setBoolean(SampleDataSetModel.USE_AVG_PROFILE, i % 2 == 0);
+				tsConf.setInt(Constants.MR_RED_TASKS, numReducers[j]);
+				tsConf.setFloat(Constants.MR_RED_SLOWSTART_MAPS, slowStarts[j]);
+
+				MRJobProfile tsProf = tsOracle.whatif(tsConf, model);
+				assertEquals(taskScheduler.scheduleJobGetTime(submissionTime,
+						tsProf, tsConf), waveScheduler.scheduleJobGetTime(
+						submissionTime, tsProf, tsConf), 0d);
+			}
+
+			// Map-only simulation
+			waveScheduler.setIgnoreReducers(i % 2 == 0);
+			taskScheduler.setIgnoreReducers(i % 2 == 0);
+		}
+	}
+
+}
@@ -6,6 +6,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.junit.Test;
 
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.whatif.JobSettings;
 import edu.duke.starfish.whatif.oracle.JobProfileOracle;
 
 public class TestJobProfileOracle extends TestCase {
@@ -62,4 +63,76 @@ public class TestJobProfileOracle extends TestCase {
 		assertTrue(wcVirtual.equals(wcVirtual2));
 	}
 
+	/**
+	 * Test method for
+	 * {@link edu.duke.starfish.whatif.oracle.JobProfileOracle#whatif(JobSettings, edu.duke.starfish.whatif.data.DataSetModel)}
+	 * when the task profiles of the previous call are reused.
+	 */
+	@Test
+	public void testWhatifReuse() {
+		MRJobProfile tsJobProf = SampleProfiles.getTeraSortJobProfile();
+		Configuration tsConf = SampleProfiles.getTeraSortConfiguration();
+		SampleDataSetModel model = new SampleDataSetModel();
+
+		tsConf.setInt(SampleDataSetModel.NUM_MAPPERS, 5);
+		tsConf.setLong(SampleDataSetModel.INPUT_SIZE, 20000000l);
+		tsConf.setBoolean(SampleDataSetModel.USE_AVG_PROFILE, false);
+
+		JobProfileOracle oracle = new JobProfileOracle(tsJobProf);
+		JobSettings settings = new JobSettings(tsConf);
+		MRJobProfile prev = oracle.whatif(settings, model);
+
+		// Only the slowstart changes: reuse all task profiles
+		settings.setRedSlowstartMaps(0.5f);
+		MRJobProfile curr = oracle.whatif(settings, model);
+		assertSame(prev.getMapProfiles().get(0), curr.getMapProfiles().get(0));
+		assertSame(prev.getReduceProfiles().get(0), curr.getReduceProfiles()
+				.get(0));
+		assertEquals(predict(tsJobProf, settings, model), curr);
+
+		// A reduce setting changes: reuse the map profiles only
+		prev = curr;
+		settings.setShuffleInBuffPerc(0.5f);
+		curr = oracle.whatif(settings, model);
+		assertSame(prev.getMapProfiles().get(0), curr.getMapProfiles().get(0));
+		assertNotSame(prev.getReduceProfiles().get(0), curr
+				.getReduceProfiles().get(0));
+		assertEquals(predict(tsJobProf, settings, model), curr);
+
+		// The number of reducers effects both map and reduce tasks
+		prev = curr;
+		settings.setNumReducers(7);
+		curr = oracle.whatif(settings, model);
+		assertNotSame(prev.getMapProfiles().get(0), curr.getMapProfiles()
+				.get(0));
+		assertNotSame(prev.getReduceProfiles().get(0), curr
+				.getReduceProfiles().get(0));
+		assertEquals(predict(tsJobProf, settings, model), curr);
+
+		// A map setting changes: predict the map profiles again
+		prev = curr;
+		settings.setSortMB(50);
+		curr = oracle.whatif(settings, model);
+		assertNotSame(prev.getMapProfiles().get(0), curr.getMapProfiles()
+				.get(0));
+		assertEquals(predict(tsJobProf, settings, model), curr);
+
+		// Ignoring the reducers must not invalidate the reduce profiles
+		oracle.setIgnoreReducers(true);
+		settings.setInMemMergeThr(500);
+		oracle.whatif(settings, model);
+		oracle.setIgnoreReducers(false);
+		assertEquals(predict(tsJobProf, settings, model), oracle.whatif(
+				settings, model));
+	}
+
+	/**
+	 * Predict the job profile with a new job oracle
+	 */
+	private static MRJobProfile predict(MRJobProfile sourceProf,
+			JobSettings settings, SampleDataSetModel model) {
+		return new JobProfileOracle(sourceProf).whatif(
+				new JobSettings(settings), model);
+	}
+
 }
@@ -1,5 +1,7 @@
 package edu.duke.starfish.whatif.junit;
 
+import java.util.Random;
+
 import junit.framework.TestCase;
 
 import org.junit.Test;
@@ -72,6 +74,96 @@ public class TestMergeSimulator extends TestCase {
 		assertEquals(72, merger.getCombineOutRecs());
 	}
 
+	/**
+	 * Test method for
+	 * {@link edu.duke.starfish.whatif.oracle.MergeSimulator#simulateMerge(int, boolean)}
+	 * with many segments and multiple segment sizes. The expected values were
+	 * produced by simulating each segment individually.
+	 */
+	@Test
+	public void testSimulateMergeManySegments() {
+
+		// The merges of a reducer with thousands of map outputs
+		MergeSimulator merger = new MergeSimulator();
+		merger.addSegments(50000, 1024, 10);
+		merger.simulateMerge(10);
+		assertEquals(5556, merger.getNumMergePasses());
+		assertEquals(2444450, merger.getSpilledRecords());
+		assertEquals(250311680, merger.getBytesRead());
+		assertEquals(250311680, merger.getBytesWritten());
+
+		// Segments of different sizes without the final merge
+		merger = new MergeSimulator();
+		merger.addSegments(300, 2048, 20);
+		merger.addSegments(4000, 1024, 10);
+		merger.addSegments(25, 65536, 640);
+		merger.simulateMerge(25, true);
+		assertEquals(180, merger.getNumMergePasses());
+		assertEquals(96720, merger.getSpilledRecords());
+		assertEquals(9904128, merger.getBytesRead());
+		assertEquals(9904128, merger.getBytesWritten());
+	}
+
+	/**
+	 * Test that the counters are the same as the counters of merging the
+	 * segments one by one in a heap, on random segments. The segment sizes
+	 * are drawn from a few values so that segments of the same size with
+	 * different numbers of records are common.
+	 */
+	@Test
+	public void testSimulateMergeAgainstHeap() {
+
+		Random random = new Random(7l);
+		for (int i = 0; i < 20000; ++i) {
+			MergeSimulator merger = new MergeSimulator();
+			HeapMergeSimulator heapMerger = new HeapMergeSimulator();
+
+			int numCalls = 1 + random.nextInt(3);
+			for (int j = 0; j < numCalls; ++j) {
+				long count = random.nextInt(random.nextBoolean() ? 20 : 400);
+				long size = 64 * (1 + random.nextInt(4));
+				long recs = 1 + random.nextInt(3);
+				merger.addSegments(count, size, recs);
+				heapMerger.addSegments(count, size, recs);
+			}
+
+			if (random.nextBoolean()) {
+				long count = 1 + random.nextInt(10);
+				long size = 16 * (1 + random.nextInt(8));
+				long recs = 1 + random.nextInt(3);
+				merger.addMemSegments(count, size, recs);
+				heapMerger.addMemSegments(count, size, recs);
+			}
+
+			if (random.nextInt(4) == 0) {
+				int numSpills = 1 + random.nextInt(5);
+				merger.enableCombiner(numSpills, 0.5d, 0.3d);
+				heapMerger.enableCombiner(numSpills, 0.5d, 0.3d);
+			}
+
+			int factor = 2 + random.nextInt(15);
+			boolean skipFinalMerge = random.nextBoolean();
+			merger.simulateMerge(factor, skipFinalMerge);
+			heapMerger.simulateMerge(factor, skipFinalMerge);
+
+			String msg = "Case " + i;
+			assertEquals(msg, heapMerger.getNumMergePasses(), merger
+					.getNumMergePasses());
+			assertEquals(msg, heapMerger.getBytesRead(), merger
+					.getBytesRead());
+			assertEquals(msg, heapMerger.getBytesWritten(), merger
+					.getBytesWritten());
+			assertEquals(msg, heapMerger.getSpilledRecords(), merger
+					.getSpilledRecords());
+			assertEquals(msg, heapMerger.getMergedRecords(), merger
+					.getMergedRecords());
+			assertEquals(msg, heapMerger.getCombineInRecs(), merger
+					.getCombineInRecs());
+			assertEquals(msg, heapMerger.getCombineOutRecs(), merger
+					.getCombineOutRecs());
+		}
+	}
+
 	private static long getNumIntermSpillReads(long numSpills, long sortFactor) {
 
 		if (numSpills <= sortFactor)
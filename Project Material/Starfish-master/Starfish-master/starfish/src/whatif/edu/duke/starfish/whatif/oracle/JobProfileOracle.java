@@ -1,7 +1,5 @@
 package edu.duke.starfish.whatif.oracle;
 
-import static edu.duke.starfish.profile.utils.Constants.MR_RED_TASKS;
-
 import java.util.ArrayList;
 import java.util.List;
 
@@ -11,7 +9,7 @@ import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRMapProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRReduceProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
-import edu.duke.starfish.profile.utils.ProfileUtils;
+import edu.duke.starfish.whatif.JobSettings;
 import edu.duke.starfish.whatif.data.DataSetModel;
 import edu.duke.starfish.whatif.data.MapInputSpecs;
 import edu.duke.starfish.whatif.data.ReduceShuffleSpecs;
@@ -20,6 +18,15 @@ import edu.duke.starfish.whatif.data.ReduceShuffleSpecs;
  * This class is used to make predictions on how a job profile will change based
  * on a set of configuration settings.
  * 
+ * The oracle remembers the task profiles predicted by the last call based on
+ * job settings and reuses them when the new settings do not effect them. The
+ * map profiles are reused when all the map-side settings are equal (see
+ * {@link JobSettings#equalsMapSettings(JobSettings)}), while the reduce
+ * profiles are reused when the shuffle specifications and all the
+ * reduce-side settings are equal (see
+ * {@link JobSettings#equalsReduceSettings(JobSettings)}). Hence, the virtual
+ * job profiles may share task profiles, which must not be modified.
+ * 
  * @author hero
  */
 public class JobProfileOracle {
@@ -31,11 +38,19 @@ public class JobProfileOracle {
 
 	private MRJobProfile sourceProf;// The source profile for the predictions
 	private MRJobProfile virtualProf; // Cache the last predicted profile
-	private Configuration conf; // Cache the last configuration
+	private JobSettings settings; // Cache the last job settings
 
 	private ArrayList<MapProfileOracle> mapOracles; // The map oracles
 	private ReduceProfileOracle redOracle; // The reduce oracle
 
+	// Cache the predictions of the last call for reuse
+	private DataSetModel lastModel; // The data model of the map profiles
+	private List<MRMapProfile> lastMapProfs; // The virtual map profiles
+	private int lastNumMappers; // The number of mappers
+	private List<ReduceShuffleSpecs> lastShuffleSpecs; // The shuffle specs
+	private List<MRReduceProfile> lastRedProfs; // The virtual reduce profiles
+	private JobSettings lastRedSettings; // The settings of the reduce profiles
+
 	private boolean ignoreReducers; // Flag to ignore reducers
 
 	// Constants
@@ -50,7 +65,7 @@ public class JobProfileOracle {
 	public JobProfileOracle(MRJobProfile sourceProf) {
 		this.sourceProf = sourceProf;
 		this.virtualProf = null;
-		this.conf = null;
+		this.settings = null;
 		this.ignoreReducers = false;
 
 		// Create the map oracles
@@ -77,6 +92,21 @@ public class JobProfileOracle {
 		this.ignoreReducers = ignoreReducers;
 	}
 
+	/**
+	 * Forget the task profiles predicted by the previous calls, so that the
+	 * next call will predict all of them again. This is needed when the data
+	 * described by the data model changes (e.g., when the input of the job is
+	 * the predicted output of another job).
+	 */
+	public void clearCachedProfiles() {
+		this.settings = null;
+		this.lastModel = null;
+		this.lastMapProfs = null;
+		this.lastShuffleSpecs = null;
+		this.lastRedProfs = null;
+		this.lastRedSettings = null;
+	}
+
 	/**
 	 * @return the sourceProf
 	 */
@@ -88,6 +118,9 @@ public class JobProfileOracle {
 	 * Generate and return a virtual job profile representing how the job will
 	 * behave under the provided configuration settings.
 	 * 
+	 * Since the configuration may have been modified since the previous call,
+	 * none of the previously predicted task profiles are reused.
+	 * 
 	 * @param conf
 	 *            the configuration settings
 	 * @param dataModel
@@ -95,46 +128,121 @@ public class JobProfileOracle {
 	 * @return a virtual job profile
 	 */
 	public MRJobProfile whatif(Configuration conf, DataSetModel dataModel) {
+		clearCachedProfiles();
+		return whatif(new JobSettings(conf), dataModel);
+	}
+
+	/**
+	 * Generate and return a virtual job profile representing how the job will
+	 * behave under the provided job settings. The map input specifications are
+	 * generated from the base configuration of the settings.
+	 * 
+	 * The task profiles predicted by the previous call are reused when the
+	 * settings that effect them have not changed.
+	 * 
+	 * @param settings
+	 *            the compiled job settings
+	 * @param dataModel
+	 *            the data model that can reason about the data
+	 * @return a virtual job profile
+	 */
+	public MRJobProfile whatif(JobSettings settings, DataSetModel dataModel) {
 		this.virtualProf = new MRJobProfile(VIRTUAL + sourceProf.getJobId());
-		this.conf = conf;
 
 		// Set the cluster name and job inputs
 		virtualProf.setClusterName(sourceProf.getClusterName());
-		virtualProf.setJobInputs(ProfileUtils.getInputDirs(conf));
+		virtualProf.setJobInputs(settings.getInputDirs());
 
-		// Get the input specs
-		List<MapInputSpecs> inputSpecs = dataModel
-				.generateMapInputSpecs(this.conf);
+		// Predict the map execution, unless the map settings are unchanged
+		if (lastMapProfs == null || dataModel != lastModel
+				|| !settings.equalsMapSettings(this.settings)) {
+			predictMapProfiles(settings, dataModel);
+		}
 
-		// Predict the map execution
-		int numMappers = 0;
-		for (MapInputSpecs inputSpec : inputSpecs) {
-			MRMapProfile mapProf = mapOracles.get(inputSpec.getInputIndex())
-					.whatif(conf, inputSpec);
-			numMappers += inputSpec.getNumSplits();
+		for (MRMapProfile mapProf : lastMapProfs) {
 			virtualProf.addMapProfile(mapProf);
 		}
 
 		// Predict the reduce execution
-		int numReducers = conf.getInt(MR_RED_TASKS, 1);
+		int numReducers = settings.getNumReducers();
 		if (numReducers > 0 && !ignoreReducers) {
 			// Get the shuffle specs
 			List<ReduceShuffleSpecs> shuffleSpecs = dataModel
-					.generateReduceShuffleSpecs(conf,
-							virtualProf.getMapProfiles());
+					.generateReduceShuffleSpecs(settings, lastMapProfs);
 
-			for (ReduceShuffleSpecs shuffleSpec : shuffleSpecs) {
-				MRReduceProfile redProf = redOracle.whatif(conf, shuffleSpec);
+			// Reuse the reduce profiles if the reduce settings are unchanged
+			if (lastRedProfs == null
+					|| !shuffleSpecs.equals(lastShuffleSpecs)
+					|| !settings.equalsReduceSettings(lastRedSettings)) {
+				predictReduceProfiles(settings, shuffleSpecs);
+			}
+
+			for (MRReduceProfile redProf : lastRedProfs) {
 				virtualProf.addReduceProfile(redProf);
 			}
 		}
 
+		// Remember the settings the cached profiles were predicted for
+		this.settings = new JobSettings(settings);
+
 		// Update the averaged task profiles
 		virtualProf.updateProfile();
-		virtualProf.addCounter(MRCounter.MAP_TASKS, (long) numMappers);
+		virtualProf.addCounter(MRCounter.MAP_TASKS, (long) lastNumMappers);
 		virtualProf.addCounter(MRCounter.REDUCE_TASKS, (long) numReducers);
 
 		return virtualProf;
 	}
 
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Predict the virtual map profiles under the provided job settings and
+	 * cache them for reuse.
+	 * 
+	 * @param settings
+	 *            the compiled job settings
+	 * @param dataModel
+	 *            the data model that can reason about the data
+	 */
+	private void predictMapProfiles(JobSettings settings,
+			DataSetModel dataModel) {
+
+		// Get the input specs
+		List<MapInputSpecs> inputSpecs = dataModel
+				.generateMapInputSpecs(settings.getConfiguration());
+
+		lastMapProfs = new ArrayList<MRMapProfile>(inputSpecs.size());
+		lastNumMappers = 0;
+		for (MapInputSpecs inputSpec : inputSpecs) {
+			MRMapProfile mapProf = mapOracles.get(inputSpec.getInputIndex())
+					.whatif(settings, inputSpec);
+			lastNumMappers += inputSpec.getNumSplits();
+			lastMapProfs.add(mapProf);
+		}
+		lastModel = dataModel;
+	}
+
+	/**
+	 * Predict the virtual reduce profiles under the provided job settings and
+	 * cache them for reuse.
+	 * 
+	 * @param settings
+	 *            the compiled job settings
+	 * @param shuffleSpecs
+	 *            the reduce shuffle specifications
+	 */
+	private void predictReduceProfiles(JobSettings settings,
+			List<ReduceShuffleSpecs> shuffleSpecs) {
+
+		lastRedProfs = new ArrayList<MRReduceProfile>(shuffleSpecs.size());
+		for (ReduceShuffleSpecs shuffleSpec : shuffleSpecs) {
+			lastRedProfs.add(redOracle.whatif(settings, shuffleSpec));
+		}
+		lastShuffleSpecs = shuffleSpecs;
+		lastRedSettings = new JobSettings(settings);
+	}
+
 }
@@ -9,7 +9,7 @@ import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCostFacto
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRStatistics;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRTaskPhase;
-import edu.duke.starfish.profile.utils.ProfileUtils;
+import edu.duke.starfish.whatif.JobSettings;
 import edu.duke.starfish.whatif.data.MapInputSpecs;
 
 /**
@@ -39,7 +39,7 @@ public class MapProfileOracle extends TaskProfileOracle {
 
 	private MRMapProfile sourceProf; // The source profile for the predictions
 	private MRMapProfile virtualProf; // Cache the last predicted profile
-	private Configuration conf; // Cache the last configuration
+	private JobSettings settings; // Cache the last job settings
 	private MapInputSpecs inputSpecs; // Cache the last input specs
 
 	// Cache some commonly used variables
@@ -66,7 +66,7 @@ public class MapProfileOracle extends TaskProfileOracle {
 	public MapProfileOracle(MRMapProfile sourceProf) {
 		this.sourceProf = sourceProf;
 		this.virtualProf = null;
-		this.conf = null;
+		this.settings = null;
 		this.inputSpecs = null;
 	}
 
@@ -93,6 +93,20 @@ public class MapProfileOracle extends TaskProfileOracle {
 	 * @return a virtual map profile
 	 */
 	public MRMapProfile whatif(Configuration conf, MapInputSpecs inputSpecs) {
+		return whatif(new JobSettings(conf), inputSpecs);
+	}
+
+	/**
+	 * Generate and return a virtual map profile representing how the map will
+	 * behave under the provided job settings.
+	 * 
+	 * @param settings
+	 *            the compiled job settings
+	 * @param inputSpecs
+	 *            the input specifications
+	 * @return a virtual map profile
+	 */
+	public MRMapProfile whatif(JobSettings settings, MapInputSpecs inputSpecs) {
 
 		if (sourceProf.isEmpty()) {
 			throw new RuntimeException(
@@ -100,7 +114,7 @@ public class MapProfileOracle extends TaskProfileOracle {
 							+ sourceProf.getTaskId() + " is empty!");
 		}
 
-		this.conf = conf;
+		this.settings = settings;
 		this.inputSpecs = inputSpecs;
 
 		this.virtualProf = new MRMapProfile(
@@ -130,14 +144,12 @@ public class MapProfileOracle extends TaskProfileOracle {
 	 * Initialize some common variables based on the given configuration
 	 */
 	private void initializeCommonVariables() {
-		isMapOnly = (conf.getInt(MR_RED_TASKS, 1) == 0);
-		useCombiner = conf.get(MR_COMBINE_CLASS) != null
-				&& conf.getBoolean(STARFISH_USE_COMBINER, true);
+		isMapOnly = (settings.getNumReducers() == 0);
+		useCombiner = settings.isCombinerOn();
 		useInputCompr = inputSpecs.isCompressed();
-		useIntermCompr = conf.getBoolean(MR_COMPRESS_MAP_OUT, false);
-		useOutputCompr = isMapOnly
-				&& ProfileUtils.isMROutputCompressionOn(conf);
-		sortFactor = conf.getInt(MR_SORT_FACTOR, DEF_SORT_FACTOR);
+		useIntermCompr = settings.getCompressMapOutput();
+		useOutputCompr = isMapOnly && settings.isOutputCompressionOn();
+		sortFactor = settings.getSortFactor();
 
 		numMergedRecords = 0l;
 		numCombineInMergeRecs = 0l;
@@ -150,10 +162,10 @@ public class MapProfileOracle extends TaskProfileOracle {
 			double numSpills = sourceProf.getCounter(MRCounter.MAP_NUM_SPILLS);
 
 			// Adjust the combiner selectivities
-			adjCombinePairsSel = sourceProf.getStatistic(
+			adjCombinePairsSel = sourceProf.getStatisticDouble(
 					MRStatistics.COMBINE_PAIRS_SEL, DEF_SEL_ONE)
 					* Math.log(outputPairs / numSpills);
-			adjCombineSizeSel = sourceProf.getStatistic(
+			adjCombineSizeSel = sourceProf.getStatisticDouble(
 					MRStatistics.COMBINE_SIZE_SEL, DEF_SEL_ONE)
 					* Math.log(outputSize / numSpills);
 		}
@@ -166,35 +178,39 @@ public class MapProfileOracle extends TaskProfileOracle {
 	private void calcVirtualMapStatistics() {
 
 		// Set the statistics common between mappers and reducers
-		calcVirtualTaskStatistics(sourceProf, virtualProf, conf);
+		calcVirtualTaskStatistics(sourceProf, virtualProf, settings);
 
 		// The following statistics remain the same
 		virtualProf.addStatistic(MRStatistics.INPUT_PAIR_WIDTH, sourceProf
-				.getStatistic(MRStatistics.INPUT_PAIR_WIDTH, DEF_PAIR_WIDTH));
+				.getStatisticDouble(
+						MRStatistics.INPUT_PAIR_WIDTH, DEF_PAIR_WIDTH));
 		virtualProf
 				.addStatistic(MRStatistics.MAP_SIZE_SEL, sourceProf
-						.getStatistic(MRStatistics.MAP_SIZE_SEL, DEF_SEL_ONE));
+						.getStatisticDouble(
+								MRStatistics.MAP_SIZE_SEL, DEF_SEL_ONE));
 		virtualProf.addStatistic(MRStatistics.MAP_PAIRS_SEL, sourceProf
-				.getStatistic(MRStatistics.MAP_PAIRS_SEL, DEF_SEL_ONE));
+				.getStatisticDouble(MRStatistics.MAP_PAIRS_SEL, DEF_SEL_ONE));
 
 		// Set input compression statistics
 		if (useInputCompr) {
 			virtualProf.addStatistic(MRStatistics.INPUT_COMPRESS_RATIO,
-					sourceProf.getStatistic(MRStatistics.INPUT_COMPRESS_RATIO,
+					sourceProf.getStatisticDouble(
+							MRStatistics.INPUT_COMPRESS_RATIO,
 							DEF_COMPRESS_RATIO));
 		}
 
 		// Set output compression statistics if map-only job
 		if (useOutputCompr) {
 			virtualProf.addStatistic(MRStatistics.OUT_COMPRESS_RATIO,
-					sourceProf.getStatistic(MRStatistics.OUT_COMPRESS_RATIO,
+					sourceProf.getStatisticDouble(
+							MRStatistics.OUT_COMPRESS_RATIO,
 							DEF_COMPRESS_RATIO));
 		}
 
 		// Set the memory statistics
 		virtualProf
 				.addStatistic(MRStatistics.MAP_MEM_PER_RECORD, sourceProf
-						.getStatistic(MRStatistics.MAP_MEM_PER_RECORD,
+						.getStatisticDouble(MRStatistics.MAP_MEM_PER_RECORD,
 								DEF_MEM_PER_REC));
 	}
 
@@ -269,16 +285,17 @@ public class MapProfileOracle extends TaskProfileOracle {
 
 		// Calculate the map output counters
 		double mapOutBytes = mapInputBytes
-				* virtualProf.getStatistic(MRStatistics.MAP_SIZE_SEL,
+				* virtualProf.getStatisticDouble(MRStatistics.MAP_SIZE_SEL,
 						DEF_SEL_ONE);
 		double mapOutRecs = mapInputRecs
-				* virtualProf.getStatistic(MRStatistics.MAP_PAIRS_SEL,
+				* virtualProf.getStatisticDouble(MRStatistics.MAP_PAIRS_SEL,
 						DEF_SEL_ONE);
 
 		if (mapOutBytes < 1 || mapOutRecs < 1) {
 			// By default, always assume at least one record
-			mapOutBytes = sourceProf.getCounter(MRCounter.MAP_OUTPUT_BYTES, 1l)
-					/ (double) sourceProf.getCounter(
+			mapOutBytes = sourceProf.getCounterLong(
+					MRCounter.MAP_OUTPUT_BYTES, 1l)
+					/ (double) sourceProf.getCounterLong(
 							MRCounter.MAP_OUTPUT_RECORDS, 1l);
 			mapOutRecs = 1d;
 		}
@@ -287,10 +304,10 @@ public class MapProfileOracle extends TaskProfileOracle {
 		virtualProf.addCounter(MRCounter.MAP_OUTPUT_RECORDS, (long) mapOutRecs);
 
 		// Calculate the max number of unique groups produced by a mapper
-		long maxSourceUniqueGroups = sourceProf.getCounter(
+		long maxSourceUniqueGroups = sourceProf.getCounterLong(
 				MRCounter.MAP_MAX_UNIQUE_GROUPS, DEF_MAX_UNIQUE_GROUPS);
 		double maxUniqueGroups = mapOutRecs * maxSourceUniqueGroups
-				/ sourceProf.getCounter(MRCounter.MAP_OUTPUT_RECORDS, 1l);
+				/ sourceProf.getCounterLong(MRCounter.MAP_OUTPUT_RECORDS, 1l);
 		virtualProf.addCounter(MRCounter.MAP_MAX_UNIQUE_GROUPS,
 				(long) Math.ceil(maxUniqueGroups));
 
@@ -324,14 +341,13 @@ public class MapProfileOracle extends TaskProfileOracle {
 
 		// Calculate the number of records in the output buffer
 		long maxSerPairs = (long) Math
-				.floor(((conf.getInt(MR_SORT_MB, DEF_SORT_MB) * 1024 * 1024)
-						* (1 - conf.getFloat(MR_SORT_REC_PERC,
-								DEF_SORT_REC_PERC)) * conf.getFloat(
-						MR_SPILL_PERC, DEF_SPILL_PERC)) / mapOutRecWidth);
-		long maxAccPairs = (long) Math.floor(((conf.getInt(MR_SORT_MB,
-				DEF_SORT_MB) * 1024 * 1024) * conf.getFloat(MR_SORT_REC_PERC,
-				DEF_SORT_REC_PERC))
-				* conf.getFloat(MR_SPILL_PERC, DEF_SPILL_PERC) / 16.0);
+				.floor(((settings.getSortMB() * 1024 * 1024)
+						* (1 - settings.getSortRecPerc()) * settings
+						.getSpillPerc()) / mapOutRecWidth);
+		long maxAccPairs = (long) Math
+				.floor(((settings.getSortMB() * 1024 * 1024) * settings
+						.getSortRecPerc())
+						* settings.getSpillPerc() / 16.0);
 		long maxSpillBufferPairs = Math.min(Math.min(maxSerPairs, maxAccPairs),
 				mapOutRecs);
 
@@ -411,8 +427,7 @@ public class MapProfileOracle extends TaskProfileOracle {
 		if (useCombiner) {
 			long numSpillsFinalMerge = (numSpills < sortFactor) ? numSpills
 					: sortFactor;
-			if (numSpillsFinalMerge >= conf.getInt(MR_NUM_SPILLS_COMBINE,
-					DEF_NUM_SPILLS_FOR_COMB)) {
+			if (numSpillsFinalMerge >= settings.getNumSpillsForCombine()) {
 				// The combiner will be used during the final merge round
 				useCombinerInFinalMerge = true;
 			}
@@ -523,8 +538,7 @@ public class MapProfileOracle extends TaskProfileOracle {
 
 		// Enable the combiner, if any
 		if (useCombiner) {
-			merger.enableCombiner(
-					conf.getInt(MR_NUM_SPILLS_COMBINE, DEF_NUM_SPILLS_FOR_COMB),
+			merger.enableCombiner(settings.getNumSpillsForCombine(),
 					adjCombineSizeSel, adjCombinePairsSel);
 		}
 
@@ -536,14 +550,14 @@ public class MapProfileOracle extends TaskProfileOracle {
 				merger.getNumMergePasses());
 		virtualProf.addCounter(
 				MRCounter.SPILLED_RECORDS,
-				virtualProf.getCounter(MRCounter.SPILLED_RECORDS, 0l)
+				virtualProf.getCounterLong(MRCounter.SPILLED_RECORDS, 0l)
 						+ merger.getSpilledRecords());
 		virtualProf.addCounter(
 				MRCounter.FILE_BYTES_READ,
-				virtualProf.getCounter(MRCounter.FILE_BYTES_READ, 0l)
+				virtualProf.getCounterLong(MRCounter.FILE_BYTES_READ, 0l)
 						+ merger.getBytesRead());
 		virtualProf.addCounter(MRCounter.FILE_BYTES_WRITTEN,
-				virtualProf.getCounter(MRCounter.FILE_BYTES_WRITTEN, 0l)
+				virtualProf.getCounterLong(MRCounter.FILE_BYTES_WRITTEN, 0l)
 						+ merger.getBytesWritten());
 		numMergedRecords = merger.getMergedRecords();
 
@@ -573,12 +587,12 @@ public class MapProfileOracle extends TaskProfileOracle {
 	private void calcVirtualMapCosts() {
 
 		// Set the statistics common between mappers and reducers
-		calcVirtualTaskCosts(sourceProf, virtualProf, conf);
+		calcVirtualTaskCosts(sourceProf, virtualProf, settings);
 
 		// Set input compression cost
 		if (useInputCompr) {
 			virtualProf.addCostFactor(MRCostFactors.INPUT_UNCOMPRESS_CPU_COST,
-					sourceProf.getCostFactor(
+					sourceProf.getCostFactorDouble(
 							MRCostFactors.INPUT_UNCOMPRESS_CPU_COST,
 							DEF_COST_CPU_UNCOMPRESS));
 
@@ -592,7 +606,7 @@ public class MapProfileOracle extends TaskProfileOracle {
 		// Set output compression cost
 		if (useOutputCompr) {
 			virtualProf.addCostFactor(MRCostFactors.OUTPUT_COMPRESS_CPU_COST,
-					sourceProf.getCostFactor(
+					sourceProf.getCostFactorDouble(
 							MRCostFactors.OUTPUT_COMPRESS_CPU_COST,
 							DEF_COST_CPU_COMPRESS));
 
@@ -639,11 +653,11 @@ public class MapProfileOracle extends TaskProfileOracle {
 
 		// Calculate and set SETUP
 		virtualProf.addTiming(MRTaskPhase.SETUP,
-				sourceProf.getTiming(MRTaskPhase.SETUP, 0d));
+				sourceProf.getTimingDouble(MRTaskPhase.SETUP, 0d));
 
 		// Calculate and set READ
-		double bytesRead = virtualProf.getCounter(MRCounter.HDFS_BYTES_READ,
-				virtualProf.getCounter(MRCounter.S3N_BYTES_READ, 0l));
+		double bytesRead = virtualProf.getCounterLong(MRCounter.HDFS_BYTES_READ,
+				virtualProf.getCounterLong(MRCounter.S3N_BYTES_READ, 0l));
 		double readCPU = 0d;
 		if (useInputCompr)
 			readCPU = bytesRead
@@ -660,7 +674,7 @@ public class MapProfileOracle extends TaskProfileOracle {
 
 		// Calculate and set CLEANUP
 		virtualProf.addTiming(MRTaskPhase.CLEANUP,
-				sourceProf.getTiming(MRTaskPhase.CLEANUP, 0d));
+				sourceProf.getTimingDouble(MRTaskPhase.CLEANUP, 0d));
 
 		if (isMapOnly) {
 			// Calculate and set WRITE
@@ -669,9 +683,9 @@ public class MapProfileOracle extends TaskProfileOracle {
 				writeCPU = virtualProf.getCounter(MRCounter.MAP_OUTPUT_BYTES)
 						* virtualProf
 								.getCostFactor(MRCostFactors.OUTPUT_COMPRESS_CPU_COST);
-			double writeIO = virtualProf.getCounter(
+			double writeIO = virtualProf.getCounterLong(
 					MRCounter.HDFS_BYTES_WRITTEN,
-					virtualProf.getCounter(MRCounter.S3N_BYTES_WRITTEN, 0l))
+					virtualProf.getCounterLong(MRCounter.S3N_BYTES_WRITTEN, 0l))
 					* virtualProf
 							.getCostFactor(MRCostFactors.WRITE_HDFS_IO_COST);
 			virtualProf.addTiming(MRTaskPhase.WRITE, (writeCPU + writeIO)
@@ -705,7 +719,7 @@ public class MapProfileOracle extends TaskProfileOracle {
 		// CPU cost for SPILL
 		double numRecsPerRed = virtualProf
 				.getCounter(MRCounter.MAP_RECS_PER_BUFF_SPILL)
-				/ (double) conf.getInt(MR_RED_TASKS, 1);
+				/ (double) settings.getNumReducers();
 		double sortCPU = mapOutRecs
 				* Math.log((numRecsPerRed < 10) ? 10 : numRecsPerRed)
 				* virtualProf.getCostFactor(MRCostFactors.SORT_CPU_COST);
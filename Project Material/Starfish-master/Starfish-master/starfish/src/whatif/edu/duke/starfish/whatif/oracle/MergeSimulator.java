@@ -1,11 +1,24 @@
 package edu.duke.starfish.whatif.oracle;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.PriorityQueue;
 
 /**
  * A simulator to perform merging of disk segments based on how Hadoop performs
  * merging.
  * 
+ * Segments of the same size and number of records are kept together as a run
+ * with a multiplicity, and consecutive merge passes over the same run are
+ * performed in batches. Hence, the simulation cost depends on the number of
+ * distinct segment sizes rather than the number of segments, which matters
+ * for reducers of jobs with thousands of map outputs.
+ * 
+ * The counters are the same as when merging the segments one by one in a
+ * heap. When the heap would pick among segments of the same size with
+ * different numbers of records, the outcome depends on the layout of the
+ * heap, so the simulation falls back to merging the segments in a heap.
+ * 
  * @author hero
  */
 public class MergeSimulator {
@@ -16,7 +29,9 @@ public class MergeSimulator {
 	 */
 
 	// Simulation setup
-	private PriorityQueue<Segment> segments;
+	private List<Segment> inputs; // Runs of segments in the order added
+	private List<Segment> segments; // Runs of segments sorted by size
+	private long numSegments; // The total number of segments
 	private long totalInputRecords;
 
 	// Use of combiner for final merging phase
@@ -45,7 +60,9 @@ public class MergeSimulator {
 	 * Default constructor
 	 */
 	public MergeSimulator() {
-		segments = new PriorityQueue<Segment>();
+		inputs = new ArrayList<Segment>();
+		segments = new ArrayList<Segment>();
+		numSegments = 0l;
 		useCombiner = false;
 		numMemSegments = 0;
 		totalInputRecords = 0l;
@@ -142,9 +159,8 @@ public class MergeSimulator {
 	 *            the number of records of each segment
 	 */
 	public void addSegments(long count, long size, long records) {
-		for (int i = 0; i < count; ++i) {
-			segments.add(new Segment(size, records));
-		}
+		if (count > 0)
+			inputs.add(new Segment(size, records, count));
 		totalInputRecords += count * records;
 		minNumUniqueValues = Math.max(minNumUniqueValues, records);
 		minSizeUniqueValues = Math.max(minSizeUniqueValues, size);
@@ -192,13 +208,104 @@ public class MergeSimulator {
 	public void simulateMerge(int sortFactor, boolean skipFinalMerge) {
 		initialize();
 
+		if (simulateRunMerge(sortFactor, skipFinalMerge)) {
+			// Keep the segments left after merging
+			inputs = new ArrayList<Segment>(segments);
+		} else {
+			// The merges depend on the order of the segments in the heap
+			initialize();
+			simulateHeapMerge(sortFactor, skipFinalMerge);
+		}
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Determine the number of segments to merge. Assuming more than factor
+	 * spills, the first pass will attempt to bring the total number of
+	 * (numSpills - 1) to be divisible by the (sortFactor - 1) to minimize the
+	 * number of merges.
+	 * 
+	 * @param numSegments
+	 *            the total number of segments
+	 * @param sortFactor
+	 *            the sort factor
+	 * @param passNo
+	 *            the pass number
+	 * @return the number of spills to merge
+	 */
+	private long getNumSegmentsToMerge(long numSegments, int sortFactor,
+			int passNo) {
+
+		if (numSegments <= sortFactor)
+			return numSegments;
+
+		if (passNo > 1)
+			return sortFactor;
+
+		long mod = (numSegments - 1) % (sortFactor - 1);
+		if (mod == 0)
+			return sortFactor;
+
+		return mod + 1;
+	}
+
+	/**
+	 * Initializes the simulation results
+	 */
+	private void initialize() {
+		numMergePasses = 0;
+		bytesRead = 0;
+		bytesWritten = 0;
+		mergedRecords = 0;
+		spilledRecords = 0;
+		combineInRecs = 0;
+		combineOutRecs = 0;
+		minNumUniqueValues = 0;
+		minSizeUniqueValues = 0;
+	}
+
+	/**
+	 * Simulate the merging process on the runs of segments. The simulation
+	 * stops and returns false as soon as a merge would pick among segments of
+	 * the same size with different numbers of records, since the segments
+	 * picked by the heap depend on its layout.
+	 * 
+	 * @param sortFactor
+	 *            the sort factor
+	 * @param skipFinalMerge
+	 *            whether to skip the final merge or not
+	 * @return true if the simulation completed
+	 */
+	private boolean simulateRunMerge(int sortFactor, boolean skipFinalMerge) {
+
+		// Build the runs of segments
+		segments.clear();
+		numSegments = 0l;
+		for (Segment input : inputs)
+			addSegment(input.size, input.records, input.count);
+
 		// Check if there is anything to merge
-		if (segments.size() <= 1)
-			return;
+		if (numSegments <= 1)
+			return true;
 
 		int passNo = 1;
-		while (segments.size() > sortFactor) {
+		while (numSegments > sortFactor) {
+			if (passNo > 1 && segments.get(0).count >= sortFactor) {
+				// Perform a batch of identical merges of the smallest run
+				if (isAmbiguousMerge(sortFactor))
+					return false;
+				passNo += mergeSmallestRun(sortFactor);
+				continue;
+			}
+
 			// Perform intermediate merge
+			if (isAmbiguousMerge(getNumSegmentsToMerge(numSegments,
+					sortFactor, passNo)))
+				return false;
 			Segment merged = mergeSegments(sortFactor, passNo);
 
 			// We have read and written the same amount of data
@@ -208,12 +315,20 @@ public class MergeSimulator {
 
 			// Treat memory segments in a special way
 			if (passNo == 1 && numMemSegments > 0) {
+				// The heap placed the merged segment based on its size
+				// without the memory segments. Unless it was placed last,
+				// the order of the following merges depends on the heap.
+				if (numSegments >= sortFactor
+						&& merged.size < segments.get(segments.size() - 1).size)
+					return false;
+
 				merged.size += numMemSegments * memSegmentSize;
 				merged.records += numMemSegments * memSegmentRecs;
 				bytesWritten += numMemSegments * memSegmentSize;
 				spilledRecords += numMemSegments * memSegmentRecs;
 			}
 
+			addSegment(merged.size, merged.records, 1);
 			++passNo;
 		}
 
@@ -222,12 +337,13 @@ public class MergeSimulator {
 		mergedRecords = totalInputRecords + spilledRecords;
 
 		// Check if there is anything left to merge
-		if (segments.size() <= 1 || skipFinalMerge)
-			return;
+		if (numSegments <= 1 || skipFinalMerge)
+			return true;
 
 		// Perform the final merge
-		int numLeft = segments.size();
+		long numLeft = numSegments;
 		Segment merged = mergeSegments(sortFactor, passNo);
+		addSegment(merged.size, merged.records, 1);
 
 		if (useCombiner && numLeft >= numSpillsForCombine) {
 			// Apply the combiner
@@ -244,60 +360,183 @@ public class MergeSimulator {
 			bytesWritten += merged.size;
 			spilledRecords += merged.records;
 		}
+
+		return true;
 	}
 
-	/* ***************************************************************
-	 * PRIVATE METHODS
-	 * ***************************************************************
+	/**
+	 * Simulate the merging process by merging the segments one by one in a
+	 * heap ordered by size
+	 * 
+	 * @param sortFactor
+	 *            the sort factor
+	 * @param skipFinalMerge
+	 *            whether to skip the final merge or not
 	 */
+	private void simulateHeapMerge(int sortFactor, boolean skipFinalMerge) {
+
+		// Add the segments in the order they were added to the simulator
+		PriorityQueue<Segment> heap = new PriorityQueue<Segment>();
+		for (Segment input : inputs) {
+			for (long i = 0; i < input.count; ++i)
+				heap.add(new Segment(input.size, input.records, 1l));
+		}
+
+		try {
+			// Check if there is anything to merge
+			if (heap.size() <= 1)
+				return;
+
+			int passNo = 1;
+			while (heap.size() > sortFactor) {
+				// Perform intermediate merge
+				Segment merged = mergeHeapSegments(heap, sortFactor, passNo);
+
+				// We have read and written the same amount of data
+				bytesRead += merged.size;
+				bytesWritten += merged.size;
+				spilledRecords += merged.records;
+
+				// Treat memory segments in a special way
+				if (passNo == 1 && numMemSegments > 0) {
+					merged.size += numMemSegments * memSegmentSize;
+					merged.records += numMemSegments * memSegmentRecs;
+					bytesWritten += numMemSegments * memSegmentSize;
+					spilledRecords += numMemSegments * memSegmentRecs;
+				}
+
+				++passNo;
+			}
+
+			// The number of merged records is equivalent to the input records
+			// plus the records spilled so far
+			mergedRecords = totalInputRecords + spilledRecords;
+
+			// Check if there is anything left to merge
+			if (heap.size() <= 1 || skipFinalMerge)
+				return;
+
+			// Perform the final merge
+			int numLeft = heap.size();
+			Segment merged = mergeHeapSegments(heap, sortFactor, passNo);
+
+			if (useCombiner && numLeft >= numSpillsForCombine) {
+				// Apply the combiner
+				combineInRecs = merged.records;
+				combineOutRecs = (long) Math.max(merged.records
+						* combineRecSel / Math.log(merged.records),
+						minNumUniqueValues);
+				bytesRead += merged.size;
+				bytesWritten += Math.max(merged.size * combineSizeSel
+						/ Math.log(merged.size), minSizeUniqueValues);
+				spilledRecords += combineOutRecs;
+			} else {
+				// Regular merging
+				bytesRead += merged.size;
+				bytesWritten += merged.size;
+				spilledRecords += merged.records;
+			}
+
+		} finally {
+			// Keep the segments left after merging
+			inputs = new ArrayList<Segment>(heap);
+		}
+	}
 
 	/**
-	 * Determine the number of segments to merge. Assuming more than factor
-	 * spills, the first pass will attempt to bring the total number of
-	 * (numSpills - 1) to be divisible by the (sortFactor - 1) to minimize the
-	 * number of merges.
+	 * Merge a number of the smallest segments of the heap into a single
+	 * segment, which is added back to the heap
 	 * 
-	 * @param numSegments
-	 *            the total number of segments
+	 * @param heap
+	 *            the heap of segments
 	 * @param sortFactor
-	 *            the sort factor
+	 *            sort factor
 	 * @param passNo
-	 *            the pass number
-	 * @return the number of spills to merge
+	 *            the merge pass number
+	 * @return the merged segment
 	 */
-	private int getNumSegmentsToMerge(int numSegments, int sortFactor,
-			int passNo) {
+	private Segment mergeHeapSegments(PriorityQueue<Segment> heap,
+			int sortFactor, int passNo) {
 
-		if (numSegments <= sortFactor)
-			return numSegments;
+		++numMergePasses;
+		Segment merged = new Segment(0l, 0l, 1l);
 
-		if (passNo > 1)
-			return sortFactor;
+		// Merge 'numToMerge' segments into one segment
+		long numToMerge = getNumSegmentsToMerge(heap.size(), sortFactor,
+				passNo);
 
-		int mod = (numSegments - 1) % (sortFactor - 1);
-		if (mod == 0)
-			return sortFactor;
+		for (long i = 0; i < numToMerge; ++i) {
+			Segment toMerge = heap.poll();
+			merged.size += toMerge.size;
+			merged.records += toMerge.records;
+		}
 
-		return mod + 1;
+		heap.add(merged);
+		return merged;
 	}
 
 	/**
-	 * Initializes the simulation results
+	 * Check whether merging the 'numToMerge' smallest segments picks some but
+	 * not all of the segments of a size, when the segments of that size have
+	 * different numbers of records. In that case, the segments merged by the
+	 * heap depend on its layout.
+	 * 
+	 * @param numToMerge
+	 *            the number of segments to merge
+	 * @return true if the merged segments are ambiguous
 	 */
-	private void initialize() {
-		numMergePasses = 0;
-		bytesRead = 0;
-		bytesWritten = 0;
-		mergedRecords = 0;
-		spilledRecords = 0;
-		combineInRecs = 0;
-		combineOutRecs = 0;
-		minNumUniqueValues = 0;
-		minSizeUniqueValues = 0;
+	private boolean isAmbiguousMerge(long numToMerge) {
+
+		// Find the run of the largest segments merged
+		int last = 0;
+		long numTaken = segments.get(0).count;
+		while (numTaken < numToMerge)
+			numTaken += segments.get(++last).count;
+
+		long size = segments.get(last).size;
+		if (last + 1 < segments.size() && segments.get(last + 1).size == size)
+			return true;
+
+		return numTaken > numToMerge && last > 0
+				&& segments.get(last - 1).size == size;
 	}
 
 	/**
-	 * Merge a number of segments into a single merge
+	 * Add a run of segments, keeping the runs sorted by size (and records)
+	 * 
+	 * @param size
+	 *            the size of each segment
+	 * @param records
+	 *            the number of records of each segment
+	 * @param count
+	 *            the number of segments
+	 */
+	private void addSegment(long size, long records, long count) {
+
+		numSegments += count;
+
+		// Find the position of the run (binary search)
+		int low = 0;
+		int high = segments.size() - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = segments.get(mid).compareRun(size, records);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				segments.get(mid).count += count;
+				return;
+			}
+		}
+
+		segments.add(low, new Segment(size, records, count));
+	}
+
+	/**
+	 * Merge a number of the smallest segments into a single merged segment.
+	 * The merged segment is not added back to the segments.
 	 * 
 	 * @param sortFactor
 	 *            sort factor
@@ -308,53 +547,113 @@ public class MergeSimulator {
 	private Segment mergeSegments(int sortFactor, int passNo) {
 
 		++numMergePasses;
-		Segment merged = new Segment();
-		Segment toMerge = null;
+		Segment merged = new Segment(0l, 0l, 1l);
 
-		// Merge 'numSegments' segments into one segment
-		int numSegments = getNumSegmentsToMerge(segments.size(), sortFactor,
+		// Merge 'numToMerge' segments into one segment
+		long numToMerge = getNumSegmentsToMerge(numSegments, sortFactor,
 				passNo);
-
-		for (int i = 0; i < numSegments; ++i) {
-			toMerge = segments.poll();
-			merged.size += toMerge.size;
-			merged.records += toMerge.records;
+		numSegments -= numToMerge;
+
+		int numEmptyRuns = 0;
+		while (numToMerge > 0) {
+			Segment run = segments.get(numEmptyRuns);
+			long taken = Math.min(numToMerge, run.count);
+			merged.size += taken * run.size;
+			merged.records += taken * run.records;
+
+			run.count -= taken;
+			numToMerge -= taken;
+			if (run.count == 0)
+				++numEmptyRuns;
 		}
 
-		segments.add(merged);
+		if (numEmptyRuns > 0)
+			segments.subList(0, numEmptyRuns).clear();
+
 		return merged;
 	}
 
+	/**
+	 * Perform consecutive intermediate merges of 'sortFactor' segments, all
+	 * taken from the smallest run. Each merge produces the same merged
+	 * segment, which is never smaller than the segments of the run, so the
+	 * merges can be performed all at once. It is assumed that the run
+	 * contains at least 'sortFactor' segments and that the first merge pass
+	 * has already been performed.
+	 * 
+	 * @param sortFactor
+	 *            sort factor
+	 * @return the number of merge passes performed
+	 */
+	private long mergeSmallestRun(int sortFactor) {
+
+		Segment run = segments.get(0);
+
+		// The merges stop when the run is exhausted or when the number of
+		// segments drops to the sort factor (each pass removes factor-1)
+		long numPasses = Math.min(run.count / sortFactor,
+				(numSegments - sortFactor - 1) / (sortFactor - 1) + 1);
+
+		long mergedSize = sortFactor * run.size;
+		long mergedRecords = sortFactor * run.records;
+		numMergePasses += numPasses;
+		bytesRead += numPasses * mergedSize;
+		bytesWritten += numPasses * mergedSize;
+		spilledRecords += numPasses * mergedRecords;
+
+		run.count -= numPasses * sortFactor;
+		numSegments -= numPasses * sortFactor;
+		if (run.count == 0)
+			segments.remove(0);
+
+		addSegment(mergedSize, mergedRecords, numPasses);
+		return numPasses;
+	}
+
 	/* ***************************************************************
 	 * PRIVATE CLASS
 	 * ***************************************************************
 	 */
 
 	/**
-	 * A simple class that represents a segment on disk
+	 * A simple class that represents a run of identical segments on disk.
+	 * Segments are ordered by size in the heap.
 	 * 
 	 * @author hero
 	 */
 	private class Segment implements Comparable<Segment> {
 		private long size;
 		private long records;
+		private long count;
 
 		/**
-		 * Default constructor
+		 * Constructor
+		 * 
+		 * @param size
+		 * @param records
+		 * @param count
 		 */
-		public Segment() {
-			this(0, 0);
+		public Segment(long size, long records, long count) {
+			this.size = size;
+			this.records = records;
+			this.count = count;
 		}
 
 		/**
-		 * Constructor
+		 * Compare the segments of this run with a segment of the provided
+		 * size and records
 		 * 
 		 * @param size
 		 * @param records
+		 * @return negative, zero, or positive if this segment is smaller,
+		 *         equal, or larger
 		 */
-		public Segment(long size, long records) {
-			this.size = size;
-			this.records = records;
+		public int compareRun(long size, long records) {
+			if (this.size != size)
+				return this.size > size ? 1 : -1;
+			if (this.records != records)
+				return this.records > records ? 1 : -1;
+			return 0;
 		}
 
 		@Override
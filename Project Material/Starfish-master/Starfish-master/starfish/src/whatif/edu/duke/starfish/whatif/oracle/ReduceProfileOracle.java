@@ -9,7 +9,7 @@ import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCostFacto
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRStatistics;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRTaskPhase;
-import edu.duke.starfish.profile.utils.ProfileUtils;
+import edu.duke.starfish.whatif.JobSettings;
 import edu.duke.starfish.whatif.data.ReduceShuffleSpecs;
 
 /**
@@ -39,7 +39,7 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 
 	private MRReduceProfile sourceProf; // The source profile for predictions
 	private MRReduceProfile virtualProf; // Cache the last predicted profile
-	private Configuration conf; // Cache the last configuration
+	private JobSettings settings; // Cache the last job settings
 	private ReduceShuffleSpecs shuffleSpecs; // Cache the last shuffle specs
 
 	// Cache state from the shuffle phase
@@ -67,7 +67,7 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 	public ReduceProfileOracle(MRReduceProfile sourceProf) {
 		this.sourceProf = sourceProf;
 		this.virtualProf = null;
-		this.conf = null;
+		this.settings = null;
 	}
 
 	/* ***************************************************************
@@ -94,6 +94,21 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 	 */
 	public MRReduceProfile whatif(Configuration conf,
 			ReduceShuffleSpecs shuffleSpecs) {
+		return whatif(new JobSettings(conf), shuffleSpecs);
+	}
+
+	/**
+	 * Generate and return a virtual reduce profile representing how the reduce
+	 * will behave under the provided job settings.
+	 * 
+	 * @param settings
+	 *            the compiled job settings
+	 * @param shuffleSpecs
+	 *            the shuffle specifications
+	 * @return a virtual reduce profile
+	 */
+	public MRReduceProfile whatif(JobSettings settings,
+			ReduceShuffleSpecs shuffleSpecs) {
 
 		if (sourceProf.isEmpty()) {
 			throw new RuntimeException(
@@ -104,7 +119,7 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 		this.virtualProf = new MRReduceProfile(
 				getVirtualTaskId(sourceProf.getTaskId()));
 		virtualProf.setNumTasks(shuffleSpecs.getNumReducers());
-		this.conf = conf;
+		this.settings = settings;
 		this.shuffleSpecs = shuffleSpecs;
 
 		initializeCommonVariables();
@@ -138,10 +153,9 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 		bytesWrittenInMergeInSort = 0l;
 		bytesReadInReduce = 0l;
 
-		useCombiner = conf.get(MR_COMBINE_CLASS) != null
-				&& conf.getBoolean(STARFISH_USE_COMBINER, true);
-		useIntermCompr = conf.getBoolean(MR_COMPRESS_MAP_OUT, false);
-		useOutputCompr = ProfileUtils.isMROutputCompressionOn(conf);
+		useCombiner = settings.isCombinerOn();
+		useIntermCompr = settings.getCompressMapOutput();
+		useOutputCompr = settings.isOutputCompressionOn();
 	}
 
 	/**
@@ -152,27 +166,29 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 	private void calcVirtualReduceStatistics() {
 
 		// Set the statistics common between mappers and reducers
-		calcVirtualTaskStatistics(sourceProf, virtualProf, conf);
+		calcVirtualTaskStatistics(sourceProf, virtualProf, settings);
 
 		// Set the reduce statistics
 		virtualProf.addStatistic(MRStatistics.REDUCE_PAIRS_PER_GROUP,
-				sourceProf.getStatistic(MRStatistics.REDUCE_PAIRS_PER_GROUP,
-						DEF_SEL_ONE));
+				sourceProf.getStatisticDouble(
+						MRStatistics.REDUCE_PAIRS_PER_GROUP, DEF_SEL_ONE));
 		virtualProf.addStatistic(MRStatistics.REDUCE_SIZE_SEL, sourceProf
-				.getStatistic(MRStatistics.REDUCE_SIZE_SEL, DEF_SEL_ONE));
+				.getStatisticDouble(MRStatistics.REDUCE_SIZE_SEL, DEF_SEL_ONE));
 		virtualProf.addStatistic(MRStatistics.REDUCE_PAIRS_SEL, sourceProf
-				.getStatistic(MRStatistics.REDUCE_PAIRS_SEL, DEF_SEL_ONE));
+				.getStatisticDouble(
+						MRStatistics.REDUCE_PAIRS_SEL, DEF_SEL_ONE));
 
 		// Set output compression statistics
 		if (useOutputCompr) {
 			virtualProf.addStatistic(MRStatistics.OUT_COMPRESS_RATIO,
-					sourceProf.getStatistic(MRStatistics.OUT_COMPRESS_RATIO,
+					sourceProf.getStatisticDouble(
+							MRStatistics.OUT_COMPRESS_RATIO,
 							DEF_COMPRESS_RATIO));
 		}
 
 		// Set the memory statistics
 		virtualProf.addStatistic(MRStatistics.REDUCE_MEM_PER_RECORD, sourceProf
-				.getStatistic(MRStatistics.REDUCE_MEM_PER_RECORD,
+				.getStatisticDouble(MRStatistics.REDUCE_MEM_PER_RECORD,
 						DEF_MEM_PER_REC));
 	}
 
@@ -222,12 +238,11 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 		double numSpilledRecs = 0d;
 
 		// The shuffled data are placed either in memory buffer or on disk
-		long taskMem = ProfileUtils.getTaskMemory(conf);
-		double shuffleBufferSize = conf.getFloat(MR_SHUFFLE_IN_BUFF_PERC,
-				DEF_SHUFFLE_IN_BUFF_PERC) * taskMem;
-		double mergeSizeThr = conf.getFloat(MR_SHUFFLE_MERGE_PERC,
-				DEF_SHUFFLE_MERGE_PERC) * shuffleBufferSize;
-		long inMemMergeThr = conf.getLong(MR_INMEM_MERGE, DEF_INMEM_MERGE);
+		long taskMem = settings.getTaskMemory();
+		double shuffleBufferSize = settings.getShuffleInBuffPerc() * taskMem;
+		double mergeSizeThr = settings.getShuffleMergePerc()
+				* shuffleBufferSize;
+		long inMemMergeThr = settings.getInMemMergeThr();
 
 		// When buffer reaches size of mergeSizeThr or number of segments
 		// exceeds InMemMergeThr, segments are merged and spilled to disk
@@ -290,7 +305,7 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 
 		// When the number of shuffle files on disk is greater than
 		// (2*sortFactor-1), they are merged
-		int sortFactor = conf.getInt(MR_SORT_FACTOR, DEF_SORT_FACTOR);
+		int sortFactor = settings.getSortFactor();
 		long numShuffleMerges = 0l;
 		if (numShuffleFiles >= 2 * sortFactor - 1) {
 			numShuffleMerges = 1l + (long) Math.floor(((numShuffleFiles - 2
@@ -318,7 +333,7 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 		// SORT PHASE BEGINS
 		// Evict segments from memory to satisfy memory constraint
 		double maxSegmentBuffer = taskMem
-				* conf.getFloat(MR_RED_IN_BUFF_PERC, DEF_RED_IN_BUFF_PERC);
+				* settings.getRedInBuffPerc();
 		double currSegmentBuffer = numSegmentsInMem * segmentUncomprSize;
 		long numSegmentsEvicted = 0;
 		if (currSegmentBuffer > maxSegmentBuffer) {
@@ -427,10 +442,10 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 
 		// Calculate the reduce output counters
 		double redOutSize = redInputSize
-				* virtualProf.getStatistic(MRStatistics.REDUCE_SIZE_SEL,
+				* virtualProf.getStatisticDouble(MRStatistics.REDUCE_SIZE_SEL,
 						DEF_SEL_ONE);
 		double redOutPairs = redInputPairs
-				* virtualProf.getStatistic(MRStatistics.REDUCE_PAIRS_SEL,
+				* virtualProf.getStatisticDouble(MRStatistics.REDUCE_PAIRS_SEL,
 						DEF_SEL_ONE);
 
 		virtualProf
@@ -440,7 +455,8 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 
 		// Set reduce input groups
 		double redInputGroups = redInputPairs
-				/ virtualProf.getStatistic(MRStatistics.REDUCE_PAIRS_PER_GROUP,
+				/ virtualProf.getStatisticDouble(
+						MRStatistics.REDUCE_PAIRS_PER_GROUP,
 						DEF_RED_PAIRS_PER_GROUP);
 		if (redInputGroups < 1 && redInputPairs > 0)
 			redInputGroups = 1;
@@ -470,12 +486,12 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 	private void calcVirtualReduceCosts() {
 
 		// Set the statistics common between mappers and reducers
-		calcVirtualTaskCosts(sourceProf, virtualProf, conf);
+		calcVirtualTaskCosts(sourceProf, virtualProf, settings);
 
 		// Set output compression cost
 		if (useOutputCompr) {
 			virtualProf.addCostFactor(MRCostFactors.OUTPUT_COMPRESS_CPU_COST,
-					sourceProf.getCostFactor(
+					sourceProf.getCostFactorDouble(
 							MRCostFactors.OUTPUT_COMPRESS_CPU_COST,
 							DEF_COST_CPU_COMPRESS));
 		}
@@ -553,7 +569,7 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 
 		// Calculate and set SETUP
 		virtualProf.addTiming(MRTaskPhase.SETUP,
-				sourceProf.getTiming(MRTaskPhase.SETUP, 0d));
+				sourceProf.getTimingDouble(MRTaskPhase.SETUP, 0d));
 
 		// Calculate and set REDUCE
 		double readIO = bytesReadInReduce
@@ -565,8 +581,9 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 				/ NS_PER_MS);
 
 		// Calculate and set WRITE
-		double writeIO = virtualProf.getCounter(MRCounter.HDFS_BYTES_WRITTEN,
-				virtualProf.getCounter(MRCounter.S3N_BYTES_WRITTEN, 0l))
+		double writeIO = virtualProf.getCounterLong(
+				MRCounter.HDFS_BYTES_WRITTEN,
+				virtualProf.getCounterLong(MRCounter.S3N_BYTES_WRITTEN, 0l))
 				* virtualProf.getCostFactor(MRCostFactors.WRITE_HDFS_IO_COST);
 
 		double comprCPU = 0d;
@@ -579,7 +596,7 @@ public class ReduceProfileOracle extends TaskProfileOracle {
 
 		// Calculate and set CLEANUP
 		virtualProf.addTiming(MRTaskPhase.CLEANUP,
-				sourceProf.getTiming(MRTaskPhase.CLEANUP, 0d));
+				sourceProf.getTimingDouble(MRTaskPhase.CLEANUP, 0d));
 	}
 
 	/**
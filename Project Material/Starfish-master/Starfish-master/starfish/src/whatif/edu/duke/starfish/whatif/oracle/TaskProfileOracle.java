@@ -2,11 +2,10 @@ package edu.duke.starfish.whatif.oracle;
 
 import static edu.duke.starfish.profile.utils.Constants.*;
 
-import org.apache.hadoop.conf.Configuration;
-
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRTaskProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCostFactors;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRStatistics;
+import edu.duke.starfish.whatif.JobSettings;
 
 /**
  * An abstract class providing functionality that is common between the map and
@@ -31,35 +30,37 @@ public abstract class TaskProfileOracle {
 	 *            the source profile
 	 * @param virtualProf
 	 *            the virtual profile to populate
-	 * @param conf
-	 *            the suggested configuration
+	 * @param settings
+	 *            the suggested job settings
 	 */
 	protected void calcVirtualTaskStatistics(MRTaskProfile sourceProf,
-			MRTaskProfile virtualProf, Configuration conf) {
+			MRTaskProfile virtualProf, JobSettings settings) {
 
 		// Set the combiner statistics
-		if (conf.get(MR_COMBINE_CLASS) != null
-				&& conf.getBoolean(STARFISH_USE_COMBINER, true)) {
+		if (settings.isCombinerOn()) {
 			virtualProf.addStatistic(MRStatistics.COMBINE_SIZE_SEL, sourceProf
-					.getStatistic(MRStatistics.COMBINE_SIZE_SEL, DEF_SEL_ONE));
+					.getStatisticDouble(
+							MRStatistics.COMBINE_SIZE_SEL, DEF_SEL_ONE));
 			virtualProf.addStatistic(MRStatistics.COMBINE_PAIRS_SEL, sourceProf
-					.getStatistic(MRStatistics.COMBINE_PAIRS_SEL, DEF_SEL_ONE));
+					.getStatisticDouble(
+							MRStatistics.COMBINE_PAIRS_SEL, DEF_SEL_ONE));
 		}
 
 		// Set intermediate compression statistics
-		if (conf.getBoolean(MR_COMPRESS_MAP_OUT, false)) {
+		if (settings.getCompressMapOutput()) {
 			virtualProf.addStatistic(MRStatistics.INTERM_COMPRESS_RATIO,
-					sourceProf.getStatistic(MRStatistics.INTERM_COMPRESS_RATIO,
+					sourceProf.getStatisticDouble(
+							MRStatistics.INTERM_COMPRESS_RATIO,
 							DEF_COMPRESS_RATIO));
 		}
 
 		// Set the memory statistics
 		virtualProf.addStatistic(MRStatistics.STARTUP_MEM, sourceProf
-				.getStatistic(MRStatistics.STARTUP_MEM, DEF_MEM));
+				.getStatisticDouble(MRStatistics.STARTUP_MEM, DEF_MEM));
 		virtualProf.addStatistic(MRStatistics.SETUP_MEM, sourceProf
-				.getStatistic(MRStatistics.SETUP_MEM, DEF_MEM));
+				.getStatisticDouble(MRStatistics.SETUP_MEM, DEF_MEM));
 		virtualProf.addStatistic(MRStatistics.CLEANUP_MEM, sourceProf
-				.getStatistic(MRStatistics.CLEANUP_MEM, DEF_MEM));
+				.getStatisticDouble(MRStatistics.CLEANUP_MEM, DEF_MEM));
 	}
 
 	/**
@@ -71,30 +72,30 @@ public abstract class TaskProfileOracle {
 	 *            the source profile
 	 * @param virtualProf
 	 *            the virtual profile to populate
-	 * @param conf
-	 *            the suggested configuration
+	 * @param settings
+	 *            the suggested job settings
 	 */
 	protected void calcVirtualTaskCosts(MRTaskProfile sourceProf,
-			MRTaskProfile virtualProf, Configuration conf) {
+			MRTaskProfile virtualProf, JobSettings settings) {
 
 		virtualProf.addCostFactors(sourceProf.getCostFactors());
 
 		// Ensure we have combine costs
-		if (conf.get(MR_COMBINE_CLASS) != null
-				&& conf.getBoolean(STARFISH_USE_COMBINER, true)) {
+		if (settings.isCombinerOn()) {
 			virtualProf.addCostFactor(MRCostFactors.COMBINE_CPU_COST,
-					sourceProf.getCostFactor(MRCostFactors.COMBINE_CPU_COST,
+					sourceProf.getCostFactorDouble(
+							MRCostFactors.COMBINE_CPU_COST,
 							DEF_COST_CPU_COMBINE));
 		}
 
 		// Ensure we have compression costs and are not set to zero
-		if (conf.getBoolean(MR_COMPRESS_MAP_OUT, false)) {
+		if (settings.getCompressMapOutput()) {
 			virtualProf.addCostFactor(MRCostFactors.INTERM_COMPRESS_CPU_COST,
-					sourceProf.getCostFactor(
+					sourceProf.getCostFactorDouble(
 							MRCostFactors.INTERM_COMPRESS_CPU_COST,
 							DEF_COST_CPU_COMPRESS));
 			virtualProf.addCostFactor(MRCostFactors.INTERM_UNCOMPRESS_CPU_COST,
-					sourceProf.getCostFactor(
+					sourceProf.getCostFactorDouble(
 							MRCostFactors.INTERM_UNCOMPRESS_CPU_COST,
 							DEF_COST_CPU_UNCOMPRESS));
 
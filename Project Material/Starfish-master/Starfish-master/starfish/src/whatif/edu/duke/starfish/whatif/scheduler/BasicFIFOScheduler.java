@@ -4,6 +4,8 @@ import static edu.duke.starfish.profile.utils.Constants.DEF_RED_SLOWSTART_MAPS;
 import static edu.duke.starfish.profile.utils.Constants.MR_RED_SLOWSTART_MAPS;
 
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -33,6 +35,7 @@ import edu.duke.starfish.profile.profileinfo.execution.profile.MRReduceProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRTaskPhase;
 import edu.duke.starfish.profile.profileinfo.setup.TaskTrackerInfo;
+import edu.duke.starfish.whatif.JobSettings;
 
 /**
  * A basic FIFO scheduler that simulates the execution of a MapReduce on a
@@ -51,8 +54,22 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 	// Simulation setup
 	private PriorityQueue<TaskSlot> mapSlots;
 	private PriorityQueue<TaskSlot> redSlots;
+	private List<TaskSlot> allMapSlots; // All map slots in creation order
+	private List<TaskSlot> allRedSlots; // All reduce slots in creation order
+
+	// Reusable buffers for simulating only the job duration
+	private SlotTimeHeap mapTimes; // The map slot ready times
+	private SlotTimeHeap redTimes; // The reduce slot ready times
+	private long[] mapEndTimes; // The end times of the map tasks
+
+	// Reusable buffers for simulating the job duration in waves
+	private SlotTimeRuns mapRuns; // The map slot ready times
+	private SlotTimeRuns redRuns; // The reduce slot ready times
+	private long[] mapEndRunTimes; // The end times of the map waves
+	private int[] mapEndRunCounts; // The number of maps in each wave
 
 	private boolean ignoreReducers; // Flag to not schedule the reducers
+	private boolean waveScheduling; // Flag to schedule tasks in waves
 	private ClusterConfiguration cluster;
 
 	// Constants
@@ -69,6 +86,19 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 	private static final Pattern JOB_ID_PATTERN = Pattern
 			.compile(".*_([0-9]+_[0-9]+)");
 
+	// The Hadoop schedulers sorts the input splits based on size
+	private static final Comparator<MRMapProfile> MAP_SIZE_COMPARATOR = new Comparator<MRMapProfile>() {
+		@Override
+		public int compare(MRMapProfile p1, MRMapProfile p2) {
+			long size1 = p1.getCounterLong(MRCounter.HDFS_BYTES_READ,
+					p1.getCounterLong(MRCounter.S3N_BYTES_READ, 0l));
+			long size2 = p2.getCounterLong(MRCounter.HDFS_BYTES_READ,
+					p2.getCounterLong(MRCounter.S3N_BYTES_READ, 0l));
+
+			return (size2 < size1) ? -1 : ((size2 == size1) ? 0 : 1);
+		}
+	};
+
 	{
 		nf.setMinimumIntegerDigits(6);
 		nf.setGroupingUsed(false);
@@ -86,24 +116,73 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 		this.mapSlots = new PriorityQueue<TaskSlot>(cluster.getTotalMapSlots());
 		this.redSlots = new PriorityQueue<TaskSlot>(
 				cluster.getTotalReduceSlots());
-		Date launchTime = new Date();
+		this.allMapSlots = new ArrayList<TaskSlot>(cluster.getTotalMapSlots());
+		this.allRedSlots = new ArrayList<TaskSlot>(
+				cluster.getTotalReduceSlots());
+		long launchTime = System.currentTimeMillis();
 
 		for (TaskTrackerInfo taskTracker : cluster.getAllTaskTrackersInfos()) {
 			// Initialize the map slots
 			int numMapSlots = taskTracker.getNumMapSlots();
 			for (int i = 0; i < numMapSlots; ++i)
-				mapSlots.add(new TaskSlot(taskTracker, launchTime));
+				allMapSlots.add(new TaskSlot(taskTracker, launchTime));
 
 			// Initialize the reduce slots
 			int numRedSlots = taskTracker.getNumReduceSlots();
 			for (int i = 0; i < numRedSlots; ++i)
-				redSlots.add(new TaskSlot(taskTracker, launchTime));
+				allRedSlots.add(new TaskSlot(taskTracker, launchTime));
 		}
 
+		mapSlots.addAll(allMapSlots);
+		redSlots.addAll(allRedSlots);
+		this.mapTimes = new SlotTimeHeap(allMapSlots.size());
+		this.redTimes = new SlotTimeHeap(allRedSlots.size());
+		this.mapEndTimes = new long[16];
+		this.mapRuns = new SlotTimeRuns(allMapSlots.size());
+		this.redRuns = new SlotTimeRuns(allRedSlots.size());
+		this.mapEndRunTimes = new long[16];
+		this.mapEndRunCounts = new int[16];
 		this.ignoreReducers = false;
+		this.waveScheduling = true;
 		this.cluster = cluster;
 	}
 
+	/**
+	 * Copy constructor. The new scheduler starts from the checkpointed state
+	 * of the other scheduler.
+	 * 
+	 * @param other
+	 *            the scheduler to copy
+	 */
+	private BasicFIFOScheduler(BasicFIFOScheduler other) {
+
+		// Initialize the task slots
+		this.mapSlots = new PriorityQueue<TaskSlot>(other.allMapSlots.size());
+		this.redSlots = new PriorityQueue<TaskSlot>(other.allRedSlots.size());
+		this.allMapSlots = new ArrayList<TaskSlot>(other.allMapSlots.size());
+		this.allRedSlots = new ArrayList<TaskSlot>(other.allRedSlots.size());
+
+		for (TaskSlot slot : other.allMapSlots)
+			allMapSlots.add(new TaskSlot(slot.getTaskTracker(), slot
+					.getCheckpointMillis()));
+		for (TaskSlot slot : other.allRedSlots)
+			allRedSlots.add(new TaskSlot(slot.getTaskTracker(), slot
+					.getCheckpointMillis()));
+
+		mapSlots.addAll(allMapSlots);
+		redSlots.addAll(allRedSlots);
+		this.mapTimes = new SlotTimeHeap(allMapSlots.size());
+		this.redTimes = new SlotTimeHeap(allRedSlots.size());
+		this.mapEndTimes = new long[16];
+		this.mapRuns = new SlotTimeRuns(allMapSlots.size());
+		this.redRuns = new SlotTimeRuns(allRedSlots.size());
+		this.mapEndRunTimes = new long[16];
+		this.mapEndRunCounts = new int[16];
+		this.ignoreReducers = other.ignoreReducers;
+		this.waveScheduling = other.waveScheduling;
+		this.cluster = other.cluster;
+	}
+
 	/* ***************************************************************
 	 * OVERRIDEN METHODS
 	 * ***************************************************************
@@ -126,11 +205,27 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 	 */
 	@Override
 	public void reset() {
-		// Reset all slots
-		for (TaskSlot slot : mapSlots)
+		// Reset all slots and rebuild the queues in creation order, so that
+		// the outcome of a simulation does not depend on earlier simulations
+		mapSlots.clear();
+		for (TaskSlot slot : allMapSlots) {
 			slot.reset();
-		for (TaskSlot slot : redSlots)
+			mapSlots.add(slot);
+		}
+
+		redSlots.clear();
+		for (TaskSlot slot : allRedSlots) {
 			slot.reset();
+			redSlots.add(slot);
+		}
+	}
+
+	/**
+	 * @see IWhatIfScheduler#duplicate()
+	 */
+	@Override
+	public IWhatIfScheduler duplicate() {
+		return new BasicFIFOScheduler(this);
 	}
 
 	/**
@@ -148,6 +243,117 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 	@Override
 	public MRJobInfo scheduleJobGetJobInfo(Date submissionTime,
 			MRJobProfile jobProfile, Configuration conf) {
+		return scheduleJobGetJobInfo(submissionTime, jobProfile, conf
+				.getFloat(MR_RED_SLOWSTART_MAPS, DEF_RED_SLOWSTART_MAPS));
+	}
+
+	/**
+	 * @see IWhatIfScheduler#scheduleJobGetJobInfo(Date, MRJobProfile,
+	 *      JobSettings)
+	 */
+	@Override
+	public MRJobInfo scheduleJobGetJobInfo(Date submissionTime,
+			MRJobProfile jobProfile, JobSettings settings) {
+		return scheduleJobGetJobInfo(submissionTime, jobProfile, settings
+				.getRedSlowstartMaps());
+	}
+
+	/**
+	 * This method follows the exact same simulation logic as
+	 * {@link #scheduleJobGetJobInfo(Date, MRJobProfile, Configuration)} but
+	 * only keeps track of the slot ready times in primitive min-heaps. No
+	 * tasks, attempts, dates, or ids are created, and the internal buffers are
+	 * reused across calls. The returned duration is identical to the duration
+	 * of the job returned by the full simulation, and the slots are left in the
+	 * same state.
+	 * 
+	 * By default, all the tasks of a map or reduce profile are scheduled in
+	 * waves (see {@link #setWaveScheduling(boolean)}).
+	 * 
+	 * @see IWhatIfScheduler#scheduleJobGetTime(Date, MRJobProfile,
+	 *      Configuration)
+	 */
+	@Override
+	public double scheduleJobGetTime(Date submissionTime,
+			MRJobProfile jobProfile, Configuration conf) {
+		return scheduleJobGetTime(submissionTime, jobProfile, conf.getFloat(
+				MR_RED_SLOWSTART_MAPS, DEF_RED_SLOWSTART_MAPS));
+	}
+
+	/**
+	 * @see IWhatIfScheduler#scheduleJobGetTime(Date, MRJobProfile,
+	 *      JobSettings)
+	 */
+	@Override
+	public double scheduleJobGetTime(Date submissionTime,
+			MRJobProfile jobProfile, JobSettings settings) {
+		return scheduleJobGetTime(submissionTime, jobProfile, settings
+				.getRedSlowstartMaps());
+	}
+
+	/**
+	 * Follows the same simulation logic as
+	 * {@link #scheduleJobGetTime(Date, MRJobProfile, JobSettings)}.
+	 * 
+	 * @see IWhatIfScheduler#scheduleJobGetEndTime(Date, MRJobProfile,
+	 *      JobSettings)
+	 */
+	@Override
+	public long scheduleJobGetEndTime(Date submissionTime,
+			MRJobProfile jobProfile, JobSettings settings) {
+		return scheduleJobGetEndTime(submissionTime, jobProfile, settings
+				.getRedSlowstartMaps());
+	}
+
+	/**
+	 * @see IWhatIfScheduler#setIgnoreReducers(boolean)
+	 */
+	@Override
+	public void setIgnoreReducers(boolean ignoreReducers) {
+		this.ignoreReducers = ignoreReducers;
+	}
+
+	/* ***************************************************************
+	 * PUBLIC METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Set whether the time-only simulations schedule the tasks in waves. All
+	 * the tasks of a map or reduce profile have the same duration, so instead
+	 * of scheduling one task at a time, a wave of tasks is scheduled on all
+	 * the slots that are ready at the same time. The slots are kept in runs of
+	 * equal ready times, so the cost depends on the number of task profiles
+	 * and distinct slot states instead of the number of tasks. The simulated
+	 * duration and the final slot states are the same in both modes.
+	 * 
+	 * @param waveScheduling
+	 *            true to schedule the tasks in waves (the default), false to
+	 *            schedule one task at a time
+	 */
+	public void setWaveScheduling(boolean waveScheduling) {
+		this.waveScheduling = waveScheduling;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Simulate the job execution and return a representation of the job
+	 * execution
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param jobProfile
+	 *            the virtual job profile
+	 * @param redSlowstartMaps
+	 *            the fraction of maps to complete before scheduling reducers
+	 * @return the job execution
+	 */
+	private MRJobInfo scheduleJobGetJobInfo(Date submissionTime,
+			MRJobProfile jobProfile, float redSlowstartMaps) {
 
 		// Find the job start time
 		Date jobStartTime = mapSlots.peek().getReadyTime();
@@ -169,17 +375,7 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 
 		// The Hadoop schedulers sorts the input splits based on size
 		List<MRMapProfile> mapProfs = jobProfile.getMapProfiles();
-		Collections.sort(mapProfs, new Comparator<MRMapProfile>() {
-			@Override
-			public int compare(MRMapProfile p1, MRMapProfile p2) {
-				Long size1 = p1.getCounter(MRCounter.HDFS_BYTES_READ,
-						p1.getCounter(MRCounter.S3N_BYTES_READ, 0l));
-				Long size2 = p2.getCounter(MRCounter.HDFS_BYTES_READ,
-						p2.getCounter(MRCounter.S3N_BYTES_READ, 0l));
-
-				return size2.compareTo(size1);
-			}
-		});
+		Collections.sort(mapProfs, MAP_SIZE_COMPARATOR);
 
 		// Schedule the setup task attempt on a map slot
 		int numMapTasks = jobProfile.getCounter(MRCounter.MAP_TASKS).intValue();
@@ -261,8 +457,8 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 		}
 
 		// Calculate the number of completed maps before reducers start
-		int numMapsBeforeReducers = (int) Math.ceil((conf.getFloat(
-				MR_RED_SLOWSTART_MAPS, DEF_RED_SLOWSTART_MAPS) * numMapTasks));
+		int numMapsBeforeReducers = (int) Math
+				.ceil((redSlowstartMaps * numMapTasks));
 		if (numMapsBeforeReducers == 0)
 			++numMapsBeforeReducers;
 		if (numMapsBeforeReducers < 0 || numMapsBeforeReducers > numMapTasks)
@@ -342,28 +538,473 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 	}
 
 	/**
-	 * @see IWhatIfScheduler#scheduleJobGetTime(Date, MRJobProfile,
-	 *      Configuration)
+	 * Simulate the job execution and return the execution time
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param jobProfile
+	 *            the virtual job profile
+	 * @param redSlowstartMaps
+	 *            the fraction of maps to complete before scheduling reducers
+	 * @return the job execution time
 	 */
-	@Override
-	public double scheduleJobGetTime(Date submissionTime,
-			MRJobProfile jobProfile, Configuration conf) {
-		return scheduleJobGetJobInfo(submissionTime, jobProfile, conf)
-				.getDuration();
+	private double scheduleJobGetTime(Date submissionTime,
+			MRJobProfile jobProfile, float redSlowstartMaps) {
+
+		// Find the job start time (i.e., when the first map slot is ready)
+		long jobStartTime = submissionTime.getTime();
+		long firstReadyTime = Long.MAX_VALUE;
+		for (int i = 0; i < allMapSlots.size(); ++i)
+			firstReadyTime = Math.min(firstReadyTime, allMapSlots.get(i)
+					.getReadyMillis());
+		if (jobStartTime < firstReadyTime)
+			jobStartTime = firstReadyTime;
+		jobStartTime += HEARTBEAT_DELAY;
+
+		long jobEndTime = scheduleJobGetEndTime(submissionTime, jobProfile,
+				redSlowstartMaps);
+		return jobEndTime - jobStartTime;
 	}
 
 	/**
-	 * @see IWhatIfScheduler#setIgnoreReducers(boolean)
+	 * Simulate the job execution and return the job end time
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param jobProfile
+	 *            the virtual job profile
+	 * @param redSlowstartMaps
+	 *            the fraction of maps to complete before scheduling reducers
+	 * @return the job end time
 	 */
-	@Override
-	public void setIgnoreReducers(boolean ignoreReducers) {
-		this.ignoreReducers = ignoreReducers;
+	private long scheduleJobGetEndTime(Date submissionTime,
+			MRJobProfile jobProfile, float redSlowstartMaps) {
+		if (waveScheduling)
+			return scheduleWavesGetEndTime(submissionTime, jobProfile,
+					redSlowstartMaps);
+		else
+			return scheduleTasksGetEndTime(submissionTime, jobProfile,
+					redSlowstartMaps);
 	}
 
-	/* ***************************************************************
-	 * PRIVATE METHODS
-	 * ***************************************************************
+	/**
+	 * Simulate the job execution one task at a time and return the job end
+	 * time
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param jobProfile
+	 *            the virtual job profile
+	 * @param redSlowstartMaps
+	 *            the fraction of maps to complete before scheduling reducers
+	 * @return the job end time
+	 */
+	private long scheduleTasksGetEndTime(Date submissionTime,
+			MRJobProfile jobProfile, float redSlowstartMaps) {
+
+		// Load the current slot ready times
+		loadSlotTimes(allMapSlots, mapTimes);
+		loadSlotTimes(allRedSlots, redTimes);
+
+		// Find the job start time
+		long jobStartTime = Math.max(mapTimes.peek(), submissionTime.getTime())
+				+ HEARTBEAT_DELAY;
+
+		// The Hadoop schedulers sorts the input splits based on size
+		List<MRMapProfile> mapProfs = jobProfile.getMapProfiles();
+		Collections.sort(mapProfs, MAP_SIZE_COMPARATOR);
+
+		// Schedule the setup task on a map slot
+		int numMapTasks = jobProfile.getCounter(MRCounter.MAP_TASKS).intValue();
+		long setupEndTime = Math.max(mapTimes.peek(), jobStartTime)
+				+ HALF_HEARTBEAT_DELAY + SETUP_CLEANUP_TIME;
+		mapTimes.replaceTop(setupEndTime);
+
+		// Move the job start time after the setup completes
+		jobStartTime = setupEndTime;
+
+		// Schedule all the map tasks
+		int numMaps = 0;
+		long lastMapEndTime = jobStartTime;
+		for (MRMapProfile mapProf : mapProfs) {
+			int numTasks = mapProf.getNumTasks();
+			if (mapEndTimes.length < numMaps + numTasks) {
+				long[] newEndTimes = new long[Math.max(numMaps + numTasks,
+						2 * mapEndTimes.length)];
+				System.arraycopy(mapEndTimes, 0, newEndTimes, 0, numMaps);
+				mapEndTimes = newEndTimes;
+			}
+
+			// Simply add up the sub-phase timings and the heart beat delay
+			double execTime = 0d;
+			for (Double subTime : mapProf.getTimings().values())
+				execTime += subTime;
+			execTime += HALF_HEARTBEAT_DELAY;
+
+			for (int i = 0; i < numTasks; ++i) {
+				// Schedule this map task on a map slot
+				long endTime = Math.max(mapTimes.peek(), jobStartTime)
+						+ HALF_HEARTBEAT_DELAY + (long) execTime;
+				mapTimes.replaceTop(endTime);
+				mapEndTimes[numMaps++] = endTime;
+
+				// Keep track of the last map end time
+				if (lastMapEndTime < endTime)
+					lastMapEndTime = endTime;
+			}
+		}
+
+		// Stop here if there are no reducers or asked to
+		List<MRReduceProfile> redProfiles = jobProfile.getReduceProfiles();
+		if (redProfiles.size() == 0 || ignoreReducers) {
+
+			// Schedule the cleanup task on the slot run the last map
+			long cleanupEndTime = lastMapEndTime + HALF_HEARTBEAT_DELAY
+					+ SETUP_CLEANUP_TIME;
+			mapTimes.increase(lastMapEndTime, cleanupEndTime);
+
+			storeSlotTimes(mapTimes, allMapSlots, mapSlots);
+			return cleanupEndTime + HEARTBEAT_DELAY;
+		}
+
+		// Calculate the number of completed maps before reducers start
+		int numMapsBeforeReducers = (int) Math.ceil((redSlowstartMaps
+				* numMapTasks));
+		if (numMapsBeforeReducers == 0)
+			++numMapsBeforeReducers;
+		if (numMapsBeforeReducers < 0 || numMapsBeforeReducers > numMapTasks)
+			throw new RuntimeException("ERROR: The number of maps to complete "
+					+ "before reducers can start is out of range: "
+					+ numMapsBeforeReducers);
+
+		// All reducers will start after some number of maps have completed
+		Arrays.sort(mapEndTimes, 0, numMaps);
+		long redSlowStartTime = mapEndTimes[numMapsBeforeReducers - 1];
+
+		// Schedule all the reduce tasks
+		long lastReduceEndTime = lastMapEndTime;
+		for (MRReduceProfile redProfile : redProfiles) {
+
+			// Get the phase timings
+			double shuffleTime = redProfile.getTimingDouble(
+					MRTaskPhase.SHUFFLE, 0d);
+			double sortTime = redProfile.getTimingDouble(MRTaskPhase.SORT, 0d);
+			double redTime = 0d;
+			for (Double subTime : redProfile.getTimings().values())
+				redTime += subTime;
+			redTime = redTime - sortTime - shuffleTime + HALF_HEARTBEAT_DELAY;
+
+			int numRedTasks = redProfile.getNumTasks();
+			for (int i = 0; i < numRedTasks; ++i) {
+
+				// Calculate the start time
+				long startTime = Math.max(redTimes.peek(), redSlowStartTime)
+						+ HALF_HEARTBEAT_DELAY;
+
+				// The shuffle will complete only after all maps have completed
+				long endShuffleTime;
+				if (startTime < lastMapEndTime
+						&& shuffleTime <= lastMapEndTime - startTime) {
+					endShuffleTime = lastMapEndTime
+							+ (long) (shuffleTime / numMapTasks);
+				} else {
+					endShuffleTime = startTime + (long) shuffleTime;
+				}
+
+				// Calculate the end sort and reduce times
+				long endSortTime = endShuffleTime + (long) sortTime;
+				long endReduceTime = endSortTime + (long) redTime;
+				redTimes.replaceTop(endReduceTime);
+
+				// Keep track of the last reduce end time
+				if (lastReduceEndTime < endReduceTime)
+					lastReduceEndTime = endReduceTime;
+			}
+		}
+
+		// Schedule the cleanup task on the slot run the last reduce
+		long cleanupEndTime = lastReduceEndTime + HALF_HEARTBEAT_DELAY
+				+ SETUP_CLEANUP_TIME;
+		redTimes.increase(lastReduceEndTime, cleanupEndTime);
+
+		storeSlotTimes(mapTimes, allMapSlots, mapSlots);
+		storeSlotTimes(redTimes, allRedSlots, redSlots);
+		return cleanupEndTime + HEARTBEAT_DELAY;
+	}
+
+	/**
+	 * Simulate the job execution one wave of tasks at a time and return the job
+	 * end time. A wave consists of the tasks of the same profile that
+	 * are scheduled on the slots that are ready at the same time. Since every
+	 * task ends after its slot was ready, all the slots of a run are used
+	 * before any of the slots the wave was scheduled on. Hence, the slots
+	 * end up in the same states as with
+	 * {@link #scheduleTasksGetEndTime(Date, MRJobProfile, float)}.
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param jobProfile
+	 *            the virtual job profile
+	 * @param redSlowstartMaps
+	 *            the fraction of maps to complete before scheduling reducers
+	 * @return the job end time
+	 */
+	private long scheduleWavesGetEndTime(Date submissionTime,
+			MRJobProfile jobProfile, float redSlowstartMaps) {
+
+		// Load the current slot ready times
+		loadSlotRuns(allMapSlots, mapRuns);
+		loadSlotRuns(allRedSlots, redRuns);
+
+		// Find the job start time
+		long jobStartTime = Math.max(mapRuns.peek(), submissionTime.getTime())
+				+ HEARTBEAT_DELAY;
+
+		// The Hadoop schedulers sorts the input splits based on size
+		List<MRMapProfile> mapProfs = jobProfile.getMapProfiles();
+		Collections.sort(mapProfs, MAP_SIZE_COMPARATOR);
+
+		// Schedule the setup task on a map slot
+		int numMapTasks = jobProfile.getCounter(MRCounter.MAP_TASKS).intValue();
+		long setupEndTime = Math.max(mapRuns.peek(), jobStartTime)
+				+ HALF_HEARTBEAT_DELAY + SETUP_CLEANUP_TIME;
+		mapRuns.poll(1);
+		mapRuns.push(setupEndTime, 1);
+		mapRuns.flush();
+
+		// Move the job start time after the setup completes
+		jobStartTime = setupEndTime;
+
+		// Schedule all the map tasks in waves
+		int numMapWaves = 0;
+		long lastMapEndTime = jobStartTime;
+		for (MRMapProfile mapProf : mapProfs) {
+
+			// Simply add up the sub-phase timings and the heart beat delay
+			double execTime = 0d;
+			for (Double subTime : mapProf.getTimings().values())
+				execTime += subTime;
+			execTime += HALF_HEARTBEAT_DELAY;
+
+			int numTasks = mapProf.getNumTasks();
+			while (numTasks > 0) {
+				// Schedule a wave of map tasks on the earliest slots
+				long endTime = Math.max(mapRuns.peek(), jobStartTime)
+						+ HALF_HEARTBEAT_DELAY + (long) execTime;
+				int numWaveTasks = mapRuns.poll(numTasks);
+				mapRuns.push(endTime, numWaveTasks);
+				numTasks -= numWaveTasks;
+
+				if (mapEndRunTimes.length == numMapWaves) {
+					mapEndRunTimes = Arrays.copyOf(mapEndRunTimes,
+							2 * numMapWaves);
+					mapEndRunCounts = Arrays.copyOf(mapEndRunCounts,
+							2 * numMapWaves);
+				}
+				mapEndRunTimes[numMapWaves] = endTime;
+				mapEndRunCounts[numMapWaves] = numWaveTasks;
+				++numMapWaves;
+
+				// Keep track of the last map end time
+				if (lastMapEndTime < endTime)
+					lastMapEndTime = endTime;
+			}
+			mapRuns.flush();
+		}
+
+		// Stop here if there are no reducers or asked to
+		List<MRReduceProfile> redProfiles = jobProfile.getReduceProfiles();
+		if (redProfiles.size() == 0 || ignoreReducers) {
+
+			// Schedule the cleanup task on the slot run the last map
+			long cleanupEndTime = lastMapEndTime + HALF_HEARTBEAT_DELAY
+					+ SETUP_CLEANUP_TIME;
+			mapRuns.increase(lastMapEndTime, cleanupEndTime);
+
+			storeSlotRuns(mapRuns, allMapSlots, mapSlots);
+			return cleanupEndTime + HEARTBEAT_DELAY;
+		}
+
+		// Calculate the number of completed maps before reducers start
+		int numMapsBeforeReducers = (int) Math.ceil((redSlowstartMaps
+				* numMapTasks));
+		if (numMapsBeforeReducers == 0)
+			++numMapsBeforeReducers;
+		if (numMapsBeforeReducers < 0 || numMapsBeforeReducers > numMapTasks)
+			throw new RuntimeException("ERROR: The number of maps to complete "
+					+ "before reducers can start is out of range: "
+					+ numMapsBeforeReducers);
+
+		// All reducers will start after some number of maps have completed
+		long redSlowStartTime = findEndTime(mapEndRunTimes, mapEndRunCounts,
+				numMapWaves, numMapsBeforeReducers);
+
+		// Schedule all the reduce tasks in waves
+		long lastReduceEndTime = lastMapEndTime;
+		for (MRReduceProfile redProfile : redProfiles) {
+
+			// Get the phase timings
+			double shuffleTime = redProfile.getTimingDouble(
+					MRTaskPhase.SHUFFLE, 0d);
+			double sortTime = redProfile.getTimingDouble(MRTaskPhase.SORT, 0d);
+			double redTime = 0d;
+			for (Double subTime : redProfile.getTimings().values())
+				redTime += subTime;
+			redTime = redTime - sortTime - shuffleTime + HALF_HEARTBEAT_DELAY;
+
+			int numRedTasks = redProfile.getNumTasks();
+			while (numRedTasks > 0) {
+
+				// Calculate the start time
+				long startTime = Math.max(redRuns.peek(), redSlowStartTime)
+						+ HALF_HEARTBEAT_DELAY;
+
+				// The shuffle will complete only after all maps have completed
+				long endShuffleTime;
+				if (startTime < lastMapEndTime
+						&& shuffleTime <= lastMapEndTime - startTime) {
+					endShuffleTime = lastMapEndTime
+							+ (long) (shuffleTime / numMapTasks);
+				} else {
+					endShuffleTime = startTime + (long) shuffleTime;
+				}
+
+				// Calculate the end sort and reduce times
+				long endSortTime = endShuffleTime + (long) sortTime;
+				long endReduceTime = endSortTime + (long) redTime;
+				int numWaveTasks = redRuns.poll(numRedTasks);
+				redRuns.push(endReduceTime, numWaveTasks);
+				numRedTasks -= numWaveTasks;
+
+				// Keep track of the last reduce end time
+				if (lastReduceEndTime < endReduceTime)
+					lastReduceEndTime = endReduceTime;
+			}
+			redRuns.flush();
+		}
+
+		// Schedule the cleanup task on the slot run the last reduce
+		long cleanupEndTime = lastReduceEndTime + HALF_HEARTBEAT_DELAY
+				+ SETUP_CLEANUP_TIME;
+		redRuns.increase(lastReduceEndTime, cleanupEndTime);
+
+		storeSlotRuns(mapRuns, allMapSlots, mapSlots);
+		storeSlotRuns(redRuns, allRedSlots, redSlots);
+		return cleanupEndTime + HEARTBEAT_DELAY;
+	}
+
+	/**
+	 * Load the ready times of the slots into the heap
+	 * 
+	 * @param slots
+	 *            the task slots
+	 * @param heap
+	 *            the heap to load
+	 */
+	private void loadSlotTimes(List<TaskSlot> slots, SlotTimeHeap heap) {
+		heap.clear();
+		for (int i = 0; i < slots.size(); ++i)
+			heap.add(slots.get(i).getReadyMillis());
+	}
+
+	/**
+	 * Store the ready times from the heap back into the slots and rebuild the
+	 * slot queue. All slots on the heap are interchangeable for computing the
+	 * duration of future jobs, so only the set of ready times is preserved.
+	 * 
+	 * @param heap
+	 *            the heap with the ready times
+	 * @param slots
+	 *            the task slots
+	 * @param queue
+	 *            the slot queue to rebuild
+	 */
+	private void storeSlotTimes(SlotTimeHeap heap, List<TaskSlot> slots,
+			PriorityQueue<TaskSlot> queue) {
+		queue.clear();
+		for (int i = 0; i < heap.size(); ++i) {
+			TaskSlot slot = slots.get(i);
+			slot.setReadyMillis(heap.get(i));
+			queue.add(slot);
+		}
+	}
+
+	/**
+	 * Load the ready times of the slots into the runs
+	 * 
+	 * @param slots
+	 *            the task slots
+	 * @param runs
+	 *            the runs to load
+	 */
+	private void loadSlotRuns(List<TaskSlot> slots, SlotTimeRuns runs) {
+		runs.clear();
+		for (int i = 0; i < slots.size(); ++i)
+			runs.push(slots.get(i).getReadyMillis(), 1);
+		runs.flush();
+	}
+
+	/**
+	 * Store the ready times from the runs back into the slots and rebuild the
+	 * slot queue. Like {@link #storeSlotTimes}, only the set of ready times is
+	 * preserved.
+	 * 
+	 * @param runs
+	 *            the runs with the ready times
+	 * @param slots
+	 *            the task slots
+	 * @param queue
+	 *            the slot queue to rebuild
+	 */
+	private void storeSlotRuns(SlotTimeRuns runs, List<TaskSlot> slots,
+			PriorityQueue<TaskSlot> queue) {
+		queue.clear();
+		int pos = 0;
+		for (int i = 0; i < runs.numRuns(); ++i) {
+			long time = runs.getTime(i);
+			for (int j = runs.getCount(i); j > 0; --j) {
+				TaskSlot slot = slots.get(pos++);
+				slot.setReadyMillis(time);
+				queue.add(slot);
+			}
+		}
+	}
+
+	/**
+	 * Find the time when the n-th task completes, given the end times and the
+	 * number of tasks of each wave (in any order)
+	 * 
+	 * @param endTimes
+	 *            the end times of the waves
+	 * @param counts
+	 *            the number of tasks in each wave
+	 * @param numWaves
+	 *            the number of waves
+	 * @param n
+	 *            the number of completed tasks (1-based)
+	 * @return the end time of the n-th task
 	 */
+	private static long findEndTime(long[] endTimes, int[] counts,
+			int numWaves, int n) {
+
+		// Add up the number of tasks ending at each distinct time
+		long[] sortedTimes = Arrays.copyOf(endTimes, numWaves);
+		Arrays.sort(sortedTimes);
+		int[] sortedCounts = new int[numWaves];
+		for (int i = 0; i < numWaves; ++i)
+			sortedCounts[Arrays.binarySearch(sortedTimes, endTimes[i])] +=
+				counts[i];
+
+		int numTasks = 0;
+		for (int i = 0; i < numWaves; ++i) {
+			numTasks += sortedCounts[i];
+			if (numTasks >= n)
+				return sortedTimes[i];
+		}
+
+		throw new RuntimeException("ERROR: Only " + numTasks
+				+ " tasks completed out of " + n);
+	}
 
 	/**
 	 * Build and return a virtual task attempt id
@@ -507,7 +1148,8 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 		startTime = new Date(startTime.getTime() + HALF_HEARTBEAT_DELAY);
 
 		// The shuffle will complete only after all maps have completed
-		double shuffleTime = redProfile.getTiming(MRTaskPhase.SHUFFLE, 0d);
+		double shuffleTime = redProfile.getTimingDouble(
+				MRTaskPhase.SHUFFLE, 0d);
 		Date endShuffleTime;
 		if (startTime.before(lastMapEndTime)
 				&& shuffleTime <= lastMapEndTime.getTime()
@@ -519,7 +1161,7 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 		}
 
 		// Calculate the end sort time
-		double sortTime = redProfile.getTiming(MRTaskPhase.SORT, 0d);
+		double sortTime = redProfile.getTimingDouble(MRTaskPhase.SORT, 0d);
 		Date endSortTime = new Date(endShuffleTime.getTime() + (long) sortTime);
 
 		// Calculate the end reduce time
@@ -582,8 +1224,8 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 	private class TaskSlot implements Comparable<TaskSlot> {
 
 		private TaskTrackerInfo taskTracker; // The task tracker
-		private Date checkpointTime; // Checkpoint time
-		private Date readyTime; // Time this slot is ready to execute a task
+		private long checkpointTime; // Checkpoint time
+		private long readyTime; // Time this slot is ready to execute a task
 
 		/**
 		 * Constructor
@@ -593,7 +1235,7 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 		 * @param launchTime
 		 *            the launch time for this slot
 		 */
-		public TaskSlot(TaskTrackerInfo taskTracker, Date launchTime) {
+		public TaskSlot(TaskTrackerInfo taskTracker, long launchTime) {
 			this.taskTracker = taskTracker;
 			this.checkpointTime = launchTime;
 			this.readyTime = launchTime;
@@ -606,13 +1248,35 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 			return taskTracker;
 		}
 
+		/**
+		 * @return the checkpointed ready time (in ms)
+		 */
+		public long getCheckpointMillis() {
+			return checkpointTime;
+		}
+
 		/**
 		 * @return the earliest time this slot can schedule a task
 		 */
 		public Date getReadyTime() {
+			return new Date(readyTime);
+		}
+
+		/**
+		 * @return the earliest time this slot can schedule a task (in ms)
+		 */
+		public long getReadyMillis() {
 			return readyTime;
 		}
 
+		/**
+		 * @param readyTime
+		 *            the earliest time this slot can schedule a task (in ms)
+		 */
+		public void setReadyMillis(long readyTime) {
+			this.readyTime = readyTime;
+		}
+
 		/**
 		 * Checkpoint the ready time
 		 */
@@ -632,14 +1296,381 @@ public class BasicFIFOScheduler implements IWhatIfScheduler {
 		 *            task attempt to schedule
 		 */
 		public void scheduleTaskAttempt(MRTaskAttemptInfo taskAttempt) {
-			readyTime = taskAttempt.getEndTime();
+			readyTime = taskAttempt.getEndTime().getTime();
 		}
 
 		@Override
 		public int compareTo(TaskSlot other) {
-			return this.readyTime.compareTo(other.readyTime);
+			return (readyTime < other.readyTime) ? -1
+					: ((readyTime == other.readyTime) ? 0 : 1);
+		}
+
+	}
+
+	/**
+	 * A binary min-heap of primitive slot ready times, used for simulating the
+	 * job execution when only the duration is needed. The backing array is
+	 * allocated once and reused across simulations.
+	 * 
+	 * @author hero
+	 */
+	private static class SlotTimeHeap {
+
+		private long[] times; // The heap array
+		private int size; // The number of times in the heap
+
+		/**
+		 * Constructor
+		 * 
+		 * @param capacity
+		 *            the number of slots
+		 */
+		public SlotTimeHeap(int capacity) {
+			this.times = new long[Math.max(1, capacity)];
+			this.size = 0;
+		}
+
+		/**
+		 * Remove all times from the heap
+		 */
+		public void clear() {
+			size = 0;
+		}
+
+		/**
+		 * @return the number of times in the heap
+		 */
+		public int size() {
+			return size;
+		}
+
+		/**
+		 * @param index
+		 *            the position in the heap array
+		 * @return the time at that position
+		 */
+		public long get(int index) {
+			return times[index];
+		}
+
+		/**
+		 * @return the smallest time in the heap
+		 */
+		public long peek() {
+			return times[0];
+		}
+
+		/**
+		 * Add a new time in the heap
+		 * 
+		 * @param time
+		 *            the time to add
+		 */
+		public void add(long time) {
+			if (size == times.length) {
+				long[] newTimes = new long[2 * times.length];
+				System.arraycopy(times, 0, newTimes, 0, size);
+				times = newTimes;
+			}
+
+			// Sift up
+			int pos = size++;
+			while (pos > 0) {
+				int parent = (pos - 1) >>> 1;
+				if (times[parent] <= time)
+					break;
+				times[pos] = times[parent];
+				pos = parent;
+			}
+			times[pos] = time;
+		}
+
+		/**
+		 * Replace the smallest time with a new time. This is equivalent to
+		 * removing the smallest time and then adding the new time.
+		 * 
+		 * @param time
+		 *            the new time
+		 */
+		public void replaceTop(long time) {
+			siftDown(0, time);
+		}
+
+		/**
+		 * Replace one occurrence of a time with a larger (or equal) time.
+		 * Nothing happens if the old time is not in the heap.
+		 * 
+		 * @param oldTime
+		 *            the time to replace
+		 * @param newTime
+		 *            the new time
+		 */
+		public void increase(long oldTime, long newTime) {
+			for (int i = 0; i < size; ++i) {
+				if (times[i] == oldTime) {
+					siftDown(i, newTime);
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Place the time at the provided position and move it down the heap
+		 * until the heap property is restored
+		 * 
+		 * @param pos
+		 *            the position
+		 * @param time
+		 *            the time
+		 */
+		private void siftDown(int pos, long time) {
+			int half = size >>> 1;
+			while (pos < half) {
+				int child = 2 * pos + 1;
+				int right = child + 1;
+				if (right < size && times[right] < times[child])
+					child = right;
+				if (time <= times[child])
+					break;
+				times[pos] = times[child];
+				pos = child;
+			}
+			times[pos] = time;
+		}
+	}
+
+
+	/**
+	 * The slot ready times kept as runs of equal times, used for simulating
+	 * the job execution in waves. The runs are kept in two sorted queues: the
+	 * current runs, and the new runs pushed since the last flush. Polling
+	 * always takes slots from the run with the smallest time in either queue.
+	 * The backing arrays are allocated once and reused across simulations.
+	 * 
+	 * @author hero
+	 */
+	private static class SlotTimeRuns {
+
+		private long[] times; // The times of the current runs
+		private int[] counts; // The number of slots in the current runs
+		private int head; // The position of the first current run
+		private int size; // The position after the last current run
+
+		private long[] newTimes; // The times of the new runs
+		private int[] newCounts; // The number of slots in the new runs
+		private int newHead; // The position of the first new run
+		private int newSize; // The position after the last new run
+
+		/**
+		 * Constructor
+		 * 
+		 * @param capacity
+		 *            the number of slots
+		 */
+		public SlotTimeRuns(int capacity) {
+			capacity = Math.max(1, capacity);
+			this.times = new long[capacity];
+			this.counts = new int[capacity];
+			this.newTimes = new long[capacity];
+			this.newCounts = new int[capacity];
+			clear();
+		}
+
+		/**
+		 * Remove all runs
+		 */
+		public void clear() {
+			head = size = 0;
+			newHead = newSize = 0;
+		}
+
+		/**
+		 * @return the number of current runs
+		 */
+		public int numRuns() {
+			return size - head;
+		}
+
+		/**
+		 * @param index
+		 *            the index of a current run
+		 * @return the time of the run
+		 */
+		public long getTime(int index) {
+			return times[head + index];
+		}
+
+		/**
+		 * @param index
+		 *            the index of a current run
+		 * @return the number of slots in the run
+		 */
+		public int getCount(int index) {
+			return counts[head + index];
+		}
+
+		/**
+		 * @return the smallest time in the runs
+		 */
+		public long peek() {
+			if (newHead == newSize)
+				return times[head];
+			if (head == size)
+				return newTimes[newHead];
+			return Math.min(times[head], newTimes[newHead]);
+		}
+
+		/**
+		 * Remove up to maxCount slots from the run with the smallest time
+		 * 
+		 * @param maxCount
+		 *            the maximum number of slots to remove
+		 * @return the number of slots removed
+		 */
+		public int poll(int maxCount) {
+			if (head == size && newHead == newSize)
+				throw new RuntimeException("ERROR: There are no task slots");
+
+			if (newHead == newSize
+					|| (head < size && times[head] <= newTimes[newHead])) {
+				int count = Math.min(maxCount, counts[head]);
+				counts[head] -= count;
+				if (counts[head] == 0)
+					++head;
+				return count;
+			} else {
+				int count = Math.min(maxCount, newCounts[newHead]);
+				newCounts[newHead] -= count;
+				if (newCounts[newHead] == 0)
+					++newHead;
+				return count;
+			}
+		}
+
+		/**
+		 * Add slots with the same time in the new runs. The times are
+		 * expected to arrive mostly in increasing order.
+		 * 
+		 * @param time
+		 *            the slot time
+		 * @param count
+		 *            the number of slots
+		 */
+		public void push(long time, int count) {
+			// Find the position of the run, starting from the end
+			int pos = newSize;
+			while (pos > newHead && newTimes[pos - 1] > time)
+				--pos;
+
+			if (pos > newHead && newTimes[pos - 1] == time) {
+				newCounts[pos - 1] += count;
+				return;
+			}
+
+			// Make room for the new run
+			if (newSize == newTimes.length) {
+				if (newHead > 0) {
+					compact();
+					pos -= newHead;
+					newSize -= newHead;
+					newHead = 0;
+				} else {
+					newTimes = Arrays.copyOf(newTimes, 2 * newSize);
+					newCounts = Arrays.copyOf(newCounts, 2 * newSize);
+				}
+			}
+
+			System.arraycopy(newTimes, pos, newTimes, pos + 1, newSize - pos);
+			System.arraycopy(newCounts, pos, newCounts, pos + 1, newSize - pos);
+			newTimes[pos] = time;
+			newCounts[pos] = count;
+			++newSize;
+		}
+
+		/**
+		 * Merge the new runs into the current runs
+		 */
+		public void flush() {
+			if (newHead == newSize)
+				return;
+
+			// Merge the two queues into the buffers of the new runs
+			int total = (size - head) + (newSize - newHead);
+			long[] mergedTimes = times;
+			int[] mergedCounts = counts;
+			if (mergedTimes.length < total) {
+				mergedTimes = new long[Math.max(total, 2 * times.length)];
+				mergedCounts = new int[mergedTimes.length];
+			}
+
+			// Move the current runs to the end of their buffers first
+			int curr = mergedTimes.length - (size - head);
+			System.arraycopy(times, head, mergedTimes, curr, size - head);
+			System.arraycopy(counts, head, mergedCounts, curr, size - head);
+
+			int pos = 0;
+			int next = newHead;
+			while (curr < mergedTimes.length || next < newSize) {
+				long time;
+				int count;
+				if (next == newSize || (curr < mergedTimes.length
+						&& mergedTimes[curr] <= newTimes[next])) {
+					time = mergedTimes[curr];
+					count = mergedCounts[curr++];
+				} else {
+					time = newTimes[next];
+					count = newCounts[next++];
+				}
+
+				if (pos > 0 && mergedTimes[pos - 1] == time) {
+					mergedCounts[pos - 1] += count;
+				} else {
+					mergedTimes[pos] = time;
+					mergedCounts[pos++] = count;
+				}
+			}
+
+			times = mergedTimes;
+			counts = mergedCounts;
+			head = 0;
+			size = pos;
+			newHead = newSize = 0;
+		}
+
+		/**
+		 * Replace one occurrence of a time with a larger (or equal) time.
+		 * Nothing happens if the old time is not in the current runs.
+		 * 
+		 * @param oldTime
+		 *            the time to replace
+		 * @param newTime
+		 *            the new time
+		 */
+		public void increase(long oldTime, long newTime) {
+			flush();
+			int pos = Arrays.binarySearch(times, head, size, oldTime);
+			if (pos < 0)
+				return;
+
+			// Remove the slot from its run
+			if (--counts[pos] == 0) {
+				System.arraycopy(times, pos + 1, times, pos, size - pos - 1);
+				System.arraycopy(counts, pos + 1, counts, pos, size - pos - 1);
+				--size;
+			}
+
+			push(newTime, 1);
+			flush();
 		}
 
+		/**
+		 * Move the new runs to the beginning of their buffers
+		 */
+		private void compact() {
+			System.arraycopy(newTimes, newHead, newTimes, 0, newSize - newHead);
+			System.arraycopy(newCounts, newHead, newCounts, 0, newSize
+					- newHead);
+		}
 	}
 
 }
@@ -16,6 +16,7 @@ import edu.duke.starfish.profile.profileinfo.execution.profile.MRReduceProfile;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRCounter;
 import edu.duke.starfish.profile.profileinfo.execution.profile.enums.MRTaskPhase;
 import edu.duke.starfish.profile.profileinfo.setup.TaskTrackerInfo;
+import edu.duke.starfish.whatif.JobSettings;
 
 /**
  * A basic FIFO scheduler that simulates the execution of a MapReduce on a
@@ -96,6 +97,18 @@ public class BasicFIFOSchedulerForOptimizer implements IWhatIfScheduler {
 			slot.reset();
 	}
 
+	/**
+	 * @see IWhatIfScheduler#duplicate()
+	 */
+	@Override
+	public IWhatIfScheduler duplicate() {
+		// Checkpoints are not supported so a new scheduler is equivalent
+		BasicFIFOSchedulerForOptimizer copy = new BasicFIFOSchedulerForOptimizer(
+				cluster);
+		copy.setIgnoreReducers(ignoreReducers);
+		return copy;
+	}
+
 	/**
 	 * @see IWhatIfScheduler#getCluster()
 	 */
@@ -115,6 +128,17 @@ public class BasicFIFOSchedulerForOptimizer implements IWhatIfScheduler {
 				+ "does not support the method scheduleJobGetJobInfo");
 	}
 
+	/**
+	 * @see IWhatIfScheduler#scheduleJobGetJobInfo(Date, MRJobProfile,
+	 *      JobSettings)
+	 */
+	@Override
+	public MRJobInfo scheduleJobGetJobInfo(Date submissionTime,
+			MRJobProfile jobProfile, JobSettings settings) {
+		throw new RuntimeException("ERROR: The BasicFIFOSchedulerForOptimizer "
+				+ "does not support the method scheduleJobGetJobInfo");
+	}
+
 	/**
 	 * @see IWhatIfScheduler#scheduleJobGetTime(Date, MRJobProfile,
 	 *      Configuration)
@@ -122,11 +146,63 @@ public class BasicFIFOSchedulerForOptimizer implements IWhatIfScheduler {
 	@Override
 	public double scheduleJobGetTime(Date submissionTime,
 			MRJobProfile jobProfile, Configuration conf) {
+		return scheduleJobGetTime(submissionTime, jobProfile, conf.getFloat(
+				MR_RED_SLOWSTART_MAPS, DEF_RED_SLOWSTART_MAPS));
+	}
+
+	/**
+	 * @see IWhatIfScheduler#scheduleJobGetTime(Date, MRJobProfile,
+	 *      JobSettings)
+	 */
+	@Override
+	public double scheduleJobGetTime(Date submissionTime,
+			MRJobProfile jobProfile, JobSettings settings) {
+		return scheduleJobGetTime(submissionTime, jobProfile, settings
+				.getRedSlowstartMaps());
+	}
+
+	/**
+	 * @see IWhatIfScheduler#scheduleJobGetEndTime(Date, MRJobProfile,
+	 *      JobSettings)
+	 */
+	@Override
+	public long scheduleJobGetEndTime(Date submissionTime,
+			MRJobProfile jobProfile, JobSettings settings) {
+		throw new RuntimeException("ERROR: The BasicFIFOSchedulerForOptimizer "
+				+ "does not support the method scheduleJobGetEndTime");
+	}
+
+	/**
+	 * @see IWhatIfScheduler#setIgnoreReducers(boolean)
+	 */
+	@Override
+	public void setIgnoreReducers(boolean ignoreReducers) {
+		this.ignoreReducers = ignoreReducers;
+	}
+
+	/* ***************************************************************
+	 * PRIVATE METHODS
+	 * ***************************************************************
+	 */
+
+	/**
+	 * Simulate the job execution and return the execution time
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param jobProfile
+	 *            the virtual job profile
+	 * @param redSlowstartMaps
+	 *            the fraction of maps to complete before scheduling reducers
+	 * @return the job execution time
+	 */
+	private double scheduleJobGetTime(Date submissionTime,
+			MRJobProfile jobProfile, float redSlowstartMaps) {
 
 		// Calculate the number of completed maps before reducers start
 		int numMapTasks = jobProfile.getCounter(MRCounter.MAP_TASKS).intValue();
-		int numMapsBeforeReducers = (int) Math.ceil((conf.getFloat(
-				MR_RED_SLOWSTART_MAPS, DEF_RED_SLOWSTART_MAPS) * numMapTasks));
+		int numMapsBeforeReducers = (int) Math.ceil((redSlowstartMaps
+				* numMapTasks));
 		double reducerStartTime = 0d;
 
 		// Schedule all the map tasks
@@ -197,19 +273,6 @@ public class BasicFIFOSchedulerForOptimizer implements IWhatIfScheduler {
 		return jobCompletionTime;
 	}
 
-	/**
-	 * @see IWhatIfScheduler#setIgnoreReducers(boolean)
-	 */
-	@Override
-	public void setIgnoreReducers(boolean ignoreReducers) {
-		this.ignoreReducers = ignoreReducers;
-	}
-
-	/* ***************************************************************
-	 * PRIVATE METHODS
-	 * ***************************************************************
-	 */
-
 	/**
 	 * Simulate the execution of a map task and return the total execution time
 	 * (in ms).
@@ -258,7 +321,8 @@ public class BasicFIFOSchedulerForOptimizer implements IWhatIfScheduler {
 			return execTime;
 
 		// The reduce function will only start after all maps have completed
-		double shuffleTime = redProfile.getTiming(MRTaskPhase.SHUFFLE, 0d);
+		double shuffleTime = redProfile.getTimingDouble(
+				MRTaskPhase.SHUFFLE, 0d);
 		if (shuffleTime < shuffleMapOverlap)
 			execTime = execTime - shuffleTime + shuffleMapOverlap;
 
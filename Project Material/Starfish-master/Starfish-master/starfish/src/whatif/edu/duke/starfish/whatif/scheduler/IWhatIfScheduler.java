@@ -7,6 +7,7 @@ import org.apache.hadoop.conf.Configuration;
 import edu.duke.starfish.profile.profileinfo.ClusterConfiguration;
 import edu.duke.starfish.profile.profileinfo.execution.jobs.MRJobInfo;
 import edu.duke.starfish.profile.profileinfo.execution.profile.MRJobProfile;
+import edu.duke.starfish.whatif.JobSettings;
 
 /**
  * Interface for the WhatIf Scheduler.
@@ -38,6 +39,15 @@ public interface IWhatIfScheduler {
 	 */
 	public void reset();
 
+	/**
+	 * Create a new scheduler for the same cluster that starts from the last
+	 * checkpoint of this scheduler. The two schedulers do not share any state,
+	 * so they can be used concurrently by different threads.
+	 *
+	 * @return a copy of the checkpointed scheduler
+	 */
+	public IWhatIfScheduler duplicate();
+
 	/**
 	 * Get the cluster information
 	 * 
@@ -60,6 +70,21 @@ public interface IWhatIfScheduler {
 	public MRJobInfo scheduleJobGetJobInfo(Date submissionTime,
 			MRJobProfile jobProfile, Configuration conf);
 
+	/**
+	 * Schedule the job on a cluster using the compiled job settings and the
+	 * job profile, and return a representation of the job execution.
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param jobProfile
+	 *            the virtual job profile
+	 * @param settings
+	 *            the compiled job settings
+	 * @return the job execution
+	 */
+	public MRJobInfo scheduleJobGetJobInfo(Date submissionTime,
+			MRJobProfile jobProfile, JobSettings settings);
+
 	/**
 	 * Schedule the job on a cluster using the input configuration parameters
 	 * and the job profile, and return the overall execution time.
@@ -75,6 +100,38 @@ public interface IWhatIfScheduler {
 	public double scheduleJobGetTime(Date submissionTime,
 			MRJobProfile jobProfile, Configuration conf);
 
+	/**
+	 * Schedule the job on a cluster using the compiled job settings and the
+	 * job profile, and return the overall execution time.
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param jobProfile
+	 *            the virtual job profile
+	 * @param settings
+	 *            the compiled job settings
+	 * @return the job execution time
+	 */
+	public double scheduleJobGetTime(Date submissionTime,
+			MRJobProfile jobProfile, JobSettings settings);
+
+	/**
+	 * Schedule the job on a cluster using the compiled job settings and the
+	 * job profile, and return the time when the job completes. This method is
+	 * useful for scheduling multiple dependent jobs on the same cluster, where
+	 * a job is submitted when the jobs it depends on complete.
+	 * 
+	 * @param submissionTime
+	 *            the job submission time
+	 * @param jobProfile
+	 *            the virtual job profile
+	 * @param settings
+	 *            the compiled job settings
+	 * @return the job end time (in ms)
+	 */
+	public long scheduleJobGetEndTime(Date submissionTime,
+			MRJobProfile jobProfile, JobSettings settings);
+
 	/**
 	 * When this flag is set, the reducers will not get schedule on the cluster.
 	 * Instead, the job will only contain map tasks.
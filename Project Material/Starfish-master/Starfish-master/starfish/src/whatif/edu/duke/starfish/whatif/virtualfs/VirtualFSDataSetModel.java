@@ -180,6 +180,23 @@ public class VirtualFSDataSetModel extends DataSetModel {
 			Configuration conf, String outputDir, List<JobOutputSpecs> outSpecs) {
 
 		boolean mapOnly = conf.getInt(MR_RED_TASKS, 1) == 0;
+		setVirtualOutputPaths(vfs, mapOnly, outputDir, outSpecs);
+	}
+
+	/**
+	 * Set the virtual output paths in the virtual file system
+	 * 
+	 * @param vfs
+	 *            the virtual file system
+	 * @param mapOnly
+	 *            whether the job is a map-only job
+	 * @param outputDir
+	 *            the output directory
+	 * @param outSpecs
+	 *            the job output specs
+	 */
+	public static void setVirtualOutputPaths(VirtualFileSystem vfs,
+			boolean mapOnly, String outputDir, List<JobOutputSpecs> outSpecs) {
 
 		// Trim trailing separator
 		outputDir.trim();